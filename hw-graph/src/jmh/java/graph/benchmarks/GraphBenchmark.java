@@ -0,0 +1,277 @@
+package graph.benchmarks;
+
+import graph.Graph;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the core Graph operations on generated graphs of several sizes and degree
+ * distributions. Run with the jmh task, which adds the gc profiler so every result comes with
+ * bytes allocated per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraphBenchmark {
+    /**
+     * The number of random lookups precomputed, so picking a node costs nothing.
+     */
+    private static final int PICKS = 1 << 12;
+
+    /**
+     * The number of nodes in the graph.
+     */
+    @Param({"1000", "10000", "100000"})
+    public int nodes;
+
+    /**
+     * The distribution of edges per node.
+     */
+    @Param({"UNIFORM", "POWER_LAW"})
+    public GraphGenerator.Degrees degrees;
+
+    /**
+     * The average number of edges per node.
+     */
+    @Param({"8"})
+    public int averageDegree;
+
+    /**
+     * The graph queried, and changed only in ways that don't grow it. The edges between
+     * the random picks are added up front, so adding them again never grows it either.
+     */
+    private Graph<String, String> graph;
+
+    /**
+     * Random node labels in the graph.
+     */
+    private String[] nodeLabels;
+
+    /**
+     * Random edge labels in the graph.
+     */
+    private String[] edgeLabels;
+
+    /**
+     * Random nodes of the graph.
+     */
+    private Graph.Node<String>[] nodeObjects;
+
+    /**
+     * The index of the next random pick.
+     */
+    private int next;
+
+    /**
+     * Builds the graph and the random picks, and adds the edges between the picks.
+     */
+    @Setup(Level.Trial)
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void setUp() {
+        graph = GraphGenerator.generate(nodes, averageDegree, degrees, 331);
+        Random random = new Random(403);
+        nodeLabels = new String[PICKS];
+        edgeLabels = new String[PICKS];
+        nodeObjects = new Graph.Node[PICKS];
+        for (int i = 0; i < PICKS; i++) {
+            nodeLabels[i] = GraphGenerator.nodeLabel(random.nextInt(nodes));
+            edgeLabels[i] = GraphGenerator.edgeLabel(random.nextInt(Math.max(1, nodes / 2)));
+            nodeObjects[i] = new Graph.Node<>(nodeLabels[i]);
+        }
+        for (int i = 0; i < PICKS; i++) {
+            String next = nodeLabels[(i + 1) & (PICKS - 1)];
+            graph.addEdge(nodeLabels[i], edgeLabels[i]);
+            graph.addEdge(nodeLabels[i], next, edgeLabels[i]);
+            graph.addBiEdge(nodeLabels[i], next, edgeLabels[i]);
+        }
+    }
+
+    /**
+     * Returns the index of the next random pick.
+     *
+     * @return an index into the random picks
+     */
+    private int pick() {
+        next = (next + 1) & (PICKS - 1);
+        return next;
+    }
+
+    /**
+     * Adds a node that is already in the graph.
+     */
+    @Benchmark
+    public void addNodeExisting() {
+        graph.addNode(nodeLabels[pick()]);
+    }
+
+    /**
+     * Re-adds a non-unique edge held by a single node that is already in the graph, which
+     * only checks for the duplicate.
+     */
+    @Benchmark
+    public void addEdgeExisting() {
+        int i = pick();
+        graph.addEdge(nodeLabels[i], edgeLabels[i]);
+    }
+
+    /**
+     * Re-adds a non-unique directed edge between two nodes that is already in the graph,
+     * which only checks for the duplicate.
+     */
+    @Benchmark
+    public void addDirectedEdgeExisting() {
+        int i = pick();
+        graph.addEdge(nodeLabels[i], nodeLabels[(i + 1) & (PICKS - 1)], edgeLabels[i]);
+    }
+
+    /**
+     * Re-adds a non-unique bidirectional edge between two nodes that is already in the graph,
+     * which only checks for the duplicates.
+     */
+    @Benchmark
+    public void addBiEdgeExisting() {
+        int i = pick();
+        graph.addBiEdge(nodeLabels[i], nodeLabels[(i + 1) & (PICKS - 1)], edgeLabels[i]);
+    }
+
+    /**
+     * Gets the children of a node.
+     *
+     * @param bh consumes the result
+     */
+    @Benchmark
+    public void getChildren(Blackhole bh) {
+        bh.consume(graph.getChildren(nodeObjects[pick()]));
+    }
+
+    /**
+     * Gets the labels of the children of a node.
+     *
+     * @param bh consumes the result
+     */
+    @Benchmark
+    public void getChildrenLabels(Blackhole bh) {
+        bh.consume(graph.getChildrenLabels(nodeLabels[pick()]));
+    }
+
+    /**
+     * Lists the sorted child(edge) strings of a node.
+     *
+     * @param bh consumes the result
+     */
+    @Benchmark
+    public void listChildrenLabels(Blackhole bh) {
+        bh.consume(graph.listChildrenLabels(nodeLabels[pick()]));
+    }
+
+    /**
+     * Lists all node labels in sorted order.
+     *
+     * @param bh consumes the result
+     */
+    @Benchmark
+    public void listNodeLabels(Blackhole bh) {
+        bh.consume(graph.listNodeLabels());
+    }
+
+    /**
+     * Benchmarks for the operations that grow the graph. Each iteration starts from a
+     * freshly generated graph, so the growth of one iteration doesn't carry into the next.
+     */
+    @State(Scope.Benchmark)
+    public static class Growing {
+        /**
+         * The graph grown by the benchmarks.
+         */
+        Graph<String, String> graph;
+
+        /**
+         * The number of nodes or edges added so far, for making new labels.
+         */
+        int added;
+
+        /**
+         * Generates a fresh graph.
+         *
+         * @param fixture the parameters of the graph to generate
+         */
+        @Setup(Level.Iteration)
+        public void setUp(GraphBenchmark fixture) {
+            graph = GraphGenerator.generate(fixture.nodes, fixture.averageDegree, fixture.degrees, 331);
+            added = 0;
+        }
+    }
+
+    /**
+     * Adds a node that is not yet in the graph.
+     *
+     * @param state the graph to grow
+     */
+    @Benchmark
+    public void addNodeNew(Growing state) {
+        state.graph.addNode("new-" + state.added++);
+    }
+
+    /**
+     * Adds a non-unique edge held by a single node, with a label not yet in the graph, so it
+     * checks for a duplicate and then grows the graph.
+     *
+     * @param state the graph to grow
+     */
+    @Benchmark
+    public void addEdgeNew(Growing state) {
+        state.graph.addEdge(nodeLabels[pick()], "new-" + state.added++);
+    }
+
+    /**
+     * Adds a non-unique directed edge between two nodes, with a label not yet in the graph,
+     * so it checks for a duplicate and then grows the graph.
+     *
+     * @param state the graph to grow
+     */
+    @Benchmark
+    public void addDirectedEdgeNew(Growing state) {
+        int i = pick();
+        state.graph.addEdge(nodeLabels[i], nodeLabels[(i + 1) & (PICKS - 1)], "new-" + state.added++);
+    }
+
+    /**
+     * Adds a non-unique bidirectional edge between two nodes, with a label not yet in the
+     * graph, so it checks for duplicates and then grows the graph.
+     *
+     * @param state the graph to grow
+     */
+    @Benchmark
+    public void addBiEdgeNew(Growing state) {
+        int i = pick();
+        state.graph.addBiEdge(nodeLabels[i], nodeLabels[(i + 1) & (PICKS - 1)], "new-" + state.added++);
+    }
+
+    /**
+     * Adds a unique directed edge between two nodes, which always grows the graph.
+     *
+     * @param state the graph to grow
+     */
+    @Benchmark
+    public void addEdgeUnique(Growing state) {
+        int i = pick();
+        state.graph.addEdge(nodeLabels[i], nodeLabels[(i + 1) & (PICKS - 1)], edgeLabels[i], true);
+    }
+
+    /**
+     * Adds a unique bidirectional edge between two nodes, which always grows the graph.
+     *
+     * @param state the graph to grow
+     */
+    @Benchmark
+    public void addBiEdgeUnique(Growing state) {
+        int i = pick();
+        state.graph.addBiEdge(nodeLabels[i], nodeLabels[(i + 1) & (PICKS - 1)], edgeLabels[i], true);
+    }
+}
@@ -0,0 +1,116 @@
+package graph.benchmarks;
+
+import graph.Graph;
+
+import java.util.Random;
+
+/**
+ * GraphGenerator builds reproducible random graphs shaped like the Marvel graph: every node
+ * holds some edges, and every edge connects all of the nodes holding it.
+ */
+public final class GraphGenerator {
+
+    // This class does not represent an ADT.
+
+    /**
+     * How the number of edges per node, and the popularity of each edge, are distributed.
+     */
+    public enum Degrees {
+        /**
+         * Every node holds about the same number of edges, picked uniformly.
+         */
+        UNIFORM,
+        /**
+         * A few nodes hold many edges and a few edges are held by many nodes,
+         * as in the Marvel data where a handful of heroes appear in most books.
+         */
+        POWER_LAW
+    }
+
+    /**
+     * Not instantiable.
+     */
+    private GraphGenerator() {
+    }
+
+    /**
+     * Returns the label of node i.
+     *
+     * @param i the index of the node
+     * @return the label of node i
+     */
+    public static String nodeLabel(int i) {
+        return "node-" + i;
+    }
+
+    /**
+     * Returns the label of edge i.
+     *
+     * @param i the index of the edge
+     * @return the label of edge i
+     */
+    public static String edgeLabel(int i) {
+        return "edge-" + i;
+    }
+
+    /**
+     * Builds a graph of the given size. The same arguments always build the same graph.
+     *
+     * @param nodes the number of nodes
+     * @param averageDegree the average number of edges per node
+     * @param degrees the distribution of edges per node and nodes per edge
+     * @param seed the random seed
+     * @return a new graph with nodes "node-0".."node-(nodes-1)" and edges "edge-0".."edge-(nodes/2-1)"
+     * @spec.requires nodes &gt; 1 &amp;&amp; averageDegree &gt; 0
+     */
+    public static Graph<String, String> generate(int nodes, int averageDegree, Degrees degrees, long seed) {
+        Random random = new Random(seed);
+        int edges = Math.max(1, nodes / 2);
+        Graph<String, String> g = new Graph<>();
+        for (int i = 0; i < nodes; i++) {
+            g.addNode(nodeLabel(i));
+        }
+        for (int i = 0; i < nodes; i++) {
+            String n = nodeLabel(i);
+            int degree = degree(random, averageDegree, degrees);
+            for (int k = 0; k < degree; k++) {
+                g.addEdge(n, edgeLabel(pick(random, edges, degrees)));
+            }
+        }
+        return g;
+    }
+
+    /**
+     * Picks how many edges a node holds.
+     *
+     * @param random the source of randomness
+     * @param average the average degree
+     * @param degrees the distribution
+     * @return a degree of at least 1
+     */
+    private static int degree(Random random, int average, Degrees degrees) {
+        if (degrees == Degrees.UNIFORM) {
+            return 1 + random.nextInt(2 * average - 1);
+        }
+        // Pareto with shape 2 has mean 2 * minimum
+        double pareto = 1 / Math.sqrt(1 - random.nextDouble());
+        return (int) Math.max(1, Math.min(1000, Math.round(pareto * average / 2)));
+    }
+
+    /**
+     * Picks an edge for a node to hold.
+     *
+     * @param random the source of randomness
+     * @param edges the number of edges
+     * @param degrees the distribution
+     * @return the index of the edge
+     */
+    private static int pick(Random random, int edges, Degrees degrees) {
+        if (degrees == Degrees.UNIFORM) {
+            return random.nextInt(edges);
+        }
+        // Cubing a uniform variable favours the low indices
+        double u = random.nextDouble();
+        return (int) (u * u * u * edges);
+    }
+}
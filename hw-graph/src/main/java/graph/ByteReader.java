@@ -0,0 +1,64 @@
+package graph;
+
+/**
+ * <b>ByteReader</b> reads variable-length ints and raw bytes written by a {@link ByteWriter}.
+ */
+final class ByteReader {
+    /**
+     * The bytes to read.
+     */
+    private final byte[] buf;
+
+    /**
+     * The index of the next byte to read.
+     */
+    private int pos;
+
+    // Abstraction Function:
+    // The bytes buf[pos..] that have not been read yet
+
+    // Representation Invariant:
+    // 0 <= pos <= buf.length
+
+    /**
+     * Creates a reader starting at the given index.
+     *
+     * @param buf the bytes to read
+     * @param pos the index to start reading at
+     */
+    ByteReader(byte[] buf, int pos) {
+        this.buf = buf;
+        this.pos = pos;
+    }
+
+    /**
+     * Reads the next variable-length int.
+     *
+     * @return the int read
+     * @spec.modifies this
+     */
+    int readVarInt() {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buf[pos++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    /**
+     * Copies the next n bytes into dst starting at off.
+     *
+     * @param dst the array to copy into
+     * @param off the index in dst to copy to
+     * @param n the number of bytes to copy
+     * @spec.modifies this, dst
+     */
+    void readBytes(byte[] dst, int off, int n) {
+        System.arraycopy(buf, pos, dst, off, n);
+        pos += n;
+    }
+}
@@ -0,0 +1,97 @@
+package graph;
+
+import java.util.Arrays;
+
+/**
+ * <b>ByteWriter</b> is a growable byte buffer that can write variable-length ints.
+ */
+final class ByteWriter {
+    /**
+     * The bytes written so far, followed by unused space.
+     */
+    private byte[] buf = new byte[16];
+
+    /**
+     * The number of bytes written.
+     */
+    private int size;
+
+    // Abstraction Function:
+    // The sequence of bytes buf[0..size-1]
+
+    // Representation Invariant:
+    // 0 <= size <= buf.length
+
+    /**
+     * Writes a non-negative int in 7-bit groups, least significant first, with the
+     * high bit set on every byte but the last.
+     *
+     * @param value the value to write
+     * @spec.requires value &gt;= 0
+     * @spec.modifies this
+     */
+    void writeVarInt(int value) {
+        while ((value & ~0x7F) != 0) {
+            writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        writeByte(value);
+    }
+
+    /**
+     * Writes all of the given bytes.
+     *
+     * @param bytes the bytes to write
+     * @spec.modifies this
+     */
+    void write(byte[] bytes) {
+        write(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Writes n of the given bytes starting at off.
+     *
+     * @param bytes the bytes to write
+     * @param off the index of the first byte to write
+     * @param n the number of bytes to write
+     * @spec.modifies this
+     */
+    void write(byte[] bytes, int off, int n) {
+        if (size + n > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(size + n, buf.length * 2));
+        }
+        System.arraycopy(bytes, off, buf, size, n);
+        size += n;
+    }
+
+    /**
+     * Writes the low 8 bits of b.
+     *
+     * @param b the byte to write
+     * @spec.modifies this
+     */
+    void writeByte(int b) {
+        if (size == buf.length) {
+            buf = Arrays.copyOf(buf, buf.length * 2);
+        }
+        buf[size++] = (byte) b;
+    }
+
+    /**
+     * Returns the number of bytes written.
+     *
+     * @return the number of bytes written
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns a copy of the bytes written.
+     *
+     * @return the bytes written
+     */
+    byte[] toByteArray() {
+        return Arrays.copyOf(buf, size);
+    }
+}
@@ -0,0 +1,554 @@
+package graph;
+
+import java.util.*;
+
+/**
+ * <b>CompressedGraph</b> is an immutable, compact copy of a {@link Graph}.
+ *
+ * <p>Nodes and edges are numbered in label order. The edges held by each node and the
+ * nodes each edge connects to are stored as sorted id lists, and each list is written
+ * as variable-length gaps between successive ids. A list may also copy runs of ids out
+ * of one of the lists just before it, which pays off when neighbouring labels share most
+ * of their neighbours (such as consecutive issues of a comic book).
+ */
+public class CompressedGraph<N, E> {
+    /**
+     * How many preceding lists a list may copy ids from.
+     */
+    private static final int WINDOW = 7;
+
+    /**
+     * The longest chain of copied lists allowed, bounding the cost of decoding one list.
+     */
+    private static final int MAX_CHAIN = 3;
+
+    /**
+     * The node labels in id order.
+     */
+    private final List<N> nodeLabels;
+
+    /**
+     * The edge labels in id order.
+     */
+    private final List<E> edgeLabels;
+
+    /**
+     * The order of the node labels.
+     */
+    private final Comparator<? super N> nodeOrder;
+
+    /**
+     * The order of the edge labels.
+     */
+    private final Comparator<? super E> edgeOrder;
+
+    /**
+     * For each node, the ids of the edges it holds.
+     */
+    private final Lists nodeEdges;
+
+    /**
+     * For each edge, the ids of the nodes it connects to.
+     */
+    private final Lists edgeNodes;
+
+    // Abstraction Function:
+    // A graph G such that:
+    //      node i of G is labeled nodeLabels.get(i)
+    //      edge j of G is labeled edgeLabels.get(j)
+    //      node i holds the edges nodeEdges.get(i)
+    //      edge j connects to the nodes edgeNodes.get(j)
+
+    // Representation Invariant:
+    // nodeLabels is sorted by nodeOrder and edgeLabels is sorted by edgeOrder
+    // nodeEdges.size() == nodeLabels.size() && edgeNodes.size() == edgeLabels.size()
+    // (It's implied that there are no null fields in CompressedGraph)
+
+    /**
+     * Constructs a compressed copy of g.
+     *
+     * @param g the graph to copy
+     * @param nodeOrder the order to number the nodes in
+     * @param edgeOrder the order to number the edges in
+     * @spec.requires no argument is null
+     * @spec.effects Constructs a new CompressedGraph
+     */
+    public CompressedGraph(Graph<N, E> g, Comparator<? super N> nodeOrder, Comparator<? super E> edgeOrder) {
+        this(new Incidence<>(g, nodeOrder, edgeOrder), nodeOrder, edgeOrder);
+    }
+
+    /**
+     * Constructs a compressed copy of the numbered graph.
+     *
+     * @param incidence the numbered graph
+     * @param nodeOrder the order the nodes are numbered in
+     * @param edgeOrder the order the edges are numbered in
+     */
+    private CompressedGraph(Incidence<N, E> incidence, Comparator<? super N> nodeOrder,
+                            Comparator<? super E> edgeOrder) {
+        this(incidence, Collections.unmodifiableList(incidence.nodes),
+                Collections.unmodifiableList(incidence.edges), nodeOrder, edgeOrder);
+    }
+
+    /**
+     * Constructs a compressed copy of the numbered graph with the given label lists.
+     *
+     * @param incidence the numbered graph
+     * @param nodeLabels the node labels in id order
+     * @param edgeLabels the edge labels in id order
+     * @param nodeOrder the order the nodes are numbered in
+     * @param edgeOrder the order the edges are numbered in
+     */
+    private CompressedGraph(Incidence<N, E> incidence, List<N> nodeLabels, List<E> edgeLabels,
+                            Comparator<? super N> nodeOrder, Comparator<? super E> edgeOrder) {
+        this.nodeLabels = nodeLabels;
+        this.edgeLabels = edgeLabels;
+        this.nodeOrder = nodeOrder;
+        this.edgeOrder = edgeOrder;
+        this.nodeEdges = new Lists(incidence.nodeEdges);
+        this.edgeNodes = new Lists(incidence.edgeNodes);
+        checkRep();
+    }
+
+    /**
+     * Constructs a compressed copy of a graph whose labels have a natural order.
+     *
+     * @param g the graph to copy
+     * @param <N> the node label type
+     * @param <E> the edge label type
+     * @return a compressed copy of g
+     * @spec.requires g != null
+     */
+    public static <N extends Comparable<? super N>, E extends Comparable<? super E>>
+            CompressedGraph<N, E> of(Graph<N, E> g) {
+        return new CompressedGraph<>(g, Comparator.naturalOrder(), Comparator.naturalOrder());
+    }
+
+    /**
+     * Constructs a compressed copy of a graph with String labels, keeping the labels in
+     * front coded {@link LabelDictionary LabelDictionaries} instead of as String objects.
+     * Edge labels are only front coded if no two edges share a label.
+     *
+     * @param g the graph to copy
+     * @return a compressed copy of g
+     * @spec.requires g != null
+     */
+    public static CompressedGraph<String, String> ofStrings(Graph<String, String> g) {
+        Incidence<String, String> incidence =
+                new Incidence<>(g, Comparator.naturalOrder(), Comparator.naturalOrder());
+        LabelDictionary nodes = LabelDictionary.of(incidence.nodes);
+        LabelDictionary edges = LabelDictionary.of(incidence.edges);
+        List<String> edgeLabels = edges.size() == incidence.edges.size()
+                ? edges : Collections.unmodifiableList(incidence.edges);
+        return new CompressedGraph<>(incidence, nodes, edgeLabels,
+                Comparator.naturalOrder(), Comparator.naturalOrder());
+    }
+
+    /**
+     * Returns the number of nodes in the graph.
+     *
+     * @return the number of nodes
+     */
+    public int nodeCount() {
+        return nodeLabels.size();
+    }
+
+    /**
+     * Returns the number of edges in the graph.
+     *
+     * @return the number of edges
+     */
+    public int edgeCount() {
+        return edgeLabels.size();
+    }
+
+    /**
+     * Returns the id of the node with the given label, or a negative number if there is none.
+     *
+     * @param label the label of the node
+     * @return the id of the node labeled label, or a negative number if not in the graph
+     * @spec.requires label != null
+     */
+    public int nodeId(N label) {
+        return Collections.binarySearch(nodeLabels, label, nodeOrder);
+    }
+
+    /**
+     * Returns the id of an edge with the given label, or a negative number if there is none.
+     *
+     * @param label the label of the edge
+     * @return the id of an edge labeled label, or a negative number if not in the graph
+     * @spec.requires label != null
+     */
+    public int edgeId(E label) {
+        return Collections.binarySearch(edgeLabels, label, edgeOrder);
+    }
+
+    /**
+     * Returns the label of a node.
+     *
+     * @param node the id of the node
+     * @return the label of the node
+     * @spec.requires 0 &lt;= node &lt; nodeCount()
+     */
+    public N nodeLabel(int node) {
+        return nodeLabels.get(node);
+    }
+
+    /**
+     * Returns the label of an edge.
+     *
+     * @param edge the id of the edge
+     * @return the label of the edge
+     * @spec.requires 0 &lt;= edge &lt; edgeCount()
+     */
+    public E edgeLabel(int edge) {
+        return edgeLabels.get(edge);
+    }
+
+    /**
+     * Returns the node labels in id order.
+     *
+     * @return an unmodifiable list of the node labels
+     */
+    public List<N> listNodeLabels() {
+        return nodeLabels;
+    }
+
+    /**
+     * Returns the number of edges a node holds.
+     *
+     * @param node the id of the node
+     * @return the number of edges held by node
+     * @spec.requires 0 &lt;= node &lt; nodeCount()
+     */
+    public int edgeDegree(int node) {
+        return nodeEdges.length(node);
+    }
+
+    /**
+     * Returns the sorted ids of the edges a node holds.
+     *
+     * @param node the id of the node
+     * @return the sorted ids of the edges held by node
+     * @spec.requires 0 &lt;= node &lt; nodeCount()
+     */
+    public int[] edgesOf(int node) {
+        return nodeEdges.get(node);
+    }
+
+    /**
+     * Returns the sorted ids of the nodes an edge connects to.
+     *
+     * @param edge the id of the edge
+     * @return the sorted ids of the nodes connected by edge
+     * @spec.requires 0 &lt;= edge &lt; edgeCount()
+     */
+    public int[] nodesOf(int edge) {
+        return edgeNodes.get(edge);
+    }
+
+    /**
+     * Returns the sorted ids of the children of a node, the nodes reachable through
+     * one of its edges, excluding the node itself. The work done is proportional to the
+     * number of incidences decoded, not to the size of the graph.
+     *
+     * @param node the id of the node
+     * @return the sorted ids of the children of node
+     * @spec.requires 0 &lt;= node &lt; nodeCount()
+     */
+    public int[] childrenOf(int node) {
+        int[][] lists = new int[edgeDegree(node)][];
+        int total = 0;
+        int[] edges = edgesOf(node);
+        for (int i = 0; i < edges.length; i++) {
+            lists[i] = nodesOf(edges[i]);
+            total += lists[i].length;
+        }
+        int[] children = new int[total];
+        int count = 0;
+        for (int[] list : lists) {
+            System.arraycopy(list, 0, children, count, list.length);
+            count += list.length;
+        }
+        Arrays.sort(children);
+
+        // Drop repeats and node itself
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (children[i] != node && (distinct == 0 || children[distinct - 1] != children[i])) {
+                children[distinct++] = children[i];
+            }
+        }
+        return Arrays.copyOf(children, distinct);
+    }
+
+    /**
+     * Takes one step of a breadth first search: appends the children of a node that were
+     * not visited yet to a queue, and marks them visited. The caller keeps visited and queue
+     * for the whole search, so a step allocates nothing beyond decoding the lists of node.
+     *
+     * @param node the id of the node
+     * @param visited visited[i] is true iff node i was reached already
+     * @param queue the ids of the nodes reached, in the order they were reached
+     * @param tail the number of ids in queue
+     * @return the number of ids in queue after appending the unvisited children of node
+     * @spec.requires 0 &lt;= node &lt; nodeCount() and visited.length == nodeCount() and
+     * queue.length &gt;= nodeCount() and tail equals the number of true entries of visited
+     * @spec.modifies visited, queue
+     * @spec.effects marks each unvisited child of node visited and appends it to queue
+     */
+    public int visitChildren(int node, boolean[] visited, int[] queue, int tail) {
+        for (int e : edgesOf(node)) {
+            for (int child : nodesOf(e)) {
+                if (!visited[child]) {
+                    visited[child] = true;
+                    queue[tail++] = child;
+                }
+            }
+        }
+        return tail;
+    }
+
+    /**
+     * Returns the number of bits used to store the structure of the graph,
+     * not counting the labels.
+     *
+     * @return the number of bits in the encoded lists and their offsets
+     */
+    public long sizeInBits() {
+        return nodeEdges.sizeInBits() + edgeNodes.sizeInBits();
+    }
+
+    /**
+     * Returns the average number of bits spent per node-edge incidence.
+     *
+     * @return the bits per incidence, or 0 if the graph has no incidences
+     */
+    public double bitsPerIncidence() {
+        long incidences = nodeEdges.total + edgeNodes.total;
+        return incidences == 0 ? 0 : (double) sizeInBits() / incidences;
+    }
+
+    /**
+     * Throws an exception if the representation invariant is violated.
+     *
+     * @throws RuntimeException if representation invariant is violated
+     */
+    private void checkRep() {
+        assert (nodeLabels != null) : "nodeLabels == null";
+        assert (edgeLabels != null) : "edgeLabels == null";
+        assert (nodeEdges.size() == nodeLabels.size()) : "nodeEdges.size() != nodeLabels.size()";
+        assert (edgeNodes.size() == edgeLabels.size()) : "edgeNodes.size() != edgeLabels.size()";
+    }
+
+    /**
+     * <b>Lists</b> is an immutable sequence of sorted int lists, each stored as
+     * variable-length gaps, possibly copying runs from one of the preceding lists.
+     *
+     * <p>Each list is written as: its length; the distance back to the list it copies from
+     * (0 for none); if copying, the number of alternating copy/skip blocks over the
+     * copied list followed by their lengths; and finally the ids that were not copied,
+     * as the first id and then the gaps between successive ids.
+     */
+    static final class Lists {
+        /**
+         * The encoded lists, back to back.
+         */
+        private final byte[] code;
+
+        /**
+         * offsets[i] = the index in code where list i begins.
+         */
+        private final int[] offsets;
+
+        /**
+         * The total number of ids in all lists.
+         */
+        private final long total;
+
+        // Abstraction Function:
+        // A sequence of lists L such that L[i] = the list decoded from code at offsets[i]
+
+        // Representation Invariant:
+        // offsets is non-decreasing and every offset is within code
+
+        /**
+         * Encodes the given sorted lists.
+         *
+         * @param lists the lists to encode
+         * @spec.requires every list is strictly increasing and non-negative
+         */
+        Lists(int[][] lists) {
+            ByteWriter out = new ByteWriter();
+            int[] chain = new int[lists.length];
+            long count = 0;
+            offsets = new int[lists.length];
+            for (int i = 0; i < lists.length; i++) {
+                offsets[i] = out.size();
+                count += lists[i].length;
+
+                // Pick the preceding list that saves the most bytes to copy from
+                byte[] best = encode(lists[i], null, 0);
+                for (int r = 1; r <= WINDOW && i - r >= 0; r++) {
+                    if (chain[i - r] < MAX_CHAIN && lists[i - r].length > 0) {
+                        byte[] candidate = encode(lists[i], lists[i - r], r);
+                        if (candidate.length < best.length) {
+                            best = candidate;
+                            chain[i] = chain[i - r] + 1;
+                        }
+                    }
+                }
+                out.write(best);
+            }
+            code = out.toByteArray();
+            total = count;
+        }
+
+        /**
+         * Encodes a list, copying what it can out of a reference list.
+         *
+         * @param list the list to encode
+         * @param reference the list to copy from, or null for none
+         * @param distance how far back reference is, or 0 for none
+         * @return the encoded list
+         */
+        private static byte[] encode(int[] list, int[] reference, int distance) {
+            ByteWriter out = new ByteWriter();
+            out.writeVarInt(list.length);
+            if (list.length == 0) {
+                return out.toByteArray();
+            }
+            out.writeVarInt(distance);
+
+            int[] residuals = list;
+            int residualCount = list.length;
+            if (reference != null) {
+                // Mark the reference entries present in list, in alternating blocks
+                // that start with a (possibly empty) copy block
+                List<Integer> blocks = new ArrayList<>();
+                residuals = new int[list.length];
+                residualCount = 0;
+                boolean copying = true;
+                int run = 0;
+                int j = 0;
+                for (int x : reference) {
+                    while (j < list.length && list[j] < x) {
+                        residuals[residualCount++] = list[j++];
+                    }
+                    boolean present = j < list.length && list[j] == x;
+                    if (present) {
+                        j++;
+                    }
+                    if (present != copying) {
+                        blocks.add(run);
+                        copying = present;
+                        run = 0;
+                    }
+                    run++;
+                }
+                while (j < list.length) {
+                    residuals[residualCount++] = list[j++];
+                }
+                // The final block is implied by the length of the reference
+                out.writeVarInt(blocks.size());
+                for (int b = 0; b < blocks.size(); b++) {
+                    out.writeVarInt(b == 0 ? blocks.get(b) : blocks.get(b) - 1);
+                }
+            }
+
+            int prev = -1;
+            for (int k = 0; k < residualCount; k++) {
+                out.writeVarInt(residuals[k] - prev - 1);
+                prev = residuals[k];
+            }
+            return out.toByteArray();
+        }
+
+        /**
+         * Returns the number of lists.
+         *
+         * @return the number of lists
+         */
+        int size() {
+            return offsets.length;
+        }
+
+        /**
+         * Returns the length of list i without decoding it.
+         *
+         * @param i the index of the list
+         * @return the length of list i
+         */
+        int length(int i) {
+            return new ByteReader(code, offsets[i]).readVarInt();
+        }
+
+        /**
+         * Decodes list i.
+         *
+         * @param i the index of the list
+         * @return the sorted ids in list i
+         */
+        int[] get(int i) {
+            ByteReader in = new ByteReader(code, offsets[i]);
+            int length = in.readVarInt();
+            int[] result = new int[length];
+            if (length == 0) {
+                return result;
+            }
+            int distance = in.readVarInt();
+
+            int copied = 0;
+            int[] copies = result;
+            if (distance > 0) {
+                int[] reference = get(i - distance);
+                copies = new int[length];
+                int blockCount = in.readVarInt();
+                int pos = 0;
+                boolean copying = true;
+                for (int b = 0; b <= blockCount; b++) {
+                    int run;
+                    if (b == blockCount) {
+                        run = reference.length - pos;
+                    } else {
+                        run = b == 0 ? in.readVarInt() : in.readVarInt() + 1;
+                    }
+                    if (copying) {
+                        System.arraycopy(reference, pos, copies, copied, run);
+                        copied += run;
+                    }
+                    pos += run;
+                    copying = !copying;
+                }
+            }
+
+            // Merge the copied ids with the residuals as the residuals are decoded
+            int[] merged = distance > 0 ? result : copies;
+            int c = 0;
+            int k = 0;
+            int prev = -1;
+            for (int r = 0; r < length - copied; r++) {
+                int x = prev + 1 + in.readVarInt();
+                while (c < copied && copies[c] < x) {
+                    merged[k++] = copies[c++];
+                }
+                merged[k++] = x;
+                prev = x;
+            }
+            while (c < copied) {
+                merged[k++] = copies[c++];
+            }
+            return merged;
+        }
+
+        /**
+         * Returns the number of bits used by the encoded lists and their offsets.
+         *
+         * @return the size in bits
+         */
+        long sizeInBits() {
+            return 8L * code.length + 32L * offsets.length;
+        }
+    }
+}
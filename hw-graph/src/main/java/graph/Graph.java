@@ -28,6 +28,11 @@ public class Graph<N, E> {
      */
     private final Map<Edge<E>, Set<Node<N>>> edgeMap;
 
+    /**
+     * The number of changes made to the graph since it was constructed.
+     */
+    private long version;
+
     // Abstraction Function:
     // A graph G such that:
     //      nodeMap = the mapping of Nodes N to Edge Sets E in G
@@ -37,6 +42,8 @@ public class Graph<N, E> {
     //      edgeMap = the mapping of Edges E to Node Sets N in G
     //      edgeMap.get(e) = the Edge Set N_e for an Edge e for all e in E
     //      N[i] = the ith Node e_i for all Nodes in N
+    //
+    //      version = the number of times G has changed
 
 
     // Representation Invariant:
@@ -55,6 +62,7 @@ public class Graph<N, E> {
     //          k != null
     //          for each Node n in k:
     //              Node n is in edgeMap
+    // version >= 0
     // (It's implied that there are no null fields in Graph)
 
     /**
@@ -78,7 +86,9 @@ public class Graph<N, E> {
      */
     public void addNode(N label) {
         checkRep();
-        nodeMap.putIfAbsent(new Node<>(label), new HashSet<>());
+        if (nodeMap.putIfAbsent(new Node<>(label), new HashSet<>()) == null) {
+            version++;
+        }
         checkRep();
     }
 
@@ -116,10 +126,13 @@ public class Graph<N, E> {
         // Only add the edge if src is already in the graph
         if (nodeMap.containsKey(s)) {
             // Add the edge to the node's edges
-            nodeMap.get(s).add(e);
+            boolean changed = nodeMap.get(s).add(e);
             // Add the node to the edge's nodes
             edgeMap.putIfAbsent(e, new HashSet<>());
-            edgeMap.get(e).add(s);
+            changed |= edgeMap.get(e).add(s);
+            if (changed) {
+                version++;
+            }
         } else {
             throw new IllegalArgumentException("src must be the label of node already in the Graph.");
         }
@@ -167,10 +180,13 @@ public class Graph<N, E> {
         // Only add the directed edge if both src and dst are already in the graph
         if (nodeMap.containsKey(s) && nodeMap.containsKey(d)) {
             // Add the edge to src's edges
-            nodeMap.get(s).add(e);
+            boolean changed = nodeMap.get(s).add(e);
             // Add dst to edge's nodes
             edgeMap.putIfAbsent(e, new HashSet<>());
-            edgeMap.get(e).add(d);
+            changed |= edgeMap.get(e).add(d);
+            if (changed) {
+                version++;
+            }
         } else {
             throw new IllegalArgumentException("src and dst must be the labels of nodes already in the Graph.");
         }
@@ -216,18 +232,32 @@ public class Graph<N, E> {
         // Only add the directed edge if both src and dst are already in the graph
         if (nodeMap.containsKey(s) && nodeMap.containsKey(d)) {
             // Add the edge to src and dst's edges
-            nodeMap.get(s).add(e);
-            nodeMap.get(d).add(e);
+            boolean changed = nodeMap.get(s).add(e);
+            changed |= nodeMap.get(d).add(e);
             // Add src and dst to edge's nodes
             edgeMap.putIfAbsent(e, new HashSet<>());
-            edgeMap.get(e).add(s);
-            edgeMap.get(e).add(d);
+            changed |= edgeMap.get(e).add(s);
+            changed |= edgeMap.get(e).add(d);
+            if (changed) {
+                version++;
+            }
         } else {
             throw new IllegalArgumentException("src and dst must be the labels of nodes already in the Graph.");
         }
         checkRep();
     }
 
+    /**
+     * Returns the version of G, a count of the changes made to G. The version grows every time
+     * a node or edge is added, and stays the same when an add leaves G as it was, so anything
+     * computed from G is still valid while the version it was computed at is current.
+     *
+     * @return the number of changes made to G since it was constructed
+     */
+    public long getVersion() {
+        return version;
+    }
+
     /**
      * Returns a complete, sorted list of Node Labels N in the Graph G.
      * If the graph is empty returns an empty list.
@@ -314,6 +344,17 @@ public class Graph<N, E> {
                 .collect(Collectors.toUnmodifiableSet());
     }
 
+    /**
+     * Returns an unmodifiable set of all the nodes in the graph.
+     * Returns an empty set if the graph is empty.
+     *
+     * @return the nodes in the graph
+     */
+    public Set<Node<N>> getNodes() {
+        checkRep();
+        return Collections.unmodifiableSet(nodeMap.keySet());
+    }
+
     /** Returns the nodes connected to edge E
      *
      * @param e the edge to get the nodes of
@@ -389,15 +430,12 @@ public class Graph<N, E> {
         // get all edges incident to n
         Set<Edge<E>> edgesSet = new HashSet<>(nodeMap.get(n));
 
-        // get the set of all nodes connected to all edges of n
-        Set<Node<N>> nodeSet = new HashSet<>();
-        edgesSet.parallelStream().forEach(e -> nodeSet.addAll(edgeMap.get(e)));
-
-        // get the labels of all nodes that are children to n
-        Set<N> childrenSet = new HashSet<>();
-        nodeSet.parallelStream()
-                .filter(node -> !nodeLabel.equals(node.getLabel()))
-                .forEach(node -> childrenSet.add(node.getLabel()));
+        // get the labels of all nodes connected to all edges of n that are children to n
+        Set<N> childrenSet = edgesSet.parallelStream()
+                .flatMap(e -> edgeMap.get(e).stream())
+                .map(Node::getLabel)
+                .filter(label -> !nodeLabel.equals(label))
+                .collect(Collectors.toSet());
 
         checkRep();
         return childrenSet;
@@ -711,6 +749,7 @@ public class Graph<N, E> {
         if (CHECK_REP_SHALLOW) {
             assert (nodeMap != null) : "nodeMap == null";
             assert (edgeMap != null) : "edgeMap == null";
+            assert (version >= 0) : "version < 0";
 
             if (CHECK_REP_DEEP) {
                 for (Node<N> n : nodeMap.keySet()) {
@@ -0,0 +1,540 @@
+package graph;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+/**
+ * <b>GraphFootprint</b> estimates how many bytes of heap a graph, or any object holding graphs,
+ * retains.
+ *
+ * <p>The walk follows every reference reachable from the root once and charges each object to
+ * a category: the Graph.Node and Graph.Edge objects themselves, the labels they refer to (and
+ * anything those labels refer to), the map, set and list machinery holding them, and everything
+ * else. Sizes follow the layout of a 64-bit HotSpot JVM with compressed references: 12 byte object
+ * headers, 16 byte array headers, 4 byte references and 8 byte alignment. JDK collections are
+ * walked through their public API and charged for their usual table and entry objects, since
+ * their fields cannot be read reflectively.
+ */
+public final class GraphFootprint {
+    /**
+     * The size of an object header.
+     */
+    private static final int OBJECT_HEADER = 12;
+
+    /**
+     * The size of an array header, including the length.
+     */
+    private static final int ARRAY_HEADER = 16;
+
+    /**
+     * The size of a reference.
+     */
+    private static final int REFERENCE = 4;
+
+    /**
+     * The size of a HashMap.Node, as used by HashMap and HashSet.
+     */
+    private static final int HASH_ENTRY = 32;
+
+    /**
+     * The size of a LinkedHashMap.Entry, as used by LinkedHashMap and LinkedHashSet.
+     */
+    private static final int LINKED_HASH_ENTRY = 40;
+
+    /**
+     * The size of a LinkedList.Node or TreeMap.Entry.
+     */
+    private static final int LINKED_ENTRY = 24;
+
+    /**
+     * The shallow size of instances of each class seen so far.
+     */
+    private static final Map<Class<?>, Long> SHALLOW_SIZES = new HashMap<>();
+
+    /**
+     * The categories heap is charged to.
+     */
+    public enum Category {
+        /**
+         * Graph.Node objects.
+         */
+        NODES,
+        /**
+         * Graph.Edge objects.
+         */
+        EDGES,
+        /**
+         * Labels of nodes and edges and everything they refer to.
+         */
+        LABELS,
+        /**
+         * Maps, sets and lists, including their tables and entries.
+         */
+        COLLECTIONS,
+        /**
+         * Everything else.
+         */
+        OTHER
+    }
+
+    /**
+     * Not instantiable; use {@link #measure(Object)}.
+     */
+    private GraphFootprint() {
+    }
+
+    /**
+     * Measures the heap retained by root.
+     *
+     * @param root the object to measure
+     * @return the bytes and objects reachable from root, by category
+     * @spec.requires root != null
+     */
+    public static Report measure(Object root) {
+        Report report = new Report();
+        Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<Object> labels = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<Object> distinctNodes = new HashSet<>();
+        Set<Object> distinctEdges = new HashSet<>();
+        Set<Object> distinctLabels = new HashSet<>();
+        Deque<Object> objects = new ArrayDeque<>();
+        Deque<Category> contexts = new ArrayDeque<>();
+        objects.push(root);
+        contexts.push(Category.OTHER);
+
+        while (!objects.isEmpty()) {
+            Object o = objects.pop();
+            Category context = contexts.pop();
+            if (o == null || o instanceof Class || o instanceof Enum || !seen.add(o)) {
+                continue;
+            }
+            List<Object> children = new ArrayList<>();
+            Category category = context;
+            long bytes;
+            if (o instanceof Graph.Node) {
+                category = Category.NODES;
+                report.nodes++;
+                distinctNodes.add(o);
+                bytes = shallowSize(o.getClass());
+                labels.add(((Graph.Node<?>) o).getLabel());
+                push(objects, contexts, ((Graph.Node<?>) o).getLabel(), Category.LABELS);
+            } else if (o instanceof Graph.Edge) {
+                category = Category.EDGES;
+                report.edges++;
+                distinctEdges.add(o);
+                Graph.Edge<?> e = (Graph.Edge<?>) o;
+                bytes = shallowSize(o.getClass());
+                labels.add(e.getLabel());
+                push(objects, contexts, e.getLabel(), Category.LABELS);
+                push(objects, contexts, e.getId(), Category.LABELS);
+            } else if (o instanceof String) {
+                bytes = stringSize((String) o);
+            } else if ((o instanceof Map || o instanceof Collection) && isJdkClass(o.getClass())) {
+                category = Category.COLLECTIONS;
+                bytes = collectionSize(o, children);
+            } else if (o.getClass().isArray()) {
+                bytes = arraySize(o, children);
+            } else {
+                bytes = shallowSize(o.getClass());
+                fields(o, children);
+            }
+            if (context == Category.LABELS && category != Category.NODES && category != Category.EDGES) {
+                // Anything a label refers to counts as part of the label
+                category = Category.LABELS;
+            }
+            if (labels.contains(o)) {
+                report.labels++;
+                distinctLabels.add(o);
+            }
+            report.add(category, bytes);
+            Category childContext = category == Category.LABELS ? Category.LABELS : Category.OTHER;
+            for (Object child : children) {
+                push(objects, contexts, child, childContext);
+            }
+        }
+        report.distinctNodes = distinctNodes.size();
+        report.distinctEdges = distinctEdges.size();
+        report.distinctLabels = distinctLabels.size();
+        return report;
+    }
+
+    /**
+     * Schedules an object to be visited.
+     *
+     * @param objects the objects to visit
+     * @param contexts the category each object to visit was reached from
+     * @param o the object to visit
+     * @param context the category o was reached from
+     */
+    private static void push(Deque<Object> objects, Deque<Category> contexts, Object o, Category context) {
+        if (o != null) {
+            objects.push(o);
+            contexts.push(context);
+        }
+    }
+
+    /**
+     * Returns whether c is part of the JDK, and so cannot be walked reflectively.
+     *
+     * @param c the class
+     * @return true iff c is in a java.* package
+     */
+    private static boolean isJdkClass(Class<?> c) {
+        return c.getName().startsWith("java.");
+    }
+
+    /**
+     * Returns the size of a String including its character array.
+     *
+     * @param s the string
+     * @return the bytes retained by s
+     */
+    private static long stringSize(String s) {
+        boolean latin1 = true;
+        for (int i = 0; i < s.length() && latin1; i++) {
+            latin1 = s.charAt(i) <= 0xFF;
+        }
+        long chars = latin1 ? s.length() : 2L * s.length();
+        return shallowSize(String.class) + align(ARRAY_HEADER + chars);
+    }
+
+    /**
+     * Returns the size of a JDK map or collection and its tables and entries, not counting the
+     * elements, which are added to children.
+     *
+     * @param o the map or collection
+     * @param children the list to add the elements of o to
+     * @return the bytes retained by o, not counting its elements
+     */
+    private static long collectionSize(Object o, List<Object> children) {
+        int size;
+        if (o instanceof Map) {
+            Map<?, ?> m = (Map<?, ?>) o;
+            size = m.size();
+            for (Map.Entry<?, ?> e : m.entrySet()) {
+                children.add(e.getKey());
+                children.add(e.getValue());
+            }
+        } else {
+            Collection<?> c = (Collection<?>) o;
+            size = c.size();
+            children.addAll(c);
+        }
+
+        long bytes = shallowSize(o.getClass());
+        if (o instanceof LinkedHashMap || o instanceof LinkedHashSet) {
+            bytes += hashTableSize(size) + (long) size * LINKED_HASH_ENTRY;
+        } else if (o instanceof HashMap || o instanceof HashSet) {
+            bytes += hashTableSize(size) + (long) size * HASH_ENTRY;
+        } else if (o instanceof ArrayList || o instanceof ArrayDeque) {
+            bytes += align(ARRAY_HEADER + (long) size * REFERENCE);
+        } else if (o instanceof LinkedList || o instanceof TreeMap || o instanceof TreeSet) {
+            bytes += (long) size * LINKED_ENTRY;
+        }
+        if (o instanceof HashSet || o instanceof TreeSet) {
+            // The set is a wrapper around a map
+            bytes += shallowSize(o instanceof HashSet ? HashMap.class : TreeMap.class);
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns the size of the bucket array of a hash table holding size entries
+     * with the default load factor.
+     *
+     * @param size the number of entries
+     * @return the size of the bucket array
+     */
+    private static long hashTableSize(int size) {
+        if (size == 0) {
+            return 0;
+        }
+        int capacity = Integer.highestOneBit(Math.max(1, (int) Math.ceil(size / 0.75) - 1)) << 1;
+        return align(ARRAY_HEADER + (long) Math.max(16, capacity) * REFERENCE);
+    }
+
+    /**
+     * Returns the size of an array, adding its elements to children if it holds references.
+     *
+     * @param array the array
+     * @param children the list to add the elements of array to
+     * @return the size of array, not counting its elements
+     */
+    private static long arraySize(Object array, List<Object> children) {
+        Class<?> type = array.getClass().getComponentType();
+        int length = Array.getLength(array);
+        if (!type.isPrimitive()) {
+            children.addAll(Arrays.asList((Object[]) array));
+        }
+        return align(ARRAY_HEADER + (long) length * fieldSize(type));
+    }
+
+    /**
+     * Adds the objects the fields of o refer to to children, if the fields can be read.
+     *
+     * @param o the object
+     * @param children the list to add the referenced objects to
+     */
+    private static void fields(Object o, List<Object> children) {
+        for (Class<?> c = o.getClass(); c != null; c = c.getSuperclass()) {
+            for (Field f : c.getDeclaredFields()) {
+                if (Modifier.isStatic(f.getModifiers()) || f.getType().isPrimitive()) {
+                    continue;
+                }
+                try {
+                    f.setAccessible(true);
+                    children.add(f.get(o));
+                } catch (RuntimeException | IllegalAccessException e) {
+                    // JDK internals are not open to reflection; count them as opaque
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the size of an instance of c, not counting anything it refers to.
+     *
+     * @param c the class
+     * @return the shallow size of an instance of c
+     */
+    private static synchronized long shallowSize(Class<?> c) {
+        Long cached = SHALLOW_SIZES.get(c);
+        if (cached != null) {
+            return cached;
+        }
+        long bytes = OBJECT_HEADER;
+        for (Class<?> k = c; k != null; k = k.getSuperclass()) {
+            for (Field f : k.getDeclaredFields()) {
+                if (!Modifier.isStatic(f.getModifiers())) {
+                    bytes += fieldSize(f.getType());
+                }
+            }
+        }
+        bytes = align(bytes);
+        SHALLOW_SIZES.put(c, bytes);
+        return bytes;
+    }
+
+    /**
+     * Returns the number of bytes a field or array element of the given type takes.
+     *
+     * @param type the type of the field
+     * @return the size of the field
+     */
+    private static int fieldSize(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        } else if (type == int.class || type == float.class) {
+            return 4;
+        } else if (type == short.class || type == char.class) {
+            return 2;
+        } else if (type == byte.class || type == boolean.class) {
+            return 1;
+        }
+        return REFERENCE;
+    }
+
+    /**
+     * Rounds bytes up to the object alignment.
+     *
+     * @param bytes the unaligned size
+     * @return the aligned size
+     */
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    /**
+     * <b>Report</b> is the heap retained by an object, broken down by category.
+     */
+    public static final class Report {
+        /**
+         * The bytes charged to each category.
+         */
+        private final long[] bytes = new long[Category.values().length];
+
+        /**
+         * The number of objects charged to each category.
+         */
+        private final long[] objects = new long[Category.values().length];
+
+        /**
+         * The number of Graph.Node objects seen.
+         */
+        private long nodes;
+
+        /**
+         * The number of Graph.Edge objects seen.
+         */
+        private long edges;
+
+        /**
+         * The number of labels seen.
+         */
+        private long labels;
+
+        /**
+         * The number of Graph.Node objects seen that are not equal to each other.
+         */
+        private long distinctNodes;
+
+        /**
+         * The number of Graph.Edge objects seen that are not equal to each other.
+         */
+        private long distinctEdges;
+
+        /**
+         * The number of labels seen that are not equal to each other.
+         */
+        private long distinctLabels;
+
+        // Abstraction Function:
+        // bytes[c.ordinal()] = the bytes charged to category c
+        // objects[c.ordinal()] = the objects charged to category c
+        // nodes, edges, labels = the number of node, edge and label objects seen
+        // distinctNodes, distinctEdges, distinctLabels = the number of those that are not equal
+
+        // Representation Invariant:
+        // every entry of bytes and objects is >= 0
+
+        /**
+         * Creates an empty report.
+         */
+        private Report() {
+        }
+
+        /**
+         * Charges one object to a category.
+         *
+         * @param c the category
+         * @param size the size of the object
+         */
+        private void add(Category c, long size) {
+            bytes[c.ordinal()] += size;
+            objects[c.ordinal()]++;
+        }
+
+        /**
+         * Returns the bytes charged to a category.
+         *
+         * @param c the category
+         * @return the bytes charged to c
+         */
+        public long getBytes(Category c) {
+            return bytes[c.ordinal()];
+        }
+
+        /**
+         * Returns the number of objects charged to a category.
+         *
+         * @param c the category
+         * @return the number of objects charged to c
+         */
+        public long getObjects(Category c) {
+            return objects[c.ordinal()];
+        }
+
+        /**
+         * Returns the total bytes retained.
+         *
+         * @return the sum of the bytes of every category
+         */
+        public long getTotalBytes() {
+            return Arrays.stream(bytes).sum();
+        }
+
+        /**
+         * Returns the number of Graph.Node objects seen.
+         *
+         * @return the number of nodes
+         */
+        public long getNodeCount() {
+            return nodes;
+        }
+
+        /**
+         * Returns the number of Graph.Edge objects seen. Equal edges held by different
+         * nodes are separate objects and are counted separately.
+         *
+         * @return the number of edges
+         */
+        public long getEdgeCount() {
+            return edges;
+        }
+
+        /**
+         * Returns the number of distinct label objects seen.
+         *
+         * @return the number of labels
+         */
+        public long getLabelCount() {
+            return labels;
+        }
+
+        /**
+         * Returns the number of distinct nodes seen, which for a single Graph is its number of nodes.
+         *
+         * @return the number of nodes not equal to each other
+         */
+        public long getDistinctNodeCount() {
+            return distinctNodes;
+        }
+
+        /**
+         * Returns the number of distinct edges seen, which for a single Graph is its number of edges.
+         *
+         * @return the number of edges not equal to each other
+         */
+        public long getDistinctEdgeCount() {
+            return distinctEdges;
+        }
+
+        /**
+         * Returns the number of distinct labels seen. Fewer distinct labels than labels means
+         * equal labels are stored as separate copies.
+         *
+         * @return the number of labels not equal to each other
+         */
+        public long getDistinctLabelCount() {
+            return distinctLabels;
+        }
+
+        /**
+         * Returns a table of the bytes per category, and the bytes per node, edge and label.
+         *
+         * @return this report as a String
+         */
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("%-12s %12s %12s%n", "category", "objects", "bytes"));
+            for (Category c : Category.values()) {
+                sb.append(String.format("%-12s %12d %12d%n", c.name().toLowerCase(), getObjects(c), getBytes(c)));
+            }
+            sb.append(String.format("%-12s %12s %12d%n", "total", "", getTotalBytes()));
+            sb.append(String.format("bytes per node:  %.1f (%d nodes in %d Node objects, total retained)%n",
+                    perUnit(getTotalBytes(), distinctNodes), distinctNodes, nodes));
+            sb.append(String.format("bytes per edge:  %.1f (%d edges in %d Edge objects)%n",
+                    perUnit(getBytes(Category.EDGES), distinctEdges), distinctEdges, edges));
+            sb.append(String.format("bytes per label: %.1f (%d labels in %d objects)%n",
+                    perUnit(getBytes(Category.LABELS), distinctLabels), distinctLabels, labels));
+            sb.append(String.format("collection overhead per node: %.1f%n",
+                    perUnit(getBytes(Category.COLLECTIONS), distinctNodes)));
+            return sb.toString();
+        }
+
+        /**
+         * Divides bytes by count, or returns 0 if count is 0.
+         *
+         * @param total the bytes
+         * @param count the number of units
+         * @return the bytes per unit
+         */
+        private static double perUnit(long total, long count) {
+            return count == 0 ? 0 : (double) total / count;
+        }
+    }
+}
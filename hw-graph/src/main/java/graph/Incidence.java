@@ -0,0 +1,118 @@
+package graph;
+
+import java.util.*;
+
+/**
+ * <b>Incidence</b> is an immutable, int-numbered snapshot of the structure of a {@link Graph}.
+ * Nodes and edges are numbered in the order given by the comparators on their labels,
+ * so comparing two ids compares their labels.
+ * Used by the read-only graph representations built from a Graph.
+ */
+final class Incidence<N, E> {
+    /**
+     * The node labels in id order.
+     */
+    final List<N> nodes;
+
+    /**
+     * The edge labels in id order. Labels may repeat when the graph holds unique edges.
+     */
+    final List<E> edges;
+
+    /**
+     * nodeEdges[n] = the sorted ids of the edges held by node n.
+     */
+    final int[][] nodeEdges;
+
+    /**
+     * edgeNodes[e] = the sorted ids of the nodes edge e connects to.
+     */
+    final int[][] edgeNodes;
+
+    // Abstraction Function:
+    // A graph G with nodes 0..nodes.size()-1 and edges 0..edges.size()-1 such that:
+    //      node i is labeled nodes.get(i), edge j is labeled edges.get(j)
+    //      node i holds edge j iff j is in nodeEdges[i]
+    //      edge j connects to node i iff i is in edgeNodes[j]
+
+    // Representation Invariant:
+    // nodeEdges.length == nodes.size() && edgeNodes.length == edges.size()
+    // every list in nodeEdges and edgeNodes is strictly increasing and in range
+
+    /**
+     * Numbers the nodes and edges of g.
+     *
+     * @param g the graph to number
+     * @param nodeOrder the order to number the nodes in
+     * @param edgeOrder the order to number the edges in
+     * @spec.requires no argument is null
+     */
+    Incidence(Graph<N, E> g, Comparator<? super N> nodeOrder, Comparator<? super E> edgeOrder) {
+        List<Graph.Node<N>> nodeList = new ArrayList<>(g.getNodes());
+        nodeList.sort((a, b) -> nodeOrder.compare(a.getLabel(), b.getLabel()));
+        Map<Graph.Node<N>, Integer> nodeIds = new HashMap<>();
+        for (int i = 0; i < nodeList.size(); i++) {
+            nodeIds.put(nodeList.get(i), i);
+        }
+
+        // Visit the edges through the sorted nodes so that unique edges sharing
+        // a label are numbered the same way every time
+        Map<Graph.Edge<E>, Integer> firstSeen = new LinkedHashMap<>();
+        for (Graph.Node<N> n : nodeList) {
+            for (Graph.Edge<E> e : g.getEdges(n)) {
+                firstSeen.putIfAbsent(e, firstSeen.size());
+            }
+        }
+        List<Graph.Edge<E>> edgeList = new ArrayList<>(firstSeen.keySet());
+        edgeList.sort(Comparator.comparing(Graph.Edge::getLabel, edgeOrder));
+        Map<Graph.Edge<E>, Integer> edgeIds = new HashMap<>();
+        for (int i = 0; i < edgeList.size(); i++) {
+            edgeIds.put(edgeList.get(i), i);
+        }
+
+        nodes = new ArrayList<>(nodeList.size());
+        nodeEdges = new int[nodeList.size()][];
+        for (int i = 0; i < nodeList.size(); i++) {
+            Graph.Node<N> n = nodeList.get(i);
+            nodes.add(n.getLabel());
+            nodeEdges[i] = sortedIds(g.getEdges(n), edgeIds);
+        }
+
+        edges = new ArrayList<>(edgeList.size());
+        edgeNodes = new int[edgeList.size()][];
+        for (int i = 0; i < edgeList.size(); i++) {
+            Graph.Edge<E> e = edgeList.get(i);
+            edges.add(e.getLabel());
+            edgeNodes[i] = sortedIds(g.getNodes(e), nodeIds);
+        }
+        checkRep();
+    }
+
+    /**
+     * Returns the sorted ids of the given elements.
+     *
+     * @param elements the elements to look up
+     * @param ids the mapping of elements to ids
+     * @param <T> the element type
+     * @return the sorted ids of elements
+     */
+    private static <T> int[] sortedIds(Collection<T> elements, Map<T, Integer> ids) {
+        int[] result = new int[elements.size()];
+        int i = 0;
+        for (T t : elements) {
+            result[i++] = ids.get(t);
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Throws an exception if the representation invariant is violated.
+     *
+     * @throws RuntimeException if representation invariant is violated
+     */
+    private void checkRep() {
+        assert (nodeEdges.length == nodes.size()) : "nodeEdges.length != nodes.size()";
+        assert (edgeNodes.length == edges.size()) : "edgeNodes.length != edges.size()";
+    }
+}
@@ -0,0 +1,410 @@
+package graph;
+
+import java.util.*;
+
+/**
+ * <b>IndexedGraph</b> is an immutable, int-numbered copy of a {@link Graph} laid out for
+ * fast searches. Nodes and edges are numbered in label order, so comparing ids compares
+ * labels, and every adjacency list is a sorted slice of one shared int array.
+ *
+ * <p>An edge is held by its tails, the nodes it was added to, and connects to its heads,
+ * the nodes it leads to. Each node has the edges it holds (its out edges) and the edges
+ * that lead to it (its in edges), and each edge has its tails and its heads. For graphs
+ * where every edge connects to the nodes holding it, such as the Marvel graph, tails and
+ * heads are the same lists and are stored once.
+ */
+public class IndexedGraph<N, E> {
+    /**
+     * The node labels in id order.
+     */
+    private final List<N> nodeLabels;
+
+    /**
+     * The edge labels in id order.
+     */
+    private final List<E> edgeLabels;
+
+    /**
+     * The order of the node labels.
+     */
+    private final Comparator<? super N> nodeOrder;
+
+    /**
+     * The order of the edge labels.
+     */
+    private final Comparator<? super E> edgeOrder;
+
+    /**
+     * For each node, the ids of the edges it holds.
+     */
+    private final Adjacency out;
+
+    /**
+     * For each node, the ids of the edges that connect to it.
+     */
+    private final Adjacency in;
+
+    /**
+     * For each edge, the ids of the nodes that hold it.
+     */
+    private final Adjacency tails;
+
+    /**
+     * For each edge, the ids of the nodes it connects to.
+     */
+    private final Adjacency heads;
+
+    // Abstraction Function:
+    // A graph G such that:
+    //      node i of G is labeled nodeLabels.get(i)
+    //      edge j of G is labeled edgeLabels.get(j)
+    //      node i holds edge j iff j is in out(i) iff i is in tails(j)
+    //      edge j connects to node i iff i is in heads(j) iff j is in in(i)
+
+    // Representation Invariant:
+    // nodeLabels is sorted by nodeOrder and edgeLabels is sorted by edgeOrder
+    // out.size() == in.size() == nodeLabels.size()
+    // tails.size() == heads.size() == edgeLabels.size()
+    // tails is the transpose of out and in is the transpose of heads
+    // every list is strictly increasing
+    // (It's implied that there are no null fields in IndexedGraph)
+
+    /**
+     * Constructs an indexed copy of g.
+     *
+     * @param g the graph to copy
+     * @param nodeOrder the order to number the nodes in
+     * @param edgeOrder the order to number the edges in
+     * @spec.requires no argument is null
+     * @spec.effects Constructs a new IndexedGraph
+     */
+    public IndexedGraph(Graph<N, E> g, Comparator<? super N> nodeOrder, Comparator<? super E> edgeOrder) {
+        Incidence<N, E> incidence = new Incidence<>(g, nodeOrder, edgeOrder);
+        this.nodeLabels = Collections.unmodifiableList(incidence.nodes);
+        this.edgeLabels = Collections.unmodifiableList(incidence.edges);
+        this.nodeOrder = nodeOrder;
+        this.edgeOrder = edgeOrder;
+        this.out = new Adjacency(incidence.nodeEdges);
+        this.heads = new Adjacency(incidence.edgeNodes);
+        Adjacency tails = out.transpose(edgeLabels.size());
+        this.tails = tails.equals(heads) ? heads : tails;
+        this.in = this.tails == heads ? out : heads.transpose(nodeLabels.size());
+        checkRep();
+    }
+
+    /**
+     * Constructs an indexed copy of a graph whose labels have a natural order.
+     *
+     * @param g the graph to copy
+     * @param <N> the node label type
+     * @param <E> the edge label type
+     * @return an indexed copy of g
+     * @spec.requires g != null
+     */
+    public static <N extends Comparable<? super N>, E extends Comparable<? super E>>
+            IndexedGraph<N, E> of(Graph<N, E> g) {
+        return new IndexedGraph<>(g, Comparator.naturalOrder(), Comparator.naturalOrder());
+    }
+
+    /**
+     * Returns the number of nodes in the graph.
+     *
+     * @return the number of nodes
+     */
+    public int nodeCount() {
+        return nodeLabels.size();
+    }
+
+    /**
+     * Returns the number of edges in the graph.
+     *
+     * @return the number of edges
+     */
+    public int edgeCount() {
+        return edgeLabels.size();
+    }
+
+    /**
+     * Returns the id of the node with the given label, or a negative number if there is none.
+     *
+     * @param label the label of the node
+     * @return the id of the node labeled label, or a negative number if not in the graph
+     * @spec.requires label != null
+     */
+    public int nodeId(N label) {
+        return Collections.binarySearch(nodeLabels, label, nodeOrder);
+    }
+
+    /**
+     * Returns the id of an edge with the given label, or a negative number if there is none.
+     *
+     * @param label the label of the edge
+     * @return the id of an edge labeled label, or a negative number if not in the graph
+     * @spec.requires label != null
+     */
+    public int edgeId(E label) {
+        return Collections.binarySearch(edgeLabels, label, edgeOrder);
+    }
+
+    /**
+     * Returns the label of a node.
+     *
+     * @param node the id of the node
+     * @return the label of the node
+     * @spec.requires 0 &lt;= node &lt; nodeCount()
+     */
+    public N nodeLabel(int node) {
+        return nodeLabels.get(node);
+    }
+
+    /**
+     * Returns the label of an edge.
+     *
+     * @param edge the id of the edge
+     * @return the label of the edge
+     * @spec.requires 0 &lt;= edge &lt; edgeCount()
+     */
+    public E edgeLabel(int edge) {
+        return edgeLabels.get(edge);
+    }
+
+    /**
+     * Returns the node labels in id order.
+     *
+     * @return an unmodifiable list of the node labels
+     */
+    public List<N> listNodeLabels() {
+        return nodeLabels;
+    }
+
+    /**
+     * Returns the number of edges a node holds.
+     *
+     * @param node the id of the node
+     * @return the number of edges held by node
+     * @spec.requires 0 &lt;= node &lt; nodeCount()
+     */
+    public int outDegree(int node) {
+        return out.size(node);
+    }
+
+    /**
+     * Returns one of the edges a node holds. The edges are in id order.
+     *
+     * @param node the id of the node
+     * @param k the index of the edge among the edges node holds
+     * @return the id of the kth edge held by node
+     * @spec.requires 0 &lt;= node &lt; nodeCount() and 0 &lt;= k &lt; outDegree(node)
+     */
+    public int outEdge(int node, int k) {
+        return out.get(node, k);
+    }
+
+    /**
+     * Returns the number of edges that connect to a node.
+     *
+     * @param node the id of the node
+     * @return the number of edges connecting to node
+     * @spec.requires 0 &lt;= node &lt; nodeCount()
+     */
+    public int inDegree(int node) {
+        return in.size(node);
+    }
+
+    /**
+     * Returns one of the edges that connect to a node. The edges are in id order.
+     *
+     * @param node the id of the node
+     * @param k the index of the edge among the edges connecting to node
+     * @return the id of the kth edge connecting to node
+     * @spec.requires 0 &lt;= node &lt; nodeCount() and 0 &lt;= k &lt; inDegree(node)
+     */
+    public int inEdge(int node, int k) {
+        return in.get(node, k);
+    }
+
+    /**
+     * Returns the number of nodes an edge connects to.
+     *
+     * @param edge the id of the edge
+     * @return the number of heads of edge
+     * @spec.requires 0 &lt;= edge &lt; edgeCount()
+     */
+    public int headCount(int edge) {
+        return heads.size(edge);
+    }
+
+    /**
+     * Returns one of the nodes an edge connects to. The nodes are in id order.
+     *
+     * @param edge the id of the edge
+     * @param k the index of the node among the heads of edge
+     * @return the id of the kth head of edge
+     * @spec.requires 0 &lt;= edge &lt; edgeCount() and 0 &lt;= k &lt; headCount(edge)
+     */
+    public int head(int edge, int k) {
+        return heads.get(edge, k);
+    }
+
+    /**
+     * Returns the number of nodes that hold an edge.
+     *
+     * @param edge the id of the edge
+     * @return the number of tails of edge
+     * @spec.requires 0 &lt;= edge &lt; edgeCount()
+     */
+    public int tailCount(int edge) {
+        return tails.size(edge);
+    }
+
+    /**
+     * Returns one of the nodes that hold an edge. The nodes are in id order.
+     *
+     * @param edge the id of the edge
+     * @param k the index of the node among the tails of edge
+     * @return the id of the kth tail of edge
+     * @spec.requires 0 &lt;= edge &lt; edgeCount() and 0 &lt;= k &lt; tailCount(edge)
+     */
+    public int tail(int edge, int k) {
+        return tails.get(edge, k);
+    }
+
+    /**
+     * Returns whether every edge connects to exactly the nodes that hold it, so that
+     * following an edge forwards and backwards reaches the same nodes.
+     *
+     * @return true iff the tails and heads of every edge are the same
+     */
+    public boolean isSymmetric() {
+        return tails == heads;
+    }
+
+    /**
+     * Throws an exception if the representation invariant is violated.
+     *
+     * @throws RuntimeException if representation invariant is violated
+     */
+    private void checkRep() {
+        assert (out.size() == nodeLabels.size()) : "out.size() != nodeLabels.size()";
+        assert (in.size() == nodeLabels.size()) : "in.size() != nodeLabels.size()";
+        assert (tails.size() == edgeLabels.size()) : "tails.size() != edgeLabels.size()";
+        assert (heads.size() == edgeLabels.size()) : "heads.size() != edgeLabels.size()";
+    }
+
+    /**
+     * <b>Adjacency</b> is a list of sorted id lists stored in compressed sparse row form:
+     * list i is ids[start[i] .. start[i + 1]).
+     */
+    private static final class Adjacency {
+        /**
+         * start[i] = the index in ids where list i begins; start[size()] = ids.length.
+         */
+        private final int[] start;
+
+        /**
+         * The lists, one after the other.
+         */
+        private final int[] ids;
+
+        /**
+         * Flattens the given lists.
+         *
+         * @param lists the lists to store
+         */
+        Adjacency(int[][] lists) {
+            start = new int[lists.length + 1];
+            for (int i = 0; i < lists.length; i++) {
+                start[i + 1] = start[i] + lists[i].length;
+            }
+            ids = new int[start[lists.length]];
+            for (int i = 0; i < lists.length; i++) {
+                System.arraycopy(lists[i], 0, ids, start[i], lists[i].length);
+            }
+        }
+
+        /**
+         * Creates lists from their offsets and contents.
+         *
+         * @param start the index in ids where each list begins
+         * @param ids the lists, one after the other
+         */
+        private Adjacency(int[] start, int[] ids) {
+            this.start = start;
+            this.ids = ids;
+        }
+
+        /**
+         * Returns the lists where list j holds every i whose list holds j.
+         *
+         * @param size the number of lists in the result
+         * @return the transpose of these lists
+         */
+        Adjacency transpose(int size) {
+            int[] tStart = new int[size + 1];
+            for (int id : ids) {
+                tStart[id + 1]++;
+            }
+            for (int j = 0; j < size; j++) {
+                tStart[j + 1] += tStart[j];
+            }
+            int[] fill = Arrays.copyOf(tStart, size);
+            int[] tIds = new int[ids.length];
+            // Visiting i in increasing order keeps each transposed list sorted
+            for (int i = 0; i < size(); i++) {
+                for (int k = start[i]; k < start[i + 1]; k++) {
+                    tIds[fill[ids[k]]++] = i;
+                }
+            }
+            return new Adjacency(tStart, tIds);
+        }
+
+        /**
+         * @return the number of lists
+         */
+        int size() {
+            return start.length - 1;
+        }
+
+        /**
+         * @param i the index of a list
+         * @return the length of list i
+         */
+        int size(int i) {
+            return start[i + 1] - start[i];
+        }
+
+        /**
+         * @param i the index of a list
+         * @param k the index of an id in list i
+         * @return the kth id of list i
+         */
+        int get(int i, int k) {
+            return ids[start[i] + k];
+        }
+
+        /**
+         * Returns whether o holds the same lists as this.
+         *
+         * @param o the object to compare with
+         * @return true iff o is an Adjacency with the same lists
+         */
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Adjacency)) {
+                return false;
+            }
+            Adjacency other = (Adjacency) o;
+            return Arrays.equals(start, other.start) && Arrays.equals(ids, other.ids);
+        }
+
+        /**
+         * Returns a hash code consistent with equals.
+         *
+         * @return a hash code for these lists
+         */
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(start) + Arrays.hashCode(ids);
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * <b>IndexedHeap</b> is a mutable priority queue of the ints 0 .. capacity - 1, each with a
+ * double key, that can lower the key of an element already in the queue. It is the queue
+ * for Dijkstra-style searches over int-numbered graphs: an element is a node id and its key
+ * is the best known distance, so each node is in the queue at most once and improving its
+ * distance moves it instead of adding a second copy.
+ *
+ * <p>Elements with equal keys come out smallest id first, so searches that break ties by
+ * id give the same result every time.
+ */
+public class IndexedHeap {
+    /**
+     * heap[0 .. size) = the elements, as a binary heap ordered by (key, id).
+     */
+    private final int[] heap;
+
+    /**
+     * position[id] = the index of id in heap, or -1 if id is not in the queue.
+     */
+    private final int[] position;
+
+    /**
+     * keys[id] = the key of id, if id is in the queue.
+     */
+    private final double[] keys;
+
+    /**
+     * The number of elements in the queue.
+     */
+    private int size;
+
+    // Abstraction Function:
+    // A priority queue Q such that:
+    //      Q holds the ids heap[0] .. heap[size - 1]
+    //      the key of id in Q is keys[id]
+
+    // Representation Invariant:
+    // 0 <= size <= heap.length == position.length == keys.length
+    // position[heap[i]] == i for all 0 <= i < size, and position[id] == -1 for every other id
+    // no element of heap is less than its parent by (key, id)
+
+    /**
+     * Creates an empty queue for the ids 0 .. capacity - 1.
+     *
+     * @param capacity the number of ids
+     * @spec.requires capacity &gt;= 0
+     * @spec.effects Constructs a new empty IndexedHeap
+     */
+    public IndexedHeap(int capacity) {
+        heap = new int[capacity];
+        position = new int[capacity];
+        keys = new double[capacity];
+        Arrays.fill(position, -1);
+        checkRep();
+    }
+
+    /**
+     * Returns the number of elements in the queue.
+     *
+     * @return the number of elements
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether the queue is empty.
+     *
+     * @return true iff the queue has no elements
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns whether an id is in the queue.
+     *
+     * @param id the id to look for
+     * @return true iff id is in the queue
+     * @spec.requires 0 &lt;= id &lt; capacity
+     */
+    public boolean contains(int id) {
+        return position[id] >= 0;
+    }
+
+    /**
+     * Returns the key of an id in the queue.
+     *
+     * @param id the id to look up
+     * @return the key of id
+     * @throws NoSuchElementException if id is not in the queue
+     * @spec.requires 0 &lt;= id &lt; capacity
+     */
+    public double key(int id) {
+        if (position[id] < 0) {
+            throw new NoSuchElementException(id + " is not in the queue");
+        }
+        return keys[id];
+    }
+
+    /**
+     * Adds id to the queue with the given key, or lowers its key if it is already in the
+     * queue with a higher key. Does nothing if id is in the queue with a key no higher.
+     *
+     * @param id the id to add
+     * @param key the key of id
+     * @return true iff id was added or its key was lowered
+     * @spec.requires 0 &lt;= id &lt; capacity and key is not NaN
+     * @spec.modifies this
+     */
+    public boolean offer(int id, double key) {
+        int i = position[id];
+        if (i < 0) {
+            i = size++;
+            heap[i] = id;
+            position[id] = i;
+        } else if (key >= keys[id]) {
+            return false;
+        }
+        keys[id] = key;
+        siftUp(i);
+        return true;
+    }
+
+    /**
+     * Returns the id with the smallest key without removing it.
+     *
+     * @return the id with the smallest key, the smallest such id if several share it
+     * @throws NoSuchElementException if the queue is empty
+     */
+    public int peek() {
+        if (size == 0) {
+            throw new NoSuchElementException("queue is empty");
+        }
+        return heap[0];
+    }
+
+    /**
+     * Removes and returns the id with the smallest key.
+     *
+     * @return the id with the smallest key, the smallest such id if several share it
+     * @throws NoSuchElementException if the queue is empty
+     * @spec.modifies this
+     */
+    public int poll() {
+        int top = peek();
+        position[top] = -1;
+        size--;
+        if (size > 0) {
+            heap[0] = heap[size];
+            position[heap[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    /**
+     * Removes every element from the queue.
+     *
+     * @spec.modifies this
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            position[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    /**
+     * Returns whether the element at heap index i belongs above the element at index j.
+     *
+     * @param i an index in heap
+     * @param j an index in heap
+     * @return true iff heap[i] is less than heap[j] by (key, id)
+     */
+    private boolean less(int i, int j) {
+        int a = heap[i];
+        int b = heap[j];
+        return keys[a] < keys[b] || (keys[a] == keys[b] && a < b);
+    }
+
+    /**
+     * Moves the element at heap index i up until its parent is not greater.
+     *
+     * @param i the index to move up from
+     * @spec.modifies this
+     */
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (!less(i, parent)) {
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    /**
+     * Moves the element at heap index i down until neither child is less.
+     *
+     * @param i the index to move down from
+     * @spec.modifies this
+     */
+    private void siftDown(int i) {
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && less(child + 1, child)) {
+                child++;
+            }
+            if (!less(child, i)) {
+                break;
+            }
+            swap(i, child);
+            i = child;
+        }
+    }
+
+    /**
+     * Swaps the elements at heap indexes i and j.
+     *
+     * @param i an index in heap
+     * @param j an index in heap
+     * @spec.modifies this
+     */
+    private void swap(int i, int j) {
+        int a = heap[i];
+        heap[i] = heap[j];
+        heap[j] = a;
+        position[heap[i]] = i;
+        position[heap[j]] = j;
+    }
+
+    /**
+     * Throws an exception if the representation invariant is violated.
+     *
+     * @throws RuntimeException if representation invariant is violated
+     */
+    private void checkRep() {
+        assert (0 <= size && size <= heap.length) : "size out of range";
+        assert (position.length == heap.length && keys.length == heap.length) : "array lengths differ";
+    }
+}
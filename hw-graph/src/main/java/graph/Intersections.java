@@ -0,0 +1,227 @@
+package graph;
+
+import java.util.Arrays;
+
+/**
+ * <b>Intersections</b> intersects strictly increasing lists of ints, such as the sorted
+ * adjacency lists of an {@link IndexedGraph}. Each list is a slice [from, to) of an array, so
+ * rows of one shared array can be intersected without copying them.
+ *
+ * <p>Two lists of similar length are merged in one pass whose loop advances both sides
+ * without branching on which is smaller. When one list is much longer than the other, each
+ * element of the short list is instead looked for in the long one by galloping: probing 1, 2,
+ * 4, ... places ahead of the last match and then binary searching the last step, so the cost
+ * grows with the length of the short list and only logarithmically with the gaps in the long
+ * one. Many lists are intersected shortest first, and the running result, which can only
+ * shrink, is intersected with each longer list in turn, stopping as soon as it is empty.
+ */
+public final class Intersections {
+    /**
+     * How many times longer than the other a list must be for galloping to beat merging.
+     */
+    private static final int GALLOP_RATIO = 32;
+
+    // Abstraction Function and Representation Invariant
+    // would usually go here but Intersections is static
+
+    /**
+     * Not instantiable.
+     */
+    private Intersections() {
+    }
+
+    /**
+     * Intersects two sorted lists.
+     *
+     * @param a the first list
+     * @param b the second list
+     * @return the ints in both a and b, in increasing order
+     * @spec.requires a and b are strictly increasing and not null
+     */
+    public static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int n = intersect(a, 0, a.length, b, 0, b.length, out);
+        return Arrays.copyOf(out, n);
+    }
+
+    /**
+     * Intersects two sorted slices, writing the result to the start of out.
+     *
+     * @param a the array holding the first slice
+     * @param aFrom the index of the first element of the first slice
+     * @param aTo the index after the last element of the first slice
+     * @param b the array holding the second slice
+     * @param bFrom the index of the first element of the second slice
+     * @param bTo the index after the last element of the second slice
+     * @param out where to write the ints in both slices, in increasing order
+     * @return the number of ints written to out
+     * @spec.requires both slices are strictly increasing, out.length &gt;= the length of the
+     * shorter slice, and out is neither a nor b
+     * @spec.modifies out
+     */
+    public static int intersect(int[] a, int aFrom, int aTo, int[] b, int bFrom, int bTo, int[] out) {
+        int aLength = aTo - aFrom;
+        int bLength = bTo - bFrom;
+        if (aLength == 0 || bLength == 0) {
+            return 0;
+        }
+        if (aLength > GALLOP_RATIO * (long) bLength) {
+            return gallop(b, bFrom, bTo, a, aFrom, aTo, out);
+        } else if (bLength > GALLOP_RATIO * (long) aLength) {
+            return gallop(a, aFrom, aTo, b, bFrom, bTo, out);
+        }
+        int i = aFrom;
+        int j = bFrom;
+        int n = 0;
+        while (i < aTo && j < bTo) {
+            int x = a[i];
+            int y = b[j];
+            // Fewer than min(i - aFrom, j - bFrom) matches so far, so out[n] is in range
+            out[n] = x;
+            n += x == y ? 1 : 0;
+            i += x <= y ? 1 : 0;
+            j += y <= x ? 1 : 0;
+        }
+        return n;
+    }
+
+    /**
+     * Counts the ints in both of two sorted slices, without writing them anywhere.
+     *
+     * @param a the array holding the first slice
+     * @param aFrom the index of the first element of the first slice
+     * @param aTo the index after the last element of the first slice
+     * @param b the array holding the second slice
+     * @param bFrom the index of the first element of the second slice
+     * @param bTo the index after the last element of the second slice
+     * @return the number of ints in both slices
+     * @spec.requires both slices are strictly increasing
+     */
+    public static int count(int[] a, int aFrom, int aTo, int[] b, int bFrom, int bTo) {
+        int aLength = aTo - aFrom;
+        int bLength = bTo - bFrom;
+        if (aLength > GALLOP_RATIO * (long) bLength) {
+            return count(b, bFrom, bTo, a, aFrom, aTo);
+        }
+        int n = 0;
+        if (bLength > GALLOP_RATIO * (long) aLength) {
+            int j = bFrom;
+            for (int i = aFrom; i < aTo && j < bTo; i++) {
+                j = search(b, j, bTo, a[i]);
+                if (j < bTo && b[j] == a[i]) {
+                    n++;
+                    j++;
+                }
+            }
+            return n;
+        }
+        int i = aFrom;
+        int j = bFrom;
+        while (i < aTo && j < bTo) {
+            int x = a[i];
+            int y = b[j];
+            n += x == y ? 1 : 0;
+            i += x <= y ? 1 : 0;
+            j += y <= x ? 1 : 0;
+        }
+        return n;
+    }
+
+    /**
+     * Intersects many sorted slices, shortest first.
+     *
+     * @param arrays the array holding each slice
+     * @param from the index of the first element of each slice
+     * @param to the index after the last element of each slice
+     * @return the ints in every slice, in increasing order
+     * @throws IllegalArgumentException if there are no slices, or the three arrays differ
+     * in length
+     * @spec.requires every slice is strictly increasing
+     */
+    public static int[] intersectAll(int[][] arrays, int[] from, int[] to) {
+        int k = arrays.length;
+        if (k == 0 || from.length != k || to.length != k) {
+            throw new IllegalArgumentException("need one from and one to for each of at least one slice.");
+        }
+        Integer[] order = new Integer[k];
+        for (int i = 0; i < k; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (x, y) -> Integer.compare(to[x] - from[x], to[y] - from[y]));
+
+        int shortest = order[0];
+        int[] result = Arrays.copyOfRange(arrays[shortest], from[shortest], to[shortest]);
+        int n = result.length;
+        int[] spare = new int[n];
+        for (int r = 1; r < k && n > 0; r++) {
+            int i = order[r];
+            int found = intersect(result, 0, n, arrays[i], from[i], to[i], spare);
+            int[] swap = result;
+            result = spare;
+            spare = swap;
+            n = found;
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    /**
+     * Intersects a short slice with a long one by galloping through the long one.
+     *
+     * @param s the array holding the short slice
+     * @param sFrom the index of the first element of the short slice
+     * @param sTo the index after the last element of the short slice
+     * @param l the array holding the long slice
+     * @param lFrom the index of the first element of the long slice
+     * @param lTo the index after the last element of the long slice
+     * @param out where to write the ints in both slices
+     * @return the number of ints written to out
+     */
+    private static int gallop(int[] s, int sFrom, int sTo, int[] l, int lFrom, int lTo, int[] out) {
+        int n = 0;
+        int j = lFrom;
+        for (int i = sFrom; i < sTo && j < lTo; i++) {
+            j = search(l, j, lTo, s[i]);
+            if (j < lTo && l[j] == s[i]) {
+                out[n++] = s[i];
+                j++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Finds the first element of a sorted slice that is at least key, probing 1, 2, 4, ...
+     * places ahead of from and then binary searching the last step.
+     *
+     * @param a the array holding the slice
+     * @param from the index to start from
+     * @param to the index after the last element of the slice
+     * @param key the int to look for
+     * @return the least index i in [from, to) with a[i] &gt;= key, or to if there is none
+     */
+    private static int search(int[] a, int from, int to, int key) {
+        if (from >= to || a[from] >= key) {
+            return from;
+        }
+        // a[lo] < key, and hi == to or a[hi] >= key once the probing stops
+        int lo = from;
+        int step = 1;
+        int hi = from + 1;
+        while (hi < to && a[hi] < key) {
+            lo = hi;
+            step <<= 1;
+            hi = lo + step;
+        }
+        hi = Math.min(hi, to);
+        lo++;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
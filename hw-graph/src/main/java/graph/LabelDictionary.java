@@ -0,0 +1,298 @@
+package graph;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * <b>LabelDictionary</b> is an immutable, sorted set of distinct strings, each numbered by its
+ * position in sorted order. It is a read-only List, so get(id) finds the label of an id and
+ * indexOf(label) finds the id of a label.
+ *
+ * <p>The strings are front coded: they are kept in buckets of consecutive strings, where the
+ * first string of a bucket is stored whole and each following string is stored as the length
+ * of the prefix it shares with the string before it plus the rest of its UTF-8 bytes. Sorted
+ * labels such as "AA2 20", "AA2 35", "AA2 38" share most of their bytes, so they cost little
+ * more than their differences.
+ */
+public final class LabelDictionary extends AbstractList<String> implements RandomAccess {
+    /**
+     * The number of strings in a bucket.
+     */
+    private static final int BUCKET_SIZE = 16;
+
+    /**
+     * The front coded strings, bucket after bucket.
+     */
+    private final byte[] data;
+
+    /**
+     * buckets[b] = the index in data where bucket b begins.
+     */
+    private final int[] buckets;
+
+    /**
+     * The number of strings.
+     */
+    private final int size;
+
+    // Abstraction Function:
+    // A sorted list of distinct strings L such that:
+    //      L.size() = size
+    //      L.get(i) = the (i % BUCKET_SIZE)th string decoded from data starting at buckets[i / BUCKET_SIZE]
+
+    // Representation Invariant:
+    // buckets.length == ceil(size / BUCKET_SIZE)
+    // buckets is increasing and every entry is within data
+    // the strings decoded from data are distinct and sorted
+
+    /**
+     * Creates a dictionary of the given front coded strings.
+     *
+     * @param data the front coded strings
+     * @param buckets the index where each bucket begins
+     * @param size the number of strings
+     */
+    private LabelDictionary(byte[] data, int[] buckets, int size) {
+        this.data = data;
+        this.buckets = buckets;
+        this.size = size;
+        checkRep();
+    }
+
+    /**
+     * Creates a dictionary of the distinct strings in labels.
+     *
+     * @param labels the strings to store
+     * @return a dictionary holding each distinct string in labels once, in sorted order
+     * @spec.requires labels != null and does not contain null
+     */
+    public static LabelDictionary of(Collection<String> labels) {
+        String[] sorted = new TreeSet<>(labels).toArray(new String[0]);
+        ByteWriter out = new ByteWriter();
+        int[] buckets = new int[(sorted.length + BUCKET_SIZE - 1) / BUCKET_SIZE];
+
+        byte[] prev = null;
+        for (int i = 0; i < sorted.length; i++) {
+            byte[] bytes = sorted[i].getBytes(StandardCharsets.UTF_8);
+            if (i % BUCKET_SIZE == 0) {
+                buckets[i / BUCKET_SIZE] = out.size();
+                out.writeVarInt(bytes.length);
+                out.write(bytes, 0, bytes.length);
+            } else {
+                int common = commonPrefix(prev, bytes);
+                out.writeVarInt(common);
+                out.writeVarInt(bytes.length - common);
+                out.write(bytes, common, bytes.length - common);
+            }
+            prev = bytes;
+        }
+        return new LabelDictionary(out.toByteArray(), buckets, sorted.length);
+    }
+
+    /**
+     * Returns the length of the longest common prefix of a and b.
+     *
+     * @param a the first byte string
+     * @param b the second byte string
+     * @return the number of leading bytes a and b have in common
+     */
+    private static int commonPrefix(byte[] a, byte[] b) {
+        int n = Math.min(a.length, b.length);
+        int i = 0;
+        while (i < n && a[i] == b[i]) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Returns the number of strings in this dictionary.
+     *
+     * @return the number of strings
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the string with the given id.
+     *
+     * @param id the id of the string
+     * @return the string numbered id
+     * @throws IndexOutOfBoundsException if id &lt; 0 or id &gt;= size()
+     */
+    @Override
+    public String get(int id) {
+        Objects.checkIndex(id, size);
+        Cursor c = new Cursor(id / BUCKET_SIZE);
+        for (int i = id % BUCKET_SIZE; i > 0; i--) {
+            c.next();
+        }
+        return c.current();
+    }
+
+    /**
+     * Returns the id of a string, in the same way as {@link Collections#binarySearch(List, Object)}.
+     *
+     * @param label the string to look up
+     * @return the id of label if it is in the dictionary, otherwise (-(insertion point) - 1)
+     * @spec.requires label != null
+     */
+    public int id(String label) {
+        // Find the last bucket whose first string is <= label
+        int lo = 0;
+        int hi = buckets.length - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = new Cursor(mid).current().compareTo(label);
+            if (cmp < 0) {
+                lo = mid + 1;
+            } else if (cmp > 0) {
+                hi = mid - 1;
+            } else {
+                return mid * BUCKET_SIZE;
+            }
+        }
+        if (hi < 0) {
+            return -1;
+        }
+
+        // Scan that bucket
+        Cursor c = new Cursor(hi);
+        int first = hi * BUCKET_SIZE;
+        int last = Math.min(size, first + BUCKET_SIZE);
+        for (int id = first + 1; id < last; id++) {
+            int cmp = c.next().compareTo(label);
+            if (cmp == 0) {
+                return id;
+            } else if (cmp > 0) {
+                return -id - 1;
+            }
+        }
+        return -last - 1;
+    }
+
+    /**
+     * Returns the id of o, or -1 if o is not a string in this dictionary.
+     *
+     * @param o the object to look up
+     * @return the id of o, or -1 if absent
+     */
+    @Override
+    public int indexOf(Object o) {
+        if (!(o instanceof String)) {
+            return -1;
+        }
+        int id = id((String) o);
+        return id < 0 ? -1 : id;
+    }
+
+    /**
+     * Returns the id of o, or -1 if o is not a string in this dictionary.
+     * The strings are distinct, so this is the same as indexOf.
+     *
+     * @param o the object to look up
+     * @return the id of o, or -1 if absent
+     */
+    @Override
+    public int lastIndexOf(Object o) {
+        return indexOf(o);
+    }
+
+    /**
+     * Returns whether o is a string in this dictionary.
+     *
+     * @param o the object to look up
+     * @return true iff o is in this dictionary
+     */
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    /**
+     * Returns the number of bytes used by the encoded strings and the bucket index.
+     *
+     * @return the size of this dictionary's data in bytes
+     */
+    public long sizeInBytes() {
+        return data.length + 4L * buckets.length;
+    }
+
+    /**
+     * Throws an exception if the representation invariant is violated.
+     *
+     * @throws RuntimeException if representation invariant is violated
+     */
+    private void checkRep() {
+        assert (data != null) : "data == null";
+        assert (buckets.length == (size + BUCKET_SIZE - 1) / BUCKET_SIZE) : "wrong number of buckets";
+    }
+
+    /**
+     * <b>Cursor</b> decodes the strings of one bucket in order.
+     */
+    private final class Cursor {
+        /**
+         * Reads the bucket.
+         */
+        private final ByteReader in;
+
+        /**
+         * The UTF-8 bytes of the current string, followed by unused space.
+         */
+        private byte[] bytes = new byte[32];
+
+        /**
+         * The length of the current string in bytes.
+         */
+        private int length;
+
+        /**
+         * Starts decoding at the first string of a bucket.
+         *
+         * @param bucket the bucket to decode
+         */
+        Cursor(int bucket) {
+            in = new ByteReader(data, buckets[bucket]);
+            append(0, in.readVarInt());
+        }
+
+        /**
+         * Moves to the next string in the bucket.
+         *
+         * @return the next string
+         * @spec.requires the current string is not the last in its bucket
+         */
+        String next() {
+            int common = in.readVarInt();
+            int rest = in.readVarInt();
+            append(common, rest);
+            return current();
+        }
+
+        /**
+         * Returns the current string.
+         *
+         * @return the current string
+         */
+        String current() {
+            return new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Replaces the current string with its first keep bytes followed by the next n bytes of data.
+         *
+         * @param keep the number of bytes to keep
+         * @param n the number of bytes to read
+         */
+        private void append(int keep, int n) {
+            if (keep + n > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(keep + n, 2 * bytes.length));
+            }
+            in.readBytes(bytes, keep, n);
+            length = keep + n;
+        }
+    }
+}
@@ -0,0 +1,387 @@
+package graph;
+
+import java.util.*;
+
+/**
+ * <b>NameIndex</b> is an immutable index for looking up names that are only partly typed, or
+ * misspelled. Each name is reachable through one or more aliases, such as a building's short
+ * and long names, and lookups return names, never aliases.
+ *
+ * <p>Aliases are matched ignoring case and runs of spaces, and each word inside an alias, after
+ * a space or a slash, starts an alias of its own, so "peter parker" finds
+ * "SPIDER-MAN/PETER PARKER". The normalized aliases are kept in a front coded
+ * {@link LabelDictionary}, so the aliases starting with a prefix are one contiguous range of
+ * ids found by two binary searches. For fuzzy lookups, each alias is also
+ * listed under each of its trigrams, the three character substrings of the alias padded with
+ * two spaces in front and one behind. The aliases sharing the most trigrams with a query are
+ * then ranked by their prefix edit distance to it: the fewest single character insertions,
+ * deletions and substitutions that turn the query into some prefix of the alias. A query that
+ * is partly typed and misspelled both can still be found this way.
+ */
+public final class NameIndex {
+    /**
+     * The most aliases, per suggestion asked for, whose edit distance is computed.
+     */
+    private static final int CANDIDATES_PER_RESULT = 8;
+
+    /**
+     * The fewest aliases whose edit distance is computed.
+     */
+    private static final int MIN_CANDIDATES = 64;
+
+    /**
+     * The normalized aliases, in sorted order.
+     */
+    private final LabelDictionary aliases;
+
+    /**
+     * The names, in sorted order.
+     */
+    private final String[] names;
+
+    /**
+     * first[a] = the index in targets where the ids of the names of alias a begin;
+     * first[a + 1] is where they end.
+     */
+    private final int[] first;
+
+    /**
+     * The ids of the names of each alias, grouped by alias.
+     */
+    private final int[] targets;
+
+    /**
+     * The ids of the aliases holding each trigram, in increasing order.
+     */
+    private final Map<String, int[]> trigrams;
+
+    // Abstraction Function:
+    // An index where alias a, aliases.get(a), leads to the names names[targets[i]] for
+    //      first[a] <= i < first[a + 1], and trigrams.get(g) lists the aliases holding g
+
+    // Representation Invariant:
+    // names is sorted and distinct
+    // first.length == aliases.size() + 1, first[0] == 0, first[aliases.size()] == targets.length
+    // first is strictly increasing: every alias leads to at least one name
+    // every element of targets is a valid index into names
+    // every alias is normalized
+    // (It's implied that there are no null fields in NameIndex)
+
+    /**
+     * Creates an index from the given arrays.
+     *
+     * @param aliases the normalized aliases
+     * @param names the names
+     * @param first where the names of each alias begin in targets
+     * @param targets the ids of the names of each alias
+     * @param trigrams the aliases holding each trigram
+     */
+    private NameIndex(LabelDictionary aliases, String[] names, int[] first, int[] targets,
+                      Map<String, int[]> trigrams) {
+        this.aliases = aliases;
+        this.names = names;
+        this.first = first;
+        this.targets = targets;
+        this.trigrams = trigrams;
+        checkRep();
+    }
+
+    /**
+     * Creates an index where each name is its own only alias.
+     *
+     * @param names the names to index
+     * @return an index of names
+     * @spec.requires names != null and does not contain null
+     */
+    public static NameIndex of(Collection<String> names) {
+        Map<String, String> aliases = new HashMap<>();
+        for (String name : names) {
+            aliases.put(name, name);
+        }
+        return of(aliases);
+    }
+
+    /**
+     * Creates an index that looks up the names the given aliases lead to.
+     *
+     * @param aliases a map from each alias to the name it leads to
+     * @return an index of the names that aliases leads to
+     * @spec.requires aliases != null and does not contain null keys or values
+     */
+    public static NameIndex of(Map<String, String> aliases) {
+        String[] names = new TreeSet<>(aliases.values()).toArray(new String[0]);
+
+        // Aliases that differ only in case or spacing become one, leading to every name, and
+        // the rest of an alias from the start of each word inside it is an alias too
+        Map<String, SortedSet<Integer>> byKey = new TreeMap<>();
+        for (Map.Entry<String, String> entry : aliases.entrySet()) {
+            int name = Arrays.binarySearch(names, entry.getValue());
+            String key = normalize(entry.getKey());
+            for (int i = 0; i < key.length(); i++) {
+                if (i == 0 || isWordStart(key, i)) {
+                    byKey.computeIfAbsent(key.substring(i), k -> new TreeSet<>()).add(name);
+                }
+            }
+            if (key.isEmpty()) {
+                byKey.computeIfAbsent(key, k -> new TreeSet<>()).add(name);
+            }
+        }
+        LabelDictionary keys = LabelDictionary.of(byKey.keySet());
+        int[] first = new int[keys.size() + 1];
+        List<Integer> targets = new ArrayList<>();
+        Map<String, List<Integer>> postings = new HashMap<>();
+        int a = 0;
+        for (Map.Entry<String, SortedSet<Integer>> entry : byKey.entrySet()) {
+            targets.addAll(entry.getValue());
+            first[a + 1] = targets.size();
+            for (String g : trigramsOf(entry.getKey())) {
+                postings.computeIfAbsent(g, k -> new ArrayList<>()).add(a);
+            }
+            a++;
+        }
+
+        Map<String, int[]> trigrams = new HashMap<>();
+        for (Map.Entry<String, List<Integer>> entry : postings.entrySet()) {
+            trigrams.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+        }
+        return new NameIndex(keys, names, first,
+                targets.stream().mapToInt(Integer::intValue).toArray(), trigrams);
+    }
+
+    /**
+     * Returns the number of names in this index.
+     *
+     * @return the number of names
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Returns the names with an alias, or a word inside one, that starts with prefix,
+     * ignoring case and runs of spaces, in the alphabetical order of the matching text.
+     *
+     * @param prefix the start of an alias
+     * @param k the most names to return
+     * @return at most k names with an alias starting with prefix
+     * @throws IllegalArgumentException if k &lt; 0
+     * @spec.requires prefix != null
+     */
+    public List<String> complete(String prefix, int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must be at least 0.");
+        }
+        String key = normalize(prefix);
+        int from = insertionPoint(key);
+        int to = insertionPoint(key + Character.MAX_VALUE);
+        Set<String> found = new LinkedHashSet<>();
+        for (int a = from; a < to && found.size() < k; a++) {
+            for (int i = first[a]; i < first[a + 1] && found.size() < k; i++) {
+                found.add(names[targets[i]]);
+            }
+        }
+        return new ArrayList<>(found);
+    }
+
+    /**
+     * Returns the names with an alias closest to query, for a query that may be partly typed
+     * or misspelled. Names are ranked by the fewest edits that turn query into the start of
+     * one of their aliases, then by the fewest that turn it into a whole alias, then
+     * alphabetically. A name is only returned if query is within one edit per three
+     * characters of the start of its alias.
+     *
+     * @param query the partly typed or misspelled alias
+     * @param k the most names to return
+     * @return at most k names closest to query, closest first
+     * @throws IllegalArgumentException if k &lt; 0
+     * @spec.requires query != null
+     */
+    public List<String> suggest(String query, int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must be at least 0.");
+        }
+        String key = normalize(query);
+        if (k == 0 || aliases.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (key.isEmpty()) {
+            return complete(key, k);
+        }
+
+        // Count the trigrams each alias shares with the query
+        Set<String> grams = trigramsOf(key);
+        int[] shared = new int[aliases.size()];
+        int[] found = new int[16];
+        int size = 0;
+        int[] histogram = new int[grams.size() + 1];
+        for (String g : grams) {
+            int[] posting = trigrams.get(g);
+            if (posting != null) {
+                for (int a : posting) {
+                    if (shared[a]++ == 0) {
+                        if (size == found.length) {
+                            found = Arrays.copyOf(found, 2 * size);
+                        }
+                        found[size++] = a;
+                    } else {
+                        histogram[shared[a] - 1]--;
+                    }
+                    histogram[shared[a]]++;
+                }
+            }
+        }
+
+        // Keep the aliases sharing the most trigrams: all those sharing more than cutoff, and
+        // as many sharing exactly cutoff as fit, in id order
+        int limit = Math.max(MIN_CANDIDATES, CANDIDATES_PER_RESULT * k);
+        int cutoff = grams.size();
+        int above = 0;
+        while (cutoff > 1 && above + histogram[cutoff] < limit) {
+            above += histogram[cutoff];
+            cutoff--;
+        }
+        Arrays.sort(found, 0, size);
+        List<Integer> candidates = new ArrayList<>();
+        int atCutoff = limit - above;
+        for (int i = 0; i < size; i++) {
+            int a = found[i];
+            if (shared[a] > cutoff || (shared[a] == cutoff && atCutoff-- > 0)) {
+                candidates.add(a);
+            }
+        }
+
+        // Rank the candidates by edit distance, keeping each name's best alias
+        int allowed = (key.length() + 2) / 3;
+        Map<Integer, int[]> best = new HashMap<>();
+        for (int a : candidates) {
+            int[] score = editDistances(key, aliases.get(a));
+            if (score[0] > allowed) {
+                continue;
+            }
+            for (int i = first[a]; i < first[a + 1]; i++) {
+                best.merge(targets[i], score, (x, y) -> compareScores(x, y) <= 0 ? x : y);
+            }
+        }
+        List<Integer> ranked = new ArrayList<>(best.keySet());
+        ranked.sort((x, y) -> {
+            int cmp = compareScores(best.get(x), best.get(y));
+            return cmp != 0 ? cmp : Integer.compare(x, y);
+        });
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < ranked.size() && i < k; i++) {
+            result.add(names[ranked.get(i)]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the position of the first alias not less than key.
+     *
+     * @param key a normalized string
+     * @return the id of the first alias &gt;= key, or aliases.size() if there is none
+     */
+    private int insertionPoint(String key) {
+        int id = aliases.id(key);
+        return id >= 0 ? id : -id - 1;
+    }
+
+    /**
+     * Returns s in lower case, without leading or trailing spaces, and with each run of spaces
+     * inside it replaced by one space.
+     *
+     * @param s the string to normalize
+     * @return the normalized form of s
+     */
+    private static String normalize(String s) {
+        return s.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns whether a word starts at index i of s: the character before it is a space or a
+     * slash, and it is neither.
+     *
+     * @param s a normalized string
+     * @param i an index into s, &gt; 0
+     * @return true iff a word starts at s.charAt(i)
+     */
+    private static boolean isWordStart(String s, int i) {
+        char before = s.charAt(i - 1);
+        char at = s.charAt(i);
+        return (before == ' ' || before == '/') && at != ' ' && at != '/';
+    }
+
+    /**
+     * Returns the distinct trigrams of s padded with two spaces in front and one behind, so
+     * that the start of s counts for more than the rest.
+     *
+     * @param s a normalized string
+     * @return the distinct three character substrings of the padded s
+     */
+    private static Set<String> trigramsOf(String s) {
+        String padded = "  " + s + " ";
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    /**
+     * Returns the fewest single character edits that turn query into a prefix of alias, and
+     * into all of alias.
+     *
+     * @param query the string to edit
+     * @param alias the string to reach
+     * @return {the prefix edit distance, the edit distance}
+     */
+    private static int[] editDistances(String query, String alias) {
+        // row[j] = the edit distance between the query so far and alias.substring(0, j)
+        int[] row = new int[alias.length() + 1];
+        for (int j = 0; j <= alias.length(); j++) {
+            row[j] = j;
+        }
+        for (int i = 1; i <= query.length(); i++) {
+            int diagonal = row[0];
+            row[0] = i;
+            for (int j = 1; j <= alias.length(); j++) {
+                int above = row[j];
+                int substitute = diagonal + (query.charAt(i - 1) == alias.charAt(j - 1) ? 0 : 1);
+                row[j] = Math.min(substitute, Math.min(above, row[j - 1]) + 1);
+                diagonal = above;
+            }
+        }
+        int prefix = Integer.MAX_VALUE;
+        for (int d : row) {
+            prefix = Math.min(prefix, d);
+        }
+        return new int[] {prefix, row[alias.length()]};
+    }
+
+    /**
+     * Compares two scores, first by prefix edit distance and then by edit distance.
+     *
+     * @param x a score
+     * @param y another score
+     * @return a negative number, zero, or a positive number as x is better than, as good as,
+     * or worse than y
+     */
+    private static int compareScores(int[] x, int[] y) {
+        return x[0] != y[0] ? Integer.compare(x[0], y[0]) : Integer.compare(x[1], y[1]);
+    }
+
+    /**
+     * Throws an exception if the representation invariant is violated.
+     *
+     * @throws RuntimeException if representation invariant is violated
+     */
+    private void checkRep() {
+        assert (first.length == aliases.size() + 1) : "first.length != aliases.size() + 1";
+        assert (first[0] == 0 && first[aliases.size()] == targets.length) : "first does not cover targets";
+        for (int a = 0; a < aliases.size(); a++) {
+            assert (first[a] < first[a + 1]) : "alias " + a + " leads to no name";
+        }
+        for (int target : targets) {
+            assert (target >= 0 && target < names.length) : "bad target " + target;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package graph;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BiFunction;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * <b>PathBatch</b> answers many path queries at once on a fork/join pool. Queries are grouped
+ * by their start, and each group is answered by one search from its start that goes on until
+ * it has reached every end in the group, so a report connecting one node to thousands of
+ * others costs about one search instead of thousands. Groups run in parallel.
+ *
+ * <p>The search for a group is given as a function from a start and its ends to the result
+ * for each end, in the same order. It is called from several threads at once, so it must
+ * only read the graph it searches.
+ *
+ * @param <N> the type of the start and end of a query
+ * @param <R> the type of the result of a query
+ */
+public class PathBatch<N, R> {
+    /**
+     * The pool the searches run on.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Finds the results for one start and its ends.
+     */
+    private final BiFunction<N, List<N>, List<R>> search;
+
+    // Abstraction Function:
+    // A batch runner that answers each group of queries with the same start by search,
+    // running the groups on pool
+
+    // Representation Invariant:
+    // pool != null and search != null
+
+    /**
+     * Creates a batch runner that runs on the common fork/join pool.
+     *
+     * @param search returns the result for each of the ends, in order, of a search from a start
+     * @spec.requires search != null
+     * @spec.effects Constructs a new PathBatch
+     */
+    public PathBatch(BiFunction<N, List<N>, List<R>> search) {
+        this(ForkJoinPool.commonPool(), search);
+    }
+
+    /**
+     * Creates a batch runner that runs on the given pool.
+     *
+     * @param pool the pool to run searches on
+     * @param search returns the result for each of the ends, in order, of a search from a start
+     * @spec.requires no argument is null
+     * @spec.effects Constructs a new PathBatch
+     */
+    public PathBatch(ForkJoinPool pool, BiFunction<N, List<N>, List<R>> search) {
+        this.pool = pool;
+        this.search = search;
+        checkRep();
+    }
+
+    /**
+     * Answers every query and returns the results in the order of the queries.
+     *
+     * @param queries the queries to answer
+     * @return the result of queries.get(i) at index i
+     * @throws RuntimeException whatever search throws for any group
+     * @spec.requires queries != null and no query is null
+     */
+    public List<R> run(List<Query<N>> queries) {
+        Object[] results = new Object[queries.size()];
+        run(queries, (result, i) -> results[i] = result);
+        @SuppressWarnings("unchecked")
+        List<R> list = (List<R>) Arrays.asList(results);
+        return list;
+    }
+
+    /**
+     * Answers every query and hands each result to callback as soon as its group is done.
+     * Results of different groups may arrive in any order, and on several threads at once.
+     * Returns once every result has been handed over.
+     *
+     * @param queries the queries to answer
+     * @param callback takes the result of a query and the index of that query in queries
+     * @throws RuntimeException whatever search or callback throws; groups that have not
+     * started by then are not searched
+     * @spec.requires no argument is null and no query is null
+     */
+    public void run(List<Query<N>> queries, ObjIntConsumer<? super R> callback) {
+        // Group the indexes of the queries by start, keeping the first appearance order
+        Map<N, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < queries.size(); i++) {
+            groups.computeIfAbsent(queries.get(i).getStart(), start -> new ArrayList<>()).add(i);
+        }
+
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(groups.size());
+        for (Map.Entry<N, List<Integer>> group : groups.entrySet()) {
+            tasks.add(ForkJoinTask.adapt(() -> {
+                List<Integer> indexes = group.getValue();
+                List<N> ends = new ArrayList<>(indexes.size());
+                for (int i : indexes) {
+                    ends.add(queries.get(i).getEnd());
+                }
+                List<R> results = search.apply(group.getKey(), ends);
+                for (int k = 0; k < indexes.size(); k++) {
+                    callback.accept(results.get(k), indexes.get(k));
+                }
+            }));
+        }
+        pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+    }
+
+    /**
+     * Throws an exception if the representation invariant is violated.
+     *
+     * @throws RuntimeException if representation invariant is violated
+     */
+    private void checkRep() {
+        assert (pool != null) : "pool == null";
+        assert (search != null) : "search == null";
+    }
+
+    /**
+     * <b>Query</b> is an immutable request for a path from a start to an end.
+     *
+     * @param <N> the type of the start and end
+     */
+    public static final class Query<N> {
+        /**
+         * Where the path starts.
+         */
+        private final N start;
+
+        /**
+         * Where the path ends.
+         */
+        private final N end;
+
+        // Abstraction Function:
+        // A query for the path from start to end
+
+        // Representation Invariant:
+        // start != null and end != null
+
+        /**
+         * Creates a query for the path from start to end.
+         *
+         * @param start where the path starts
+         * @param end where the path ends
+         * @spec.requires no argument is null
+         * @spec.effects Constructs a new Query
+         */
+        public Query(N start, N end) {
+            this.start = start;
+            this.end = end;
+            checkRep();
+        }
+
+        /**
+         * @return where the path starts
+         */
+        public N getStart() {
+            return start;
+        }
+
+        /**
+         * @return where the path ends
+         */
+        public N getEnd() {
+            return end;
+        }
+
+        /**
+         * Returns whether obj is a query with the same start and end.
+         *
+         * @param obj the object to compare with
+         * @return true iff obj is a Query with an equal start and end
+         */
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Query<?>)) {
+                return false;
+            }
+            Query<?> other = (Query<?>) obj;
+            return start.equals(other.start) && end.equals(other.end);
+        }
+
+        /**
+         * Returns a hash code consistent with equals.
+         *
+         * @return a hash code for this query
+         */
+        @Override
+        public int hashCode() {
+            return 31 * start.hashCode() + end.hashCode();
+        }
+
+        /**
+         * @return the query as "start -&gt; end"
+         */
+        @Override
+        public String toString() {
+            return start + " -> " + end;
+        }
+
+        /**
+         * Throws an exception if the representation invariant is violated.
+         *
+         * @throws RuntimeException if representation invariant is violated
+         */
+        private void checkRep() {
+            assert (start != null) : "start == null";
+            assert (end != null) : "end == null";
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package graph.io;
+
+import java.io.*;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.zip.CRC32;
+
+/**
+ * <b>ArtifactFiles</b> holds the pieces shared by the binary files that programs save instead
+ * of parsing text or recomputing results: writing a file so no reader sees it half written,
+ * recording the files it was made from so a stale one can be told apart, length prefixed
+ * strings, and reading files from a module's resources/data folder.
+ *
+ * <p>The files an artifact is made from are recorded by name, length and CRC-32 checksum, and
+ * checked against the files of the same name in the resources/data folder of the class that
+ * reads it, where those can be found on the filesystem; a file inside a jar was packed with
+ * its artifact and is not checked.
+ */
+public final class ArtifactFiles {
+    // Abstraction Function and Representation Invariant
+    // would usually go here but ArtifactFiles is static
+
+    /**
+     * Not instantiable.
+     */
+    private ArtifactFiles() {
+    }
+
+    /**
+     * Reads a file in the resources/data folder of a class.
+     *
+     * @param owner a class whose resources hold the file
+     * @param fileName the name of the file
+     * @return the contents of the file, or null if there is no such file or it cannot be read
+     * @spec.requires no argument is null
+     */
+    public static ByteBuffer readResource(Class<?> owner, String fileName) {
+        try {
+            Path file = dataFile(owner, fileName);
+            if (file != null) {
+                return map(file);
+            }
+            try (InputStream in = owner.getResourceAsStream("/data/" + fileName)) {
+                return in == null ? null : ByteBuffer.wrap(in.readAllBytes());
+            }
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes the length and checksum of the files an artifact is made from.
+     *
+     * @param out where to write them
+     * @param sources the files, each to be found under its file name in resources/data
+     * @throws IOException if a file cannot be read or out cannot be written
+     */
+    public static void writeSources(DataOutputStream out, Path... sources) throws IOException {
+        out.writeInt(sources.length);
+        for (Path source : sources) {
+            writeString(out, source.getFileName().toString());
+            out.writeLong(Files.size(source));
+            out.writeLong(checksum(source));
+        }
+    }
+
+    /**
+     * Reads the files an artifact was made from, and checks they have not changed since.
+     *
+     * @param owner a class whose resources hold the files
+     * @param buffer the artifact, positioned where {@link #writeSources} wrote
+     * @return true iff every source that is a regular file in the resources/data folder of
+     * owner has the length and checksum recorded
+     * @throws IllegalArgumentException if buffer is truncated
+     * @spec.modifies buffer
+     */
+    public static boolean readSources(Class<?> owner, ByteBuffer buffer) {
+        try {
+            int count = buffer.getInt();
+            boolean fresh = true;
+            for (int i = 0; i < count; i++) {
+                String name = readString(buffer);
+                long length = buffer.getLong();
+                long checksum = buffer.getLong();
+                Path file = dataFile(owner, name);
+                if (fresh && file != null) {
+                    fresh = Files.size(file) == length && checksum(file) == checksum;
+                }
+            }
+            return fresh;
+        } catch (IOException e) {
+            return false;
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            throw new IllegalArgumentException("artifact is truncated", e);
+        }
+    }
+
+    /**
+     * Skips over the files an artifact was made from.
+     *
+     * @param buffer the artifact, positioned where {@link #writeSources} wrote
+     * @throws IllegalArgumentException if buffer is truncated
+     * @spec.modifies buffer
+     */
+    public static void skipSources(ByteBuffer buffer) {
+        try {
+            int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                readString(buffer);
+                buffer.position(buffer.position() + 16);
+            }
+        } catch (BufferUnderflowException | NegativeArraySizeException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("artifact is truncated", e);
+        }
+    }
+
+    /**
+     * Writes a string as its length and its UTF-8 bytes.
+     *
+     * @param out where to write it
+     * @param s the string to write
+     * @throws IOException if out cannot be written
+     */
+    public static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads a string written by {@link #writeString}.
+     *
+     * @param buffer where to read it
+     * @return the string
+     * @throws BufferUnderflowException if buffer is truncated
+     * @spec.modifies buffer
+     */
+    public static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes a file beside its destination and then moves it into place, so a reader never
+     * sees it half written.
+     *
+     * @param file where to write
+     * @param contents writes the contents of the file
+     * @throws UncheckedIOException if file cannot be written
+     * @spec.requires no argument is null
+     * @spec.modifies file
+     * @spec.effects replaces the contents of file with what contents writes
+     */
+    public static void write(Path file, Contents contents) {
+        try {
+            Path dir = file.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            Path temp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                contents.writeTo(out);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(temp);
+                throw e;
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Maps a file into memory.
+     *
+     * @param file the file to map
+     * @return the contents of file
+     * @throws IOException if file cannot be read
+     */
+    public static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Finds a file in the resources/data folder of a class on the filesystem.
+     *
+     * @param owner a class whose resources hold the file
+     * @param fileName the file to find
+     * @return the path of the file, or null if it is missing or not a regular file
+     */
+    private static Path dataFile(Class<?> owner, String fileName) {
+        URL url = owner.getResource("/data/" + fileName);
+        if (url == null || !url.getProtocol().equals("file")) {
+            return null;
+        }
+        try {
+            Path file = Paths.get(url.toURI());
+            return Files.isRegularFile(file) ? file : null;
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Computes the CRC-32 checksum of a file.
+     *
+     * @param file the file to check
+     * @return the checksum of the contents of file
+     * @throws IOException if file cannot be read
+     */
+    private static long checksum(Path file) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(map(file));
+        return crc.getValue();
+    }
+
+    /**
+     * <b>Contents</b> writes the contents of a file.
+     */
+    @FunctionalInterface
+    public interface Contents {
+        /**
+         * Writes the contents.
+         *
+         * @param out where to write them
+         * @throws IOException if out cannot be written
+         */
+        void writeTo(DataOutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,160 @@
+package graph.io;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Utility for parsing a large tab separated file on all cores. The file is split into
+ * byte ranges that end at newlines, each range is mapped into memory and read by its own
+ * {@link TsvScanner} in parallel, and the results of the ranges are returned in file order.
+ */
+public final class ChunkedTsv {
+    // Abstraction Function and Representation Invariant
+    // would usually go here but ChunkedTsv is static
+
+    /**
+     * The smallest range worth handing to a core of its own.
+     */
+    private static final long MIN_CHUNK = 1L << 20;
+
+    /**
+     * The largest range to map at once. A mapping can be at most 2 GB.
+     */
+    private static final long MAX_CHUNK = 1L << 28;
+
+    /**
+     * The number of bytes read at a time while looking for a newline.
+     */
+    private static final int PROBE = 1 << 12;
+
+    /**
+     * Parses file by giving each range of rows to parser, running on several cores at once.
+     * Each call to parser gets its own scanner, so ids from different ranges are unrelated.
+     *
+     * @param file the file to parse
+     * @param skipHeader whether the first row of file is a header to skip
+     * @param parser reads the rows of one range and returns what it found
+     * @param <R> the result of parsing one range
+     * @return the results of parser for each range, in file order
+     * @throws UncheckedIOException if file cannot be read
+     * @spec.requires no argument is null and file is a regular file
+     */
+    public static <R> List<R> parse(Path file, boolean skipHeader, Function<TsvScanner, R> parser) {
+        return open(file, skipHeader).parallelStream()
+                .map(parser)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Splits file into ranges of rows sized for parsing on all cores, and maps each range
+     * into memory.
+     *
+     * @param file the file to open
+     * @param skipHeader whether the first row of file is a header to skip
+     * @return a scanner for each range, in file order
+     * @throws UncheckedIOException if file cannot be read
+     * @spec.requires file != null and file is a regular file
+     */
+    public static List<TsvScanner> open(Path file, boolean skipHeader) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int cores = Runtime.getRuntime().availableProcessors();
+            long target = Math.min(MAX_CHUNK, Math.max(MIN_CHUNK, size / (4L * cores)));
+            long[] bounds = split(channel, (int) ((size + target - 1) / target));
+
+            // Mappings stay valid after the channel is closed
+            List<TsvScanner> scanners = new ArrayList<>(bounds.length - 1);
+            for (int i = 0; i < bounds.length - 1; i++) {
+                scanners.add(new TsvScanner(
+                        channel.map(FileChannel.MapMode.READ_ONLY, bounds[i], bounds[i + 1] - bounds[i])));
+            }
+            if (skipHeader) {
+                scanners.get(0).next();
+            }
+            return scanners;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Splits file into about the given number of ranges, each ending just after a newline
+     * or at the end of the file.
+     *
+     * @param file the file to split
+     * @param chunks the number of ranges to aim for
+     * @return the bounds of the ranges: range i is [bounds[i], bounds[i + 1]), the first bound
+     * is 0 and the last is the size of file
+     * @throws UncheckedIOException if file cannot be read
+     * @spec.requires file != null and file is a regular file and chunks &gt; 0
+     */
+    public static long[] split(Path file, int chunks) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return split(channel, chunks);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Splits the contents of channel into about the given number of ranges, each ending
+     * just after a newline or at the end.
+     *
+     * @param channel the file to split
+     * @param chunks the number of ranges to aim for
+     * @return the bounds of the ranges, as in {@link #split(Path, int)}
+     * @throws IOException if channel cannot be read
+     */
+    private static long[] split(FileChannel channel, int chunks) throws IOException {
+        long size = channel.size();
+        chunks = Math.max(1, chunks);
+        long[] bounds = new long[chunks + 1];
+        int n = 0;
+        ByteBuffer probe = ByteBuffer.allocate(PROBE);
+        for (int i = 1; i < bounds.length - 1; i++) {
+            long b = Math.max(bounds[n], size / chunks * i);
+            b = nextLine(channel, b, probe);
+            if (b > bounds[n] && b < size) {
+                bounds[++n] = b;
+            }
+        }
+        bounds[++n] = size;
+        return Arrays.copyOf(bounds, n + 1);
+    }
+
+    /**
+     * Returns the index just after the first newline at or after from, or the size of
+     * channel if there is none.
+     *
+     * @param channel the file to search
+     * @param from where to start searching
+     * @param probe a buffer to read into
+     * @return the start of the first row beginning after from
+     * @throws IOException if channel cannot be read
+     */
+    private static long nextLine(FileChannel channel, long from, ByteBuffer probe) throws IOException {
+        long pos = from;
+        while (true) {
+            probe.clear();
+            int read = channel.read(probe, pos);
+            if (read <= 0) {
+                return channel.size();
+            }
+            for (int k = 0; k < read; k++) {
+                if (probe.get(k) == '\n') {
+                    return pos + k + 1;
+                }
+            }
+            pos += read;
+        }
+    }
+}
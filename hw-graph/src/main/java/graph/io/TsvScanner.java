@@ -0,0 +1,333 @@
+package graph.io;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * <b>TsvScanner</b> reads the rows of tab separated text straight out of a byte buffer,
+ * such as a memory-mapped file. Fields are handed out as interned int ids rather than
+ * objects: every occurrence of the same bytes gets the same id, and a String is only
+ * created the first time the label of an id is asked for.
+ *
+ * <p>Rows end with "\n" or "\r\n" and fields are split on every tab. Quotes have no
+ * special meaning, and the bytes of a label are decoded as UTF-8.
+ */
+public final class TsvScanner {
+    /**
+     * The text to scan.
+     */
+    private final ByteBuffer data;
+
+    /**
+     * The index in data of the next row.
+     */
+    private int pos;
+
+    /**
+     * The index in data where the text ends.
+     */
+    private final int limit;
+
+    /**
+     * The ids of the fields of the current row.
+     */
+    private int[] fields = new int[2];
+
+    /**
+     * The number of fields in the current row.
+     */
+    private int fieldCount;
+
+    /**
+     * offsets[id] = the index in data of the first byte labeled id.
+     */
+    private int[] offsets = new int[64];
+
+    /**
+     * lengths[id] = the number of bytes labeled id.
+     */
+    private int[] lengths = new int[64];
+
+    /**
+     * labels[id] = the decoded label of id, or null if it was never asked for.
+     */
+    private String[] labels = new String[64];
+
+    /**
+     * The number of distinct labels seen so far.
+     */
+    private int labelCount;
+
+    /**
+     * Open addressing hash table of label ids; a slot holds id + 1, or 0 when empty.
+     */
+    private int[] slots = new int[128];
+
+    // Abstraction Function:
+    // A reader over the rows of data between pos and limit, together with
+    // the table of distinct labels L seen so far, such that:
+    //      L.get(id) = the UTF-8 text of data[offsets[id] .. offsets[id] + lengths[id])
+    //      the current row has the fields L.get(fields[0]) .. L.get(fields[fieldCount - 1])
+
+    // Representation Invariant:
+    // 0 <= pos <= limit <= data.capacity()
+    // 0 <= fieldCount <= fields.length
+    // the byte ranges of ids 0 .. labelCount - 1 are within data and pairwise different
+    // slots.length is a power of two and more than twice labelCount
+    // every id in 0 .. labelCount - 1 is in slots, at or after the slot its bytes hash to
+
+    /**
+     * Creates a scanner over the bytes of data between its position and its limit.
+     *
+     * @param data the text to scan
+     * @spec.requires data != null and data is not modified while this scanner is used
+     */
+    public TsvScanner(ByteBuffer data) {
+        this.data = data;
+        this.pos = data.position();
+        this.limit = data.limit();
+        checkRep();
+    }
+
+    /**
+     * Creates a scanner over a file mapped into memory.
+     *
+     * @param file the file to scan
+     * @return a scanner at the first row of file
+     * @throws UncheckedIOException if file cannot be read
+     * @spec.requires file != null and file is a regular file smaller than 2 GB
+     */
+    public static TsvScanner map(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new TsvScanner(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Moves to the next row.
+     *
+     * @return true if there was another row, false if the end of the text was reached
+     * @spec.modifies this
+     * @spec.effects makes the next row the current row
+     */
+    public boolean next() {
+        if (pos >= limit) {
+            fieldCount = 0;
+            return false;
+        }
+        fieldCount = 0;
+        int start = pos;
+        int i = pos;
+        while (i < limit) {
+            byte b = data.get(i);
+            if (b == '\n') {
+                break;
+            }
+            if (b == '\t') {
+                addField(start, i);
+                start = i + 1;
+            }
+            i++;
+        }
+        pos = i + 1;
+        int end = (i > start && data.get(i - 1) == '\r') ? i - 1 : i;
+        addField(start, end);
+        return true;
+    }
+
+    /**
+     * Returns the number of fields in the current row.
+     *
+     * @return the number of fields in the current row, or 0 if there is no current row
+     */
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Returns the id of a field of the current row.
+     *
+     * @param i the index of the field
+     * @return the id of the label of field i
+     * @throws IndexOutOfBoundsException if i &lt; 0 or i &gt;= fieldCount()
+     */
+    public int id(int i) {
+        if (i < 0 || i >= fieldCount) {
+            throw new IndexOutOfBoundsException("no field " + i);
+        }
+        return fields[i];
+    }
+
+    /**
+     * Returns a field of the current row.
+     *
+     * @param i the index of the field
+     * @return the label of field i
+     * @throws IndexOutOfBoundsException if i &lt; 0 or i &gt;= fieldCount()
+     */
+    public String field(int i) {
+        return label(id(i));
+    }
+
+    /**
+     * Returns the label of an id. Asking twice for the same id returns the same String.
+     *
+     * @param id the id to look up
+     * @return the label numbered id
+     * @throws IndexOutOfBoundsException if id &lt; 0 or id &gt;= labelCount()
+     */
+    public String label(int id) {
+        if (id < 0 || id >= labelCount) {
+            throw new IndexOutOfBoundsException("no label " + id);
+        }
+        if (labels[id] == null) {
+            byte[] bytes = new byte[lengths[id]];
+            for (int k = 0; k < bytes.length; k++) {
+                bytes[k] = data.get(offsets[id] + k);
+            }
+            labels[id] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return labels[id];
+    }
+
+    /**
+     * Returns the number of distinct labels seen so far. Ids are numbered from 0 in
+     * the order their labels were first seen.
+     *
+     * @return the number of distinct labels seen so far
+     */
+    public int labelCount() {
+        return labelCount;
+    }
+
+    /**
+     * Appends the field data[start .. end) to the current row.
+     *
+     * @param start the index of the first byte of the field
+     * @param end the index after the last byte of the field
+     * @spec.modifies this
+     */
+    private void addField(int start, int end) {
+        if (fieldCount == fields.length) {
+            fields = Arrays.copyOf(fields, 2 * fields.length);
+        }
+        fields[fieldCount++] = intern(start, end - start);
+    }
+
+    /**
+     * Returns the id of the bytes data[start .. start + length), numbering them if they are new.
+     *
+     * @param start the index of the first byte
+     * @param length the number of bytes
+     * @return the id of those bytes
+     * @spec.modifies this
+     */
+    private int intern(int start, int length) {
+        int hash = hash(start, length);
+        int mask = slots.length - 1;
+        for (int s = hash & mask; ; s = (s + 1) & mask) {
+            int id = slots[s] - 1;
+            if (id < 0) {
+                break;
+            }
+            if (lengths[id] == length && sameBytes(offsets[id], start, length)) {
+                return id;
+            }
+        }
+
+        int id = labelCount++;
+        if (id == offsets.length) {
+            offsets = Arrays.copyOf(offsets, 2 * id);
+            lengths = Arrays.copyOf(lengths, 2 * id);
+            labels = Arrays.copyOf(labels, 2 * id);
+        }
+        offsets[id] = start;
+        lengths[id] = length;
+        if (2 * labelCount >= slots.length) {
+            rehash();
+        } else {
+            insert(hash, id);
+        }
+        return id;
+    }
+
+    /**
+     * Returns the FNV-1a hash of the bytes data[start .. start + length).
+     *
+     * @param start the index of the first byte
+     * @param length the number of bytes
+     * @return the hash of those bytes
+     */
+    private int hash(int start, int length) {
+        int hash = 0x811c9dc5;
+        for (int k = 0; k < length; k++) {
+            hash = (hash ^ data.get(start + k)) * 0x01000193;
+        }
+        return hash;
+    }
+
+    /**
+     * Returns whether data[a .. a + length) equals data[b .. b + length).
+     *
+     * @param a the index of the first range
+     * @param b the index of the second range
+     * @param length the length of both ranges
+     * @return true iff the two ranges hold the same bytes
+     */
+    private boolean sameBytes(int a, int b, int length) {
+        for (int k = 0; k < length; k++) {
+            if (data.get(a + k) != data.get(b + k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Doubles the size of the hash table and inserts every id again.
+     *
+     * @spec.modifies this
+     */
+    private void rehash() {
+        slots = new int[2 * slots.length];
+        for (int id = 0; id < labelCount; id++) {
+            insert(hash(offsets[id], lengths[id]), id);
+        }
+    }
+
+    /**
+     * Puts id in the first free slot at or after the slot of hash.
+     *
+     * @param hash the hash of the bytes of id
+     * @param id the id to insert
+     * @spec.modifies this
+     */
+    private void insert(int hash, int id) {
+        int mask = slots.length - 1;
+        int s = hash & mask;
+        while (slots[s] != 0) {
+            s = (s + 1) & mask;
+        }
+        slots[s] = id + 1;
+    }
+
+    /**
+     * Throws an exception if the representation invariant is violated.
+     *
+     * @throws RuntimeException if representation invariant is violated
+     */
+    private void checkRep() {
+        assert (data != null) : "data == null";
+        assert (0 <= pos && pos <= limit) : "pos out of range";
+        assert (Integer.bitCount(slots.length) == 1) : "slots.length is not a power of two";
+        assert (2 * labelCount < slots.length) : "hash table too full";
+    }
+}
@@ -0,0 +1,86 @@
+package graph.junitTests;
+
+import graph.io.ArtifactFiles;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+public class ArtifactFilesTest {
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(10); // 10 seconds max per method tested
+
+    /**
+     * Test strings and sources written to a file read back
+     */
+    @Test
+    public void testWriteAndRead() throws IOException {
+        Path dir = Files.createTempDirectory("artifact");
+        Path source = dir.resolve("source.tsv");
+        Files.write(source, new byte[] {1, 2, 3});
+        Path file = dir.resolve("nested").resolve("out.bin");
+        ArtifactFiles.write(file, out -> {
+            ArtifactFiles.writeSources(out, source);
+            ArtifactFiles.writeString(out, "h\u00e9ros");
+            ArtifactFiles.writeString(out, "");
+        });
+
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        // no resources/data/source.tsv on the filesystem, so nothing is checked
+        Assert.assertTrue(ArtifactFiles.readSources(ArtifactFilesTest.class, buffer));
+        Assert.assertEquals("h\u00e9ros", ArtifactFiles.readString(buffer));
+        Assert.assertEquals("", ArtifactFiles.readString(buffer));
+        Assert.assertFalse(buffer.hasRemaining());
+
+        buffer.rewind();
+        ArtifactFiles.skipSources(buffer);
+        Assert.assertEquals("h\u00e9ros", ArtifactFiles.readString(buffer));
+    }
+
+    /**
+     * Test a write that fails leaves the file as it was and no temporary file behind
+     */
+    @Test
+    public void testFailedWriteKeepsFile() throws IOException {
+        Path dir = Files.createTempDirectory("artifact");
+        Path file = dir.resolve("out.bin");
+        ArtifactFiles.write(file, out -> out.writeInt(7));
+        try {
+            ArtifactFiles.write(file, out -> {
+                out.writeInt(8);
+                throw new IllegalStateException("failed");
+            });
+            Assert.fail("write did not fail");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        Assert.assertEquals(7, ByteBuffer.wrap(Files.readAllBytes(file)).getInt());
+        try (Stream<Path> files = Files.list(dir)) {
+            Assert.assertEquals(1, files.count());
+        }
+    }
+
+    /**
+     * Test a missing resource reads as null
+     */
+    @Test
+    public void testMissingResource() {
+        Assert.assertNull(ArtifactFiles.readResource(ArtifactFilesTest.class, "no such file"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSkipTruncatedSources() throws IOException {
+        Path file = Files.createTempFile("artifact", ".bin");
+        file.toFile().deleteOnExit();
+        ArtifactFiles.write(file, out -> ArtifactFiles.writeSources(out, file));
+        byte[] bytes = Files.readAllBytes(file);
+        ArtifactFiles.skipSources(ByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length - 20)));
+    }
+}
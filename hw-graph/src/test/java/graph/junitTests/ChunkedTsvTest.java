@@ -0,0 +1,82 @@
+package graph.junitTests;
+
+import graph.io.ChunkedTsv;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ChunkedTsvTest {
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(30); // 30 seconds max per method tested
+
+    private static Path write(String text) throws IOException {
+        Path file = Files.createTempFile("chunked", ".tsv");
+        file.toFile().deleteOnExit();
+        Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    /**
+     * Test ranges cover the file and start at the beginning of lines
+     */
+    @Test
+    public void testSplitOnNewlines() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            text.append("hero").append(i).append('\t').append("book").append(i).append('\n');
+        }
+        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        long[] bounds = ChunkedTsv.split(write(text.toString()), 7);
+
+        Assert.assertEquals(8, bounds.length);
+        Assert.assertEquals(0, bounds[0]);
+        Assert.assertEquals(bytes.length, bounds[bounds.length - 1]);
+        for (int i = 1; i < bounds.length - 1; i++) {
+            Assert.assertTrue(bounds[i] > bounds[i - 1]);
+            Assert.assertEquals('\n', bytes[(int) bounds[i] - 1]);
+        }
+    }
+
+    /**
+     * Test more ranges than lines leaves no empty ranges
+     */
+    @Test
+    public void testSplitSmallFile() throws IOException {
+        Assert.assertArrayEquals(new long[] {0, 4, 7}, ChunkedTsv.split(write("a\tb\nc\td"), 10));
+        Assert.assertArrayEquals(new long[] {0, 0}, ChunkedTsv.split(write(""), 3));
+    }
+
+    /**
+     * Test parsing in ranges reads every line after the header once, in order
+     */
+    @Test
+    public void testParseKeepsOrder() throws IOException {
+        StringBuilder text = new StringBuilder("hero\tbook\n");
+        for (int i = 0; i < 300000; i++) {
+            text.append("hero").append(i).append('\t').append("book").append(i % 100).append('\n');
+        }
+        List<List<String>> chunks = ChunkedTsv.parse(write(text.toString()), true, scanner -> {
+            List<String> heroes = new ArrayList<>();
+            while (scanner.next()) {
+                heroes.add(scanner.field(0));
+            }
+            return heroes;
+        });
+
+        Assert.assertTrue(chunks.size() > 1);
+        List<String> heroes = new ArrayList<>();
+        chunks.forEach(heroes::addAll);
+        Assert.assertEquals(300000, heroes.size());
+        for (int i = 0; i < heroes.size(); i++) {
+            Assert.assertEquals("hero" + i, heroes.get(i));
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package graph.junitTests;
+
+import graph.CompressedGraph;
+import graph.Graph;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.*;
+
+public class CompressedGraphTest {
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(10); // 10 seconds max per method tested
+
+    /**
+     * Builds a bipartite graph where node "n_i" holds edge "e_j" for a random set of j,
+     * in the same way MarvelPaths.loadGraph builds the Marvel graph.
+     */
+    private static Graph<String, String> randomBipartite(int nodes, int edges, int perNode, long seed) {
+        Random random = new Random(seed);
+        Graph<String, String> g = new Graph<>();
+        for (int i = 0; i < nodes; i++) {
+            String n = String.format("n%04d", i);
+            g.addNode(n);
+            for (int k = 0; k < perNode; k++) {
+                g.addEdge(n, String.format("e%04d", random.nextInt(edges)));
+            }
+        }
+        return g;
+    }
+
+    /**
+     * Test an empty graph compresses to an empty graph
+     */
+    @Test
+    public void testEmptyGraph() {
+        CompressedGraph<String, String> c = CompressedGraph.of(new Graph<String, String>());
+        Assert.assertEquals(0, c.nodeCount());
+        Assert.assertEquals(0, c.edgeCount());
+        Assert.assertTrue(c.nodeId("a") < 0);
+    }
+
+    /**
+     * Test ids follow label order and labels round trip
+     */
+    @Test
+    public void testIdsInLabelOrder() {
+        Graph<String, String> g = new Graph<>();
+        g.addNode("c");
+        g.addNode("a");
+        g.addNode("b");
+        g.addEdge("c", "a", "y");
+        g.addEdge("a", "b", "x");
+
+        CompressedGraph<String, String> c = CompressedGraph.of(g);
+        Assert.assertEquals(Arrays.asList("a", "b", "c"), c.listNodeLabels());
+        Assert.assertEquals(1, c.nodeId("b"));
+        Assert.assertEquals("x", c.edgeLabel(c.edgeId("x")));
+        Assert.assertArrayEquals(new int[] {c.edgeId("x")}, c.edgesOf(c.nodeId("a")));
+        Assert.assertArrayEquals(new int[] {c.nodeId("a")}, c.nodesOf(c.edgeId("y")));
+        Assert.assertArrayEquals(new int[] {c.nodeId("b")}, c.childrenOf(c.nodeId("a")));
+        Assert.assertArrayEquals(new int[] {}, c.childrenOf(c.nodeId("b")));
+    }
+
+    /**
+     * Test children match the children of the uncompressed graph
+     */
+    @Test
+    public void testChildrenMatchGraph() {
+        Graph<String, String> g = randomBipartite(300, 60, 5, 331);
+        CompressedGraph<String, String> c = CompressedGraph.of(g);
+
+        Assert.assertEquals(g.listNodeLabels(), c.listNodeLabels());
+        for (String n : g.listNodeLabels()) {
+            Set<String> expected = new HashSet<>();
+            for (Graph.Edge<String> e : g.getEdges(n)) {
+                for (Graph.Node<String> child : g.getNodes(e)) {
+                    expected.add(child.getLabel());
+                }
+            }
+            expected.remove(n);
+            Set<String> children = new HashSet<>();
+            for (int child : c.childrenOf(c.nodeId(n))) {
+                children.add(c.nodeLabel(child));
+            }
+            Assert.assertEquals(expected, children);
+
+            Set<String> edges = new HashSet<>();
+            for (int e : c.edgesOf(c.nodeId(n))) {
+                edges.add(c.edgeLabel(e));
+            }
+            Assert.assertEquals(g.getEdgeLabels(n), edges);
+            Assert.assertEquals(edges.size(), c.edgeDegree(c.nodeId(n)));
+        }
+    }
+
+    /**
+     * Test a breadth first search by visitChildren reaches nodes in the order and at the
+     * depths a search over childrenOf does
+     */
+    @Test
+    public void testVisitChildren() {
+        CompressedGraph<String, String> c = CompressedGraph.of(randomBipartite(300, 200, 1, 332));
+        boolean[] visited = new boolean[c.nodeCount()];
+        int[] queue = new int[c.nodeCount()];
+        visited[0] = true;
+        int tail = 1;
+        for (int head = 0; head < tail; head++) {
+            tail = c.visitChildren(queue[head], visited, queue, tail);
+        }
+
+        List<Integer> expected = new ArrayList<>(Collections.singletonList(0));
+        Set<Integer> seen = new HashSet<>(expected);
+        for (int head = 0; head < expected.size(); head++) {
+            for (int child : c.childrenOf(expected.get(head))) {
+                if (seen.add(child)) {
+                    expected.add(child);
+                }
+            }
+        }
+        Assert.assertTrue(expected.size() > 1 && expected.size() < c.nodeCount());
+        Assert.assertEquals(expected.size(), tail);
+        for (int i = 0; i < tail; i++) {
+            Assert.assertEquals((int) expected.get(i), queue[i]);
+            Assert.assertTrue(visited[queue[i]]);
+        }
+    }
+
+    /**
+     * Test similar neighbouring lists are cheaper than a plain int per incidence
+     */
+    @Test
+    public void testSimilarListsCompress() {
+        Graph<String, String> g = new Graph<>();
+        for (int i = 0; i < 200; i++) {
+            g.addNode(String.format("n%03d", i));
+        }
+        // Consecutive edges share all but a few of their nodes
+        for (int e = 0; e < 50; e++) {
+            for (int i = e; i < e + 100; i++) {
+                g.addEdge(String.format("n%03d", i), String.format("e%03d", e));
+            }
+        }
+        CompressedGraph<String, String> c = CompressedGraph.of(g);
+        Assert.assertTrue(c.bitsPerIncidence() < 16);
+
+        for (int e = 0; e < 50; e++) {
+            int[] nodes = c.nodesOf(c.edgeId(String.format("e%03d", e)));
+            Assert.assertEquals(100, nodes.length);
+            Assert.assertEquals(String.format("n%03d", e), c.nodeLabel(nodes[0]));
+            Assert.assertEquals(String.format("n%03d", e + 99), c.nodeLabel(nodes[99]));
+        }
+    }
+
+    /**
+     * Test unique edges sharing a label are kept apart
+     */
+    @Test
+    public void testUniqueEdgesWithSameLabel() {
+        Graph<String, Double> g = new Graph<>();
+        g.addNode("a");
+        g.addNode("b");
+        g.addNode("c");
+        g.addEdge("a", "b", 1.0, true);
+        g.addEdge("b", "c", 1.0, true);
+
+        CompressedGraph<String, Double> c = CompressedGraph.of(g);
+        Assert.assertEquals(2, c.edgeCount());
+        Assert.assertArrayEquals(new int[] {c.nodeId("b")}, c.childrenOf(c.nodeId("a")));
+        Assert.assertArrayEquals(new int[] {c.nodeId("c")}, c.childrenOf(c.nodeId("b")));
+    }
+}
@@ -0,0 +1,68 @@
+package graph.junitTests;
+
+import graph.Graph;
+import graph.GraphFootprint;
+import graph.GraphFootprint.Category;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+public class GraphFootprintTest {
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(10); // 10 seconds max per method tested
+
+    /**
+     * Test an empty graph retains only its maps
+     */
+    @Test
+    public void testEmptyGraph() {
+        GraphFootprint.Report r = GraphFootprint.measure(new Graph<String, String>());
+        Assert.assertEquals(0, r.getNodeCount());
+        Assert.assertEquals(0, r.getEdgeCount());
+        Assert.assertEquals(0, r.getBytes(Category.LABELS));
+        Assert.assertEquals(2, r.getObjects(Category.COLLECTIONS));
+        Assert.assertTrue(r.getTotalBytes() > 0);
+    }
+
+    /**
+     * Test nodes, edges and labels are counted once each
+     */
+    @Test
+    public void testCountsNodesEdgesAndLabels() {
+        Graph<String, String> g = new Graph<>();
+        g.addNode("a");
+        g.addNode("b");
+        g.addEdge("a", "b", "e");
+
+        GraphFootprint.Report r = GraphFootprint.measure(g);
+        // The node map keys and the node held by the edge are the same objects,
+        // but addEdge makes a new Node for the edge's node set
+        Assert.assertEquals(3, r.getNodeCount());
+        Assert.assertEquals(2, r.getDistinctNodeCount());
+        Assert.assertEquals(1, r.getEdgeCount());
+        Assert.assertEquals(3, r.getDistinctLabelCount());
+        Assert.assertTrue(r.getBytes(Category.LABELS) > 0);
+        Assert.assertTrue(r.getBytes(Category.NODES) > 0);
+        Assert.assertTrue(r.getBytes(Category.EDGES) > 0);
+    }
+
+    /**
+     * Test a larger graph costs more
+     */
+    @Test
+    public void testGrowsWithGraph() {
+        Graph<String, String> small = new Graph<>();
+        Graph<String, String> large = new Graph<>();
+        for (int i = 0; i < 100; i++) {
+            large.addNode("n" + i);
+            if (i < 10) {
+                small.addNode("n" + i);
+            }
+        }
+        long smallBytes = GraphFootprint.measure(small).getTotalBytes();
+        long largeBytes = GraphFootprint.measure(large).getTotalBytes();
+        Assert.assertTrue(largeBytes > smallBytes);
+        Assert.assertEquals(largeBytes, GraphFootprint.measure(large).getTotalBytes());
+    }
+}
@@ -555,4 +555,30 @@ public class GraphTest {
 
         Assert.assertEquals(exp, aChid);
     }
+
+    /**
+     * Test the version grows with each change and not with adds that change nothing
+     */
+    @Test
+    public void testVersion() {
+        Graph<String, Integer> g = new Graph<>();
+        long v0 = g.getVersion();
+        g.addNode("a");
+        g.addNode("b");
+        long v1 = g.getVersion();
+        Assert.assertTrue(v1 > v0);
+
+        g.addNode("a");
+        Assert.assertEquals(v1, g.getVersion());
+
+        g.addEdge("a", "b", 1);
+        long v2 = g.getVersion();
+        Assert.assertTrue(v2 > v1);
+        g.addEdge("a", "b", 1);
+        Assert.assertEquals(v2, g.getVersion());
+
+        g.addBiEdge("a", "b", 2);
+        g.addEdge("b", 3);
+        Assert.assertTrue(g.getVersion() > v2);
+    }
 }
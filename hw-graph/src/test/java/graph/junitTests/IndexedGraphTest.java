@@ -0,0 +1,117 @@
+package graph.junitTests;
+
+import graph.Graph;
+import graph.IndexedGraph;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.*;
+
+public class IndexedGraphTest {
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(10); // 10 seconds max per method tested
+
+    private static List<String> outEdges(IndexedGraph<String, String> g, String node) {
+        int n = g.nodeId(node);
+        List<String> edges = new ArrayList<>();
+        for (int k = 0; k < g.outDegree(n); k++) {
+            edges.add(g.edgeLabel(g.outEdge(n, k)));
+        }
+        return edges;
+    }
+
+    private static List<String> inEdges(IndexedGraph<String, String> g, String node) {
+        int n = g.nodeId(node);
+        List<String> edges = new ArrayList<>();
+        for (int k = 0; k < g.inDegree(n); k++) {
+            edges.add(g.edgeLabel(g.inEdge(n, k)));
+        }
+        return edges;
+    }
+
+    /**
+     * Test an empty graph indexes to an empty graph
+     */
+    @Test
+    public void testEmptyGraph() {
+        IndexedGraph<String, String> g = IndexedGraph.of(new Graph<String, String>());
+        Assert.assertEquals(0, g.nodeCount());
+        Assert.assertEquals(0, g.edgeCount());
+        Assert.assertTrue(g.nodeId("a") < 0);
+    }
+
+    /**
+     * Test directed edges have separate tails and heads
+     */
+    @Test
+    public void testDirectedEdges() {
+        Graph<String, String> graph = new Graph<>();
+        graph.addNode("c");
+        graph.addNode("a");
+        graph.addNode("b");
+        graph.addEdge("a", "b", "x");
+        graph.addEdge("a", "c", "y");
+        graph.addEdge("c", "b", "z");
+
+        IndexedGraph<String, String> g = IndexedGraph.of(graph);
+        Assert.assertFalse(g.isSymmetric());
+        Assert.assertEquals(Arrays.asList("a", "b", "c"), g.listNodeLabels());
+        Assert.assertEquals(Arrays.asList("x", "y"), outEdges(g, "a"));
+        Assert.assertEquals(Arrays.asList(), outEdges(g, "b"));
+        Assert.assertEquals(Arrays.asList("x", "z"), inEdges(g, "b"));
+        Assert.assertEquals(Arrays.asList("y"), inEdges(g, "c"));
+
+        int z = g.edgeId("z");
+        Assert.assertEquals(1, g.headCount(z));
+        Assert.assertEquals("b", g.nodeLabel(g.head(z, 0)));
+        Assert.assertEquals(1, g.tailCount(z));
+        Assert.assertEquals("c", g.nodeLabel(g.tail(z, 0)));
+    }
+
+    /**
+     * Test shared edges connect every node holding them
+     */
+    @Test
+    public void testSharedEdges() {
+        Graph<String, String> graph = new Graph<>();
+        for (String hero : new String[] {"d", "b", "a", "c"}) {
+            graph.addNode(hero);
+        }
+        graph.addEdge("a", "book2");
+        graph.addEdge("c", "book2");
+        graph.addEdge("a", "book1");
+        graph.addEdge("b", "book1");
+        graph.addEdge("d", "book1");
+
+        IndexedGraph<String, String> g = IndexedGraph.of(graph);
+        Assert.assertTrue(g.isSymmetric());
+        Assert.assertEquals(Arrays.asList("book1", "book2"), outEdges(g, "a"));
+        Assert.assertEquals(outEdges(g, "a"), inEdges(g, "a"));
+
+        int book1 = g.edgeId("book1");
+        Assert.assertEquals(3, g.headCount(book1));
+        Assert.assertEquals(g.nodeId("a"), g.head(book1, 0));
+        Assert.assertEquals(g.nodeId("b"), g.head(book1, 1));
+        Assert.assertEquals(g.nodeId("d"), g.head(book1, 2));
+    }
+
+    /**
+     * Test bidirectional unique edges sharing a label are kept apart
+     */
+    @Test
+    public void testUniqueEdges() {
+        Graph<String, Double> graph = new Graph<>();
+        graph.addNode("a");
+        graph.addNode("b");
+        graph.addNode("c");
+        graph.addBiEdge("a", "b", 1.0, true);
+        graph.addBiEdge("b", "c", 1.0, true);
+
+        IndexedGraph<String, Double> g = IndexedGraph.of(graph);
+        Assert.assertEquals(2, g.edgeCount());
+        Assert.assertEquals(2, g.outDegree(g.nodeId("b")));
+        Assert.assertEquals(1, g.outDegree(g.nodeId("c")));
+    }
+}
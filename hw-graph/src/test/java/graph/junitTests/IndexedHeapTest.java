@@ -0,0 +1,116 @@
+package graph.junitTests;
+
+import graph.IndexedHeap;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.*;
+
+public class IndexedHeapTest {
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(10); // 10 seconds max per method tested
+
+    /**
+     * Test a new heap is empty
+     */
+    @Test
+    public void testEmpty() {
+        IndexedHeap heap = new IndexedHeap(4);
+        Assert.assertTrue(heap.isEmpty());
+        Assert.assertEquals(0, heap.size());
+        Assert.assertFalse(heap.contains(2));
+    }
+
+    /**
+     * Test polling an empty heap throws
+     */
+    @Test(expected = NoSuchElementException.class)
+    public void testPollEmpty() {
+        new IndexedHeap(4).poll();
+    }
+
+    /**
+     * Test ids come out by key, and by id among equal keys
+     */
+    @Test
+    public void testOrder() {
+        IndexedHeap heap = new IndexedHeap(5);
+        heap.offer(3, 2.0);
+        heap.offer(1, 5.0);
+        heap.offer(4, 2.0);
+        heap.offer(0, 2.0);
+        heap.offer(2, 1.0);
+        Assert.assertEquals(5, heap.size());
+        Assert.assertEquals(2, heap.poll());
+        Assert.assertEquals(0, heap.poll());
+        Assert.assertEquals(3, heap.poll());
+        Assert.assertEquals(4, heap.poll());
+        Assert.assertEquals(1, heap.poll());
+        Assert.assertTrue(heap.isEmpty());
+    }
+
+    /**
+     * Test offering a lower key moves an id and offering a higher key does nothing
+     */
+    @Test
+    public void testDecreaseKey() {
+        IndexedHeap heap = new IndexedHeap(3);
+        heap.offer(0, 1.0);
+        heap.offer(1, 2.0);
+        heap.offer(2, 3.0);
+        Assert.assertTrue(heap.offer(2, 0.5));
+        Assert.assertFalse(heap.offer(0, 4.0));
+        Assert.assertEquals(3, heap.size());
+        Assert.assertEquals(0.5, heap.key(2), 0);
+        Assert.assertEquals(1.0, heap.key(0), 0);
+        Assert.assertEquals(2, heap.poll());
+        Assert.assertFalse(heap.contains(2));
+        Assert.assertEquals(0, heap.peek());
+    }
+
+    /**
+     * Test an id can be offered again after it was polled
+     */
+    @Test
+    public void testReofferAfterPoll() {
+        IndexedHeap heap = new IndexedHeap(2);
+        heap.offer(1, 3.0);
+        Assert.assertEquals(1, heap.poll());
+        Assert.assertTrue(heap.offer(1, 7.0));
+        Assert.assertEquals(7.0, heap.key(1), 0);
+        heap.clear();
+        Assert.assertTrue(heap.isEmpty());
+        Assert.assertFalse(heap.contains(1));
+    }
+
+    /**
+     * Test random offers and polls against a sorted set of (key, id)
+     */
+    @Test
+    public void testRandomAgainstTreeSet() {
+        Random random = new Random(35);
+        int n = 200;
+        IndexedHeap heap = new IndexedHeap(n);
+        double[] keys = new double[n];
+        Comparator<Integer> byKey = Comparator.<Integer>comparingDouble(id -> keys[id]).thenComparing(id -> id);
+        TreeSet<Integer> expected = new TreeSet<>(byKey);
+        for (int step = 0; step < 20000; step++) {
+            if (random.nextInt(3) > 0) {
+                int id = random.nextInt(n);
+                double key = random.nextInt(50);
+                boolean lower = !expected.contains(id) || key < keys[id];
+                Assert.assertEquals(lower, heap.offer(id, key));
+                if (lower) {
+                    expected.remove(id);
+                    keys[id] = key;
+                    expected.add(id);
+                }
+            } else if (!expected.isEmpty()) {
+                Assert.assertEquals((int) expected.pollFirst(), heap.poll());
+            }
+            Assert.assertEquals(expected.size(), heap.size());
+        }
+    }
+}
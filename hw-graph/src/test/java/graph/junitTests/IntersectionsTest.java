@@ -0,0 +1,108 @@
+package graph.junitTests;
+
+import graph.Intersections;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.*;
+
+public class IntersectionsTest {
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(10); // 10 seconds max per method tested
+
+    /**
+     * Returns size distinct random ints below bound, sorted.
+     */
+    private static int[] sorted(Random random, int size, int bound) {
+        return random.ints(0, bound).distinct().limit(size).sorted().toArray();
+    }
+
+    private static int[] expected(int[]... lists) {
+        Set<Integer> common = new TreeSet<>();
+        for (int x : lists[0]) {
+            common.add(x);
+        }
+        for (int[] list : lists) {
+            Set<Integer> other = new HashSet<>();
+            for (int x : list) {
+                other.add(x);
+            }
+            common.retainAll(other);
+        }
+        return common.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Test two lists against set intersection, from equal lengths to very different ones so
+     * that both merging and galloping are used
+     */
+    @Test
+    public void testIntersectMatchesSets() {
+        Random random = new Random(44);
+        for (int round = 0; round < 500; round++) {
+            int bound = 1 + random.nextInt(5000);
+            int[] a = sorted(random, random.nextInt(Math.min(bound, 50) + 1), bound);
+            int[] b = sorted(random, random.nextInt(bound + 1), bound);
+            int[] want = expected(a, b);
+            Assert.assertArrayEquals(want, Intersections.intersect(a, b));
+            Assert.assertArrayEquals(want, Intersections.intersect(b, a));
+            Assert.assertEquals(want.length, Intersections.count(a, 0, a.length, b, 0, b.length));
+            Assert.assertEquals(want.length, Intersections.count(b, 0, b.length, a, 0, a.length));
+        }
+    }
+
+    /**
+     * Test slices in the middle of arrays, and an out array only as long as the shorter slice
+     */
+    @Test
+    public void testSlices() {
+        int[] shared = {9, 1, 3, 5, 7, 9, 11, 0, 0};
+        int[] other = {3, 4, 5, 6, 7};
+        int[] out = new int[3];
+        int n = Intersections.intersect(shared, 1, 7, other, 0, 5, out);
+        Assert.assertEquals(3, n);
+        Assert.assertArrayEquals(new int[] {3, 5, 7}, out);
+        Assert.assertEquals(0, Intersections.intersect(shared, 1, 7, other, 0, 0, out));
+        Assert.assertEquals(2, Intersections.count(shared, 2, 4, other, 0, 5));
+    }
+
+    /**
+     * Test galloping finds matches at both ends of a long list
+     */
+    @Test
+    public void testGallopEnds() {
+        int[] big = new int[10000];
+        for (int i = 0; i < big.length; i++) {
+            big[i] = 2 * i;
+        }
+        Assert.assertArrayEquals(new int[] {0, 19998}, Intersections.intersect(new int[] {0, 1, 19997, 19998}, big));
+        Assert.assertArrayEquals(new int[0], Intersections.intersect(new int[] {-5, 20001}, big));
+    }
+
+    /**
+     * Test many slices against set intersection
+     */
+    @Test
+    public void testIntersectAllMatchesSets() {
+        Random random = new Random(45);
+        for (int round = 0; round < 200; round++) {
+            int k = 1 + random.nextInt(5);
+            int bound = 1 + random.nextInt(300);
+            int[][] lists = new int[k][];
+            int[] from = new int[k];
+            int[] to = new int[k];
+            for (int i = 0; i < k; i++) {
+                lists[i] = sorted(random, random.nextInt(bound + 1), bound);
+                to[i] = lists[i].length;
+            }
+            Assert.assertArrayEquals(expected(lists), Intersections.intersectAll(lists, from, to));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIntersectAllNothing() {
+        Intersections.intersectAll(new int[0][], new int[0], new int[0]);
+    }
+}
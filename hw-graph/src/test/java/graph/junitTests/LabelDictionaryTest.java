@@ -0,0 +1,103 @@
+package graph.junitTests;
+
+import graph.CompressedGraph;
+import graph.Graph;
+import graph.LabelDictionary;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.*;
+
+public class LabelDictionaryTest {
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(10); // 10 seconds max per method tested
+
+    /**
+     * Test an empty dictionary
+     */
+    @Test
+    public void testEmpty() {
+        LabelDictionary d = LabelDictionary.of(new ArrayList<>());
+        Assert.assertEquals(0, d.size());
+        Assert.assertEquals(-1, d.id("a"));
+        Assert.assertFalse(d.contains("a"));
+    }
+
+    /**
+     * Test duplicates are stored once and ids follow sorted order
+     */
+    @Test
+    public void testSortedAndDistinct() {
+        LabelDictionary d = LabelDictionary.of(Arrays.asList("b", "a", "c", "a", "b"));
+        Assert.assertEquals(Arrays.asList("a", "b", "c"), d);
+        Assert.assertEquals(0, d.id("a"));
+        Assert.assertEquals(2, d.indexOf("c"));
+        Assert.assertEquals(-1, d.indexOf(3));
+    }
+
+    /**
+     * Test lookups in both directions across many buckets, including missing labels
+     */
+    @Test
+    public void testRoundTrip() {
+        List<String> labels = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            labels.add(String.format("AA2 %04d", i * 2));
+        }
+        labels.add("");
+        labels.add("\u00dcn\u00efc\u00f6d\u00e9/HERO");
+        labels.add("\uD83D\uDE00 emoji");
+        LabelDictionary d = LabelDictionary.of(labels);
+
+        List<String> sorted = new ArrayList<>(new TreeSet<>(labels));
+        Assert.assertEquals(sorted, d);
+        for (int i = 0; i < sorted.size(); i++) {
+            Assert.assertEquals(i, d.id(sorted.get(i)));
+            Assert.assertEquals(sorted.get(i), d.get(i));
+        }
+        // Missing labels report where they would go
+        for (int i = 0; i < 1000; i++) {
+            String missing = String.format("AA2 %04d", i * 2 + 1);
+            Assert.assertEquals(Collections.binarySearch(sorted, missing), d.id(missing));
+        }
+        Assert.assertEquals(Collections.binarySearch(sorted, "zzz"), d.id("zzz"));
+        Assert.assertEquals(-sorted.size() - 1, d.id("\uFFFF"));
+    }
+
+    /**
+     * Test shared prefixes are stored once
+     */
+    @Test
+    public void testFrontCodingSavesSpace() {
+        List<String> labels = new ArrayList<>();
+        long raw = 0;
+        for (int i = 0; i < 1000; i++) {
+            String label = "SPIDER-MAN/PETER PARKER ISSUE " + i;
+            labels.add(label);
+            raw += label.length();
+        }
+        LabelDictionary d = LabelDictionary.of(labels);
+        Assert.assertTrue(d.sizeInBytes() * 3 < raw);
+    }
+
+    /**
+     * Test a compressed graph backed by dictionaries behaves like one backed by lists
+     */
+    @Test
+    public void testCompressedGraphOfStrings() {
+        Graph<String, String> g = new Graph<>();
+        g.addNode("b");
+        g.addNode("a");
+        g.addEdge("a", "x");
+        g.addEdge("b", "x");
+        g.addEdge("b", "y");
+
+        CompressedGraph<String, String> c = CompressedGraph.ofStrings(g);
+        Assert.assertTrue(c.listNodeLabels() instanceof LabelDictionary);
+        Assert.assertEquals(1, c.nodeId("b"));
+        Assert.assertEquals("y", c.edgeLabel(c.edgeId("y")));
+        Assert.assertArrayEquals(new int[] {c.nodeId("b")}, c.childrenOf(c.nodeId("a")));
+    }
+}
@@ -0,0 +1,119 @@
+package graph.junitTests;
+
+import graph.NameIndex;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.*;
+
+public class NameIndexTest {
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(10); // 10 seconds max per method tested
+
+    private static final List<String> HEROES = Arrays.asList(
+            "SPIDER-MAN/PETER PARKER", "SPIDER-WOMAN/JESSICA", "SPIDER-MAN CLONE/BEN R",
+            "CAPTAIN AMERICA", "CAPTAIN MARVEL/MAR-VE", "IRON MAN/TONY STARK", "THOR/DR. DONALD BLAK");
+
+    /**
+     * Builds an index of some buildings, reachable by short and long name.
+     */
+    private static NameIndex buildings() {
+        Map<String, String> aliases = new HashMap<>();
+        aliases.put("KNE", "KNE");
+        aliases.put("Kane Hall", "KNE");
+        aliases.put("MGH", "MGH");
+        aliases.put("Mary Gates Hall", "MGH");
+        aliases.put("CSE", "CSE");
+        aliases.put("Paul G. Allen Center for Computer Science & Engineering", "CSE");
+        return NameIndex.of(aliases);
+    }
+
+    /**
+     * Test an empty index
+     */
+    @Test
+    public void testEmpty() {
+        NameIndex index = NameIndex.of(new ArrayList<>());
+        Assert.assertEquals(0, index.size());
+        Assert.assertEquals(new ArrayList<>(), index.complete("a", 5));
+        Assert.assertEquals(new ArrayList<>(), index.suggest("a", 5));
+    }
+
+    /**
+     * Test completions ignore case and spacing and come in alphabetical order
+     */
+    @Test
+    public void testComplete() {
+        NameIndex index = NameIndex.of(HEROES);
+        Assert.assertEquals(7, index.size());
+        Assert.assertEquals(Arrays.asList("SPIDER-MAN CLONE/BEN R", "SPIDER-MAN/PETER PARKER", "SPIDER-WOMAN/JESSICA"),
+                index.complete("spider", 10));
+        Assert.assertEquals(Arrays.asList("CAPTAIN AMERICA"), index.complete("  Captain   a", 10));
+        Assert.assertEquals(Arrays.asList("CAPTAIN AMERICA", "CAPTAIN MARVEL/MAR-VE"), index.complete("captain", 2));
+        Assert.assertEquals(Arrays.asList("CAPTAIN AMERICA"), index.complete("captain", 1));
+        Assert.assertEquals(new ArrayList<>(), index.complete("hulk", 10));
+        Assert.assertEquals(7, index.complete("", 10).size());
+    }
+
+    /**
+     * Test misspelled and partly typed names are found, closest first
+     */
+    @Test
+    public void testSuggest() {
+        NameIndex index = NameIndex.of(HEROES);
+        Assert.assertEquals("IRON MAN/TONY STARK", index.suggest("iron amn", 3).get(0));
+        Assert.assertEquals("CAPTAIN AMERICA", index.suggest("captian america", 3).get(0));
+        Assert.assertEquals("SPIDER-WOMAN/JESSICA", index.suggest("spdier-woman", 3).get(0));
+        Assert.assertEquals("THOR/DR. DONALD BLAK", index.suggest("THOR", 1).get(0));
+        Assert.assertEquals(new ArrayList<>(), index.suggest("zzzzzzzz", 3));
+        Assert.assertEquals(new ArrayList<>(), index.suggest("thor", 0));
+    }
+
+    /**
+     * Test a word inside a name, after a space or a slash, is found like the start of a name
+     */
+    @Test
+    public void testWordsInside() {
+        NameIndex index = NameIndex.of(HEROES);
+        Assert.assertEquals(Arrays.asList("SPIDER-MAN/PETER PARKER"), index.complete("peter", 10));
+        Assert.assertEquals(Arrays.asList("IRON MAN/TONY STARK"), index.complete("stark", 10));
+        Assert.assertEquals("SPIDER-MAN/PETER PARKER", index.suggest("petr parker", 1).get(0));
+        Assert.assertEquals("CSE", buildings().suggest("comptuer science", 1).get(0));
+    }
+
+    /**
+     * Test aliases lead to their names, and a name found by two aliases is returned once
+     */
+    @Test
+    public void testAliases() {
+        NameIndex index = buildings();
+        Assert.assertEquals(3, index.size());
+        Assert.assertEquals(Arrays.asList("KNE"), index.complete("kane", 5));
+        Assert.assertEquals(Arrays.asList("KNE"), index.complete("k", 5));
+        Assert.assertEquals(Arrays.asList("MGH"), index.complete("M", 5));
+        Assert.assertEquals("MGH", index.suggest("mary gtaes", 1).get(0));
+        Assert.assertEquals("CSE", index.suggest("paul allen", 1).get(0));
+        List<String> all = index.suggest("kne", 5);
+        Assert.assertEquals("KNE", all.get(0));
+        Assert.assertEquals(new HashSet<>(all).size(), all.size());
+    }
+
+    /**
+     * Test aliases that differ only in case lead to every name they name
+     */
+    @Test
+    public void testAliasesDifferingInCase() {
+        Map<String, String> aliases = new HashMap<>();
+        aliases.put("Thor", "THOR");
+        aliases.put("THOR", "THOR/DR. DONALD BLAK");
+        NameIndex index = NameIndex.of(aliases);
+        Assert.assertEquals(Arrays.asList("THOR", "THOR/DR. DONALD BLAK"), index.complete("thor", 5));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeK() {
+        NameIndex.of(HEROES).suggest("thor", -1);
+    }
+}
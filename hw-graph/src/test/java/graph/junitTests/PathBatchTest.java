@@ -0,0 +1,122 @@
+package graph.junitTests;
+
+import graph.PathBatch;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PathBatchTest {
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(10); // 10 seconds max per method tested
+
+    private static List<PathBatch.Query<Integer>> queries(int count, int starts) {
+        Random random = new Random(37);
+        List<PathBatch.Query<Integer>> queries = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            queries.add(new PathBatch.Query<>(random.nextInt(starts), random.nextInt(1000)));
+        }
+        return queries;
+    }
+
+    /**
+     * Test results come back in query order
+     */
+    @Test
+    public void testResultsInOrder() {
+        List<PathBatch.Query<Integer>> queries = queries(5000, 40);
+        PathBatch<Integer, String> batch = new PathBatch<>((start, ends) -> {
+            List<String> results = new ArrayList<>();
+            for (int end : ends) {
+                results.add(start + "->" + end);
+            }
+            return results;
+        });
+        List<String> results = batch.run(queries);
+        Assert.assertEquals(queries.size(), results.size());
+        for (int i = 0; i < queries.size(); i++) {
+            Assert.assertEquals(queries.get(i).getStart() + "->" + queries.get(i).getEnd(), results.get(i));
+        }
+    }
+
+    /**
+     * Test each start is searched once, with all of its ends
+     */
+    @Test
+    public void testOneSearchPerStart() {
+        List<PathBatch.Query<Integer>> queries = queries(2000, 25);
+        Map<Integer, AtomicInteger> calls = new ConcurrentHashMap<>();
+        Map<Integer, Integer> ends = new ConcurrentHashMap<>();
+        new PathBatch<Integer, Integer>(new ForkJoinPool(3), (start, e) -> {
+            calls.computeIfAbsent(start, s -> new AtomicInteger()).incrementAndGet();
+            ends.put(start, e.size());
+            return e;
+        }).run(queries);
+
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (PathBatch.Query<Integer> query : queries) {
+            expected.merge(query.getStart(), 1, Integer::sum);
+        }
+        Assert.assertEquals(expected, ends);
+        for (AtomicInteger count : calls.values()) {
+            Assert.assertEquals(1, count.get());
+        }
+    }
+
+    /**
+     * Test the callback gets every result exactly once with its index
+     */
+    @Test
+    public void testCallback() {
+        List<PathBatch.Query<Integer>> queries = queries(3000, 60);
+        Integer[] results = new Integer[queries.size()];
+        AtomicInteger count = new AtomicInteger();
+        new PathBatch<Integer, Integer>((start, ends) -> ends).run(queries, (end, i) -> {
+            Assert.assertNull(results[i]);
+            results[i] = end;
+            count.incrementAndGet();
+        });
+        Assert.assertEquals(queries.size(), count.get());
+        for (int i = 0; i < queries.size(); i++) {
+            Assert.assertEquals(queries.get(i).getEnd(), results[i]);
+        }
+    }
+
+    /**
+     * Test an empty batch does nothing
+     */
+    @Test
+    public void testEmptyBatch() {
+        Assert.assertEquals(Collections.emptyList(),
+                new PathBatch<Integer, Integer>((start, ends) -> ends).run(new ArrayList<>()));
+    }
+
+    /**
+     * Test a failing search fails the batch
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testSearchFailure() {
+        new PathBatch<Integer, Integer>((start, ends) -> {
+            if (start == 3) {
+                throw new IllegalStateException("no search from 3");
+            }
+            return ends;
+        }).run(queries(500, 10));
+    }
+
+    /**
+     * Test queries with the same start and end are equal
+     */
+    @Test
+    public void testQueryEquals() {
+        Assert.assertEquals(new PathBatch.Query<>("a", "b"), new PathBatch.Query<>("a", "b"));
+        Assert.assertEquals(new PathBatch.Query<>("a", "b").hashCode(), new PathBatch.Query<>("a", "b").hashCode());
+        Assert.assertNotEquals(new PathBatch.Query<>("a", "b"), new PathBatch.Query<>("b", "a"));
+        Assert.assertEquals("a -> b", new PathBatch.Query<>("a", "b").toString());
+    }
+}
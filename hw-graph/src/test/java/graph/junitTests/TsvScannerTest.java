@@ -0,0 +1,88 @@
+package graph.junitTests;
+
+import graph.io.TsvScanner;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+public class TsvScannerTest {
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(30); // 30 seconds max per method tested
+
+    private static TsvScanner scan(String text) {
+        return new TsvScanner(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Test rows and fields are split on newlines and tabs
+     */
+    @Test
+    public void testRowsAndFields() {
+        TsvScanner s = scan("a\tb\r\nc\t\n\td\te");
+        Assert.assertTrue(s.next());
+        Assert.assertEquals(2, s.fieldCount());
+        Assert.assertEquals("a", s.field(0));
+        Assert.assertEquals("b", s.field(1));
+
+        Assert.assertTrue(s.next());
+        Assert.assertEquals(2, s.fieldCount());
+        Assert.assertEquals("c", s.field(0));
+        Assert.assertEquals("", s.field(1));
+
+        Assert.assertTrue(s.next());
+        Assert.assertEquals(3, s.fieldCount());
+        Assert.assertEquals("", s.field(0));
+        Assert.assertEquals("e", s.field(2));
+
+        Assert.assertFalse(s.next());
+        Assert.assertEquals(0, s.fieldCount());
+    }
+
+    /**
+     * Test equal fields get the same id and share one String
+     */
+    @Test
+    public void testInterning() {
+        TsvScanner s = scan("x\ty\ny\tx\nz\ty\n");
+        s.next();
+        int x = s.id(0);
+        int y = s.id(1);
+        String label = s.field(1);
+        s.next();
+        Assert.assertEquals(y, s.id(0));
+        Assert.assertEquals(x, s.id(1));
+        Assert.assertSame(label, s.field(0));
+        s.next();
+        Assert.assertEquals(3, s.labelCount());
+        Assert.assertEquals("z", s.label(s.id(0)));
+    }
+
+    /**
+     * Test many distinct labels survive the hash table growing
+     */
+    @Test
+    public void testManyLabels() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            text.append("hero").append(i).append('\t').append("book").append(i % 7).append('\n');
+        }
+        TsvScanner s = scan(text.toString());
+        for (int i = 0; i < 5000; i++) {
+            Assert.assertTrue(s.next());
+            Assert.assertEquals("hero" + i, s.field(0));
+            Assert.assertEquals("book" + (i % 7), s.field(1));
+        }
+        Assert.assertEquals(5007, s.labelCount());
+    }
+
+    @Test (expected = IndexOutOfBoundsException.class)
+    public void testMissingField() {
+        TsvScanner s = scan("a\n");
+        s.next();
+        s.field(1);
+    }
+}
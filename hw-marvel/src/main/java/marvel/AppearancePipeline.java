@@ -0,0 +1,492 @@
+package marvel;
+
+import graph.Graph;
+import graph.io.ChunkedTsv;
+import graph.io.TsvScanner;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * <b>AppearancePipeline</b> loads hero appearances into a graph in two stages. Parser threads
+ * read the input and put batches of hero and book names into a bounded queue, and a single
+ * writer, the thread that called load, takes the batches and adds them to the graph. A batch
+ * is one array of names, so reading a line creates no object; the names come interned from
+ * the {@link TsvScanner} that read them, and {@link HeroAppearance} beans are only read from
+ * the opencsv fallback.
+ * When the writer falls behind the queue fills up and the parsers wait, so at most
+ * queueCapacity batches are held in memory at once however large the input is.
+ *
+ * <p>The time each stage spends working and waiting is kept in {@link Stats}, so a slow load
+ * shows whether parsing or graph building is the bottleneck.
+ */
+public class AppearancePipeline {
+    /**
+     * Marks the end of the batches of one parser.
+     */
+    private static final String[] END = new String[0];
+
+    /**
+     * The number of parser threads.
+     */
+    private final int parsers;
+
+    /**
+     * The number of records in a batch.
+     */
+    private final int batchSize;
+
+    /**
+     * The number of batches the queue holds.
+     */
+    private final int queueCapacity;
+
+    /**
+     * The stats of the most recent load, or null before the first load.
+     */
+    private volatile Stats stats;
+
+    // Abstraction Function:
+    // A two stage loader that reads on parsers threads, hands over records in batches of
+    // batchSize through a queue of at most queueCapacity batches, and whose last load
+    // measured stats. A batch holds the hero of its record i at 2 * i and the book at 2 * i + 1
+
+    // Representation Invariant:
+    // parsers > 0 && batchSize > 0 && queueCapacity > 0
+
+    /**
+     * Creates a pipeline with a parser thread per core, batches of 1024 records,
+     * and room for two batches per parser in the queue.
+     *
+     * @spec.effects Constructs a new AppearancePipeline
+     */
+    public AppearancePipeline() {
+        this(Runtime.getRuntime().availableProcessors(), 1024,
+             2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a pipeline.
+     *
+     * @param parsers the number of parser threads
+     * @param batchSize the number of records in a batch
+     * @param queueCapacity the number of batches that can wait for the writer
+     * @throws IllegalArgumentException if any argument is not positive
+     * @spec.effects Constructs a new AppearancePipeline
+     */
+    public AppearancePipeline(int parsers, int batchSize, int queueCapacity) {
+        if (parsers <= 0 || batchSize <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("pipeline sizes must be positive");
+        }
+        this.parsers = parsers;
+        this.batchSize = batchSize;
+        this.queueCapacity = queueCapacity;
+        checkRep();
+    }
+
+    /**
+     * Loads a tsv file of heroes and books, whose first line is a header, into a new graph.
+     * The file is split into ranges of lines that the parsers read at the same time.
+     *
+     * @param file the file to load
+     * @return a graph where each hero is a node holding an edge for each book it appears in
+     * @throws IllegalArgumentException if a line of file does not hold a hero and a book
+     * @throws java.io.UncheckedIOException if file cannot be read
+     * @spec.requires file != null and file is a regular file
+     */
+    public Graph<String, String> load(Path file) {
+        return load(ChunkedTsv.open(file, true));
+    }
+
+    /**
+     * Loads rows of heroes and books into a new graph, reading each scanner on its own parser
+     * thread. The scanners should be positioned after any header line.
+     *
+     * @param scanners the rows to load
+     * @return a graph where each hero is a node holding an edge for each book it appears in
+     * @throws IllegalArgumentException if a row does not hold a hero and a book
+     * @spec.requires scanners != null and no scanner is read by anything else
+     */
+    public Graph<String, String> load(List<TsvScanner> scanners) {
+        List<Consumer<BiConsumer<String, String>>> sources = new ArrayList<>();
+        for (TsvScanner scanner : scanners) {
+            sources.add(emit -> {
+                while (scanner.next()) {
+                    if (scanner.fieldCount() < 2) {
+                        throw new IllegalArgumentException("line without a hero and a book");
+                    }
+                    emit.accept(scanner.field(0), scanner.field(1));
+                }
+            });
+        }
+        return run(sources);
+    }
+
+    /**
+     * Loads the given records into a new graph, reading them on one parser thread.
+     *
+     * @param data the records to load
+     * @return a graph where each hero is a node holding an edge for each book it appears in
+     * @spec.requires data != null
+     */
+    public Graph<String, String> load(Spliterator<HeroAppearance> data) {
+        return run(Collections.singletonList(
+                emit -> data.forEachRemaining(ha -> emit.accept(ha.getHero(), ha.getBook()))));
+    }
+
+    /**
+     * Returns what happened during the most recent load.
+     *
+     * @return the stats of the most recent load, or null if nothing was loaded yet
+     */
+    public Stats getStats() {
+        return stats;
+    }
+
+    /**
+     * Runs each source on a parser thread and adds everything they emit to a new graph.
+     *
+     * @param sources each source emits the hero and book of its records to the consumer it is given
+     * @return the graph of every record emitted
+     */
+    private Graph<String, String> run(List<Consumer<BiConsumer<String, String>>> sources) {
+        BlockingQueue<String[]> queue = new ArrayBlockingQueue<>(queueCapacity);
+        Stats run = new Stats(sources.size());
+        int threads = Math.min(parsers, Math.max(1, sources.size()));
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "appearance-parser");
+            t.setDaemon(true);
+            return t;
+        });
+        long start = System.nanoTime();
+        try {
+            for (Consumer<BiConsumer<String, String>> source : sources) {
+                pool.execute(() -> parse(source, queue, run));
+            }
+
+            // Equal names from different parsers are different Strings, so share one per distinct name
+            Graph<String, String> g = new Graph<>();
+            Map<String, String> labels = new HashMap<>();
+            int running = sources.size();
+            while (running > 0) {
+                long wait = System.nanoTime();
+                String[] batch = queue.take();
+                long work = System.nanoTime();
+                run.writerWaitNanos += work - wait;
+                if (batch == END) {
+                    running--;
+                    continue;
+                }
+                if (run.failure != null) {
+                    break;
+                }
+                for (int i = 0; i < batch.length; i += 2) {
+                    String hero = labels.computeIfAbsent(batch[i], l -> l);
+                    String book = labels.computeIfAbsent(batch[i + 1], l -> l);
+                    g.addNode(hero);
+                    g.addEdge(hero, book);
+                }
+                run.batchesWritten++;
+                run.recordsWritten += batch.length / 2;
+                run.writerBusyNanos += System.nanoTime() - work;
+            }
+
+            Throwable failure = run.failure;
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            } else if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+            return g;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while loading", e);
+        } finally {
+            // Parsers blocked on a full queue are woken up if the writer stopped early
+            pool.shutdownNow();
+            run.elapsedNanos = System.nanoTime() - start;
+            stats = run;
+        }
+    }
+
+    /**
+     * Reads one source, putting its records into queue in batches and then END.
+     *
+     * @param source the records to read
+     * @param queue where to put the batches
+     * @param run where to count what was read
+     */
+    private void parse(Consumer<BiConsumer<String, String>> source,
+                       BlockingQueue<String[]> queue, Stats run) {
+        long start = System.nanoTime();
+        Batcher batcher = new Batcher(queue, run);
+        try {
+            source.accept(batcher);
+            batcher.flush();
+        } catch (CancellationException e) {
+            // The writer has stopped, so the rest of the source is not needed
+        } catch (Throwable t) {
+            run.fail(t);
+        } finally {
+            run.parserBlockedNanos.addAndGet(batcher.blocked);
+            run.parserBusyNanos.addAndGet(System.nanoTime() - start - batcher.blocked);
+            try {
+                queue.put(END);
+            } catch (InterruptedException e) {
+                // The writer has stopped, so nobody is waiting for END
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * <b>Batcher</b> collects the records of one parser into batches and puts each full
+     * batch into the queue.
+     */
+    private final class Batcher implements BiConsumer<String, String> {
+        /**
+         * Where to put the batches.
+         */
+        private final BlockingQueue<String[]> queue;
+
+        /**
+         * Where to count the batches.
+         */
+        private final Stats run;
+
+        /**
+         * The names of the records not yet put into the queue, a hero and then its book.
+         */
+        private String[] batch = new String[2 * batchSize];
+
+        /**
+         * The number of names in batch.
+         */
+        private int size;
+
+        /**
+         * The time spent waiting for room in the queue.
+         */
+        private long blocked;
+
+        /**
+         * Creates a batcher that puts into queue.
+         *
+         * @param queue where to put the batches
+         * @param run where to count the batches
+         */
+        Batcher(BlockingQueue<String[]> queue, Stats run) {
+            this.queue = queue;
+            this.run = run;
+        }
+
+        /**
+         * Adds a record to the current batch, putting the batch into the queue when it is full.
+         *
+         * @param hero the hero of the record
+         * @param book the book the hero appears in
+         * @throws CancellationException if interrupted because the load was abandoned
+         */
+        @Override
+        public void accept(String hero, String book) {
+            batch[size++] = hero;
+            batch[size++] = book;
+            if (size == batch.length) {
+                flush();
+            }
+        }
+
+        /**
+         * Puts the current batch into the queue, waiting while it is full, unless it is empty.
+         *
+         * @throws CancellationException if interrupted because the load was abandoned
+         */
+        void flush() {
+            if (size == 0) {
+                return;
+            }
+            long start = System.nanoTime();
+            try {
+                queue.put(size == batch.length ? batch : Arrays.copyOf(batch, size));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("load abandoned");
+            }
+            blocked += System.nanoTime() - start;
+            run.batchesParsed.incrementAndGet();
+            batch = new String[2 * batchSize];
+            size = 0;
+        }
+    }
+
+    /**
+     * Throws an exception if the representation invariant is violated.
+     *
+     * @throws RuntimeException if representation invariant is violated
+     */
+    private void checkRep() {
+        assert (parsers > 0) : "parsers <= 0";
+        assert (batchSize > 0) : "batchSize <= 0";
+        assert (queueCapacity > 0) : "queueCapacity <= 0";
+    }
+
+    /**
+     * <b>Stats</b> describe one load: how much each stage did and how its time was spent.
+     * Parser times are summed over all parser threads.
+     */
+    public static final class Stats {
+        /**
+         * The number of parser sources.
+         */
+        private final int sources;
+
+        /**
+         * The number of batches the parsers put into the queue.
+         */
+        private final AtomicLong batchesParsed = new AtomicLong();
+
+        /**
+         * The time parsers spent reading.
+         */
+        private final AtomicLong parserBusyNanos = new AtomicLong();
+
+        /**
+         * The time parsers spent waiting for room in the queue.
+         */
+        private final AtomicLong parserBlockedNanos = new AtomicLong();
+
+        /**
+         * The number of batches the writer added to the graph.
+         */
+        private long batchesWritten;
+
+        /**
+         * The number of records the writer added to the graph.
+         */
+        private long recordsWritten;
+
+        /**
+         * The time the writer spent adding to the graph.
+         */
+        private long writerBusyNanos;
+
+        /**
+         * The time the writer spent waiting for batches.
+         */
+        private long writerWaitNanos;
+
+        /**
+         * The time from the start to the end of the load.
+         */
+        private long elapsedNanos;
+
+        /**
+         * The first exception thrown by a parser, or null.
+         */
+        private volatile Throwable failure;
+
+        /**
+         * Creates empty stats.
+         *
+         * @param sources the number of parser sources
+         */
+        private Stats(int sources) {
+            this.sources = sources;
+        }
+
+        /**
+         * Records that a parser failed, keeping only the first failure.
+         *
+         * @param t what the parser threw
+         */
+        private synchronized void fail(Throwable t) {
+            if (failure == null) {
+                failure = t;
+            }
+        }
+
+        /**
+         * @return the number of ranges or streams the input was read as
+         */
+        public int getSources() {
+            return sources;
+        }
+
+        /**
+         * @return the number of batches the parsers produced
+         */
+        public long getBatchesParsed() {
+            return batchesParsed.get();
+        }
+
+        /**
+         * @return the number of batches the writer added to the graph
+         */
+        public long getBatchesWritten() {
+            return batchesWritten;
+        }
+
+        /**
+         * @return the number of records the writer added to the graph
+         */
+        public long getRecordsWritten() {
+            return recordsWritten;
+        }
+
+        /**
+         * @return the time parser threads spent reading, in nanoseconds, summed over all parsers
+         */
+        public long getParserBusyNanos() {
+            return parserBusyNanos.get();
+        }
+
+        /**
+         * @return the time parser threads spent waiting for the writer, in nanoseconds,
+         * summed over all parsers
+         */
+        public long getParserBlockedNanos() {
+            return parserBlockedNanos.get();
+        }
+
+        /**
+         * @return the time the writer spent adding records to the graph, in nanoseconds
+         */
+        public long getWriterBusyNanos() {
+            return writerBusyNanos;
+        }
+
+        /**
+         * @return the time the writer spent waiting for the parsers, in nanoseconds
+         */
+        public long getWriterWaitNanos() {
+            return writerWaitNanos;
+        }
+
+        /**
+         * @return the time the whole load took, in nanoseconds
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * Return the stats as a String, with the throughput of each stage.
+         *
+         * @return the stats as a String
+         */
+        @Override
+        public String toString() {
+            return String.format("load: %d records in %d batches from %d sources, %.1f ms%n"
+                                 + "parse: busy %.1f ms, blocked on queue %.1f ms%n"
+                                 + "write: busy %.1f ms, waiting for parsers %.1f ms, %.0f records/s",
+                                 recordsWritten, batchesWritten, sources, elapsedNanos / 1e6,
+                                 getParserBusyNanos() / 1e6, getParserBlockedNanos() / 1e6,
+                                 writerBusyNanos / 1e6, writerWaitNanos / 1e6,
+                                 writerBusyNanos == 0 ? 0.0 : recordsWritten * 1e9 / writerBusyNanos);
+        }
+    }
+}
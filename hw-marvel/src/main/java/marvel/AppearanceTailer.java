@@ -0,0 +1,441 @@
+package marvel;
+
+import graph.Graph;
+import graph.io.TsvScanner;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * <b>AppearanceTailer</b> keeps a loaded Marvel graph up to date with a tsv file of heroes and
+ * books that is only ever appended to, or with a directory of such files. Each
+ * {@link #poll()} reads just the complete lines added since the last one and adds them to
+ * the graph in batches, and {@link #start(long)} polls on a background thread whenever the
+ * file system reports a change.
+ *
+ * <p>The graph is guarded by a read/write lock. Batches are added under the write lock, so
+ * queries run through {@link #read(Function)}, or under {@link #getLock()}'s read lock, never
+ * see a half added batch, and many queries can run at once between batches. Each batch bumps
+ * the graph's {@link Graph#getVersion() version}, so caches of query results notice it; a
+ * {@link PathCache} of the graph must be given {@link #getLock()}, so that it searches under
+ * the read lock too.
+ *
+ * <p>As in the full dataset, the first line of every file is a header. A line that is not
+ * finished yet is left for a later poll. Lines without a hero and a book are skipped and
+ * counted, since one bad line should not stop a live feed. A file that shrinks is taken to
+ * have been replaced, and is read again from the start; adding lines already in the graph
+ * leaves it unchanged.
+ */
+public final class AppearanceTailer implements AutoCloseable {
+    /**
+     * The most records added under one hold of the write lock, so that queries waiting for
+     * the lock are not held up for the whole of a large append.
+     */
+    private static final int BATCH_SIZE = 1024;
+
+    /**
+     * The most bytes of a file to map at once. A mapping can be at most 2 GB, and the new
+     * bytes of a file are read a window at a time, each ending at a newline.
+     */
+    private static final long MAX_WINDOW = 1L << 28;
+
+    /**
+     * The file, or directory of files, being tailed.
+     */
+    private final Path source;
+
+    /**
+     * The graph the records are added to.
+     */
+    private final Graph<String, String> graph;
+
+    /**
+     * Guards graph: the write lock while adding a batch, the read lock while querying.
+     */
+    private final ReadWriteLock lock;
+
+    /**
+     * The number of bytes of each file already read.
+     */
+    private final Map<Path, Long> offsets;
+
+    /**
+     * Shares one String per distinct name among the records added by this tailer.
+     */
+    private final Map<String, String> labels;
+
+    /**
+     * The number of records added to the graph.
+     */
+    private long recordsApplied;
+
+    /**
+     * The number of batches added to the graph.
+     */
+    private long batchesApplied;
+
+    /**
+     * The number of lines skipped because they did not hold a hero and a book.
+     */
+    private long linesSkipped;
+
+    /**
+     * The thread polling for changes, or null if not started.
+     */
+    private Thread watcher;
+
+    /**
+     * The watch service the watcher waits on, or null if not started. Closing it wakes
+     * the watcher.
+     */
+    private WatchService watchService;
+
+    /**
+     * The most recent failure of the watcher thread, or null if there was none.
+     */
+    private volatile RuntimeException failure;
+
+    /**
+     * Whether close has been called.
+     */
+    private volatile boolean closed;
+
+    // Abstraction Function:
+    // A tailer of source that has added to graph every complete line of each file f
+    //      before offsets.get(f), and no line after it
+
+    // Representation Invariant:
+    // every key of offsets is source or a file in source, and every offset is >= 0
+    // recordsApplied, batchesApplied, linesSkipped >= 0
+    // (It's implied that there are no null fields in AppearanceTailer, other than watcher,
+    //      watchService and failure)
+
+    /**
+     * Creates a tailer that adds lines appended to source to g. If fromStart is false, g is
+     * taken to hold everything source holds now, and only lines appended later are added;
+     * otherwise the first poll adds everything source holds.
+     *
+     * @param source a tsv file, or a directory of tsv files
+     * @param g the graph to add records to
+     * @param fromStart whether the lines source already holds should be added
+     * @throws UncheckedIOException if source cannot be read
+     * @spec.requires no argument is null and source is a regular file or a directory
+     * @spec.effects Constructs a new AppearanceTailer
+     */
+    public AppearanceTailer(Path source, Graph<String, String> g, boolean fromStart) {
+        this.source = source;
+        this.graph = g;
+        this.lock = new ReentrantReadWriteLock();
+        this.offsets = new HashMap<>();
+        this.labels = new HashMap<>();
+        if (!fromStart) {
+            try {
+                for (Path file : files()) {
+                    offsets.put(file, Files.size(file));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        checkRep();
+    }
+
+    /**
+     * Reads the lines appended to source since the last poll and adds them to the graph.
+     *
+     * @return the number of records added
+     * @throws UncheckedIOException if source cannot be read
+     * @spec.modifies this, the graph
+     * @spec.effects adds a node for the hero and an edge for the book of each new line
+     */
+    public synchronized int poll() {
+        try {
+            int added = 0;
+            for (Path file : files()) {
+                added += tail(file);
+            }
+            checkRep();
+            return added;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Runs a query on the graph while no batch is being added.
+     *
+     * @param query the query to run
+     * @param <T> the result of the query
+     * @return the result of query
+     * @spec.requires query != null and query does not change the graph
+     */
+    public <T> T read(Function<? super Graph<String, String>, T> query) {
+        lock.readLock().lock();
+        try {
+            return query.apply(graph);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the lock guarding the graph. Code that queries the graph outside of
+     * {@link #read(Function)} should hold its read lock.
+     *
+     * @return the lock guarding the graph
+     */
+    public ReadWriteLock getLock() {
+        return lock;
+    }
+
+    /**
+     * Starts polling on a background thread, whenever the file system reports a change to
+     * source and at least every interval milliseconds in case a change is missed.
+     *
+     * @param interval the most milliseconds between polls
+     * @throws UncheckedIOException if source cannot be watched
+     * @throws IllegalStateException if already started or closed
+     * @spec.requires interval &gt; 0
+     * @spec.modifies this
+     */
+    public synchronized void start(long interval) {
+        if (watcher != null || closed) {
+            throw new IllegalStateException("tailer already started or closed");
+        }
+        WatchService watch;
+        try {
+            watch = source.getFileSystem().newWatchService();
+            Path dir = Files.isDirectory(source) ? source : source.toAbsolutePath().getParent();
+            dir.register(watch, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        watchService = watch;
+        watcher = new Thread(() -> watch(watch, interval), "appearance-tailer");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * Stops polling in the background, waiting for a poll in progress to finish. The
+     * watcher is woken by closing its watch service rather than interrupted, since an
+     * interrupt would close a file the poll is reading and be reported as a failure.
+     *
+     * @spec.modifies this
+     */
+    @Override
+    public void close() {
+        Thread t;
+        WatchService w;
+        synchronized (this) {
+            closed = true;
+            t = watcher;
+            w = watchService;
+        }
+        if (t != null) {
+            try {
+                w.close();
+            } catch (IOException e) {
+                // the watcher still sees closed after its next wait
+            }
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of records added to the graph.
+     *
+     * @return the number of records added
+     */
+    public synchronized long getRecordsApplied() {
+        return recordsApplied;
+    }
+
+    /**
+     * Returns the number of batches added to the graph.
+     *
+     * @return the number of batches added
+     */
+    public synchronized long getBatchesApplied() {
+        return batchesApplied;
+    }
+
+    /**
+     * Returns the number of lines skipped because they did not hold a hero and a book.
+     *
+     * @return the number of lines skipped
+     */
+    public synchronized long getLinesSkipped() {
+        return linesSkipped;
+    }
+
+    /**
+     * Returns the most recent failure of a background poll. The background thread keeps
+     * polling after a failure, in case it was passing.
+     *
+     * @return the most recent exception thrown by a background poll, or null if none was
+     */
+    public RuntimeException getFailure() {
+        return failure;
+    }
+
+    /**
+     * Polls whenever watch reports a change or interval milliseconds pass, until closed.
+     *
+     * @param watch the watch service for the directory of source
+     * @param interval the most milliseconds between polls
+     */
+    private void watch(WatchService watch, long interval) {
+        try (WatchService w = watch) {
+            while (!closed) {
+                WatchKey key = w.poll(interval, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    key.pollEvents();
+                    key.reset();
+                }
+                try {
+                    poll();
+                } catch (RuntimeException e) {
+                    failure = e;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closed
+        } catch (IOException e) {
+            failure = new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the files being tailed: source itself, or the regular files in it.
+     *
+     * @return the files to read, in name order
+     * @throws IOException if the directory cannot be listed
+     */
+    private List<Path> files() throws IOException {
+        if (!Files.isDirectory(source)) {
+            return Collections.singletonList(source);
+        }
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> dir = Files.newDirectoryStream(source)) {
+            for (Path file : dir) {
+                if (Files.isRegularFile(file)) {
+                    files.add(file);
+                }
+            }
+        }
+        Collections.sort(files);
+        return files;
+    }
+
+    /**
+     * Reads the complete lines added to file since it was last read, and adds them to the
+     * graph. The new bytes are mapped a window of at most MAX_WINDOW bytes at a time.
+     *
+     * @param file the file to read
+     * @return the number of records added
+     * @throws IOException if file cannot be read, or holds a line longer than MAX_WINDOW
+     */
+    private int tail(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long offset = offsets.getOrDefault(file, 0L);
+            if (size < offset) {
+                offset = 0;
+            }
+            offsets.put(file, offset);
+            boolean header = offset == 0;
+            int added = 0;
+            while (offset < size) {
+                ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                                              Math.min(size - offset, MAX_WINDOW));
+                int end = data.limit();
+                while (end > 0 && data.get(end - 1) != '\n') {
+                    end--;
+                }
+                if (end == 0) {
+                    if (size - offset > MAX_WINDOW) {
+                        throw new IOException("line longer than " + MAX_WINDOW + " bytes in " + file);
+                    }
+                    break; // the next line is not finished yet
+                }
+                data.limit(end);
+                TsvScanner scanner = new TsvScanner(data);
+                if (header) {
+                    scanner.next(); // the header line
+                    header = false;
+                }
+                added += apply(scanner);
+                offset += end;
+                offsets.put(file, offset);
+            }
+            return added;
+        }
+    }
+
+    /**
+     * Adds the rows of scanner to the graph, a batch at a time under the write lock.
+     *
+     * @param scanner the rows to add
+     * @return the number of records added
+     */
+    private int apply(TsvScanner scanner) {
+        List<String> batch = new ArrayList<>(2 * BATCH_SIZE);
+        int added = 0;
+        boolean more = true;
+        while (more) {
+            more = scanner.next();
+            if (more) {
+                if (scanner.fieldCount() < 2 || scanner.field(0).isEmpty() || scanner.field(1).isEmpty()) {
+                    linesSkipped++;
+                    continue;
+                }
+                batch.add(labels.computeIfAbsent(scanner.field(0), l -> l));
+                batch.add(labels.computeIfAbsent(scanner.field(1), l -> l));
+            }
+            if (batch.size() == 2 * BATCH_SIZE || (!more && !batch.isEmpty())) {
+                lock.writeLock().lock();
+                try {
+                    for (int i = 0; i < batch.size(); i += 2) {
+                        graph.addNode(batch.get(i));
+                        graph.addEdge(batch.get(i), batch.get(i + 1));
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                added += batch.size() / 2;
+                batchesApplied++;
+                batch.clear();
+            }
+        }
+        recordsApplied += added;
+        return added;
+    }
+
+    /**
+     * Throws an exception if the representation invariant is violated.
+     *
+     * @throws RuntimeException if representation invariant is violated
+     */
+    private void checkRep() {
+        assert (recordsApplied >= 0 && batchesApplied >= 0 && linesSkipped >= 0) : "negative counter";
+        for (long offset : offsets.values()) {
+            assert (offset >= 0) : "negative offset";
+        }
+    }
+}
@@ -0,0 +1,559 @@
+package marvel;
+
+import graph.Graph;
+import graph.IndexedGraph;
+import graph.IndexedHeap;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * <b>CoAppearanceGraph</b> is an immutable hero-only projection of the Marvel graph: two
+ * heroes are joined iff they appear in a book together, and the join is weighted by the
+ * number of books they share. It is built once from the output of
+ * {@link MarvelPaths#loadGraph(String)} and stored as int arrays, so a search steps from hero
+ * to hero directly instead of going through every book of every hero it visits.
+ *
+ * <p>The weight of a join is 1 / (number of shared books), so the lightest path between two
+ * heroes is their strongest connection: it prefers a few close collaborators over a short
+ * chain of one-off appearances. A projection can be saved to disk and loaded back without
+ * reading the dataset, and {@link #cached(Path, Path)} does so whenever the dataset has not
+ * changed since the projection was saved.
+ */
+public final class CoAppearanceGraph {
+    /**
+     * The first int of a saved projection.
+     */
+    private static final int MAGIC = 0x4d435047;
+
+    /**
+     * The version of the saved format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The hero names in id order, which is alphabetical order.
+     */
+    private final List<String> heroes;
+
+    /**
+     * start[h] = the index in neighbors where the heroes joined to h begin;
+     * start[heroCount()] = neighbors.length.
+     */
+    private final int[] start;
+
+    /**
+     * The ids of the heroes joined to each hero, one hero after the other.
+     */
+    private final int[] neighbors;
+
+    /**
+     * shared[i] = the number of books shared by neighbors[i] and the hero whose list holds i.
+     */
+    private final int[] shared;
+
+    // Abstraction Function:
+    // A weighted undirected graph G such that:
+    //      hero h of G is named heroes.get(h)
+    //      heroes h and neighbors[i] share shared[i] books, for start[h] <= i < start[h + 1]
+    //      the weight of the join between them is 1.0 / shared[i]
+
+    // Representation Invariant:
+    // heroes is sorted and has no duplicates
+    // start.length == heroes.size() + 1, start[0] == 0, start is non-decreasing,
+    //      and start[heroes.size()] == neighbors.length == shared.length
+    // each list neighbors[start[h] .. start[h + 1]) is strictly increasing and does not hold h
+    // h is in the list of v iff v is in the list of h, with the same shared count
+    // every shared count is positive
+    // (It's implied that there are no null fields in CoAppearanceGraph)
+
+    /**
+     * Creates a projection from its parts.
+     *
+     * @param heroes the hero names in alphabetical order
+     * @param start the index in neighbors where each hero's list begins
+     * @param neighbors the lists of joined heroes
+     * @param shared the number of shared books for each join
+     * @spec.requires the arguments satisfy the representation invariant
+     * @spec.effects Constructs a new CoAppearanceGraph
+     */
+    private CoAppearanceGraph(List<String> heroes, int[] start, int[] neighbors, int[] shared) {
+        this.heroes = Collections.unmodifiableList(heroes);
+        this.start = start;
+        this.neighbors = neighbors;
+        this.shared = shared;
+        checkRep();
+    }
+
+    /**
+     * Projects a Marvel graph onto its heroes.
+     *
+     * @param g a graph built by {@link MarvelPaths#loadGraph(String)}
+     * @return the co-appearance projection of g
+     * @spec.requires g != null
+     */
+    public static CoAppearanceGraph of(Graph<String, String> g) {
+        return of(IndexedGraph.of(g));
+    }
+
+    /**
+     * Projects an indexed Marvel graph onto its heroes. Heroes keep their ids in g.
+     *
+     * @param g an indexed copy of a graph built by {@link MarvelPaths#loadGraph(String)}
+     * @return the co-appearance projection of g
+     * @spec.requires g != null
+     */
+    public static CoAppearanceGraph of(IndexedGraph<String, String> g) {
+        int n = g.nodeCount();
+        int[][] rows = new int[n][];
+        int[][] counts = new int[n][];
+
+        // Rows are independent, so build them on all cores with a counter array per thread
+        ThreadLocal<int[]> counters = ThreadLocal.withInitial(() -> new int[n]);
+        IntStream.range(0, n).parallel().forEach(h -> {
+            int[] count = counters.get();
+            int[] touched = new int[16];
+            int size = 0;
+            for (int k = 0; k < g.outDegree(h); k++) {
+                int book = g.outEdge(h, k);
+                for (int j = 0; j < g.headCount(book); j++) {
+                    int v = g.head(book, j);
+                    if (v != h && count[v]++ == 0) {
+                        if (size == touched.length) {
+                            touched = Arrays.copyOf(touched, 2 * size);
+                        }
+                        touched[size++] = v;
+                    }
+                }
+            }
+            int[] row = Arrays.copyOf(touched, size);
+            Arrays.sort(row);
+            int[] rowCounts = new int[size];
+            for (int i = 0; i < size; i++) {
+                rowCounts[i] = count[row[i]];
+                count[row[i]] = 0;
+            }
+            rows[h] = row;
+            counts[h] = rowCounts;
+        });
+
+        int[] start = new int[n + 1];
+        for (int h = 0; h < n; h++) {
+            start[h + 1] = start[h] + rows[h].length;
+        }
+        int[] neighbors = new int[start[n]];
+        int[] shared = new int[start[n]];
+        for (int h = 0; h < n; h++) {
+            System.arraycopy(rows[h], 0, neighbors, start[h], rows[h].length);
+            System.arraycopy(counts[h], 0, shared, start[h], counts[h].length);
+        }
+        return new CoAppearanceGraph(new ArrayList<>(g.listNodeLabels()), start, neighbors, shared);
+    }
+
+    /**
+     * Returns the projection of a Marvel dataset, reading it from cache if cache was saved
+     * from the dataset as it is now, and otherwise building it from the dataset and saving it
+     * to cache.
+     *
+     * @param source a tsv file that {@link MarvelPaths#loadGraphFile(Path)} can read
+     * @param cache where the projection of source is kept between runs
+     * @return the co-appearance projection of source
+     * @throws UncheckedIOException if source cannot be read or cache cannot be written
+     * @spec.requires no argument is null and source is a regular file
+     * @spec.modifies cache
+     * @spec.effects writes the projection of source to cache if cache was missing or stale
+     */
+    public static CoAppearanceGraph cached(Path source, Path cache) {
+        try {
+            long size = Files.size(source);
+            long modified = Files.getLastModifiedTime(source).toMillis();
+            if (Files.isRegularFile(cache)) {
+                try {
+                    ByteBuffer buffer = map(cache);
+                    if (readHeader(buffer) && buffer.getLong() == size && buffer.getLong() == modified) {
+                        return read(buffer);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    // A damaged cache is rebuilt like a stale one
+                }
+            }
+            CoAppearanceGraph projection = of(MarvelPaths.loadGraphFile(source));
+            projection.write(cache, size, modified);
+            return projection;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Saves this projection to a file.
+     *
+     * @param file where to save this projection
+     * @throws UncheckedIOException if file cannot be written
+     * @spec.requires file != null
+     * @spec.modifies file
+     * @spec.effects replaces the contents of file with this projection
+     */
+    public void save(Path file) {
+        try {
+            write(file, -1, -1);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Loads a projection saved by {@link #save(Path)} or {@link #cached(Path, Path)}.
+     *
+     * @param file the file to load
+     * @return the projection saved in file
+     * @throws UncheckedIOException if file cannot be read
+     * @throws IllegalArgumentException if file does not hold a saved projection
+     * @spec.requires file != null
+     */
+    public static CoAppearanceGraph load(Path file) {
+        try {
+            ByteBuffer buffer = map(file);
+            if (!readHeader(buffer)) {
+                throw new IllegalArgumentException(file + " does not hold a saved projection");
+            }
+            buffer.getLong(); // the source size
+            buffer.getLong(); // the source modification time
+            return read(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the number of heroes.
+     *
+     * @return the number of heroes
+     */
+    public int heroCount() {
+        return heroes.size();
+    }
+
+    /**
+     * Returns the number of pairs of heroes that share a book.
+     *
+     * @return the number of joins
+     */
+    public int joinCount() {
+        return neighbors.length / 2;
+    }
+
+    /**
+     * Returns the id of a hero, or a negative number if there is none.
+     *
+     * @param hero the name of the hero
+     * @return the id of hero, or a negative number if not in the graph
+     * @spec.requires hero != null
+     */
+    public int heroId(String hero) {
+        return Collections.binarySearch(heroes, hero);
+    }
+
+    /**
+     * Returns the name of a hero.
+     *
+     * @param hero the id of the hero
+     * @return the name of the hero
+     * @spec.requires 0 &lt;= hero &lt; heroCount()
+     */
+    public String heroName(int hero) {
+        return heroes.get(hero);
+    }
+
+    /**
+     * Returns the hero names in id order.
+     *
+     * @return an unmodifiable list of the hero names
+     */
+    public List<String> listHeroes() {
+        return heroes;
+    }
+
+    /**
+     * Returns the number of heroes a hero shares a book with.
+     *
+     * @param hero the id of the hero
+     * @return the number of heroes joined to hero
+     * @spec.requires 0 &lt;= hero &lt; heroCount()
+     */
+    public int degree(int hero) {
+        return start[hero + 1] - start[hero];
+    }
+
+    /**
+     * Returns one of the heroes a hero shares a book with. The heroes are in id order.
+     *
+     * @param hero the id of the hero
+     * @param k the index of the joined hero
+     * @return the id of the kth hero joined to hero
+     * @spec.requires 0 &lt;= hero &lt; heroCount() and 0 &lt;= k &lt; degree(hero)
+     */
+    public int neighbor(int hero, int k) {
+        return neighbors[start[hero] + k];
+    }
+
+    /**
+     * Returns the array holding every hero's list of joined heroes, for code in this package
+     * that intersects the lists in place. The list of hero h is the slice from
+     * listStarts()[h] to listStarts()[h + 1]. The array is not a copy and must not be changed.
+     *
+     * @return the lists of joined heroes, one after the other
+     */
+    int[] lists() {
+        return neighbors;
+    }
+
+    /**
+     * Returns where each hero's list begins in {@link #lists()}. The array is not a copy and
+     * must not be changed.
+     *
+     * @return the index where each hero's list begins, and then lists().length
+     */
+    int[] listStarts() {
+        return start;
+    }
+
+    /**
+     * Returns the number of books a hero shares with one of the heroes joined to it.
+     *
+     * @param hero the id of the hero
+     * @param k the index of the joined hero
+     * @return the number of books hero shares with neighbor(hero, k)
+     * @spec.requires 0 &lt;= hero &lt; heroCount() and 0 &lt;= k &lt; degree(hero)
+     */
+    public int sharedBooks(int hero, int k) {
+        return shared[start[hero] + k];
+    }
+
+    /**
+     * Returns the number of books two heroes appear in together.
+     *
+     * @param a the name of one hero
+     * @param b the name of the other hero
+     * @return the number of books shared by a and b, or 0 if they share none
+     * @throws IllegalArgumentException if a or b is not in the graph
+     * @spec.requires no argument is null
+     */
+    public int sharedBooks(String a, String b) {
+        int u = heroId(a);
+        int v = heroId(b);
+        if (u < 0 || v < 0) {
+            throw new IllegalArgumentException("hero not in graph.");
+        }
+        int i = Arrays.binarySearch(neighbors, start[u], start[u + 1], v);
+        return i < 0 ? 0 : shared[i];
+    }
+
+    /**
+     * Finds the strongest connection between two heroes: the path whose joins have the least
+     * total weight, where a join weighs 1 / (number of shared books). Of several strongest
+     * paths, the one reaching each hero through the hero with the lowest id is returned.
+     *
+     * @param start the hero to start from
+     * @param end the hero to find a path to
+     * @return the heroes on the path from start to end, both included, or an empty list if
+     * end cannot be reached from start
+     * @throws IllegalArgumentException if start or end is not in the graph
+     * @spec.requires no argument is null
+     */
+    public List<String> strongestPath(String start, String end) {
+        int s = heroId(start);
+        int t = heroId(end);
+        if (s < 0 || t < 0) {
+            throw new IllegalArgumentException("start or end not in graph.");
+        }
+
+        int n = heroes.size();
+        double[] distance = new double[n];
+        int[] parent = new int[n];
+        boolean[] done = new boolean[n];
+        Arrays.fill(distance, Double.POSITIVE_INFINITY);
+        Arrays.fill(parent, -1);
+        IndexedHeap queue = new IndexedHeap(n);
+        distance[s] = 0;
+        parent[s] = s;
+        queue.offer(s, 0);
+
+        while (!queue.isEmpty()) {
+            int u = queue.poll();
+            done[u] = true;
+            if (u == t) {
+                break;
+            }
+            for (int i = this.start[u]; i < this.start[u + 1]; i++) {
+                int v = neighbors[i];
+                double d = distance[u] + 1.0 / shared[i];
+                if (!done[v] && d < distance[v]) {
+                    distance[v] = d;
+                    parent[v] = u;
+                    queue.offer(v, d);
+                }
+            }
+        }
+        if (parent[t] < 0) {
+            return new LinkedList<>();
+        }
+
+        LinkedList<String> path = new LinkedList<>();
+        for (int v = t; v != s; v = parent[v]) {
+            path.addFirst(heroes.get(v));
+        }
+        path.addFirst(heroes.get(s));
+        return path;
+    }
+
+    /**
+     * Returns the total weight of a path of heroes, as found by
+     * {@link #strongestPath(String, String)}.
+     *
+     * @param path the heroes on the path, in order
+     * @return the sum of 1 / (number of shared books) over each step of path
+     * @throws IllegalArgumentException if a hero of path is not in the graph or two heroes
+     * next to each other in path share no book
+     * @spec.requires path != null and no element of path is null
+     */
+    public double pathWeight(List<String> path) {
+        double weight = 0;
+        String previous = null;
+        for (String hero : path) {
+            if (previous != null) {
+                int count = sharedBooks(previous, hero);
+                if (count == 0) {
+                    throw new IllegalArgumentException(previous + " and " + hero + " share no book.");
+                }
+                weight += 1.0 / count;
+            }
+            previous = hero;
+        }
+        return weight;
+    }
+
+    /**
+     * Writes this projection to file, recording the size and modification time of the
+     * dataset it was built from. The file is written beside its destination and then moved
+     * into place, so a reader never sees it half written.
+     *
+     * @param file where to save this projection
+     * @param sourceSize the size of the dataset, or -1 if unknown
+     * @param sourceModified the modification time of the dataset, or -1 if unknown
+     * @throws IOException if file cannot be written
+     */
+    private void write(Path file, long sourceSize, long sourceModified) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path temp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(sourceSize);
+            out.writeLong(sourceModified);
+            out.writeInt(heroes.size());
+            out.writeInt(neighbors.length);
+            for (String hero : heroes) {
+                byte[] bytes = hero.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            for (int i = 1; i < start.length; i++) {
+                out.writeInt(start[i]);
+            }
+            for (int v : neighbors) {
+                out.writeInt(v);
+            }
+            for (int count : shared) {
+                out.writeInt(count);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Maps a saved projection into memory.
+     *
+     * @param file the file to map
+     * @return the contents of file
+     * @throws IOException if file cannot be read
+     */
+    private static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Reads the magic number and version at the start of a saved projection.
+     *
+     * @param buffer the saved projection
+     * @return true iff buffer starts with the magic number and the current version
+     * @spec.modifies buffer
+     */
+    private static boolean readHeader(ByteBuffer buffer) {
+        return buffer.remaining() >= 8 && buffer.getInt() == MAGIC && buffer.getInt() == VERSION;
+    }
+
+    /**
+     * Reads the body of a saved projection, after its header and source fields.
+     *
+     * @param buffer the saved projection, positioned after the source fields
+     * @return the projection saved in buffer
+     * @throws IllegalArgumentException if buffer is not a valid saved projection
+     * @spec.modifies buffer
+     */
+    private static CoAppearanceGraph read(ByteBuffer buffer) {
+        try {
+            int n = buffer.getInt();
+            int m = buffer.getInt();
+            List<String> heroes = new ArrayList<>(n);
+            for (int h = 0; h < n; h++) {
+                byte[] bytes = new byte[buffer.getInt()];
+                buffer.get(bytes);
+                heroes.add(new String(bytes, StandardCharsets.UTF_8));
+            }
+            int[] start = new int[n + 1];
+            buffer.asIntBuffer().get(start, 1, n);
+            buffer.position(buffer.position() + 4 * n);
+            int[] neighbors = new int[m];
+            buffer.asIntBuffer().get(neighbors);
+            buffer.position(buffer.position() + 4 * m);
+            int[] shared = new int[m];
+            buffer.asIntBuffer().get(shared);
+            if (start[n] != m) {
+                throw new IllegalArgumentException("saved projection is inconsistent");
+            }
+            return new CoAppearanceGraph(heroes, start, neighbors, shared);
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            throw new IllegalArgumentException("saved projection is truncated", e);
+        }
+    }
+
+    /**
+     * Throws an exception if the representation invariant is violated.
+     *
+     * @throws RuntimeException if representation invariant is violated
+     */
+    private void checkRep() {
+        assert (start.length == heroes.size() + 1) : "start.length != heroes.size() + 1";
+        assert (start[0] == 0 && start[heroes.size()] == neighbors.length) : "start does not cover neighbors";
+        assert (neighbors.length == shared.length) : "neighbors.length != shared.length";
+    }
+}
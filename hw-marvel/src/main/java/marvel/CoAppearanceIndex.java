@@ -0,0 +1,259 @@
+package marvel;
+
+import graph.IndexedGraph;
+import graph.Intersections;
+
+import java.util.*;
+
+/**
+ * <b>CoAppearanceIndex</b> answers questions about who appears with whom in an indexed Marvel
+ * graph: which books a group of heroes all appear in, which heroes appear in all of a group of
+ * books, and which heroes have appeared alongside every hero of a group. Each is an
+ * intersection of sorted id lists, done by {@link Intersections} directly on the lists as
+ * stored, with no sets built and no hashing.
+ *
+ * <p>The index keeps three kinds of posting list, each as the rows of one int array: the books
+ * of each hero, the heroes of each book, and, from a {@link CoAppearanceGraph}, the heroes each
+ * hero has appeared with. Since ids are in name order, the results come out in name order.
+ */
+public final class CoAppearanceIndex {
+    /**
+     * The graph the index was built from.
+     */
+    private final IndexedGraph<String, String> graph;
+
+    /**
+     * bookStart[h] = the index in books where the books of hero h begin.
+     */
+    private final int[] bookStart;
+
+    /**
+     * The ids of the books of each hero, hero after hero.
+     */
+    private final int[] books;
+
+    /**
+     * heroStart[b] = the index in heroes where the heroes of book b begin.
+     */
+    private final int[] heroStart;
+
+    /**
+     * The ids of the heroes of each book, book after book.
+     */
+    private final int[] heroes;
+
+    /**
+     * The heroes each hero has appeared with.
+     */
+    private final CoAppearanceGraph projection;
+
+    // Abstraction Function:
+    // An index of graph where hero h appears in books[bookStart[h] .. bookStart[h + 1]),
+    //      book b holds heroes[heroStart[b] .. heroStart[b + 1]), and h has appeared with the
+    //      heroes of h in projection
+
+    // Representation Invariant:
+    // graph.isSymmetric()
+    // bookStart.length == graph.nodeCount() + 1, heroStart.length == graph.edgeCount() + 1
+    // every row is strictly increasing, and the rows of books are the transpose of the rows
+    //      of heroes
+    // projection.heroCount() == graph.nodeCount()
+    // (It's implied that there are no null fields in CoAppearanceIndex)
+
+    /**
+     * Builds an index of g, projecting it onto its heroes.
+     *
+     * @param g an indexed Marvel graph
+     * @throws IllegalArgumentException if g has edges that lead somewhere other than the
+     * nodes holding them
+     * @spec.requires g != null
+     * @spec.effects Constructs a new CoAppearanceIndex
+     */
+    public CoAppearanceIndex(IndexedGraph<String, String> g) {
+        this(g, CoAppearanceGraph.of(g));
+    }
+
+    /**
+     * Builds an index of g, using a projection of g that was already built or cached.
+     *
+     * @param g an indexed Marvel graph
+     * @param projection the co-appearance projection of g
+     * @throws IllegalArgumentException if g has edges that lead somewhere other than the
+     * nodes holding them, or projection does not have the heroes of g
+     * @spec.requires no argument is null and projection was built from g or the same data
+     * @spec.effects Constructs a new CoAppearanceIndex
+     */
+    public CoAppearanceIndex(IndexedGraph<String, String> g, CoAppearanceGraph projection) {
+        if (!g.isSymmetric()) {
+            throw new IllegalArgumentException("co-appearances are only defined in a symmetric graph.");
+        }
+        if (!projection.listHeroes().equals(g.listNodeLabels())) {
+            throw new IllegalArgumentException("projection is not of this graph.");
+        }
+        this.graph = g;
+        this.projection = projection;
+
+        int n = g.nodeCount();
+        this.bookStart = new int[n + 1];
+        for (int h = 0; h < n; h++) {
+            bookStart[h + 1] = bookStart[h] + g.outDegree(h);
+        }
+        this.books = new int[bookStart[n]];
+        for (int h = 0; h < n; h++) {
+            for (int k = 0; k < g.outDegree(h); k++) {
+                books[bookStart[h] + k] = g.outEdge(h, k);
+            }
+        }
+
+        int m = g.edgeCount();
+        this.heroStart = new int[m + 1];
+        for (int b = 0; b < m; b++) {
+            heroStart[b + 1] = heroStart[b] + g.headCount(b);
+        }
+        this.heroes = new int[heroStart[m]];
+        for (int b = 0; b < m; b++) {
+            for (int k = 0; k < g.headCount(b); k++) {
+                heroes[heroStart[b] + k] = g.head(b, k);
+            }
+        }
+        checkRep();
+    }
+
+    /**
+     * Returns the graph this index was built from.
+     *
+     * @return the graph of this index
+     */
+    public IndexedGraph<String, String> getGraph() {
+        return graph;
+    }
+
+    /**
+     * Finds the books every one of a group of heroes appears in.
+     *
+     * @param group the names of the heroes
+     * @return the names of the books all of group appear in, in alphabetical order
+     * @throws IllegalArgumentException if group is empty or holds a hero not in the graph
+     * @spec.requires group != null and does not contain null
+     */
+    public List<String> sharedBooks(Collection<String> group) {
+        int[] ids = intersectRows(books, bookStart, ids(group, true));
+        List<String> names = new ArrayList<>(ids.length);
+        for (int b : ids) {
+            names.add(graph.edgeLabel(b));
+        }
+        return names;
+    }
+
+    /**
+     * Counts the books two heroes both appear in, without listing them.
+     *
+     * @param a the name of one hero
+     * @param b the name of the other hero
+     * @return the number of books a and b both appear in
+     * @throws IllegalArgumentException if a or b is not in the graph
+     * @spec.requires no argument is null
+     */
+    public int countSharedBooks(String a, String b) {
+        int[] ids = ids(Arrays.asList(a, b), true);
+        return Intersections.count(books, bookStart[ids[0]], bookStart[ids[0] + 1],
+                books, bookStart[ids[1]], bookStart[ids[1] + 1]);
+    }
+
+    /**
+     * Finds the heroes who appear in every one of a group of books.
+     *
+     * @param group the names of the books
+     * @return the names of the heroes in all of group, in alphabetical order
+     * @throws IllegalArgumentException if group is empty or holds a book not in the graph
+     * @spec.requires group != null and does not contain null
+     */
+    public List<String> sharedCast(Collection<String> group) {
+        return heroNames(intersectRows(heroes, heroStart, ids(group, false)));
+    }
+
+    /**
+     * Finds the heroes who have appeared in a book with every one of a group of heroes, not
+     * necessarily all in the same book. A hero in the group is only found if it has appeared
+     * with all the others, since a hero does not appear with itself.
+     *
+     * @param group the names of the heroes
+     * @return the names of the heroes who have appeared with every hero in group, in
+     * alphabetical order
+     * @throws IllegalArgumentException if group is empty or holds a hero not in the graph
+     * @spec.requires group != null and does not contain null
+     */
+    public List<String> sharedCoStars(Collection<String> group) {
+        return heroNames(intersectRows(projection.lists(), projection.listStarts(), ids(group, true)));
+    }
+
+    /**
+     * Returns the ids of a group of heroes or of books.
+     *
+     * @param group the names
+     * @param ofHeroes whether the names are of heroes, rather than of books
+     * @return the ids of the names in group
+     * @throws IllegalArgumentException if group is empty or holds a name not in the graph
+     */
+    private int[] ids(Collection<String> group, boolean ofHeroes) {
+        if (group.isEmpty()) {
+            throw new IllegalArgumentException("a query needs at least one " + (ofHeroes ? "hero." : "book."));
+        }
+        int[] ids = new int[group.size()];
+        int i = 0;
+        for (String name : group) {
+            ids[i] = ofHeroes ? graph.nodeId(name) : graph.edgeId(name);
+            if (ids[i] < 0) {
+                throw new IllegalArgumentException(name + " not in graph.");
+            }
+            i++;
+        }
+        return ids;
+    }
+
+    /**
+     * Intersects some of the rows of a posting array.
+     *
+     * @param lists the rows, one after the other
+     * @param starts the index where each row begins, and then lists.length
+     * @param rows the rows to intersect
+     * @return the ids in every one of the given rows
+     */
+    private static int[] intersectRows(int[] lists, int[] starts, int[] rows) {
+        int[][] arrays = new int[rows.length][];
+        int[] from = new int[rows.length];
+        int[] to = new int[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            arrays[i] = lists;
+            from[i] = starts[rows[i]];
+            to[i] = starts[rows[i] + 1];
+        }
+        return Intersections.intersectAll(arrays, from, to);
+    }
+
+    /**
+     * Returns the names of some heroes.
+     *
+     * @param ids the ids of the heroes
+     * @return the name of each hero in ids, in the same order
+     */
+    private List<String> heroNames(int[] ids) {
+        List<String> names = new ArrayList<>(ids.length);
+        for (int h : ids) {
+            names.add(graph.nodeLabel(h));
+        }
+        return names;
+    }
+
+    /**
+     * Throws an exception if the representation invariant is violated.
+     *
+     * @throws RuntimeException if representation invariant is violated
+     */
+    private void checkRep() {
+        assert (bookStart.length == graph.nodeCount() + 1) : "bookStart.length != nodeCount() + 1";
+        assert (heroStart.length == graph.edgeCount() + 1) : "heroStart.length != edgeCount() + 1";
+        assert (books.length == heroes.length) : "books is not the transpose of heroes";
+        assert (projection.heroCount() == graph.nodeCount()) : "projection has other heroes";
+    }
+}
@@ -0,0 +1,471 @@
+package marvel;
+
+import graph.IndexedGraph;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * <b>DistanceOracle</b> answers "how many steps apart are these two heroes" for an indexed
+ * Marvel graph, where a step joins two heroes who appear in a book together. It stores the
+ * distance from every hero to each of a few landmark heroes, so that for any two heroes the
+ * triangle inequality bounds their distance in a few array reads:
+ *
+ * <pre>
+ *     max over landmarks L of |d(L, u) - d(L, v)|  &lt;=  d(u, v)  &lt;=  min over L of d(L, u) + d(L, v)
+ * </pre>
+ *
+ * <p>When the bounds meet, they are the answer. Otherwise {@link #distance(int, int)} searches
+ * from both heroes at once, stops as soon as the searches are deeper together than the upper
+ * bound allows, and never expands a hero whose lower bound to the other end is too far, so it
+ * explores far less of the graph than a breadth first search.
+ *
+ * <p>Landmarks are chosen in rounds that are searched in parallel. The first round takes the
+ * heroes in the most books, and each later round the heroes farthest from every landmark so
+ * far, skipping heroes that share a book with a hero already chosen in the round so that the
+ * landmarks spread out over the graph. Distances are stored as chars, landmark by landmark
+ * for each hero, so the distances of one hero are next to each other.
+ */
+public final class DistanceOracle {
+    /**
+     * The number of landmarks used unless another number is asked for.
+     */
+    public static final int DEFAULT_LANDMARKS = 16;
+
+    /**
+     * The stored distance of a hero a landmark cannot reach.
+     */
+    private static final char UNREACHABLE = Character.MAX_VALUE;
+
+    /**
+     * The graph distances are measured in.
+     */
+    private final IndexedGraph<String, String> graph;
+
+    /**
+     * The ids of the landmarks.
+     */
+    private final int[] landmarks;
+
+    /**
+     * distances[v * landmarks.length + i] = the distance from landmark i to node v, or
+     * UNREACHABLE.
+     */
+    private final char[] distances;
+
+    /**
+     * component[v] = the id of the connected part of the graph holding v.
+     */
+    private final int[] component;
+
+    // Abstraction Function:
+    // An oracle for the hop distances of graph whose landmarks are the nodes landmarks[i], and
+    //      the distance from landmarks[i] to v is distances[v * landmarks.length + i],
+    //      or infinite if that is UNREACHABLE
+    // u and v are connected iff component[u] == component[v]
+
+    // Representation Invariant:
+    // graph.isSymmetric()
+    // landmarks holds distinct node ids, and is empty only if graph is
+    // distances.length == graph.nodeCount() * landmarks.length
+    // component.length == graph.nodeCount()
+    // (It's implied that there are no null fields in DistanceOracle)
+
+    /**
+     * Builds an oracle for g with the default number of landmarks.
+     *
+     * @param g the graph to answer distances in
+     * @throws IllegalArgumentException if g has edges that lead somewhere other than the nodes
+     * holding them, since distances would not be symmetric
+     * @spec.requires g != null
+     * @spec.effects Constructs a new DistanceOracle
+     */
+    public DistanceOracle(IndexedGraph<String, String> g) {
+        this(g, DEFAULT_LANDMARKS);
+    }
+
+    /**
+     * Builds an oracle for g with the given number of landmarks, or one per node if g has
+     * fewer nodes.
+     *
+     * @param g the graph to answer distances in
+     * @param count the number of landmarks
+     * @throws IllegalArgumentException if count &lt;= 0, or if g has edges that lead somewhere
+     * other than the nodes holding them, since distances would not be symmetric
+     * @spec.requires g != null
+     * @spec.effects Constructs a new DistanceOracle
+     */
+    public DistanceOracle(IndexedGraph<String, String> g, int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("an oracle needs at least one landmark.");
+        }
+        if (!g.isSymmetric()) {
+            throw new IllegalArgumentException("distances are only symmetric in a symmetric graph.");
+        }
+        this.graph = g;
+        int n = g.nodeCount();
+        this.component = components(g);
+
+        count = Math.min(count, n);
+        int[] chosen = new int[count];
+        char[][] rows = new char[count][];
+        int[] nearest = new int[n];
+        Arrays.fill(nearest, Integer.MAX_VALUE);
+        int round = Math.max(1, Runtime.getRuntime().availableProcessors());
+        int found = 0;
+        while (found < count) {
+            int[] picked = pick(g, nearest, Math.min(round, count - found));
+            int from = found;
+            IntStream.range(0, picked.length).parallel()
+                    .forEach(i -> rows[from + i] = hops(g, picked[i]));
+            for (int i = 0; i < picked.length; i++) {
+                chosen[found] = picked[i];
+                for (int v = 0; v < n; v++) {
+                    if (rows[found][v] != UNREACHABLE) {
+                        nearest[v] = Math.min(nearest[v], rows[found][v]);
+                    }
+                }
+                found++;
+            }
+        }
+        this.landmarks = chosen;
+
+        this.distances = new char[n * count];
+        for (int i = 0; i < count; i++) {
+            for (int v = 0; v < n; v++) {
+                distances[v * count + i] = rows[i][v];
+            }
+        }
+        checkRep();
+    }
+
+    /**
+     * Returns the graph distances are measured in.
+     *
+     * @return the graph of this oracle
+     */
+    public IndexedGraph<String, String> getGraph() {
+        return graph;
+    }
+
+    /**
+     * Returns the landmark heroes, in the order they were chosen.
+     *
+     * @return the names of the landmarks
+     */
+    public List<String> getLandmarks() {
+        List<String> names = new ArrayList<>(landmarks.length);
+        for (int l : landmarks) {
+            names.add(graph.nodeLabel(l));
+        }
+        return names;
+    }
+
+    /**
+     * Returns a number of steps no greater than the distance between two nodes.
+     *
+     * @param u the id of one node
+     * @param v the id of the other node
+     * @return the best lower bound on the distance from u to v the landmarks give, or
+     * Integer.MAX_VALUE if there is no path between them
+     * @spec.requires 0 &lt;= u, v &lt; getGraph().nodeCount()
+     */
+    public int lowerBound(int u, int v) {
+        if (component[u] != component[v]) {
+            return Integer.MAX_VALUE;
+        }
+        int k = landmarks.length;
+        int bound = 0;
+        for (int i = 0; i < k; i++) {
+            char du = distances[u * k + i];
+            char dv = distances[v * k + i];
+            if (du != UNREACHABLE && dv != UNREACHABLE) {
+                bound = Math.max(bound, Math.abs(du - dv));
+            }
+        }
+        return bound;
+    }
+
+    /**
+     * Returns a number of steps no less than the distance between two nodes.
+     *
+     * @param u the id of one node
+     * @param v the id of the other node
+     * @return the best upper bound on the distance from u to v the landmarks give, or
+     * Integer.MAX_VALUE if there is no path between them or no landmark reaches them
+     * @spec.requires 0 &lt;= u, v &lt; getGraph().nodeCount()
+     */
+    public int upperBound(int u, int v) {
+        if (u == v) {
+            return 0;
+        }
+        int k = landmarks.length;
+        int bound = Integer.MAX_VALUE;
+        for (int i = 0; i < k; i++) {
+            char du = distances[u * k + i];
+            char dv = distances[v * k + i];
+            if (du != UNREACHABLE && dv != UNREACHABLE) {
+                bound = Math.min(bound, du + dv);
+            }
+        }
+        return bound;
+    }
+
+    /**
+     * Returns the number of steps on a shortest path between two heroes.
+     *
+     * @param start the name of one hero
+     * @param end the name of the other hero
+     * @return the distance from start to end, or -1 if there is no path between them
+     * @throws IllegalArgumentException if start or end not in graph
+     * @spec.requires no argument is null
+     */
+    public int distance(String start, String end) {
+        int s = graph.nodeId(start);
+        int t = graph.nodeId(end);
+        if (s < 0 || t < 0) {
+            throw new IllegalArgumentException("start or end not in graph.");
+        }
+        return distance(s, t);
+    }
+
+    /**
+     * Returns the number of steps on a shortest path between two nodes, searching only if
+     * the landmark bounds do not already meet.
+     *
+     * @param s the id of one node
+     * @param t the id of the other node
+     * @return the distance from s to t, or -1 if there is no path between them
+     * @spec.requires 0 &lt;= s, t &lt; getGraph().nodeCount()
+     */
+    public int distance(int s, int t) {
+        int lower = lowerBound(s, t);
+        if (lower == Integer.MAX_VALUE) {
+            return -1;
+        }
+        int upper = upperBound(s, t);
+        if (lower == upper) {
+            return lower;
+        }
+
+        // Breadth first from both ends, a level at a time from the end whose frontier has
+        // fewer edges. While the frontiers have not met, the distance is more than the sum of
+        // their depths, so the search stops at the upper bound, and a node whose lower bound
+        // to the other end would overshoot it is never expanded.
+        int n = graph.nodeCount();
+        int[][] depth = {new int[n], new int[n]};
+        Arrays.fill(depth[0], -1);
+        Arrays.fill(depth[1], -1);
+        boolean[][] expanded = {new boolean[graph.edgeCount()], new boolean[graph.edgeCount()]};
+        int[][] frontier = {{s}, {t}};
+        int[] ends = {s, t};
+        int[] reached = {0, 0};
+        depth[0][s] = 0;
+        depth[1][t] = 0;
+        while (reached[0] + reached[1] + 1 < upper) {
+            int side = work(frontier[0]) <= work(frontier[1]) ? 0 : 1;
+            if (frontier[side].length == 0) {
+                break; // every path shorter than the upper bound has been ruled out
+            }
+            int[] mine = depth[side];
+            int[] theirs = depth[1 - side];
+            int next = reached[side] + 1;
+            int[] grown = new int[16];
+            int size = 0;
+            int met = Integer.MAX_VALUE;
+            for (int u : frontier[side]) {
+                for (int k = 0; k < graph.outDegree(u); k++) {
+                    int e = graph.outEdge(u, k);
+                    if (expanded[side][e]) {
+                        continue;
+                    }
+                    expanded[side][e] = true;
+                    for (int j = 0; j < graph.headCount(e); j++) {
+                        int v = graph.head(e, j);
+                        if (mine[v] >= 0) {
+                            continue;
+                        }
+                        mine[v] = next;
+                        if (theirs[v] >= 0) {
+                            met = Math.min(met, next + theirs[v]);
+                        } else if (next + lowerBound(v, ends[1 - side]) < upper) {
+                            if (size == grown.length) {
+                                grown = Arrays.copyOf(grown, 2 * size);
+                            }
+                            grown[size++] = v;
+                        }
+                    }
+                }
+            }
+            if (met != Integer.MAX_VALUE) {
+                return met;
+            }
+            frontier[side] = Arrays.copyOf(grown, size);
+            reached[side] = next;
+        }
+        return upper;
+    }
+
+    /**
+     * Returns the number of edges held by the nodes of a frontier, which is the work of
+     * expanding it.
+     *
+     * @param frontier the ids of the nodes
+     * @return the sum of their out degrees
+     */
+    private int work(int[] frontier) {
+        long sum = 0;
+        for (int u : frontier) {
+            sum += graph.outDegree(u);
+        }
+        return (int) Math.min(sum, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Numbers the connected parts of g.
+     *
+     * @param g the graph
+     * @return the id of the connected part holding each node
+     */
+    private static int[] components(IndexedGraph<String, String> g) {
+        int n = g.nodeCount();
+        int[] component = new int[n];
+        Arrays.fill(component, -1);
+        boolean[] expanded = new boolean[g.edgeCount()];
+        int[] queue = new int[n];
+        int parts = 0;
+        for (int root = 0; root < n; root++) {
+            if (component[root] >= 0) {
+                continue;
+            }
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = root;
+            component[root] = parts;
+            while (head < tail) {
+                int u = queue[head++];
+                for (int k = 0; k < g.outDegree(u); k++) {
+                    int e = g.outEdge(u, k);
+                    if (expanded[e]) {
+                        continue;
+                    }
+                    expanded[e] = true;
+                    for (int j = 0; j < g.headCount(e); j++) {
+                        int v = g.head(e, j);
+                        if (component[v] < 0) {
+                            component[v] = parts;
+                            queue[tail++] = v;
+                        }
+                    }
+                }
+            }
+            parts++;
+        }
+        return component;
+    }
+
+    /**
+     * Picks the next round of landmarks: the nodes farthest from every landmark so far, or in
+     * the most edges if there are none yet, no two sharing an edge.
+     *
+     * @param g the graph
+     * @param nearest the distance from each node to its nearest landmark so far, or
+     * Integer.MAX_VALUE if no landmark reaches it
+     * @param count the most landmarks to pick
+     * @return the ids of at least one and at most count new landmarks
+     */
+    private static int[] pick(IndexedGraph<String, String> g, int[] nearest, int count) {
+        int n = g.nodeCount();
+        boolean first = Arrays.stream(nearest).allMatch(d -> d == Integer.MAX_VALUE);
+        Integer[] order = new Integer[n];
+        for (int v = 0; v < n; v++) {
+            order[v] = v;
+        }
+        // Nodes no landmark reaches are in other parts of the graph, and come after every
+        // node that is reached, except in the first round
+        Comparator<Integer> byDegree = Comparator.comparingInt(v -> -g.outDegree(v));
+        Arrays.sort(order, first ? byDegree : Comparator.<Integer>comparingInt(
+                v -> nearest[v] == Integer.MAX_VALUE ? 1 : -nearest[v]).thenComparing(byDegree));
+
+        boolean[] near = new boolean[n];
+        int[] picked = new int[count];
+        int found = 0;
+        for (int i = 0; i < n && found < count; i++) {
+            int v = order[i];
+            if (near[v] || nearest[v] == 0) {
+                continue;
+            }
+            picked[found++] = v;
+            near[v] = true;
+            for (int k = 0; k < g.outDegree(v); k++) {
+                int e = g.outEdge(v, k);
+                for (int j = 0; j < g.headCount(e); j++) {
+                    near[g.head(e, j)] = true;
+                }
+            }
+        }
+        if (found == 0) {
+            // every node left shares an edge with a landmark, so take the first anyway
+            for (int v : order) {
+                if (nearest[v] != 0) {
+                    picked[found++] = v;
+                    break;
+                }
+            }
+        }
+        return Arrays.copyOf(picked, found);
+    }
+
+    /**
+     * Returns the distance from one node to every node.
+     *
+     * @param g the graph
+     * @param s the node to measure from
+     * @return the distance from s to each node, or UNREACHABLE
+     * @throws IllegalArgumentException if a distance is too large to store
+     */
+    private static char[] hops(IndexedGraph<String, String> g, int s) {
+        int n = g.nodeCount();
+        char[] distance = new char[n];
+        Arrays.fill(distance, UNREACHABLE);
+        boolean[] expanded = new boolean[g.edgeCount()];
+        int[] queue = new int[n];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = s;
+        distance[s] = 0;
+        while (head < tail) {
+            int u = queue[head++];
+            if (distance[u] + 1 >= UNREACHABLE) {
+                throw new IllegalArgumentException("graph is too deep for the oracle.");
+            }
+            for (int k = 0; k < g.outDegree(u); k++) {
+                int e = g.outEdge(u, k);
+                if (expanded[e]) {
+                    continue;
+                }
+                expanded[e] = true;
+                for (int j = 0; j < g.headCount(e); j++) {
+                    int v = g.head(e, j);
+                    if (distance[v] == UNREACHABLE) {
+                        distance[v] = (char) (distance[u] + 1);
+                        queue[tail++] = v;
+                    }
+                }
+            }
+        }
+        return distance;
+    }
+
+    /**
+     * Throws an exception if the representation invariant is violated.
+     *
+     * @throws RuntimeException if representation invariant is violated
+     */
+    private void checkRep() {
+        assert (graph.isSymmetric()) : "graph is not symmetric";
+        assert (landmarks.length > 0 || graph.nodeCount() == 0) : "no landmarks";
+        assert (distances.length == graph.nodeCount() * landmarks.length) : "distances has the wrong length";
+        assert (component.length == graph.nodeCount()) : "component has the wrong length";
+    }
+}
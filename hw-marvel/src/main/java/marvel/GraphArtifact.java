@@ -0,0 +1,203 @@
+package marvel;
+
+import graph.Graph;
+import graph.io.ArtifactFiles;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * <b>GraphArtifact</b> reads and writes prebuilt Marvel graphs, so that a program can load a
+ * graph without parsing text. The artifact of data/NAME.tsv is data/NAME.graph: every distinct
+ * hero and book name once, then the books of each hero as numbers. The build makes an artifact
+ * of each dataset in the resources, and {@link MarvelPaths#loadGraph(String)} loads it instead
+ * of the dataset when it is there.
+ *
+ * <p>An artifact records the length and CRC-32 checksum of each file it was made from, as
+ * {@link ArtifactFiles#writeSources} does. It is only used while those files, where they can
+ * be found on the filesystem, still match, so an edited dataset is parsed again until the
+ * build makes a new artifact; a dataset inside a jar was packed with its artifact and is not
+ * checked.
+ */
+public final class GraphArtifact {
+    /**
+     * The file name extension of an artifact, in place of ".tsv".
+     */
+    public static final String EXTENSION = ".graph";
+
+    /**
+     * The first four bytes of a Marvel graph artifact, "MGRA".
+     */
+    private static final int MAGIC = 0x4d475241;
+
+    /**
+     * The version of the format written.
+     */
+    private static final int VERSION = 1;
+
+    // Abstraction Function and Representation Invariant
+    // would usually go here but GraphArtifact is static
+
+    /**
+     * Not instantiable.
+     */
+    private GraphArtifact() {
+    }
+
+    /**
+     * Loads the artifact of a dataset in the resources/data folder.
+     *
+     * @param fileName the name of the dataset, such as "marvel.tsv"
+     * @return the graph saved in the artifact of fileName, or null if there is no artifact,
+     * or it is out of date, or it cannot be read
+     * @spec.requires fileName != null
+     */
+    public static Graph<String, String> loadResource(String fileName) {
+        ByteBuffer buffer = ArtifactFiles.readResource(GraphArtifact.class, artifactName(fileName));
+        if (buffer == null) {
+            return null;
+        }
+        try {
+            if (buffer.remaining() < 8 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION
+                    || !ArtifactFiles.readSources(GraphArtifact.class, buffer)) {
+                return null;
+            }
+            return read(buffer);
+        } catch (IllegalArgumentException e) {
+            return null; // a damaged artifact is ignored like a stale one
+        }
+    }
+
+    /**
+     * Loads an artifact anywhere on the filesystem, without checking it is up to date.
+     *
+     * @param file the artifact to load
+     * @return the graph saved in file
+     * @throws UncheckedIOException if file cannot be read
+     * @throws IllegalArgumentException if file does not hold a Marvel graph artifact
+     * @spec.requires file != null
+     */
+    public static Graph<String, String> load(Path file) {
+        try {
+            ByteBuffer buffer = ArtifactFiles.map(file);
+            if (buffer.remaining() < 8 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IllegalArgumentException(file + " does not hold a graph artifact");
+            }
+            ArtifactFiles.skipSources(buffer);
+            return read(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Saves the graph of a dataset as an artifact, recording the dataset it was made from.
+     * The artifact is written beside its destination and then moved into place, so a reader
+     * never sees it half written.
+     *
+     * @param g the graph of source
+     * @param source the dataset g was loaded from
+     * @param file where to save the artifact
+     * @throws UncheckedIOException if source cannot be read or file cannot be written
+     * @spec.requires no argument is null and g was loaded by MarvelPaths from source
+     * @spec.modifies file
+     * @spec.effects replaces the contents of file with an artifact of g
+     */
+    public static void save(Graph<String, String> g, Path source, Path file) {
+        ArtifactFiles.write(file, out -> {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            ArtifactFiles.writeSources(out, source);
+
+            List<String> heroes = new ArrayList<>(g.listNodeLabels());
+            heroes.sort(null);
+            SortedSet<String> bookSet = new TreeSet<>();
+            for (String hero : heroes) {
+                bookSet.addAll(g.getEdgeLabels(hero));
+            }
+            String[] books = bookSet.toArray(new String[0]);
+
+            out.writeInt(heroes.size());
+            out.writeInt(books.length);
+            for (String hero : heroes) {
+                ArtifactFiles.writeString(out, hero);
+            }
+            for (String book : books) {
+                ArtifactFiles.writeString(out, book);
+            }
+            for (String hero : heroes) {
+                int[] ids = g.getEdgeLabels(hero).stream()
+                        .mapToInt(book -> Arrays.binarySearch(books, book)).sorted().toArray();
+                out.writeInt(ids.length);
+                for (int id : ids) {
+                    out.writeInt(id);
+                }
+            }
+        });
+    }
+
+    /**
+     * Makes the artifact of each dataset named on the command line. The build runs this to
+     * make the artifacts in the resources.
+     *
+     * @param args pairs of the path of a dataset and the path of its artifact
+     * @throws IllegalArgumentException if args does not hold pairs
+     */
+    public static void main(String[] args) {
+        if (args.length == 0 || args.length % 2 != 0) {
+            throw new IllegalArgumentException("usage: GraphArtifact DATASET ARTIFACT [DATASET ARTIFACT ...]");
+        }
+        for (int i = 0; i < args.length; i += 2) {
+            Path source = Paths.get(args[i]);
+            save(MarvelPaths.loadGraphFile(source), source, Paths.get(args[i + 1]));
+        }
+    }
+
+    /**
+     * Returns the name of the artifact of a dataset.
+     *
+     * @param fileName the name of a dataset
+     * @return fileName with ".tsv" replaced by EXTENSION, or with EXTENSION added
+     */
+    public static String artifactName(String fileName) {
+        String base = fileName.endsWith(".tsv") ? fileName.substring(0, fileName.length() - 4) : fileName;
+        return base + EXTENSION;
+    }
+
+    /**
+     * Reads the body of a Marvel graph artifact, after its header and sources.
+     *
+     * @param buffer the artifact, positioned after the sources
+     * @return the graph saved in buffer
+     * @throws IllegalArgumentException if buffer is not a valid artifact
+     * @spec.modifies buffer
+     */
+    private static Graph<String, String> read(ByteBuffer buffer) {
+        try {
+            String[] heroes = new String[buffer.getInt()];
+            String[] books = new String[buffer.getInt()];
+            for (int i = 0; i < heroes.length; i++) {
+                heroes[i] = ArtifactFiles.readString(buffer);
+            }
+            for (int i = 0; i < books.length; i++) {
+                books[i] = ArtifactFiles.readString(buffer);
+            }
+            Graph<String, String> g = new Graph<>();
+            for (String hero : heroes) {
+                g.addNode(hero);
+                int degree = buffer.getInt();
+                for (int k = 0; k < degree; k++) {
+                    g.addEdge(hero, books[buffer.getInt()]);
+                }
+            }
+            return g;
+        } catch (BufferUnderflowException | NegativeArraySizeException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("artifact is truncated or inconsistent", e);
+        }
+    }
+}
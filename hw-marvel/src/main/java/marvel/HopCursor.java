@@ -0,0 +1,461 @@
+package marvel;
+
+import graph.IndexedGraph;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * <b>HopCursor</b> walks the heroes within k hops of a hero in an indexed Marvel graph, one
+ * hop being a book two heroes appear in together. Heroes come nearest first: all the heroes
+ * one hop away in alphabetical order, then all the heroes two hops away, and so on up to k.
+ *
+ * <p>Only the layer of heroes being returned is held at a time, and the next layer is found
+ * when the last hero of the current one is returned, so a client that stops early never pays
+ * for the layers it did not read. Results can also be fetched a page at a time: each
+ * {@link Page} holds a token naming where the next page starts, and
+ * {@link #resume(IndexedGraph, String)} turns the token back into a cursor at that place, in
+ * the same graph or in another copy of it, so the cursor itself need not be kept between
+ * requests. A token is a short string that can be passed around as is.
+ *
+ * <p>A cursor is not safe to use from more than one thread at a time.
+ */
+public final class HopCursor implements Iterator<HopCursor.Hop> {
+    /**
+     * The first byte of a page token, so that a token of a later format is not misread.
+     */
+    private static final byte TOKEN_VERSION = 1;
+
+    /**
+     * The graph being walked.
+     */
+    private final IndexedGraph<String, String> graph;
+
+    /**
+     * The id of the hero the walk started from.
+     */
+    private final int start;
+
+    /**
+     * The most hops from start a hero returned can be.
+     */
+    private final int maxHops;
+
+    /**
+     * reached[v] = whether v is start or in a layer found so far.
+     */
+    private final boolean[] reached;
+
+    /**
+     * expanded[e] = whether the heroes of book e have been reached.
+     */
+    private final boolean[] expanded;
+
+    /**
+     * The ids of the heroes depth hops from start, in increasing order.
+     */
+    private int[] layer;
+
+    /**
+     * The number of hops from start of the heroes in layer.
+     */
+    private int depth;
+
+    /**
+     * The index in layer of the next hero to return.
+     */
+    private int next;
+
+    /**
+     * The number of heroes returned or skipped so far.
+     */
+    private long position;
+
+    // Abstraction Function:
+    // A walk of the heroes of graph within maxHops hops of the hero start, nearest first and
+    //      then in id order, that has passed the first position of them, the next being
+    //      layer[next] at depth hops, or none if next == layer.length and there is no
+    //      further layer
+
+    // Representation Invariant:
+    // 0 <= start < graph.nodeCount(), maxHops >= 0, 0 <= depth <= maxHops
+    // reached.length == graph.nodeCount(), expanded.length == graph.edgeCount()
+    // layer is strictly increasing, and 0 <= next <= layer.length
+    // (It's implied that there are no null fields in HopCursor)
+
+    /**
+     * Creates a cursor over the heroes within maxHops hops of a hero.
+     *
+     * @param g the graph to walk
+     * @param start the name of the hero to start from
+     * @param maxHops the most hops from start a hero returned can be
+     * @throws IllegalArgumentException if start is not in g or maxHops &lt; 0
+     * @spec.requires no argument is null
+     * @spec.effects Constructs a new HopCursor before the first hero within maxHops of start
+     */
+    public HopCursor(IndexedGraph<String, String> g, String start, int maxHops) {
+        this(g, g.nodeId(start), maxHops);
+    }
+
+    /**
+     * Creates a cursor over the heroes within maxHops hops of a hero.
+     *
+     * @param g the graph to walk
+     * @param start the id of the hero to start from
+     * @param maxHops the most hops from start a hero returned can be
+     * @throws IllegalArgumentException if start is not in g or maxHops &lt; 0
+     * @spec.requires g != null
+     * @spec.effects Constructs a new HopCursor before the first hero within maxHops of start
+     */
+    private HopCursor(IndexedGraph<String, String> g, int start, int maxHops) {
+        if (start < 0 || start >= g.nodeCount()) {
+            throw new IllegalArgumentException("start not in graph.");
+        }
+        if (maxHops < 0) {
+            throw new IllegalArgumentException("cannot walk fewer than no hops.");
+        }
+        this.graph = g;
+        this.start = start;
+        this.maxHops = maxHops;
+        this.reached = new boolean[g.nodeCount()];
+        this.expanded = new boolean[g.edgeCount()];
+        reached[start] = true;
+        this.layer = new int[] {start};
+        this.depth = 0;
+        this.next = 1;
+        this.position = 0;
+        advance();
+        checkRep();
+    }
+
+    /**
+     * Creates a cursor at the place a page token names.
+     *
+     * @param g the graph the token was made in, or a copy of it
+     * @param token a token from {@link Page#getNextToken()} or {@link #token()}
+     * @return a cursor whose next hero is the one after those returned when token was made
+     * @throws IllegalArgumentException if token is not a page token of a graph like g
+     * @spec.requires no argument is null
+     */
+    public static HopCursor resume(IndexedGraph<String, String> g, String token) {
+        ByteBuffer buffer;
+        try {
+            buffer = ByteBuffer.wrap(Base64.getUrlDecoder().decode(token));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("not a page token: " + token, e);
+        }
+        int start;
+        int maxHops;
+        long position;
+        try {
+            if (buffer.get() != TOKEN_VERSION || buffer.getInt() != g.nodeCount()
+                    || buffer.getInt() != g.edgeCount()) {
+                throw new IllegalArgumentException("page token is not of this graph: " + token);
+            }
+            start = buffer.getInt();
+            maxHops = buffer.getInt();
+            position = buffer.getLong();
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("not a page token: " + token, e);
+        }
+        if (buffer.hasRemaining() || position < 0) {
+            throw new IllegalArgumentException("not a page token: " + token);
+        }
+        HopCursor cursor = new HopCursor(g, start, maxHops);
+        cursor.skip(position);
+        return cursor;
+    }
+
+    /**
+     * Returns whether there is a hero left to return.
+     *
+     * @return true iff a hero within maxHops of start has not been returned or skipped
+     */
+    @Override
+    public boolean hasNext() {
+        return next < layer.length;
+    }
+
+    /**
+     * Returns the next hero, finding the next layer of heroes if this was the last of its
+     * layer.
+     *
+     * @return the next hero and its number of hops from start
+     * @throws NoSuchElementException if there is no hero left
+     * @spec.modifies this
+     * @spec.effects moves this past the hero returned
+     */
+    @Override
+    public Hop next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Hop hop = new Hop(graph.nodeLabel(layer[next]), depth);
+        next++;
+        position++;
+        advance();
+        checkRep();
+        return hop;
+    }
+
+    /**
+     * Returns up to size heroes and a token for the rest.
+     *
+     * @param size the most heroes to return
+     * @return the next size heroes, or all of the heroes left if there are fewer, and a
+     * token for the hero after them, or no token if there is none
+     * @throws IllegalArgumentException if size &lt;= 0
+     * @spec.modifies this
+     * @spec.effects moves this past the heroes returned
+     */
+    public Page nextPage(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("a page holds at least one hero.");
+        }
+        List<Hop> hops = new ArrayList<>(Math.min(size, 1024));
+        while (hops.size() < size && hasNext()) {
+            hops.add(next());
+        }
+        return new Page(hops, hasNext() ? token() : null);
+    }
+
+    /**
+     * Returns a token naming the place of this cursor, for {@link #resume(IndexedGraph, String)}.
+     *
+     * @return a token for the hero this cursor would return next
+     */
+    public String token() {
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 4 * 4 + 8);
+        buffer.put(TOKEN_VERSION).putInt(graph.nodeCount()).putInt(graph.edgeCount())
+                .putInt(start).putInt(maxHops).putLong(position);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * Moves past heroes without returning them, whole layers at a time where it can.
+     *
+     * @param count the number of heroes to move past
+     * @throws IllegalArgumentException if there are fewer than count heroes left
+     * @spec.modifies this
+     * @spec.effects moves this past count heroes
+     */
+    private void skip(long count) {
+        while (count > 0) {
+            if (!hasNext()) {
+                throw new IllegalArgumentException("page token is past the last hero.");
+            }
+            int step = (int) Math.min(count, layer.length - next);
+            next += step;
+            position += step;
+            count -= step;
+            advance();
+        }
+        checkRep();
+    }
+
+    /**
+     * Finds the next layer of heroes if the current one has been used up and there is one.
+     *
+     * @spec.modifies this
+     * @spec.effects if next == layer.length and depth &lt; maxHops, replaces layer with the
+     * heroes one hop farther from start, skipping layers that are empty
+     */
+    private void advance() {
+        while (next == layer.length && depth < maxHops && layer.length > 0) {
+            int[] found = new int[16];
+            int size = 0;
+            for (int u : layer) {
+                for (int k = 0; k < graph.outDegree(u); k++) {
+                    int e = graph.outEdge(u, k);
+                    if (expanded[e]) {
+                        continue;
+                    }
+                    expanded[e] = true;
+                    for (int j = 0; j < graph.headCount(e); j++) {
+                        int v = graph.head(e, j);
+                        if (!reached[v]) {
+                            reached[v] = true;
+                            if (size == found.length) {
+                                found = Arrays.copyOf(found, 2 * size);
+                            }
+                            found[size++] = v;
+                        }
+                    }
+                }
+            }
+            layer = Arrays.copyOf(found, size);
+            Arrays.sort(layer);
+            depth++;
+            next = 0;
+        }
+    }
+
+    /**
+     * Throws an exception if the representation invariant is violated.
+     *
+     * @throws RuntimeException if representation invariant is violated
+     */
+    private void checkRep() {
+        assert (start >= 0 && start < graph.nodeCount()) : "start not in graph";
+        assert (depth >= 0 && depth <= maxHops) : "depth out of range";
+        assert (next >= 0 && next <= layer.length) : "next out of range";
+        assert (reached.length == graph.nodeCount()) : "reached.length != nodeCount()";
+    }
+
+    /**
+     * <b>Hop</b> is an immutable hero found by a {@link HopCursor}, with how many hops it is
+     * from the hero the cursor started from.
+     */
+    public static final class Hop {
+        /**
+         * The name of the hero found.
+         */
+        private final String hero;
+
+        /**
+         * The number of hops from the start to the hero found.
+         */
+        private final int distance;
+
+        // Abstraction Function:
+        // The hero named hero, distance hops from the start of a walk
+
+        // Representation Invariant:
+        // hero != null and distance >= 0
+
+        /**
+         * Creates a hop.
+         *
+         * @param hero the name of the hero found
+         * @param distance the number of hops from the start to hero
+         * @spec.requires hero != null and distance &gt;= 0
+         * @spec.effects Constructs a new Hop
+         */
+        public Hop(String hero, int distance) {
+            this.hero = hero;
+            this.distance = distance;
+            checkRep();
+        }
+
+        /**
+         * @return the name of the hero found
+         */
+        public String getHero() {
+            return hero;
+        }
+
+        /**
+         * @return the number of hops from the start to the hero found
+         */
+        public int getDistance() {
+            return distance;
+        }
+
+        /**
+         * Returns whether obj is a hop to the same hero at the same distance.
+         *
+         * @param obj the object to compare with
+         * @return true iff obj is a Hop with an equal hero and distance
+         */
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Hop)) {
+                return false;
+            }
+            Hop other = (Hop) obj;
+            return hero.equals(other.hero) && distance == other.distance;
+        }
+
+        /**
+         * Returns a hash code for this hop.
+         *
+         * @return a hash code of the hero and distance
+         */
+        @Override
+        public int hashCode() {
+            return 31 * hero.hashCode() + distance;
+        }
+
+        /**
+         * Returns a string of this hop.
+         *
+         * @return the hero and its distance, like "hero (2)"
+         */
+        @Override
+        public String toString() {
+            return hero + " (" + distance + ")";
+        }
+
+        /**
+         * Throws an exception if the representation invariant is violated.
+         *
+         * @throws RuntimeException if representation invariant is violated
+         */
+        private void checkRep() {
+            assert (hero != null) : "hero == null";
+            assert (distance >= 0) : "distance < 0";
+        }
+    }
+
+    /**
+     * <b>Page</b> is an immutable run of heroes from a {@link HopCursor}, with a token for
+     * the heroes after it.
+     */
+    public static final class Page {
+        /**
+         * The heroes of this page, in the order the cursor returned them.
+         */
+        private final List<Hop> hops;
+
+        /**
+         * The token for the hero after this page, or null if this is the last page.
+         */
+        private final String nextToken;
+
+        // Abstraction Function:
+        // A page holding hops, followed by the heroes a cursor resumed from nextToken
+        //      returns, or by no heroes if nextToken is null
+
+        // Representation Invariant:
+        // hops != null and does not contain null
+
+        /**
+         * Creates a page.
+         *
+         * @param hops the heroes of the page
+         * @param nextToken the token for the hero after the page, or null if there is none
+         * @spec.requires hops != null and does not contain null
+         * @spec.effects Constructs a new Page
+         */
+        public Page(List<Hop> hops, String nextToken) {
+            this.hops = Collections.unmodifiableList(new ArrayList<>(hops));
+            this.nextToken = nextToken;
+            checkRep();
+        }
+
+        /**
+         * @return the heroes of this page, in order, as an unmodifiable list
+         */
+        public List<Hop> getHops() {
+            return hops;
+        }
+
+        /**
+         * @return the token to resume from for the next page, or null if this is the last
+         * page
+         */
+        public String getNextToken() {
+            return nextToken;
+        }
+
+        /**
+         * Throws an exception if the representation invariant is violated.
+         *
+         * @throws RuntimeException if representation invariant is violated
+         */
+        private void checkRep() {
+            assert (!hops.contains(null)) : "hops contains null";
+        }
+    }
+}
@@ -12,11 +12,19 @@
 package marvel;
 
 import com.opencsv.bean.CsvToBeanBuilder;
+import graph.io.ChunkedTsv;
+import graph.io.TsvScanner;
 
 import java.io.BufferedReader;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Spliterator;
@@ -30,7 +38,8 @@ public class MarvelParser {
 
     /**
      * Reads the Marvel Universe dataset. Each line of the input file contains a character name and a
-     * comic book the character appeared in, separated by a tab character
+     * comic book the character appeared in, separated by a tab character. The file is read as
+     * UTF-8, as {@link #scanData(String)} reads it, whatever the platform charset.
      *
      * @param filename the file that will be read
      * @spec.requires filename is a valid file in the resources/data folder
@@ -42,7 +51,7 @@ public class MarvelParser {
         if (stream == null) {
             throw new IllegalArgumentException("provided an invalid file name");
         }
-        Reader reader = new BufferedReader(new InputStreamReader(stream));
+        Reader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
 
         // Read the file into a spliterator
         // The spliterator contains HeroAppearance objects which are java beans
@@ -54,6 +63,48 @@ public class MarvelParser {
             .spliterator();
     }
 
+    /**
+     * Reads the Marvel Universe dataset without creating a bean per line. If the file is a
+     * regular file it is split into ranges of lines that can be read at the same time, each
+     * mapped into memory and scanned in place, with each distinct hero and book name in a
+     * range numbered once. Resources that are not regular files, such as entries of a jar,
+     * are not scanned; read those with {@link #parseData(String)} instead.
+     *
+     * @param filename the file that will be read
+     * @spec.requires filename is a valid file in the resources/data folder
+     * @throws IllegalArgumentException if the provided filename is invalid
+     * @return a scanner for each range in file order, the first positioned after the header
+     * line, whose rows hold a hero and a book, or null if the file is not a regular file
+     */
+    public static List<TsvScanner> scanData(String filename) {
+        Path file = dataPath(filename);
+        return file == null ? null : ChunkedTsv.open(file, true);
+    }
+
+    /**
+     * Finds the Marvel Universe dataset on the filesystem.
+     *
+     * @param filename the file to find
+     * @spec.requires filename is a valid file in the resources/data folder
+     * @throws IllegalArgumentException if the provided filename is invalid
+     * @return the path of the file, or null if the file is not a regular file
+     */
+    public static Path dataPath(String filename) {
+        URL url = MarvelParser.class.getResource("/data/" + filename);
+        if (url == null) {
+            throw new IllegalArgumentException("provided an invalid file name");
+        }
+        if (!url.getProtocol().equals("file")) {
+            return null;
+        }
+        try {
+            Path file = Paths.get(url.toURI());
+            return Files.isRegularFile(file) ? file : null;
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+
     /**
      * Give spliterator next functionality like iterator.
      * Gets the next element in the spliterator, repeated calls function like next for iterator.
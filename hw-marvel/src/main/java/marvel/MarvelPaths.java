@@ -1,10 +1,23 @@
 package marvel;
 
 import graph.Graph;
+import graph.IndexedGraph;
+import graph.NameIndex;
+import graph.PathBatch;
+import graph.io.TsvScanner;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
-import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
+import java.util.function.BiFunction;
+import java.util.function.ObjIntConsumer;
 
 /**
  * Static class for loading a graph from a file and finding shortest paths in the graph.
@@ -14,22 +27,41 @@ public class MarvelPaths {
     // would usually go here but MarvelParser is static
 
     /**
-     * Create a bidirectional graph from a tsv file.
+     * Create a bidirectional graph from a tsv file. If the build made an up to date
+     * {@link GraphArtifact} of the file, the graph is loaded from it without parsing text.
      *
      * @spec.requires fileName != null
      * @param fileName the name of the file to create a graph from
      * @return a graph from of the data in fileName
      */
     public static Graph<String, String> loadGraph(String fileName) {
-        Graph<String, String> g = new Graph<>();
-
-        Spliterator<HeroAppearance> data = MarvelParser.parseData(fileName);
-        Stream<HeroAppearance> dataStream = StreamSupport.stream(data, true);
-        dataStream.forEach(ha -> {g.addNode(ha.getHero());
-                                  g.addEdge(ha.getHero(), ha.getBook());
-        });
+        if (fileName == null) {
+            throw new IllegalArgumentException("provided an invalid file name");
+        }
+        Graph<String, String> prebuilt = GraphArtifact.loadResource(fileName);
+        if (prebuilt != null) {
+            return prebuilt;
+        }
+        List<TsvScanner> scanners = MarvelParser.scanData(fileName);
+        if (scanners != null) {
+            return new AppearancePipeline().load(scanners);
+        }
+        // Not a regular file, so fall back to reading beans
+        return new AppearancePipeline().load(MarvelParser.parseData(fileName));
+    }
 
-        return g;
+    /**
+     * Create a bidirectional graph from a tsv file anywhere on the filesystem. The file is
+     * parsed in ranges on all cores while a single writer adds the parsed lines to the graph.
+     *
+     * @spec.requires file != null and file is a regular file whose first line is a header
+     * @param file the file to create a graph from
+     * @return a graph of the data in file
+     * @throws IllegalArgumentException if a line of file does not hold a hero and a book
+     * @throws java.io.UncheckedIOException if file cannot be read
+     */
+    public static Graph<String, String> loadGraphFile(Path file) {
+        return new AppearancePipeline().load(file);
     }
 
     /**
@@ -100,5 +132,494 @@ public class MarvelPaths {
         return new LinkedList<>();
     }
 
-    public static void main(String[] args) {}
+    /**
+     * Find the shortest path between two nodes in an indexed graph, treating each edge as
+     * a hyperedge that joins all of its nodes. Of the shortest paths, returns the one whose
+     * nodes come first alphabetically, using the alphabetically first edge between each pair
+     * of nodes. {@link #findPath(Graph, String, String)} finds a path of the same length, but
+     * breaks ties between nodes at the same distance in hash order rather than alphabetically.
+     *
+     * <p>Each edge is expanded at most once, since every node it joins is found the first
+     * time it is expanded, and the search keeps one parent per node instead of a path.
+     *
+     * @param g the graph to find the path in
+     * @param start the node to start the search from
+     * @param end the node to look for a path to
+     * @return the shortest path between start and end in g, as a list of [node, edge] steps
+     * @spec.requires no parameter is null
+     * @throws IllegalArgumentException if start or end not in graph
+     */
+    public static List<List<String>> findPath(IndexedGraph<String, String> g, String start, String end) {
+        int s = g.nodeId(start);
+        int t = g.nodeId(end);
+        if (s < 0 || t < 0) {
+            throw new IllegalArgumentException("start or end not in graph.");
+        }
+        int[][] tree = search(g, s, new int[] {t});
+        return path(g, s, t, tree[0], tree[1]);
+    }
+
+    /**
+     * Find the paths {@link #findPath(IndexedGraph, String, String)} finds for many pairs of
+     * nodes at once, in parallel on the common fork/join pool. Pairs with the same start share
+     * a single search, which goes on until it has reached every end paired with that start.
+     *
+     * @param g the graph to find the paths in
+     * @param queries the pairs of nodes to find paths between
+     * @return the shortest path for queries.get(i) at index i, as in findPath
+     * @spec.requires no parameter is null and no query is null
+     * @throws IllegalArgumentException if the start or end of any query is not in graph,
+     * in which case no path is searched for
+     */
+    public static List<List<List<String>>> findPaths(IndexedGraph<String, String> g,
+                                                     List<PathBatch.Query<String>> queries) {
+        checkQueries(g, queries);
+        return new PathBatch<>(searchFrom(g)).run(queries);
+    }
+
+    /**
+     * Find the paths {@link #findPath(IndexedGraph, String, String)} finds for many pairs of
+     * nodes at once, handing each path to callback as soon as it is found. Paths arrive in no
+     * particular order, and possibly on several threads at once.
+     *
+     * @param g the graph to find the paths in
+     * @param queries the pairs of nodes to find paths between
+     * @param callback takes each path and the index of its query in queries
+     * @spec.requires no parameter is null and no query is null
+     * @throws IllegalArgumentException if the start or end of any query is not in graph,
+     * in which case no path is searched for
+     */
+    public static void findPaths(IndexedGraph<String, String> g, List<PathBatch.Query<String>> queries,
+                                 ObjIntConsumer<? super List<List<String>>> callback) {
+        checkQueries(g, queries);
+        new PathBatch<>(searchFrom(g)).run(queries, callback);
+    }
+
+    /**
+     * Find every shortest path between two nodes in an indexed graph. The paths are generated
+     * lazily in lexicographic order, so the first is the path
+     * {@link #findPath(IndexedGraph, String, String)} returns, and the first k are the k
+     * alphabetically least alternatives.
+     *
+     * @param g the graph to find the paths in
+     * @param start the node to start the search from
+     * @param end the node to look for paths to
+     * @return the shortest paths between start and end in g, each as a list of [node, edge] steps
+     * @spec.requires no parameter is null
+     * @throws IllegalArgumentException if start or end not in graph
+     */
+    public static ShortestPathDag findAllPaths(IndexedGraph<String, String> g, String start, String end) {
+        return new ShortestPathDag(g, start, end);
+    }
+
+    /**
+     * Find the number of steps on a shortest path between two nodes, using the landmark
+     * bounds of oracle to answer without searching when they meet and to steer the search
+     * when they do not.
+     *
+     * @param oracle the distance oracle of the graph to measure in
+     * @param start the node to measure from
+     * @param end the node to measure to
+     * @return the length of findPath(oracle.getGraph(), start, end), or -1 if there is no path
+     * @spec.requires no parameter is null
+     * @throws IllegalArgumentException if start or end not in graph
+     */
+    public static int findDistance(DistanceOracle oracle, String start, String end) {
+        return oracle.distance(start, end);
+    }
+
+    /**
+     * Find the heroes within some number of steps of a node, nearest first. The heroes are
+     * found a layer at a time as they are read, so reading only the first few is cheap even
+     * for a node near most of the graph.
+     *
+     * @param g the graph to look in
+     * @param start the node to start from
+     * @param maxHops the most steps from start a node found can be
+     * @return a cursor over the nodes other than start within maxHops of start, by
+     * distance and then in alphabetical order
+     * @spec.requires no parameter is null
+     * @throws IllegalArgumentException if start not in graph or maxHops &lt; 0
+     * @see HopCursor#nextPage(int)
+     */
+    public static HopCursor findNeighborhood(IndexedGraph<String, String> g, String start, int maxHops) {
+        return new HopCursor(g, start, maxHops);
+    }
+
+    /**
+     * Find the heroes who appear in the most of the same books as a hero, relative to the
+     * books either appears in, looking only at the heroes index buckets with it instead of at
+     * every hero in the graph.
+     *
+     * @param index the similarity index of the graph to look in
+     * @param hero the hero to find heroes like
+     * @param k the most heroes to find
+     * @return up to k heroes similar to hero, most similar first, with their exact similarity
+     * @spec.requires no parameter is null
+     * @throws IllegalArgumentException if hero not in graph or k &lt; 0
+     * @see SimilarityIndex#similar(String, int, boolean)
+     */
+    public static List<SimilarityIndex.Match> findSimilar(SimilarityIndex index, String hero, int k) {
+        return index.similar(hero, k, true);
+    }
+
+    /**
+     * Index the names of the nodes in a graph, for looking up heroes whose names are only
+     * partly typed or are misspelled. The index is built once, and answers each lookup
+     * without scanning every name.
+     *
+     * @param g the graph whose nodes to index
+     * @return an index of the node names of g
+     * @spec.requires g != null
+     * @see NameIndex#complete(String, int)
+     * @see NameIndex#suggest(String, int)
+     */
+    public static NameIndex indexNames(IndexedGraph<String, String> g) {
+        return NameIndex.of(g.listNodeLabels());
+    }
+
+    /**
+     * Throws if the start or end of a query is not in the graph.
+     *
+     * @param g the graph to look in
+     * @param queries the queries to check
+     * @throws IllegalArgumentException if the start or end of any query is not in graph
+     */
+    private static void checkQueries(IndexedGraph<String, String> g, List<PathBatch.Query<String>> queries) {
+        for (PathBatch.Query<String> query : queries) {
+            if (g.nodeId(query.getStart()) < 0 || g.nodeId(query.getEnd()) < 0) {
+                throw new IllegalArgumentException("start or end not in graph: " + query);
+            }
+        }
+    }
+
+    /**
+     * Returns the search for one start and all of its ends that a {@link PathBatch} runs.
+     *
+     * @param g the graph to search
+     * @return a function from a start and its ends to the path to each end, in order
+     */
+    private static BiFunction<String, List<String>, List<List<List<String>>>> searchFrom(
+            IndexedGraph<String, String> g) {
+        return (start, ends) -> {
+            int s = g.nodeId(start);
+            int[] targets = new int[ends.size()];
+            for (int k = 0; k < targets.length; k++) {
+                targets[k] = g.nodeId(ends.get(k));
+            }
+            int[][] tree = search(g, s, targets);
+            List<List<List<String>>> paths = new ArrayList<>(targets.length);
+            for (int t : targets) {
+                paths.add(path(g, s, t, tree[0], tree[1]));
+            }
+            return paths;
+        };
+    }
+
+    /**
+     * Runs the breadth first search of {@link #findPath(IndexedGraph, String, String)} from s
+     * until every target has been found or nothing more can be reached.
+     *
+     * @param g the graph to search
+     * @param s the id of the node to search from
+     * @param targets the ids of the nodes to find
+     * @return {parent, via}: parent[v] is the node before v on the path to v, or -1 if v was
+     * not reached, and via[v] is the edge from parent[v] to v; parent[s] == s
+     */
+    private static int[][] search(IndexedGraph<String, String> g, int s, int[] targets) {
+        int[] parent = new int[g.nodeCount()];
+        int[] via = new int[g.nodeCount()];
+        Arrays.fill(parent, -1);
+        boolean[] wanted = new boolean[g.nodeCount()];
+        int remaining = 0;
+        for (int t : targets) {
+            if (!wanted[t] && t != s) {
+                wanted[t] = true;
+                remaining++;
+            }
+        }
+        boolean[] expanded = new boolean[g.edgeCount()];
+        int[] queue = new int[g.nodeCount()];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = s;
+        parent[s] = s;
+
+        // use bfs, queueing the children of each node in id order, which is label order,
+        // so that nodes at the same distance are visited alphabetically
+        while (head < tail && remaining > 0) {
+            int u = queue[head++];
+            int found = tail;
+            for (int k = 0; k < g.outDegree(u); k++) {
+                int e = g.outEdge(u, k);
+                if (expanded[e]) {
+                    continue;
+                }
+                expanded[e] = true;
+                for (int j = 0; j < g.headCount(e); j++) {
+                    int v = g.head(e, j);
+                    if (parent[v] < 0) {
+                        // edges are visited in id order, so e is the first edge from u to v
+                        parent[v] = u;
+                        via[v] = e;
+                        queue[tail++] = v;
+                        if (wanted[v]) {
+                            remaining--;
+                        }
+                    }
+                }
+            }
+            Arrays.sort(queue, found, tail);
+        }
+        return new int[][] {parent, via};
+    }
+
+    /**
+     * Builds the path from s to t out of the tree found by a search from s.
+     *
+     * @param g the graph that was searched
+     * @param s the id of the node the search started from
+     * @param t the id of the node to build the path to
+     * @param parent the node before each node on its path, as returned by search
+     * @param via the edge from the node before each node, as returned by search
+     * @return the path from s to t as a list of [node, edge] steps, or an empty list if
+     * s == t or t was not reached
+     */
+    private static List<List<String>> path(IndexedGraph<String, String> g, int s, int t,
+                                           int[] parent, int[] via) {
+        LinkedList<List<String>> path = new LinkedList<>();
+        if (parent[t] < 0) {
+            return path;
+        }
+        for (int v = t; v != s; v = parent[v]) {
+            path.addFirst(new LinkedList<>(Arrays.asList(g.nodeLabel(v), g.edgeLabel(via[v]))));
+        }
+        return path;
+    }
+
+    /**
+     * Find the same path as {@link #findPath(IndexedGraph, String, String)} by searching from
+     * both ends at once. Each round expands a whole level of whichever side has the smaller
+     * frontier, until a level reaches a node the other side has already found. Between two
+     * well connected heroes the two searches meet after exploring far less of the graph than
+     * a search from one side.
+     *
+     * <p>The distances from both sides then decide which nodes lie on a shortest path, and the
+     * path is built by stepping from start to the alphabetically first such node each time.
+     *
+     * @param g the graph to find the path in
+     * @param start the node to start the search from
+     * @param end the node to look for a path to
+     * @return the shortest path between start and end in g, as a list of [node, edge] steps
+     * @spec.requires no parameter is null
+     * @throws IllegalArgumentException if start or end not in graph
+     */
+    public static List<List<String>> findPathBidirectional(IndexedGraph<String, String> g,
+                                                           String start, String end) {
+        int s = g.nodeId(start);
+        int t = g.nodeId(end);
+        if (s < 0 || t < 0) {
+            throw new IllegalArgumentException("start or end not in graph.");
+        }
+        if (s == t) {
+            return new LinkedList<>();
+        }
+
+        // forward[v] = distance from start to v, backward[v] = distance from v to end, or -1
+        int[] forward = new int[g.nodeCount()];
+        int[] backward = new int[g.nodeCount()];
+        Arrays.fill(forward, -1);
+        Arrays.fill(backward, -1);
+        forward[s] = 0;
+        backward[t] = 0;
+        boolean[] forwardExpanded = new boolean[g.edgeCount()];
+        boolean[] backwardExpanded = new boolean[g.edgeCount()];
+
+        // the nodes found from each side in the order found, with where each level begins
+        int[] forwardNodes = new int[g.nodeCount()];
+        int[] backwardNodes = new int[g.nodeCount()];
+        forwardNodes[0] = s;
+        backwardNodes[0] = t;
+        List<Integer> forwardLevels = new ArrayList<>(Arrays.asList(0, 1));
+        List<Integer> backwardLevels = new ArrayList<>(Arrays.asList(0, 1));
+
+        int distance = -1;
+        while (distance < 0) {
+            int forwardSize = forwardLevels.get(forwardLevels.size() - 1)
+                              - forwardLevels.get(forwardLevels.size() - 2);
+            int backwardSize = backwardLevels.get(backwardLevels.size() - 1)
+                               - backwardLevels.get(backwardLevels.size() - 2);
+            if (forwardSize == 0 || backwardSize == 0) {
+                return new LinkedList<>();
+            }
+            if (forwardSize <= backwardSize) {
+                distance = expandLevel(g, true, forwardNodes, forwardLevels, forward, backward, forwardExpanded);
+            } else {
+                distance = expandLevel(g, false, backwardNodes, backwardLevels, backward, forward, backwardExpanded);
+            }
+        }
+
+        // good[v] = v is found from start and lies on a shortest path. A node is good if it
+        // meets the backward search at the right distance, or leads to a good node one level
+        // further out; leadsToLevel[e] = the deepest level of a good node edge e connects to
+        boolean[] good = new boolean[g.nodeCount()];
+        int[] leadsToLevel = new int[g.edgeCount()];
+        Arrays.fill(leadsToLevel, -1);
+        for (int level = forwardLevels.size() - 2; level > 0; level--) {
+            for (int i = forwardLevels.get(level); i < forwardLevels.get(level + 1); i++) {
+                int v = forwardNodes[i];
+                good[v] = backward[v] >= 0 && forward[v] + backward[v] == distance;
+                for (int k = 0; k < g.outDegree(v) && !good[v]; k++) {
+                    good[v] = leadsToLevel[g.outEdge(v, k)] == level + 1;
+                }
+            }
+            // mark edges only once the whole level is decided, since marking overwrites level + 1
+            for (int i = forwardLevels.get(level); i < forwardLevels.get(level + 1); i++) {
+                int v = forwardNodes[i];
+                if (good[v]) {
+                    for (int k = 0; k < g.inDegree(v); k++) {
+                        leadsToLevel[g.inEdge(v, k)] = level;
+                    }
+                }
+            }
+        }
+
+        // walk from start, always stepping to the least node that is one step closer to end
+        LinkedList<List<String>> path = new LinkedList<>();
+        int u = s;
+        for (int step = 1; step <= distance; step++) {
+            int next = Integer.MAX_VALUE;
+            int via = -1;
+            for (int k = 0; k < g.outDegree(u); k++) {
+                int e = g.outEdge(u, k);
+                for (int j = 0; j < g.headCount(e); j++) {
+                    int v = g.head(e, j);
+                    boolean closer = backward[v] >= 0
+                            ? backward[v] == distance - step
+                            : forward[v] == step && good[v];
+                    if (closer && v < next) {
+                        next = v;
+                        via = e;
+                    }
+                }
+            }
+            path.add(new LinkedList<>(Arrays.asList(g.nodeLabel(next), g.edgeLabel(via))));
+            u = next;
+        }
+        return path;
+    }
+
+    /**
+     * Expands the last level of one side of a bidirectional search.
+     *
+     * @param g the graph being searched
+     * @param isForward true to follow edges forwards from start, false to follow them
+     *                  backwards from end
+     * @param nodes the nodes found by this side, in the order found
+     * @param levels where each level of nodes begins, followed by the end of the last level
+     * @param distance the distances found by this side, -1 for nodes not found yet
+     * @param other the distances found by the other side
+     * @param expanded which edges this side has expanded
+     * @return the length of the shortest path if the new level meets the other side, or -1
+     * @spec.modifies nodes, levels, distance, expanded
+     */
+    private static int expandLevel(IndexedGraph<String, String> g, boolean isForward, int[] nodes,
+                                   List<Integer> levels, int[] distance, int[] other, boolean[] expanded) {
+        int from = levels.get(levels.size() - 2);
+        int to = levels.get(levels.size() - 1);
+        int found = to;
+        int meet = -1;
+        for (int i = from; i < to; i++) {
+            int u = nodes[i];
+            int degree = isForward ? g.outDegree(u) : g.inDegree(u);
+            for (int k = 0; k < degree; k++) {
+                int e = isForward ? g.outEdge(u, k) : g.inEdge(u, k);
+                if (expanded[e]) {
+                    continue;
+                }
+                expanded[e] = true;
+                int size = isForward ? g.headCount(e) : g.tailCount(e);
+                for (int j = 0; j < size; j++) {
+                    int v = isForward ? g.head(e, j) : g.tail(e, j);
+                    if (distance[v] < 0) {
+                        distance[v] = distance[u] + 1;
+                        nodes[found++] = v;
+                        if (other[v] >= 0 && (meet < 0 || distance[v] + other[v] < meet)) {
+                            meet = distance[v] + other[v];
+                        }
+                    }
+                }
+            }
+        }
+        levels.add(found);
+        return meet;
+    }
+
+    /**
+     * Loads a graph once and answers the path queries read from a file or standard in, one
+     * "start TAB end" pair per line, writing the answers to standard out. When the input runs
+     * out, prints the load time, throughput and latency percentiles to standard error.
+     *
+     * <p>Options: --data NAME (a file in resources/data or on the filesystem, marvel.tsv by
+     * default), --queries FILE (standard in by default), --bidirectional (search from both
+     * ends of each query), --distances (answer with the number of steps only, from a
+     * {@link DistanceOracle}).
+     *
+     * @param args the options
+     */
+    public static void main(String[] args) {
+        String data = "marvel.tsv";
+        String queries = null;
+        boolean bidirectional = false;
+        boolean distances = false;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--data") && i + 1 < args.length) {
+                data = args[++i];
+            } else if (args[i].equals("--queries") && i + 1 < args.length) {
+                queries = args[++i];
+            } else if (args[i].equals("--bidirectional")) {
+                bidirectional = true;
+            } else if (args[i].equals("--distances")) {
+                distances = true;
+            } else {
+                printUsage();
+                return;
+            }
+        }
+
+        long start = System.nanoTime();
+        Path file = Paths.get(data);
+        Graph<String, String> g = Files.isRegularFile(file) ? loadGraphFile(file) : loadGraph(data);
+        IndexedGraph<String, String> indexed = IndexedGraph.of(g);
+        System.err.printf("loaded %s: %d heroes, %d books in %.1f ms%n",
+                data, indexed.nodeCount(), indexed.edgeCount(), (System.nanoTime() - start) / 1e6);
+
+        BufferedWriter out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+        try (BufferedReader in = queries == null
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Paths.get(queries), StandardCharsets.UTF_8)) {
+            QueryRunner runner;
+            if (distances) {
+                long built = System.nanoTime();
+                runner = new QueryRunner(new DistanceOracle(indexed));
+                System.err.printf("built distance oracle in %.1f ms%n", (System.nanoTime() - built) / 1e6);
+            } else {
+                runner = new QueryRunner(indexed, bidirectional);
+            }
+            QueryRunner.Report report = runner.run(in, out);
+            System.err.println(report);
+        } catch (IOException e) {
+            System.err.println("Cannot read from " + queries + ": " + e);
+        }
+    }
+
+    /**
+     * Prints how to run main to standard error.
+     */
+    private static void printUsage() {
+        System.err.println("Usage:");
+        System.err.println("  java marvel.MarvelPaths [--data NAME] [--queries FILE] [--bidirectional | --distances]");
+        System.err.println("  Each line of input is a start and an end hero separated by a tab.");
+        System.err.println("  Reads standard in if no query file is given.");
+    }
 }
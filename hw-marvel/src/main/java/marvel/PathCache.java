@@ -0,0 +1,302 @@
+package marvel;
+
+import graph.Graph;
+
+import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * <b>PathCache</b> is a bounded cache of the paths {@link MarvelPaths#findPath(Graph, String, String)}
+ * finds in one graph. Queries tend to repeat the same few pairs of heroes, so a repeated
+ * query is answered from the cache instead of searching the graph again. When the cache is
+ * full, the pair that was asked for least recently is evicted.
+ *
+ * <p>Every path is stored with the {@link Graph#getVersion() version} of the graph it was found
+ * in. Once the graph changes, the stored paths may no longer be shortest, so the whole cache
+ * is dropped the next time it is used.
+ *
+ * <p>A PathCache can be shared between threads. Searches run outside the cache's own lock, so
+ * two threads asking for the same new pair may both search for it. A graph that is changed
+ * while it is queried, such as the graph of an {@link AppearanceTailer}, must be cached with
+ * the lock that guards it, {@link AppearanceTailer#getLock()}; every lookup and search then
+ * runs under its read lock.
+ */
+public final class PathCache {
+    /**
+     * The graph paths are found in.
+     */
+    private final Graph<String, String> graph;
+
+    /**
+     * The read lock of the lock guarding graph, held while the graph is read.
+     */
+    private final Lock graphLock;
+
+    /**
+     * The most paths to keep.
+     */
+    private final int capacity;
+
+    /**
+     * The paths found so far, least recently used first.
+     */
+    private final LinkedHashMap<List<String>, List<List<String>>> paths;
+
+    /**
+     * The version of graph the paths were found in.
+     */
+    private long version;
+
+    /**
+     * The number of queries answered from the cache.
+     */
+    private long hits;
+
+    /**
+     * The number of queries that had to search the graph.
+     */
+    private long misses;
+
+    /**
+     * The number of paths dropped to make room for newer ones.
+     */
+    private long evictions;
+
+    /**
+     * The number of times the cache was dropped because the graph changed.
+     */
+    private long invalidations;
+
+    // Abstraction Function:
+    // A cache C of graph such that:
+    //      C holds the path from start to end iff paths maps [start, end] to it
+    //      the paths in C were all found when graph was at version
+    //      the pairs of C from least to most recently used are the key order of paths
+
+    // Representation Invariant:
+    // capacity > 0 and paths.size() <= capacity
+    // version <= graph.getVersion()
+    // every key of paths has two elements, and every value is unmodifiable
+    // hits, misses, evictions, invalidations >= 0
+    // (It's implied that there are no null fields in PathCache)
+
+    /**
+     * Creates an empty cache of paths in g.
+     *
+     * @param g the graph to find paths in
+     * @param capacity the most paths to keep
+     * @throws IllegalArgumentException if capacity &lt;= 0
+     * @spec.requires g != null and g is not changed while it is queried
+     * @spec.effects Constructs a new empty PathCache
+     */
+    public PathCache(Graph<String, String> g, int capacity) {
+        this(g, capacity, new ReentrantReadWriteLock());
+    }
+
+    /**
+     * Creates an empty cache of paths in a graph that is changed under the write lock of
+     * lock, and reads the graph only under its read lock.
+     *
+     * @param g the graph to find paths in
+     * @param capacity the most paths to keep
+     * @param lock the lock guarding g
+     * @throws IllegalArgumentException if capacity &lt;= 0
+     * @spec.requires no argument is null and g is only changed under lock's write lock
+     * @spec.effects Constructs a new empty PathCache
+     */
+    public PathCache(Graph<String, String> g, int capacity, ReadWriteLock lock) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive.");
+        }
+        this.graph = g;
+        this.graphLock = lock.readLock();
+        this.capacity = capacity;
+        graphLock.lock();
+        try {
+            this.version = g.getVersion();
+        } finally {
+            graphLock.unlock();
+        }
+        // access order makes the map's order least recently used first
+        this.paths = new LinkedHashMap<List<String>, List<List<String>>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<String>, List<List<String>>> eldest) {
+                if (size() > PathCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+        checkRep();
+    }
+
+    /**
+     * Finds the shortest path between two nodes, as {@link MarvelPaths#findPath(Graph, String, String)}
+     * would, reusing the path found by an earlier call if the graph has not changed since.
+     *
+     * @param start the node to start the search from
+     * @param end the node to look for a path to
+     * @return an unmodifiable copy of the shortest path between start and end
+     * @spec.requires no parameter is null
+     * @spec.modifies this
+     * @throws IllegalArgumentException if start or end not in graph
+     */
+    public List<List<String>> findPath(String start, String end) {
+        List<String> key = Arrays.asList(start, end);
+        graphLock.lock();
+        try {
+            long current;
+            synchronized (this) {
+                current = graph.getVersion();
+                invalidateIfStale(current);
+                List<List<String>> path = paths.get(key);
+                if (path != null) {
+                    hits++;
+                    return path;
+                }
+                misses++;
+            }
+
+            List<List<String>> path = freeze(MarvelPaths.findPath(graph, start, end));
+            synchronized (this) {
+                // A path found while the graph changed may already be stale
+                if (current == graph.getVersion()) {
+                    invalidateIfStale(current);
+                    paths.put(key, path);
+                }
+                checkRep();
+            }
+            return path;
+        } finally {
+            graphLock.unlock();
+        }
+    }
+
+    /**
+     * Drops every path in the cache.
+     *
+     * @spec.modifies this
+     */
+    public synchronized void clear() {
+        paths.clear();
+    }
+
+    /**
+     * Returns the number of paths in the cache.
+     *
+     * @return the number of paths kept
+     */
+    public synchronized int size() {
+        return paths.size();
+    }
+
+    /**
+     * Returns the most paths the cache keeps.
+     *
+     * @return the capacity of the cache
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of queries answered from the cache.
+     *
+     * @return the number of hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of queries that had to search the graph.
+     *
+     * @return the number of misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the fraction of queries answered from the cache.
+     *
+     * @return hits / (hits + misses), or 0 if there have been no queries
+     */
+    public synchronized double getHitRate() {
+        long queries = hits + misses;
+        return queries == 0 ? 0 : (double) hits / queries;
+    }
+
+    /**
+     * Returns the number of paths dropped to make room for newer ones.
+     *
+     * @return the number of evictions
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns the number of times the cache was dropped because the graph changed.
+     *
+     * @return the number of invalidations
+     */
+    public synchronized long getInvalidations() {
+        return invalidations;
+    }
+
+    /**
+     * Returns a summary of the cache counters.
+     *
+     * @return the size, hits, misses, hit rate, evictions and invalidations of the cache
+     */
+    @Override
+    public synchronized String toString() {
+        return String.format("size=%d/%d hits=%d misses=%d hitRate=%.3f evictions=%d invalidations=%d",
+                paths.size(), capacity, hits, misses, getHitRate(), evictions, invalidations);
+    }
+
+    /**
+     * Drops every path if the graph has changed since they were found.
+     *
+     * @param current the version of the graph now
+     * @spec.modifies this
+     */
+    private void invalidateIfStale(long current) {
+        if (current != version) {
+            if (!paths.isEmpty()) {
+                invalidations++;
+                paths.clear();
+            }
+            version = current;
+        }
+    }
+
+    /**
+     * Returns an unmodifiable copy of a path.
+     *
+     * @param path the path to copy
+     * @return a copy of path that cannot be changed
+     */
+    private static List<List<String>> freeze(List<List<String>> path) {
+        List<List<String>> copy = new ArrayList<>(path.size());
+        for (List<String> step : path) {
+            copy.add(Collections.unmodifiableList(new ArrayList<>(step)));
+        }
+        return Collections.unmodifiableList(copy);
+    }
+
+    /**
+     * Throws an exception if the representation invariant is violated.
+     *
+     * @throws RuntimeException if representation invariant is violated
+     */
+    private void checkRep() {
+        assert (capacity > 0) : "capacity <= 0";
+        assert (paths.size() <= capacity) : "paths.size() > capacity";
+        assert (version <= graph.getVersion()) : "version > graph.getVersion()";
+    }
+}
@@ -0,0 +1,270 @@
+package marvel;
+
+import graph.IndexedGraph;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <b>QueryRunner</b> answers a stream of path queries against one loaded Marvel graph, so that
+ * a bulk run pays for loading the graph once. Each line of input is a start and an end hero
+ * separated by a tab; blank lines and lines starting with '#' are ignored. Each answer is
+ * written in the same form the script tests use:
+ *
+ * <pre>
+ * path from START to END:
+ * START to HERO via BOOK
+ * ...
+ * </pre>
+ *
+ * or "no path found", or "unknown character NAME" for a hero not in the graph, or
+ * "bad query: LINE" for a line that is not two names separated by a tab, so that one bad line
+ * does not stop a bulk run. A runner made with a {@link DistanceOracle} answers with the
+ * number of steps instead of the path: "distance from START to END: N".
+ *
+ * <p>Output is buffered, and flushed only when no more input is waiting, so a bulk run
+ * writes in large blocks while an interactive user still sees each answer at once. The time
+ * each query takes is recorded, and {@link #run(BufferedReader, Writer)} returns a
+ * {@link Report} of the throughput and latency percentiles.
+ */
+public final class QueryRunner {
+    /**
+     * The graph queries are answered in.
+     */
+    private final IndexedGraph<String, String> graph;
+
+    /**
+     * Whether paths are found by searching from both ends.
+     */
+    private final boolean bidirectional;
+
+    /**
+     * The oracle that measures distances, or null if queries are answered with paths.
+     */
+    private final DistanceOracle oracle;
+
+    // Abstraction Function:
+    // A runner that answers queries with the distance oracle measures if oracle != null,
+    //      and otherwise with the shortest path in graph, found by
+    //      MarvelPaths.findPathBidirectional if bidirectional and MarvelPaths.findPath otherwise
+
+    // Representation Invariant:
+    // graph != null, and graph == oracle.getGraph() if oracle != null
+
+    /**
+     * Creates a runner that answers queries in g.
+     *
+     * @param g the graph to answer queries in
+     * @param bidirectional whether to search from both ends of each query
+     * @spec.requires g != null
+     * @spec.effects Constructs a new QueryRunner
+     */
+    public QueryRunner(IndexedGraph<String, String> g, boolean bidirectional) {
+        this.graph = g;
+        this.bidirectional = bidirectional;
+        this.oracle = null;
+        checkRep();
+    }
+
+    /**
+     * Creates a runner that answers queries with the distance between their heroes.
+     *
+     * @param oracle the oracle to measure distances with
+     * @spec.requires oracle != null
+     * @spec.effects Constructs a new QueryRunner
+     */
+    public QueryRunner(DistanceOracle oracle) {
+        this.graph = oracle.getGraph();
+        this.bidirectional = false;
+        this.oracle = oracle;
+        checkRep();
+    }
+
+    /**
+     * Answers every query read from in, writing the answers to out.
+     *
+     * @param in the queries, one per line
+     * @param out where to write the answers
+     * @return the throughput and latencies of the run
+     * @throws UncheckedIOException if in cannot be read or out cannot be written
+     * @spec.requires no argument is null
+     * @spec.modifies in, out
+     */
+    public Report run(BufferedReader in, Writer out) {
+        long[] latencies = new long[1024];
+        int queries = 0;
+        long start = System.nanoTime();
+        try {
+            while (true) {
+                if (!in.ready()) {
+                    // About to wait for input, so let whoever is waiting see the answers so far
+                    out.flush();
+                }
+                String line = in.readLine();
+                if (line == null) {
+                    break;
+                }
+                if (line.trim().isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] heroes = line.split("\t", -1);
+                if (heroes.length != 2) {
+                    out.write("bad query: " + line + "\n");
+                    continue;
+                }
+                long begin = System.nanoTime();
+                answer(heroes[0], heroes[1], out);
+                if (queries == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, 2 * queries);
+                }
+                latencies[queries++] = System.nanoTime() - begin;
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new Report(Arrays.copyOf(latencies, queries), System.nanoTime() - start);
+    }
+
+    /**
+     * Writes the answer to one query.
+     *
+     * @param start the hero to start from
+     * @param end the hero to find a path to
+     * @param out where to write the answer
+     * @throws IOException if out cannot be written
+     */
+    private void answer(String start, String end, Writer out) throws IOException {
+        boolean known = true;
+        for (String hero : Arrays.asList(start, end)) {
+            if (graph.nodeId(hero) < 0) {
+                out.write("unknown character " + hero + "\n");
+                known = false;
+            }
+        }
+        if (!known) {
+            return;
+        }
+        if (oracle != null) {
+            int distance = MarvelPaths.findDistance(oracle, start, end);
+            out.write(distance < 0 ? "no path found\n" : "distance from " + start + " to " + end + ": " + distance + "\n");
+            return;
+        }
+        out.write("path from " + start + " to " + end + ":\n");
+        if (start.equals(end)) {
+            return;
+        }
+        List<List<String>> path = bidirectional
+                ? MarvelPaths.findPathBidirectional(graph, start, end)
+                : MarvelPaths.findPath(graph, start, end);
+        if (path.isEmpty()) {
+            out.write("no path found\n");
+        }
+        String from = start;
+        for (List<String> step : path) {
+            out.write(from + " to " + step.get(0) + " via " + step.get(1) + "\n");
+            from = step.get(0);
+        }
+    }
+
+    /**
+     * Throws an exception if the representation invariant is violated.
+     *
+     * @throws RuntimeException if representation invariant is violated
+     */
+    private void checkRep() {
+        assert (graph != null) : "graph == null";
+        assert (oracle == null || oracle.getGraph() == graph) : "oracle is for another graph";
+    }
+
+    /**
+     * <b>Report</b> is an immutable summary of a run: how many queries were answered, how long
+     * the run took, and how long the queries took.
+     */
+    public static final class Report {
+        /**
+         * The time each query took, in nanoseconds, sorted.
+         */
+        private final long[] latencies;
+
+        /**
+         * The time the whole run took, in nanoseconds, including reading and writing.
+         */
+        private final long elapsedNanos;
+
+        // Abstraction Function:
+        // A run of latencies.length queries taking elapsedNanos in total, where the queries
+        //      took latencies[0] .. latencies[latencies.length - 1] nanoseconds
+
+        // Representation Invariant:
+        // latencies is sorted and every element is >= 0, elapsedNanos >= 0
+
+        /**
+         * Creates a report of a run.
+         *
+         * @param latencies the time each query took, in nanoseconds
+         * @param elapsedNanos the time the whole run took, in nanoseconds
+         * @spec.effects Constructs a new Report
+         */
+        Report(long[] latencies, long elapsedNanos) {
+            this.latencies = latencies;
+            this.elapsedNanos = elapsedNanos;
+            Arrays.sort(this.latencies);
+        }
+
+        /**
+         * @return the number of queries answered
+         */
+        public int getQueries() {
+            return latencies.length;
+        }
+
+        /**
+         * @return the time the whole run took, in nanoseconds
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * @return the queries answered per second over the whole run
+         */
+        public double getThroughput() {
+            return elapsedNanos == 0 ? 0 : latencies.length * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * Returns the latency that the given fraction of queries took at most.
+         *
+         * @param p the fraction of queries, such as 0.99
+         * @return the nearest-rank p-th percentile latency in nanoseconds, or 0 if there
+         * were no queries
+         * @throws IllegalArgumentException if p is not in [0, 1]
+         */
+        public long percentile(double p) {
+            if (!(p >= 0 && p <= 1)) {
+                throw new IllegalArgumentException("percentile must be between 0 and 1");
+            }
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(p * latencies.length);
+            return latencies[Math.max(rank, 1) - 1];
+        }
+
+        /**
+         * @return the report as one line: the number of queries, the elapsed time, the
+         * throughput, and the median, 90th, 99th percentile and maximum latencies
+         */
+        @Override
+        public String toString() {
+            return String.format("%d queries in %.1f ms (%.1f queries/s); latency ms p50=%.3f p90=%.3f p99=%.3f max=%.3f",
+                    latencies.length, elapsedNanos / 1e6, getThroughput(),
+                    percentile(0.5) / 1e6, percentile(0.9) / 1e6, percentile(0.99) / 1e6, percentile(1) / 1e6);
+        }
+    }
+}
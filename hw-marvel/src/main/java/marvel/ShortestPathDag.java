@@ -0,0 +1,329 @@
+package marvel;
+
+import graph.IndexedGraph;
+
+import java.util.*;
+
+/**
+ * <b>ShortestPathDag</b> is an immutable record of every shortest path between two nodes of an
+ * indexed Marvel graph. It is built by one breadth first search, and keeps only the nodes and
+ * edges that lie on some shortest path: for each such node, the [node, edge] steps that lead
+ * one step closer to the end. Its size is bounded by the size of the graph no matter how many
+ * paths it holds.
+ *
+ * <p>Iterating over it generates the paths one at a time in lexicographic order of their
+ * steps, comparing the node and then the edge of each step alphabetically, so the first path
+ * is the one {@link MarvelPaths#findPath(IndexedGraph, String, String)} returns. An iterator
+ * holds a single path's worth of state, so taking the first k paths costs about k paths of
+ * work even when there are millions of them, and no search is repeated.
+ */
+public final class ShortestPathDag implements Iterable<List<List<String>>> {
+    /**
+     * The graph the paths are in.
+     */
+    private final IndexedGraph<String, String> graph;
+
+    /**
+     * The id of the node the paths start at.
+     */
+    private final int start;
+
+    /**
+     * The number of steps in every path, or -1 if the end cannot be reached.
+     */
+    private final int length;
+
+    /**
+     * first[u] = the index in next where the steps from node u begin; first[u + 1] is where
+     * they end. Nodes not on a shortest path have no steps.
+     */
+    private final int[] first;
+
+    /**
+     * The node each step leads to, grouped by the node the step is from.
+     */
+    private final int[] next;
+
+    /**
+     * The edge each step follows.
+     */
+    private final int[] via;
+
+    /**
+     * The number of paths, or Long.MAX_VALUE if there are at least that many.
+     */
+    private final long count;
+
+    // Abstraction Function:
+    // The set of shortest paths from graph.nodeLabel(start) of length steps, where
+    //      a path is u_0 = start, (u_1, e_1), ..., (u_length, e_length) such that for each i,
+    //      (u_i, e_i) = (next[k], via[k]) for some first[u_(i-1)] <= k < first[u_(i-1) + 1]
+    // The set is empty if length == -1, and holds only the empty path if length == 0
+
+    // Representation Invariant:
+    // first.length == graph.nodeCount() + 1, first is non-decreasing
+    // first[graph.nodeCount()] == next.length == via.length
+    // the steps from each node are in strictly increasing (next, via) order
+    // every step leads to a node that has steps or is the end, and every path from start
+    //      has exactly length steps
+    // count >= 0
+    // (It's implied that there are no null fields in ShortestPathDag)
+
+    /**
+     * Builds the shortest path dag from start to end in g.
+     *
+     * @param g the graph to find the paths in
+     * @param start the node the paths start at
+     * @param end the node the paths end at
+     * @spec.requires no argument is null
+     * @throws IllegalArgumentException if start or end not in graph
+     * @spec.effects Constructs a new ShortestPathDag
+     */
+    public ShortestPathDag(IndexedGraph<String, String> g, String start, String end) {
+        int s = g.nodeId(start);
+        int t = g.nodeId(end);
+        if (s < 0 || t < 0) {
+            throw new IllegalArgumentException("start or end not in graph.");
+        }
+        this.graph = g;
+        this.start = s;
+
+        // bfs from start, keeping the nodes of each level, until the level holding end
+        int n = g.nodeCount();
+        int[] distance = new int[n];
+        Arrays.fill(distance, -1);
+        boolean[] expanded = new boolean[g.edgeCount()];
+        int[] order = new int[n];
+        List<Integer> levels = new ArrayList<>();
+        int tail = 0;
+        order[tail++] = s;
+        distance[s] = 0;
+        levels.add(0);
+        int head = 0;
+        while (distance[t] < 0 && head < tail) {
+            levels.add(tail);
+            int levelEnd = tail;
+            for (; head < levelEnd; head++) {
+                int u = order[head];
+                for (int k = 0; k < g.outDegree(u); k++) {
+                    int e = g.outEdge(u, k);
+                    if (expanded[e]) {
+                        continue;
+                    }
+                    expanded[e] = true;
+                    for (int j = 0; j < g.headCount(e); j++) {
+                        int v = g.head(e, j);
+                        if (distance[v] < 0) {
+                            distance[v] = distance[u] + 1;
+                            order[tail++] = v;
+                        }
+                    }
+                }
+            }
+        }
+        this.length = distance[t];
+
+        // keep the steps into nodes one level closer that lead to end, deepest level first,
+        // counting the paths to end from each kept node on the way
+        int[][] steps = new int[n][];
+        long[] paths = new long[n];
+        if (length >= 0) {
+            paths[t] = 1;
+            for (int d = length - 1; d >= 0; d--) {
+                for (int i = levels.get(d); i < levels.get(d + 1); i++) {
+                    int u = order[i];
+                    steps[u] = stepsFrom(g, u, d + 1, distance, paths);
+                    for (int k = 0; k < steps[u].length; k += 2) {
+                        paths[u] = saturatedAdd(paths[u], paths[steps[u][k]]);
+                    }
+                }
+            }
+        }
+        this.count = length < 0 ? 0 : paths[s];
+
+        this.first = new int[n + 1];
+        for (int u = 0; u < n; u++) {
+            first[u + 1] = first[u] + (steps[u] == null ? 0 : steps[u].length / 2);
+        }
+        this.next = new int[first[n]];
+        this.via = new int[first[n]];
+        for (int u = 0; u < n; u++) {
+            if (steps[u] != null) {
+                for (int k = 0; k < steps[u].length; k += 2) {
+                    next[first[u] + k / 2] = steps[u][k];
+                    via[first[u] + k / 2] = steps[u][k + 1];
+                }
+            }
+        }
+        checkRep();
+    }
+
+    /**
+     * Returns the number of steps in each shortest path.
+     *
+     * @return the length of the shortest paths, or -1 if end cannot be reached from start
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Returns the number of shortest paths.
+     *
+     * @return the number of shortest paths, or Long.MAX_VALUE if there are at least that many
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Returns the number of steps kept, which bounds the memory the dag uses.
+     *
+     * @return the number of [node, edge] steps on some shortest path
+     */
+    public int stepCount() {
+        return next.length;
+    }
+
+    /**
+     * Returns an iterator that generates the shortest paths in lexicographic order, each as
+     * a list of [node, edge] steps like {@link MarvelPaths#findPath(IndexedGraph, String, String)}.
+     * If start is end, the only path is the empty path.
+     *
+     * @return an iterator over the shortest paths from start to end
+     */
+    @Override
+    public Iterator<List<List<String>>> iterator() {
+        return new PathIterator();
+    }
+
+    /**
+     * Returns the steps from u into nodes at the given distance that lead to the end, in
+     * (node, edge) order.
+     *
+     * @param g the graph
+     * @param u the node to find steps from
+     * @param d the distance of the nodes the steps lead to
+     * @param distance the distance of each node from the start
+     * @param paths the number of paths from each node to the end, positive iff it leads there
+     * @return the steps as a flat array of node, edge pairs
+     */
+    private static int[] stepsFrom(IndexedGraph<String, String> g, int u, int d, int[] distance, long[] paths) {
+        List<long[]> found = new ArrayList<>();
+        for (int k = 0; k < g.outDegree(u); k++) {
+            int e = g.outEdge(u, k);
+            for (int j = 0; j < g.headCount(e); j++) {
+                int v = g.head(e, j);
+                if (distance[v] == d && paths[v] > 0) {
+                    found.add(new long[] {v, e});
+                }
+            }
+        }
+        found.sort((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        int[] steps = new int[2 * found.size()];
+        for (int i = 0; i < found.size(); i++) {
+            steps[2 * i] = (int) found.get(i)[0];
+            steps[2 * i + 1] = (int) found.get(i)[1];
+        }
+        return steps;
+    }
+
+    /**
+     * Adds two non-negative counts, stopping at Long.MAX_VALUE.
+     *
+     * @param a a count
+     * @param b a count
+     * @return a + b, or Long.MAX_VALUE if that overflows
+     */
+    private static long saturatedAdd(long a, long b) {
+        long sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    /**
+     * Throws an exception if the representation invariant is violated.
+     *
+     * @throws RuntimeException if representation invariant is violated
+     */
+    private void checkRep() {
+        assert (first.length == graph.nodeCount() + 1) : "first.length != nodeCount() + 1";
+        assert (first[graph.nodeCount()] == next.length) : "first does not cover next";
+        assert (next.length == via.length) : "next.length != via.length";
+        assert (count >= 0) : "count < 0";
+    }
+
+    /**
+     * <b>PathIterator</b> walks the dag depth first, taking the steps from each node in order.
+     * Its state is the step taken at each level of the current path.
+     */
+    private final class PathIterator implements Iterator<List<List<String>>> {
+        /**
+         * taken[i] = the index in next of step i + 1 of the current path.
+         */
+        private final int[] taken;
+
+        /**
+         * Whether the current path has not been returned yet.
+         */
+        private boolean ready;
+
+        /**
+         * Starts at the first path, if there is one.
+         */
+        PathIterator() {
+            taken = new int[Math.max(length, 0)];
+            ready = length >= 0 && count > 0;
+            if (ready) {
+                descend(0, start);
+            }
+        }
+
+        /**
+         * Takes the first step from node at each level from level down to the end.
+         *
+         * @param level the level of the first step to take
+         * @param node the node to take it from
+         */
+        private void descend(int level, int node) {
+            for (int i = level; i < length; i++) {
+                taken[i] = first[node];
+                node = next[taken[i]];
+            }
+        }
+
+        /**
+         * Moves to the next path in lexicographic order.
+         *
+         * @return true iff there is a next path
+         */
+        private boolean advance() {
+            for (int i = length - 1; i >= 0; i--) {
+                int from = i == 0 ? start : next[taken[i - 1]];
+                if (taken[i] + 1 < first[from + 1]) {
+                    taken[i]++;
+                    descend(i + 1, next[taken[i]]);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return ready;
+        }
+
+        @Override
+        public List<List<String>> next() {
+            if (!ready) {
+                throw new NoSuchElementException();
+            }
+            LinkedList<List<String>> path = new LinkedList<>();
+            for (int step : taken) {
+                path.add(new LinkedList<>(Arrays.asList(graph.nodeLabel(next[step]), graph.edgeLabel(via[step]))));
+            }
+            ready = advance();
+            return path;
+        }
+    }
+}
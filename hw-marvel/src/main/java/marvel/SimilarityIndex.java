@@ -0,0 +1,483 @@
+package marvel;
+
+import graph.IndexedGraph;
+import graph.Intersections;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * <b>SimilarityIndex</b> finds the heroes most like a given hero in an indexed Marvel graph,
+ * where two heroes are alike when they appear in many of the same books. Likeness is the
+ * Jaccard similarity of their sets of books: the number of books they share over the number of
+ * books either appears in.
+ *
+ * <p>Comparing a hero with every other hero is too slow to do for every query, so each hero
+ * is summarized by a MinHash signature: for each of a fixed set of hash functions, the least
+ * hash of any of its books. Two heroes have the same value in a slot with probability equal to
+ * their Jaccard similarity, so the fraction of equal slots estimates it. Signatures are cut
+ * into bands of a few slots, and heroes whose signatures agree on a whole band are kept
+ * together in that band's buckets, so that a query only looks at the heroes sharing a bucket
+ * with the hero asked about. Heroes sharing few books rarely share a bucket, so a query
+ * finds the similar heroes and skips the rest; it may miss a hero that is only a little
+ * similar.
+ *
+ * <p>Candidates are ranked by their estimated similarity, or, if asked, by their exact
+ * similarity, computed by intersecting sorted lists of book ids. Signatures and buckets are
+ * built on all cores.
+ */
+public final class SimilarityIndex {
+    /**
+     * The number of bands used unless another number is asked for.
+     */
+    public static final int DEFAULT_BANDS = 64;
+
+    /**
+     * The number of signature slots in a band unless another number is asked for.
+     */
+    public static final int DEFAULT_ROWS = 2;
+
+    /**
+     * The seed the hash functions are drawn from, fixed so that an index of the same graph
+     * always answers the same way.
+     */
+    private static final long SEED = 0x5eed5eedL;
+
+    /**
+     * The graph the index was built from.
+     */
+    private final IndexedGraph<String, String> graph;
+
+    /**
+     * The number of bands.
+     */
+    private final int bands;
+
+    /**
+     * The number of signature slots in each band.
+     */
+    private final int rows;
+
+    /**
+     * signatures[h * bands * rows + i] = the least hash under hash function i of any book of
+     * hero h.
+     */
+    private final int[] signatures;
+
+    /**
+     * The buckets of each band, band after band: for band b, buckets[b * nodeCount() ..
+     * (b + 1) * nodeCount()) holds key &lt;&lt; 32 | h for every hero h, where key is the
+     * hash of the band of h's signature, in increasing order.
+     */
+    private final long[] buckets;
+
+    /**
+     * bookStart[h] = the index in books where the books of hero h begin.
+     */
+    private final int[] bookStart;
+
+    /**
+     * The ids of the books of each hero, hero after hero.
+     */
+    private final int[] books;
+
+    // Abstraction Function:
+    // An index of graph in which the signature of hero h is
+    //      signatures[h * bands * rows .. (h + 1) * bands * rows), band b of it being the rows
+    //      slots starting at b * rows, heroes whose band b hashes to the same key share a
+    //      bucket of band b, and hero h appears in books[bookStart[h] .. bookStart[h + 1])
+
+    // Representation Invariant:
+    // graph.isSymmetric(), bands > 0, rows > 0
+    // signatures.length == graph.nodeCount() * bands * rows
+    // buckets.length == graph.nodeCount() * bands, and each band of it is sorted
+    // bookStart.length == graph.nodeCount() + 1, and each row of books is strictly increasing
+    // (It's implied that there are no null fields in SimilarityIndex)
+
+    /**
+     * Builds an index of g with the default number of bands and rows.
+     *
+     * @param g an indexed Marvel graph
+     * @throws IllegalArgumentException if g has edges that lead somewhere other than the
+     * nodes holding them
+     * @spec.requires g != null
+     * @spec.effects Constructs a new SimilarityIndex
+     */
+    public SimilarityIndex(IndexedGraph<String, String> g) {
+        this(g, DEFAULT_BANDS, DEFAULT_ROWS);
+    }
+
+    /**
+     * Builds an index of g whose signatures have bands * rows slots. More rows in a band make
+     * a query look at fewer heroes but miss more of the less similar ones; more bands find
+     * more of them, at the cost of a larger index.
+     *
+     * @param g an indexed Marvel graph
+     * @param bands the number of bands
+     * @param rows the number of signature slots in each band
+     * @throws IllegalArgumentException if bands &lt;= 0 or rows &lt;= 0, or if g has edges
+     * that lead somewhere other than the nodes holding them
+     * @spec.requires g != null
+     * @spec.effects Constructs a new SimilarityIndex
+     */
+    public SimilarityIndex(IndexedGraph<String, String> g, int bands, int rows) {
+        if (bands <= 0 || rows <= 0) {
+            throw new IllegalArgumentException("an index needs at least one band of at least one row.");
+        }
+        if (!g.isSymmetric()) {
+            throw new IllegalArgumentException("similarity is only defined in a symmetric graph.");
+        }
+        this.graph = g;
+        this.bands = bands;
+        this.rows = rows;
+        int n = g.nodeCount();
+        int slots = bands * rows;
+
+        this.bookStart = new int[n + 1];
+        for (int h = 0; h < n; h++) {
+            bookStart[h + 1] = bookStart[h] + g.outDegree(h);
+        }
+        this.books = new int[bookStart[n]];
+        for (int h = 0; h < n; h++) {
+            for (int k = 0; k < g.outDegree(h); k++) {
+                books[bookStart[h] + k] = g.outEdge(h, k);
+            }
+        }
+
+        long[] seeds = new long[slots];
+        for (int i = 0; i < slots; i++) {
+            seeds[i] = mix(SEED + i);
+        }
+        this.signatures = new int[n * slots];
+        IntStream.range(0, n).parallel().forEach(h -> {
+            int base = h * slots;
+            Arrays.fill(signatures, base, base + slots, Integer.MAX_VALUE);
+            for (int k = bookStart[h]; k < bookStart[h + 1]; k++) {
+                long book = books[k];
+                for (int i = 0; i < slots; i++) {
+                    int hash = (int) mix(book ^ seeds[i]);
+                    if (hash < signatures[base + i]) {
+                        signatures[base + i] = hash;
+                    }
+                }
+            }
+        });
+
+        this.buckets = new long[n * bands];
+        IntStream.range(0, bands).parallel().forEach(b -> {
+            int base = b * n;
+            for (int h = 0; h < n; h++) {
+                buckets[base + h] = (long) bandKey(h, b) << 32 | h;
+            }
+            Arrays.sort(buckets, base, base + n);
+        });
+        checkRep();
+    }
+
+    /**
+     * Returns the graph this index was built from.
+     *
+     * @return the graph of this index
+     */
+    public IndexedGraph<String, String> getGraph() {
+        return graph;
+    }
+
+    /**
+     * Finds the heroes most similar to a hero, ranked by their estimated similarity.
+     *
+     * @param hero the name of the hero
+     * @param k the most heroes to return
+     * @return up to k heroes that share a bucket with hero, most similar first and heroes as
+     * similar in alphabetical order
+     * @throws IllegalArgumentException if hero is not in the graph or k &lt; 0
+     * @spec.requires hero != null
+     */
+    public List<Match> similar(String hero, int k) {
+        return similar(hero, k, false);
+    }
+
+    /**
+     * Finds the heroes most similar to a hero. The heroes looked at are the same either way,
+     * but ranking them exactly puts the most similar of them first even where the estimate
+     * is off, and gives their similarity exactly.
+     *
+     * @param hero the name of the hero
+     * @param k the most heroes to return
+     * @param exact whether to rank by exact similarity rather than by the estimate
+     * @return up to k heroes that share a bucket with hero, most similar first and heroes as
+     * similar in alphabetical order
+     * @throws IllegalArgumentException if hero is not in the graph or k &lt; 0
+     * @spec.requires hero != null
+     */
+    public List<Match> similar(String hero, int k, boolean exact) {
+        int h = id(hero);
+        if (k < 0) {
+            throw new IllegalArgumentException("cannot return fewer than no heroes.");
+        }
+        if (k == 0 || bookStart[h] == bookStart[h + 1]) {
+            return new ArrayList<>();
+        }
+        int[] candidates = candidates(h);
+        List<Match> matches = new ArrayList<>(candidates.length);
+        for (int v : candidates) {
+            double similarity = exact ? jaccard(h, v) : estimate(h, v);
+            if (similarity > 0) {
+                matches.add(new Match(graph.nodeLabel(v), similarity));
+            }
+        }
+        // Names are in id order, and the sort is stable
+        matches.sort((x, y) -> Double.compare(y.getSimilarity(), x.getSimilarity()));
+        return new ArrayList<>(matches.subList(0, Math.min(k, matches.size())));
+    }
+
+    /**
+     * Estimates the similarity of two heroes from their signatures.
+     *
+     * @param a the name of one hero
+     * @param b the name of the other hero
+     * @return the fraction of signature slots where a and b agree, or 0 if either is in no
+     * books
+     * @throws IllegalArgumentException if a or b is not in the graph
+     * @spec.requires no argument is null
+     */
+    public double estimate(String a, String b) {
+        return estimate(id(a), id(b));
+    }
+
+    /**
+     * Computes the exact similarity of two heroes.
+     *
+     * @param a the name of one hero
+     * @param b the name of the other hero
+     * @return the number of books a and b share over the number of books either is in, or 0
+     * if neither is in any book
+     * @throws IllegalArgumentException if a or b is not in the graph
+     * @spec.requires no argument is null
+     */
+    public double jaccard(String a, String b) {
+        return jaccard(id(a), id(b));
+    }
+
+    /**
+     * Returns the id of a hero.
+     *
+     * @param hero the name of the hero
+     * @return the id of hero in the graph
+     * @throws IllegalArgumentException if hero is not in the graph
+     */
+    private int id(String hero) {
+        int h = graph.nodeId(hero);
+        if (h < 0) {
+            throw new IllegalArgumentException(hero + " not in graph.");
+        }
+        return h;
+    }
+
+    /**
+     * Finds the heroes sharing a bucket with a hero in any band.
+     *
+     * @param h the id of the hero
+     * @return the ids of the other heroes sharing a bucket with h and in at least one book, in
+     * increasing order
+     */
+    private int[] candidates(int h) {
+        int n = graph.nodeCount();
+        boolean[] seen = new boolean[n];
+        seen[h] = true;
+        int[] found = new int[16];
+        int size = 0;
+        for (int b = 0; b < bands; b++) {
+            long key = (long) bandKey(h, b) << 32;
+            int base = b * n;
+            int i = Arrays.binarySearch(buckets, base, base + n, key);
+            for (i = i < 0 ? -i - 1 : i; i < base + n && (buckets[i] & 0xffffffff00000000L) == key; i++) {
+                int v = (int) buckets[i];
+                if (!seen[v] && bookStart[v] != bookStart[v + 1]) {
+                    seen[v] = true;
+                    if (size == found.length) {
+                        found = Arrays.copyOf(found, 2 * size);
+                    }
+                    found[size++] = v;
+                }
+            }
+        }
+        int[] result = Arrays.copyOf(found, size);
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Estimates the similarity of two heroes from their signatures.
+     *
+     * @param a the id of one hero
+     * @param b the id of the other hero
+     * @return the fraction of signature slots where a and b agree, or 0 if either is in no
+     * books
+     */
+    private double estimate(int a, int b) {
+        if (bookStart[a] == bookStart[a + 1] || bookStart[b] == bookStart[b + 1]) {
+            return 0;
+        }
+        int slots = bands * rows;
+        int same = 0;
+        for (int i = 0; i < slots; i++) {
+            same += signatures[a * slots + i] == signatures[b * slots + i] ? 1 : 0;
+        }
+        return (double) same / slots;
+    }
+
+    /**
+     * Computes the exact similarity of two heroes.
+     *
+     * @param a the id of one hero
+     * @param b the id of the other hero
+     * @return the number of books a and b share over the number of books either is in, or 0
+     * if neither is in any book
+     */
+    private double jaccard(int a, int b) {
+        int aCount = bookStart[a + 1] - bookStart[a];
+        int bCount = bookStart[b + 1] - bookStart[b];
+        if (aCount + bCount == 0) {
+            return 0;
+        }
+        int shared = Intersections.count(books, bookStart[a], bookStart[a + 1],
+                books, bookStart[b], bookStart[b + 1]);
+        return (double) shared / (aCount + bCount - shared);
+    }
+
+    /**
+     * Hashes one band of a hero's signature.
+     *
+     * @param h the id of the hero
+     * @param b the band
+     * @return the key of the bucket of band b holding h
+     */
+    private int bandKey(int h, int b) {
+        int from = h * bands * rows + b * rows;
+        long key = b;
+        for (int i = from; i < from + rows; i++) {
+            key = mix(key * 31 + signatures[i]);
+        }
+        return (int) key;
+    }
+
+    /**
+     * Scrambles the bits of a long, so that nearby inputs give unrelated outputs.
+     *
+     * @param x the long to scramble
+     * @return a hash of x
+     */
+    private static long mix(long x) {
+        x = (x ^ (x >>> 30)) * 0xbf58476d1ce4e5b9L;
+        x = (x ^ (x >>> 27)) * 0x94d049bb133111ebL;
+        return x ^ (x >>> 31);
+    }
+
+    /**
+     * Throws an exception if the representation invariant is violated.
+     *
+     * @throws RuntimeException if representation invariant is violated
+     */
+    private void checkRep() {
+        assert (bands > 0 && rows > 0) : "no bands or no rows";
+        assert (signatures.length == graph.nodeCount() * bands * rows) : "signatures of the wrong length";
+        assert (buckets.length == graph.nodeCount() * bands) : "buckets of the wrong length";
+        assert (bookStart.length == graph.nodeCount() + 1) : "bookStart.length != nodeCount() + 1";
+    }
+
+    /**
+     * <b>Match</b> is an immutable hero found by a similarity query, with how similar it is
+     * to the hero asked about.
+     */
+    public static final class Match {
+        /**
+         * The name of the hero found.
+         */
+        private final String hero;
+
+        /**
+         * The similarity of the hero found to the hero asked about.
+         */
+        private final double similarity;
+
+        // Abstraction Function:
+        // The hero named hero, found to be similar to the hero asked about by similarity
+
+        // Representation Invariant:
+        // hero != null and 0 <= similarity <= 1
+
+        /**
+         * Creates a match.
+         *
+         * @param hero the name of the hero found
+         * @param similarity how similar it is to the hero asked about
+         * @spec.requires hero != null and 0 &lt;= similarity &lt;= 1
+         * @spec.effects Constructs a new Match
+         */
+        public Match(String hero, double similarity) {
+            this.hero = hero;
+            this.similarity = similarity;
+            checkRep();
+        }
+
+        /**
+         * @return the name of the hero found
+         */
+        public String getHero() {
+            return hero;
+        }
+
+        /**
+         * @return the similarity of the hero found to the hero asked about, from 0 to 1
+         */
+        public double getSimilarity() {
+            return similarity;
+        }
+
+        /**
+         * Returns whether obj is a match of the same hero with the same similarity.
+         *
+         * @param obj the object to compare with
+         * @return true iff obj is a Match with an equal hero and similarity
+         */
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Match)) {
+                return false;
+            }
+            Match other = (Match) obj;
+            return hero.equals(other.hero) && Double.compare(similarity, other.similarity) == 0;
+        }
+
+        /**
+         * Returns a hash code for this match.
+         *
+         * @return a hash code of the hero and similarity
+         */
+        @Override
+        public int hashCode() {
+            return 31 * hero.hashCode() + Double.hashCode(similarity);
+        }
+
+        /**
+         * Returns a string of this match.
+         *
+         * @return the hero and its similarity, like "hero (0.5)"
+         */
+        @Override
+        public String toString() {
+            return hero + " (" + similarity + ")";
+        }
+
+        /**
+         * Throws an exception if the representation invariant is violated.
+         *
+         * @throws RuntimeException if representation invariant is violated
+         */
+        private void checkRep() {
+            assert (hero != null) : "hero == null";
+            assert (similarity >= 0 && similarity <= 1) : "similarity out of range";
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package marvel.junitTests;
+
+import graph.Graph;
+import graph.io.TsvScanner;
+import marvel.AppearancePipeline;
+import marvel.MarvelParser;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static marvel.junitTests.Fixtures.assertSameGraph;
+
+public class AppearancePipelineTest {
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(30); // 30 seconds max per method tested
+
+    /**
+     * Builds the graph of a dataset one line at a time, without a pipeline.
+     */
+    private static Graph<String, String> sequential(String filename) {
+        Graph<String, String> g = new Graph<>();
+        for (TsvScanner scanner : MarvelParser.scanData(filename)) {
+            while (scanner.next()) {
+                g.addNode(scanner.field(0));
+                g.addEdge(scanner.field(0), scanner.field(1));
+            }
+        }
+        return g;
+    }
+
+    /**
+     * Test a pipeline with tiny batches and a tiny queue still loads every line
+     */
+    @Test
+    public void testBackpressure() {
+        AppearancePipeline pipeline = new AppearancePipeline(2, 3, 1);
+        Graph<String, String> g = pipeline.load(MarvelParser.dataPath("marvel1000.tsv"));
+        assertSameGraph(sequential("marvel1000.tsv"), g);
+
+        AppearancePipeline.Stats stats = pipeline.getStats();
+        Assert.assertEquals(1000, stats.getRecordsWritten());
+        Assert.assertEquals(334, stats.getBatchesWritten());
+        Assert.assertEquals(stats.getBatchesParsed(), stats.getBatchesWritten());
+        Assert.assertTrue(stats.getElapsedNanos() > 0);
+    }
+
+    /**
+     * Test the full dataset loads the same through the pipeline
+     */
+    @Test
+    public void testLoadMarvel() {
+        AppearancePipeline pipeline = new AppearancePipeline();
+        assertSameGraph(sequential("marvel.tsv"), pipeline.load(MarvelParser.dataPath("marvel.tsv")));
+        Assert.assertEquals(96662, pipeline.getStats().getRecordsWritten());
+    }
+
+    /**
+     * Test the scanners of a dataset load the same, each as its own source
+     */
+    @Test
+    public void testLoadScanners() {
+        AppearancePipeline pipeline = new AppearancePipeline(2, 64, 4);
+        List<TsvScanner> scanners = MarvelParser.scanData("marvel.tsv");
+        Graph<String, String> g = pipeline.load(scanners);
+        assertSameGraph(sequential("marvel.tsv"), g);
+        Assert.assertEquals(scanners.size(), pipeline.getStats().getSources());
+        Assert.assertEquals(96662, pipeline.getStats().getRecordsWritten());
+    }
+
+    /**
+     * Test records from a bean spliterator load the same
+     */
+    @Test
+    public void testLoadBeans() {
+        AppearancePipeline pipeline = new AppearancePipeline(1, 2, 2);
+        Graph<String, String> g = pipeline.load(MarvelParser.parseData("staffSuperheroes.tsv"));
+        assertSameGraph(sequential("staffSuperheroes.tsv"), g);
+        Assert.assertEquals(1, pipeline.getStats().getSources());
+    }
+
+    /**
+     * Test a parser failure stops the load and reaches the caller
+     */
+    @Test (expected = IllegalArgumentException.class)
+    public void testParserFailure() throws IOException {
+        StringBuilder text = new StringBuilder("hero\tbook\n");
+        for (int i = 0; i < 1000; i++) {
+            text.append("hero").append(i).append("\tbook\n");
+        }
+        text.append("no book\n");
+        Path file = Fixtures.tempFile("pipeline", ".tsv");
+        Files.write(file, text.toString().getBytes(StandardCharsets.UTF_8));
+
+        new AppearancePipeline(1, 10, 1).load(file);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void testInvalidSizes() {
+        new AppearancePipeline(1, 0, 1);
+    }
+}
@@ -0,0 +1,238 @@
+package marvel.junitTests;
+
+import graph.Graph;
+import marvel.AppearanceTailer;
+import marvel.MarvelPaths;
+import marvel.PathCache;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static marvel.junitTests.Fixtures.copy;
+
+public class AppearanceTailerTest {
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(30); // 30 seconds max per method tested
+
+    private static void append(Path file, String text) throws IOException {
+        Files.write(file, text.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Test only appended lines are added, and an unfinished line waits for its newline
+     */
+    @Test
+    public void testAppendedLines() throws IOException {
+        Path file = copy("simpleHeroes.tsv");
+        Graph<String, String> graph = MarvelPaths.loadGraphFile(file);
+        AppearanceTailer tailer = new AppearanceTailer(file, graph, false);
+        Assert.assertEquals(0, tailer.poll());
+
+        append(file, "e\t1\nf\t");
+        long version = graph.getVersion();
+        Assert.assertEquals(1, tailer.poll());
+        Assert.assertTrue(graph.getVersion() > version);
+        Assert.assertEquals(Arrays.asList("a", "b", "e"), new ArrayList<>(new TreeSet<>(graph.getNodeLabels("1"))));
+        Assert.assertFalse(graph.contains("f"));
+
+        append(file, "5\n");
+        Assert.assertEquals(1, tailer.poll());
+        Assert.assertEquals(Arrays.asList("e(5)"), graph.listChildrenLabels("f"));
+        Assert.assertEquals(2, tailer.getRecordsApplied());
+    }
+
+    /**
+     * Test tailing from the start builds the same graph as loading the file, once its last
+     * line is finished
+     */
+    @Test
+    public void testFromStartMatchesLoad() throws IOException {
+        Path file = copy("marvel1000.tsv");
+        Graph<String, String> loaded = MarvelPaths.loadGraphFile(file);
+        Graph<String, String> tailed = new Graph<>();
+        AppearanceTailer tailer = new AppearanceTailer(file, tailed, true);
+        Assert.assertEquals(999, tailer.poll());
+        append(file, "\n");
+        Assert.assertEquals(1, tailer.poll());
+        Assert.assertEquals(2, tailer.getBatchesApplied());
+        Assert.assertEquals(loaded.listNodeLabels(), tailed.listNodeLabels());
+        for (String hero : loaded.listNodeLabels()) {
+            Assert.assertEquals(loaded.getEdgeLabels(hero), tailed.getEdgeLabels(hero));
+        }
+    }
+
+    /**
+     * Test malformed lines are skipped and counted
+     */
+    @Test
+    public void testSkipsMalformedLines() throws IOException {
+        Path file = copy("simpleHeroes.tsv");
+        Graph<String, String> graph = MarvelPaths.loadGraphFile(file);
+        AppearanceTailer tailer = new AppearanceTailer(file, graph, false);
+        append(file, "g\n\nh\t6\n\t7\n");
+        Assert.assertEquals(1, tailer.poll());
+        Assert.assertEquals(3, tailer.getLinesSkipped());
+        Assert.assertFalse(graph.contains("g"));
+        Assert.assertTrue(graph.contains("h"));
+    }
+
+    /**
+     * Test a directory is tailed file by file, including files created later
+     */
+    @Test
+    public void testDirectory() throws IOException {
+        Path dir = Files.createTempDirectory("tailed");
+        dir.toFile().deleteOnExit();
+        Path first = dir.resolve("a.tsv");
+        Files.write(first, "hero\tbook\na\t1\n".getBytes(StandardCharsets.UTF_8));
+        first.toFile().deleteOnExit();
+
+        Graph<String, String> graph = new Graph<>();
+        AppearanceTailer tailer = new AppearanceTailer(dir, graph, true);
+        Assert.assertEquals(1, tailer.poll());
+
+        Path second = dir.resolve("b.tsv");
+        Files.write(second, "hero\tbook\nb\t1\nc\t2\n".getBytes(StandardCharsets.UTF_8));
+        second.toFile().deleteOnExit();
+        append(first, "c\t1\n");
+        Assert.assertEquals(3, tailer.poll());
+        Assert.assertEquals(Arrays.asList("a", "b", "c"), graph.listNodeLabels());
+        Assert.assertEquals(new HashSet<>(Arrays.asList("a", "b", "c")), graph.getNodeLabels("1"));
+    }
+
+    /**
+     * Test the background thread picks up appended lines
+     */
+    @Test
+    public void testBackgroundPolling() throws IOException, InterruptedException {
+        Path file = copy("simpleHeroes.tsv");
+        Graph<String, String> graph = MarvelPaths.loadGraphFile(file);
+        try (AppearanceTailer tailer = new AppearanceTailer(file, graph, false)) {
+            tailer.start(50);
+            append(file, "z\t5\n");
+            while (!tailer.read(g -> g.contains("z"))) {
+                Thread.sleep(10);
+            }
+            Assert.assertEquals(Arrays.asList(Arrays.asList("z", "5")), tailer.read(g -> MarvelPaths.findPath(g, "e", "z")));
+            Assert.assertNull(tailer.getFailure());
+        }
+    }
+
+    /**
+     * Test closing while a background poll is reading files lets the poll finish, and is
+     * not reported as a failure
+     */
+    @Test
+    public void testCloseDuringPoll() throws IOException, InterruptedException {
+        Path dir = Files.createTempDirectory("tailed");
+        dir.toFile().deleteOnExit();
+        for (int i = 0; i < 200; i++) {
+            Path file = dir.resolve(String.format("%03d.tsv", i));
+            Files.write(file, ("hero\tbook\nh" + i + "\t1\n").getBytes(StandardCharsets.UTF_8));
+            file.toFile().deleteOnExit();
+        }
+        for (int i = 0; i < 10; i++) {
+            AppearanceTailer tailer = new AppearanceTailer(dir, new Graph<>(), true);
+            tailer.start(1);
+            Thread.sleep(1 + i);
+            tailer.close();
+            Assert.assertNull(tailer.getFailure());
+            long read = tailer.getRecordsApplied();
+            Assert.assertTrue(read == 0 || read == 200);
+        }
+    }
+
+    /**
+     * Test queries under the read lock run safely while batches are added
+     */
+    @Test
+    public void testConcurrentReaders() throws IOException, InterruptedException {
+        Path file = copy("staffSuperheroes.tsv");
+        Graph<String, String> graph = MarvelPaths.loadGraphFile(file);
+        AppearanceTailer tailer = new AppearanceTailer(file, graph, false);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 4; r++) {
+            Thread reader = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 300; i++) {
+                        tailer.read(g -> {
+                            for (String hero : g.listNodeLabels()) {
+                                g.listChildrenLabels(hero);
+                            }
+                            return null;
+                        });
+                    }
+                } catch (Throwable t) {
+                    failure.set(t);
+                }
+            });
+            readers.add(reader);
+            reader.start();
+        }
+
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            lines.append("hero").append(i % 300).append('\t').append("book").append(i % 70).append('\n');
+        }
+        append(file, lines.toString());
+        Assert.assertEquals(5000, tailer.poll());
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        Assert.assertNull(failure.get());
+        Assert.assertEquals(5000, tailer.getRecordsApplied());
+        Assert.assertTrue(graph.contains("hero299"));
+    }
+
+    /**
+     * Test a cache given the tailer's lock searches safely while batches are added, and
+     * drops its paths once they are added
+     */
+    @Test
+    public void testCacheUnderLock() throws IOException, InterruptedException {
+        Path file = copy("staffSuperheroes.tsv");
+        Graph<String, String> graph = MarvelPaths.loadGraphFile(file);
+        AppearanceTailer tailer = new AppearanceTailer(file, graph, false);
+        PathCache cache = new PathCache(graph, 16, tailer.getLock());
+        List<String> heroes = graph.listNodeLabels();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 4; r++) {
+            Thread reader = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 2000; i++) {
+                        cache.findPath(heroes.get(i % heroes.size()), heroes.get((i / 7) % heroes.size()));
+                    }
+                } catch (Throwable t) {
+                    failure.set(t);
+                }
+            });
+            readers.add(reader);
+            reader.start();
+        }
+
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            lines.append(heroes.get(i % heroes.size())).append('\t').append("book").append(i % 70).append('\n');
+        }
+        append(file, lines.toString());
+        Assert.assertEquals(5000, tailer.poll());
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        Assert.assertNull(failure.get());
+        String a = heroes.get(0);
+        String b = heroes.get(1);
+        Assert.assertEquals(tailer.read(g -> MarvelPaths.findPath(g, a, b)), cache.findPath(a, b));
+    }
+}
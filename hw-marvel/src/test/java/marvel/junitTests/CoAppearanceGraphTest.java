@@ -0,0 +1,204 @@
+package marvel.junitTests;
+
+import graph.Graph;
+import marvel.CoAppearanceGraph;
+import marvel.MarvelPaths;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+
+public class CoAppearanceGraphTest {
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(30); // 30 seconds max per method tested
+
+    /**
+     * Returns the least total weight from start to every hero, by relaxing every pair of heroes
+     * until nothing changes.
+     */
+    private static Map<String, Double> distances(Graph<String, String> g, String start) {
+        Map<String, Map<String, Integer>> shared = new HashMap<>();
+        for (String hero : g.listNodeLabels()) {
+            Map<String, Integer> counts = new HashMap<>();
+            for (String book : g.getEdgeLabels(hero)) {
+                for (String other : g.getNodeLabels(book)) {
+                    if (!other.equals(hero)) {
+                        counts.merge(other, 1, Integer::sum);
+                    }
+                }
+            }
+            shared.put(hero, counts);
+        }
+        Map<String, Double> distance = new HashMap<>();
+        distance.put(start, 0.0);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (String hero : new ArrayList<>(distance.keySet())) {
+                for (Map.Entry<String, Integer> e : shared.get(hero).entrySet()) {
+                    double d = distance.get(hero) + 1.0 / e.getValue();
+                    if (d < distance.getOrDefault(e.getKey(), Double.POSITIVE_INFINITY) - 1e-12) {
+                        distance.put(e.getKey(), d);
+                        changed = true;
+                    }
+                }
+            }
+        }
+        return distance;
+    }
+
+    /**
+     * Test shared book counts of the simple dataset
+     */
+    @Test
+    public void testSharedBooksSimple() {
+        CoAppearanceGraph heroes = CoAppearanceGraph.of(MarvelPaths.loadGraph("simpleHeroes.tsv"));
+        Assert.assertEquals(Arrays.asList("a", "b", "c", "d", "e"), heroes.listHeroes());
+        Assert.assertEquals(4, heroes.joinCount());
+        Assert.assertEquals(1, heroes.sharedBooks("a", "b"));
+        Assert.assertEquals(1, heroes.sharedBooks("d", "b"));
+        Assert.assertEquals(0, heroes.sharedBooks("a", "c"));
+        Assert.assertEquals(0, heroes.degree(heroes.heroId("e")));
+        Assert.assertEquals(3, heroes.degree(heroes.heroId("b")));
+    }
+
+    /**
+     * Test counts match the heroes' books in a real dataset
+     */
+    @Test
+    public void testSharedBooksMarvel500() {
+        Graph<String, String> graph = MarvelPaths.loadGraph("marvel500.tsv");
+        CoAppearanceGraph heroes = CoAppearanceGraph.of(graph);
+        for (int h = 0; h < heroes.heroCount(); h += 7) {
+            String hero = heroes.heroName(h);
+            for (int k = 0; k < heroes.degree(h); k++) {
+                String other = heroes.heroName(heroes.neighbor(h, k));
+                Set<String> books = new HashSet<>(graph.getEdgeLabels(hero));
+                books.retainAll(graph.getEdgeLabels(other));
+                Assert.assertEquals(books.size(), heroes.sharedBooks(h, k));
+                Assert.assertEquals(books.size(), heroes.sharedBooks(other, hero));
+            }
+        }
+    }
+
+    /**
+     * Test strongest paths have the least weight and are made of joined heroes
+     */
+    @Test
+    public void testStrongestPathMarvel500() {
+        Graph<String, String> graph = MarvelPaths.loadGraph("marvel500.tsv");
+        CoAppearanceGraph heroes = CoAppearanceGraph.of(graph);
+        Random random = new Random(35);
+        for (int i = 0; i < 5; i++) {
+            String start = heroes.heroName(random.nextInt(heroes.heroCount()));
+            Map<String, Double> expected = distances(graph, start);
+            for (int j = 0; j < 20; j++) {
+                String end = heroes.heroName(random.nextInt(heroes.heroCount()));
+                List<String> path = heroes.strongestPath(start, end);
+                if (!expected.containsKey(end)) {
+                    Assert.assertEquals(Collections.emptyList(), path);
+                    continue;
+                }
+                Assert.assertEquals(start, path.get(0));
+                Assert.assertEquals(end, path.get(path.size() - 1));
+                Assert.assertEquals(expected.get(end), heroes.pathWeight(path), 1e-9);
+            }
+        }
+    }
+
+    /**
+     * Test a strongest path prefers frequent collaborators over fewer steps
+     */
+    @Test
+    public void testStrongestPathPrefersSharedBooks() {
+        Graph<String, String> g = new Graph<>();
+        for (String hero : new String[] {"a", "b", "c"}) {
+            g.addNode(hero);
+        }
+        g.addEdge("a", "1");
+        g.addEdge("c", "1");
+        for (String book : new String[] {"2", "3", "4"}) {
+            g.addEdge("a", book);
+            g.addEdge("b", book);
+        }
+        for (String book : new String[] {"5", "6", "7"}) {
+            g.addEdge("b", book);
+            g.addEdge("c", book);
+        }
+        CoAppearanceGraph heroes = CoAppearanceGraph.of(g);
+        Assert.assertEquals(Arrays.asList("a", "b", "c"), heroes.strongestPath("a", "c"));
+        Assert.assertEquals(Collections.singletonList("a"), heroes.strongestPath("a", "a"));
+    }
+
+    /**
+     * Test unreachable and missing heroes
+     */
+    @Test
+    public void testStrongestPathUnreachable() {
+        CoAppearanceGraph heroes = CoAppearanceGraph.of(MarvelPaths.loadGraph("simpleHeroes.tsv"));
+        Assert.assertEquals(Collections.emptyList(), heroes.strongestPath("a", "e"));
+        Assert.assertEquals(Arrays.asList("a", "b", "c"), heroes.strongestPath("a", "c"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testStrongestPathMissingHero() {
+        CoAppearanceGraph.of(MarvelPaths.loadGraph("simpleHeroes.tsv")).strongestPath("a", "z");
+    }
+
+    /**
+     * Test a saved projection loads back the same
+     */
+    @Test
+    public void testSaveLoad() throws IOException {
+        CoAppearanceGraph heroes = CoAppearanceGraph.of(MarvelPaths.loadGraph("marvel500.tsv"));
+        Path file = Fixtures.tempFile("coappearance", ".bin");
+        heroes.save(file);
+        CoAppearanceGraph loaded = CoAppearanceGraph.load(file);
+        Assert.assertEquals(heroes.listHeroes(), loaded.listHeroes());
+        Assert.assertEquals(heroes.joinCount(), loaded.joinCount());
+        for (int h = 0; h < heroes.heroCount(); h++) {
+            Assert.assertEquals(heroes.degree(h), loaded.degree(h));
+            for (int k = 0; k < heroes.degree(h); k++) {
+                Assert.assertEquals(heroes.neighbor(h, k), loaded.neighbor(h, k));
+                Assert.assertEquals(heroes.sharedBooks(h, k), loaded.sharedBooks(h, k));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLoadNotAProjection() throws IOException {
+        Path file = Fixtures.tempFile("coappearance", ".bin");
+        Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9});
+        CoAppearanceGraph.load(file);
+    }
+
+    /**
+     * Test the cache is reused while the dataset is unchanged and rebuilt after it changes
+     */
+    @Test
+    public void testCached() throws IOException {
+        Path source = Fixtures.copy("simpleHeroes.tsv");
+        Path cache = Fixtures.tempFile("coappearance", ".bin");
+        Files.delete(cache);
+
+        CoAppearanceGraph built = CoAppearanceGraph.cached(source, cache);
+        Assert.assertTrue(Files.isRegularFile(cache));
+        FileTime saved = Files.getLastModifiedTime(cache);
+        CoAppearanceGraph reused = CoAppearanceGraph.cached(source, cache);
+        Assert.assertEquals(built.listHeroes(), reused.listHeroes());
+        Assert.assertEquals(saved, Files.getLastModifiedTime(cache));
+
+        Files.write(source, "hero\tbook\na\t1\nf\t1\n".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(source, FileTime.fromMillis(saved.toMillis() + 1000));
+        CoAppearanceGraph rebuilt = CoAppearanceGraph.cached(source, cache);
+        Assert.assertEquals(Arrays.asList("a", "f"), rebuilt.listHeroes());
+        Assert.assertEquals(1, rebuilt.sharedBooks("a", "f"));
+    }
+}
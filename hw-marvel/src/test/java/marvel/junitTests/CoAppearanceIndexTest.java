@@ -0,0 +1,117 @@
+package marvel.junitTests;
+
+import graph.Graph;
+import graph.IndexedGraph;
+import marvel.CoAppearanceGraph;
+import marvel.CoAppearanceIndex;
+import marvel.MarvelPaths;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.*;
+
+public class CoAppearanceIndexTest {
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(60); // 60 seconds max per method tested
+
+    private static List<String> group(List<String> names, Random random, int size) {
+        List<String> group = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            group.add(names.get(random.nextInt(names.size())));
+        }
+        return group;
+    }
+
+    /**
+     * Returns the heroes some hero of g shares a book with, by way of hash sets.
+     */
+    private static Set<String> coStars(Graph<String, String> g, String hero) {
+        Set<String> found = new HashSet<>();
+        for (String book : g.getEdgeLabels(hero)) {
+            found.addAll(g.getNodeLabels(book));
+        }
+        found.remove(hero);
+        return found;
+    }
+
+    /**
+     * Test the three queries against set intersection with retainAll on the full dataset
+     */
+    @Test
+    public void testMatchesRetainAll() {
+        Graph<String, String> g = MarvelPaths.loadGraph("marvel.tsv");
+        IndexedGraph<String, String> indexed = IndexedGraph.of(g);
+        CoAppearanceIndex index = new CoAppearanceIndex(indexed);
+        List<String> heroes = indexed.listNodeLabels();
+        List<String> books = new ArrayList<>();
+        for (int b = 0; b < indexed.edgeCount(); b++) {
+            books.add(indexed.edgeLabel(b));
+        }
+        Random random = new Random(44);
+        for (int i = 0; i < 200; i++) {
+            List<String> group = group(heroes, random, 1 + i % 3);
+            // Pair each hero with one who shares a book, so that some results are not empty
+            if (group.size() == 2) {
+                List<String> stars = new ArrayList<>(new TreeSet<>(coStars(g, group.get(0))));
+                if (!stars.isEmpty()) {
+                    group.set(1, stars.get(random.nextInt(stars.size())));
+                }
+            }
+
+            Set<String> sharedBooks = new TreeSet<>(g.getEdgeLabels(group.get(0)));
+            Set<String> sharedStars = new TreeSet<>(coStars(g, group.get(0)));
+            for (String hero : group) {
+                sharedBooks.retainAll(g.getEdgeLabels(hero));
+                sharedStars.retainAll(coStars(g, hero));
+            }
+            Assert.assertEquals(new ArrayList<>(sharedBooks), index.sharedBooks(group));
+            Assert.assertEquals(new ArrayList<>(sharedStars), index.sharedCoStars(group));
+            if (group.size() == 2) {
+                Assert.assertEquals(sharedBooks.size(), index.countSharedBooks(group.get(0), group.get(1)));
+            }
+
+            List<String> bookGroup = group(books, random, 1 + i % 2);
+            Set<String> cast = new TreeSet<>(g.getNodeLabels(bookGroup.get(0)));
+            for (String book : bookGroup) {
+                cast.retainAll(g.getNodeLabels(book));
+            }
+            Assert.assertEquals(new ArrayList<>(cast), index.sharedCast(bookGroup));
+        }
+    }
+
+    /**
+     * Test the queries on the simple dataset
+     */
+    @Test
+    public void testSimple() {
+        IndexedGraph<String, String> g = IndexedGraph.of(MarvelPaths.loadGraph("simpleHeroes.tsv"));
+        CoAppearanceIndex index = new CoAppearanceIndex(g, CoAppearanceGraph.of(g));
+        Assert.assertSame(g, index.getGraph());
+        Assert.assertEquals(Arrays.asList("b", "d"), index.sharedCoStars(Collections.singletonList("a")));
+        Assert.assertEquals(Collections.emptyList(), index.sharedCoStars(Arrays.asList("a", "e")));
+        Assert.assertEquals(0, index.countSharedBooks("a", "e"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyGroup() {
+        new CoAppearanceIndex(IndexedGraph.of(MarvelPaths.loadGraph("simpleHeroes.tsv"))).sharedBooks(new ArrayList<>());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingHero() {
+        new CoAppearanceIndex(IndexedGraph.of(MarvelPaths.loadGraph("simpleHeroes.tsv"))).sharedCoStars(Arrays.asList("a", "zz"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingBook() {
+        new CoAppearanceIndex(IndexedGraph.of(MarvelPaths.loadGraph("simpleHeroes.tsv"))).sharedCast(Arrays.asList("zz"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testProjectionOfAnotherGraph() {
+        IndexedGraph<String, String> g = IndexedGraph.of(MarvelPaths.loadGraph("simpleHeroes.tsv"));
+        new CoAppearanceIndex(g, CoAppearanceGraph.of(MarvelPaths.loadGraph("marvel500.tsv")));
+    }
+}
@@ -0,0 +1,117 @@
+package marvel.junitTests;
+
+import graph.Graph;
+import graph.IndexedGraph;
+import marvel.DistanceOracle;
+import marvel.MarvelPaths;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.*;
+
+public class DistanceOracleTest {
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(60); // 60 seconds max per method tested
+
+    /**
+     * Returns the distance findPath finds, or -1 if it finds no path.
+     */
+    private static int bfsDistance(IndexedGraph<String, String> g, String start, String end) {
+        List<List<String>> path = MarvelPaths.findPath(g, start, end);
+        return path.isEmpty() && !start.equals(end) ? -1 : path.size();
+    }
+
+    private static void checkPairs(DistanceOracle oracle, int pairs, long seed) {
+        IndexedGraph<String, String> g = oracle.getGraph();
+        Random random = new Random(seed);
+        for (int i = 0; i < pairs; i++) {
+            int u = random.nextInt(g.nodeCount());
+            int v = random.nextInt(g.nodeCount());
+            int expected = bfsDistance(g, g.nodeLabel(u), g.nodeLabel(v));
+            Assert.assertEquals(expected, oracle.distance(u, v));
+            Assert.assertEquals(expected, MarvelPaths.findDistance(oracle, g.nodeLabel(u), g.nodeLabel(v)));
+            if (expected >= 0) {
+                Assert.assertTrue(oracle.lowerBound(u, v) <= expected);
+                Assert.assertTrue(oracle.upperBound(u, v) >= expected);
+                Assert.assertEquals(oracle.lowerBound(u, v), oracle.lowerBound(v, u));
+            } else {
+                Assert.assertEquals(Integer.MAX_VALUE, oracle.lowerBound(u, v));
+            }
+        }
+    }
+
+    /**
+     * Test distances in the simple dataset, which has a hero in no shared book
+     */
+    @Test
+    public void testSimple() {
+        DistanceOracle oracle = new DistanceOracle(IndexedGraph.of(MarvelPaths.loadGraph("simpleHeroes.tsv")), 2);
+        Assert.assertEquals(2, oracle.getLandmarks().size());
+        Assert.assertEquals(2, oracle.distance("a", "c"));
+        Assert.assertEquals(1, oracle.distance("c", "b"));
+        Assert.assertEquals(0, oracle.distance("d", "d"));
+        Assert.assertEquals(-1, oracle.distance("a", "e"));
+    }
+
+    /**
+     * Test the first landmark is the hero in the most books
+     */
+    @Test
+    public void testFirstLandmark() {
+        DistanceOracle oracle = new DistanceOracle(IndexedGraph.of(MarvelPaths.loadGraph("simpleHeroes.tsv")), 1);
+        Assert.assertEquals(Collections.singletonList("b"), oracle.getLandmarks());
+    }
+
+    /**
+     * Test exact distances and valid bounds against breadth first search
+     */
+    @Test
+    public void testMatchesBfsMarvel1000() {
+        IndexedGraph<String, String> g = IndexedGraph.of(MarvelPaths.loadGraph("marvel1000.tsv"));
+        checkPairs(new DistanceOracle(g), 300, 41);
+        checkPairs(new DistanceOracle(g, 1), 300, 42);
+    }
+
+    /**
+     * Test exact distances on the full dataset, with distinct landmarks
+     */
+    @Test
+    public void testMarvelFull() {
+        IndexedGraph<String, String> g = IndexedGraph.of(MarvelPaths.loadGraph("marvel.tsv"));
+        DistanceOracle oracle = new DistanceOracle(g);
+        Assert.assertEquals(DistanceOracle.DEFAULT_LANDMARKS, new HashSet<>(oracle.getLandmarks()).size());
+        checkPairs(oracle, 200, 43);
+    }
+
+    /**
+     * Test more landmarks than heroes uses every hero
+     */
+    @Test
+    public void testMoreLandmarksThanHeroes() {
+        DistanceOracle oracle = new DistanceOracle(IndexedGraph.of(MarvelPaths.loadGraph("simpleHeroes.tsv")), 50);
+        Assert.assertEquals(Arrays.asList("a", "b", "c", "d", "e"),
+                new ArrayList<>(new TreeSet<>(oracle.getLandmarks())));
+        checkPairs(oracle, 50, 45);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingHero() {
+        new DistanceOracle(IndexedGraph.of(MarvelPaths.loadGraph("simpleHeroes.tsv"))).distance("a", "zz");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoLandmarks() {
+        new DistanceOracle(IndexedGraph.of(MarvelPaths.loadGraph("simpleHeroes.tsv")), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDirectedGraph() {
+        Graph<String, String> g = new Graph<>();
+        g.addNode("a");
+        g.addNode("b");
+        g.addEdge("a", "b", "ab");
+        new DistanceOracle(IndexedGraph.of(g));
+    }
+}
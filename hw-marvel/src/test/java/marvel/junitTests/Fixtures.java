@@ -0,0 +1,47 @@
+package marvel.junitTests;
+
+import graph.Graph;
+import marvel.MarvelParser;
+import org.junit.Assert;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Files and checks shared by the marvel tests.
+ */
+public final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    /**
+     * Creates an empty temporary file that is deleted when the tests finish.
+     */
+    public static Path tempFile(String prefix, String suffix) throws IOException {
+        Path file = Files.createTempFile(prefix, suffix);
+        file.toFile().deleteOnExit();
+        return file;
+    }
+
+    /**
+     * Copies a dataset in the resources/data folder to a temporary file, so a test can change it.
+     */
+    public static Path copy(String dataset) throws IOException {
+        Path file = tempFile("copy", ".tsv");
+        Files.copy(MarvelParser.dataPath(dataset), file, StandardCopyOption.REPLACE_EXISTING);
+        return file;
+    }
+
+    /**
+     * Asserts two graphs have the same heroes, and the same edge labels from each hero.
+     */
+    public static void assertSameGraph(Graph<String, String> expected, Graph<String, String> actual) {
+        Assert.assertEquals(expected.listNodeLabels(), actual.listNodeLabels());
+        for (String hero : expected.listNodeLabels()) {
+            Assert.assertEquals(hero, expected.getEdgeLabels(hero), actual.getEdgeLabels(hero));
+        }
+    }
+}
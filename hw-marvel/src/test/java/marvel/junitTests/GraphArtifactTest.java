@@ -0,0 +1,115 @@
+package marvel.junitTests;
+
+import graph.Graph;
+import graph.io.ArtifactFiles;
+import marvel.GraphArtifact;
+import marvel.MarvelParser;
+import marvel.MarvelPaths;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+import static marvel.junitTests.Fixtures.assertSameGraph;
+
+public class GraphArtifactTest {
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(30); // 30 seconds max per method tested
+
+    /**
+     * Test a saved artifact loads as the graph it was saved from
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        for (String name : Arrays.asList("simpleHeroes.tsv", "staffSuperheroes.tsv", "marvel1000.tsv")) {
+            Path source = MarvelParser.dataPath(name);
+            Graph<String, String> g = MarvelPaths.loadGraphFile(source);
+            Path file = Fixtures.tempFile("artifact", GraphArtifact.EXTENSION);
+            GraphArtifact.save(g, source, file);
+            assertSameGraph(g, GraphArtifact.load(file));
+        }
+    }
+
+    /**
+     * Test loadGraph gives the same graph whether or not the build made an artifact
+     */
+    @Test
+    public void testLoadGraphMatchesParsing() {
+        for (String name : Arrays.asList("simpleHeroes.tsv", "marvel500.tsv", "marvel.tsv")) {
+            Graph<String, String> parsed = MarvelPaths.loadGraphFile(MarvelParser.dataPath(name));
+            assertSameGraph(parsed, MarvelPaths.loadGraph(name));
+            Graph<String, String> prebuilt = GraphArtifact.loadResource(name);
+            if (prebuilt != null) {
+                assertSameGraph(parsed, prebuilt);
+            }
+        }
+    }
+
+    /**
+     * Test an artifact of a dataset that has since changed is not used
+     */
+    @Test
+    public void testStaleSources() throws IOException {
+        // An artifact recording a source named marvel500.tsv whose contents differ from the resource
+        Path dir = Files.createTempDirectory("artifact");
+        Path source = dir.resolve("marvel500.tsv");
+        Files.copy(MarvelParser.dataPath("marvel500.tsv"), source);
+        Files.write(source, "\nEXTRA HERO\tEXTRA BOOK\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        Path file = Fixtures.tempFile("artifact", GraphArtifact.EXTENSION);
+        GraphArtifact.save(MarvelPaths.loadGraphFile(source), source, file);
+        Files.delete(source);
+        Files.delete(dir);
+
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        buffer.position(8);
+        Assert.assertFalse(ArtifactFiles.readSources(GraphArtifact.class, buffer));
+        Assert.assertTrue(GraphArtifact.load(file).contains("EXTRA HERO"));
+    }
+
+    /**
+     * Test an artifact of the resource itself is up to date
+     */
+    @Test
+    public void testFreshSources() throws IOException {
+        Path source = MarvelParser.dataPath("marvel500.tsv");
+        Path file = Fixtures.tempFile("artifact", GraphArtifact.EXTENSION);
+        GraphArtifact.save(MarvelPaths.loadGraphFile(source), source, file);
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        buffer.position(8);
+        Assert.assertTrue(ArtifactFiles.readSources(GraphArtifact.class, buffer));
+    }
+
+    /**
+     * Test the artifact of a dataset is named after it
+     */
+    @Test
+    public void testArtifactName() {
+        Assert.assertEquals("marvel.graph", GraphArtifact.artifactName("marvel.tsv"));
+        Assert.assertEquals("heroes.graph", GraphArtifact.artifactName("heroes"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLoadNotAnArtifact() throws IOException {
+        Path file = Fixtures.tempFile("artifact", GraphArtifact.EXTENSION);
+        Files.write(file, "not an artifact".getBytes(StandardCharsets.UTF_8));
+        GraphArtifact.load(file);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLoadTruncated() throws IOException {
+        Path source = MarvelParser.dataPath("simpleHeroes.tsv");
+        Path file = Fixtures.tempFile("artifact", GraphArtifact.EXTENSION);
+        GraphArtifact.save(MarvelPaths.loadGraphFile(source), source, file);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+        GraphArtifact.load(file);
+    }
+}
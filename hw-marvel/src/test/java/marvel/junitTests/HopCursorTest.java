@@ -0,0 +1,145 @@
+package marvel.junitTests;
+
+import graph.Graph;
+import graph.IndexedGraph;
+import marvel.HopCursor;
+import marvel.MarvelPaths;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.*;
+
+public class HopCursorTest {
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(60); // 60 seconds max per method tested
+
+    /**
+     * Returns the heroes within maxHops of start, by distance and then by name, found with a
+     * breadth first search of g through its labels.
+     */
+    private static List<HopCursor.Hop> expected(Graph<String, String> g, String start, int maxHops) {
+        List<HopCursor.Hop> hops = new ArrayList<>();
+        Set<String> reached = new HashSet<>(Collections.singleton(start));
+        Set<String> layer = new TreeSet<>(Collections.singleton(start));
+        for (int d = 1; d <= maxHops && !layer.isEmpty(); d++) {
+            Set<String> next = new TreeSet<>();
+            for (String u : layer) {
+                for (String book : g.getEdgeLabels(u)) {
+                    for (String v : g.getNodeLabels(book)) {
+                        if (reached.add(v)) {
+                            next.add(v);
+                        }
+                    }
+                }
+            }
+            for (String v : next) {
+                hops.add(new HopCursor.Hop(v, d));
+            }
+            layer = next;
+        }
+        return hops;
+    }
+
+    private static List<HopCursor.Hop> drain(HopCursor cursor) {
+        List<HopCursor.Hop> hops = new ArrayList<>();
+        cursor.forEachRemaining(hops::add);
+        return hops;
+    }
+
+    /**
+     * Test the simple dataset at every depth
+     */
+    @Test
+    public void testSimple() {
+        IndexedGraph<String, String> g = IndexedGraph.of(MarvelPaths.loadGraph("simpleHeroes.tsv"));
+        Assert.assertEquals(Collections.emptyList(), drain(MarvelPaths.findNeighborhood(g, "a", 0)));
+        Assert.assertEquals(Arrays.asList(new HopCursor.Hop("b", 1), new HopCursor.Hop("d", 1)),
+                drain(MarvelPaths.findNeighborhood(g, "a", 1)));
+        List<HopCursor.Hop> all = Arrays.asList(new HopCursor.Hop("b", 1), new HopCursor.Hop("d", 1),
+                new HopCursor.Hop("c", 2));
+        Assert.assertEquals(all, drain(MarvelPaths.findNeighborhood(g, "a", 2)));
+        Assert.assertEquals(all, drain(MarvelPaths.findNeighborhood(g, "a", 100)));
+        Assert.assertEquals(Collections.emptyList(), drain(MarvelPaths.findNeighborhood(g, "e", 3)));
+    }
+
+    /**
+     * Test the full dataset against a search through labels, for several depths
+     */
+    @Test
+    public void testMarvelFull() {
+        Graph<String, String> graph = MarvelPaths.loadGraph("marvel.tsv");
+        IndexedGraph<String, String> g = IndexedGraph.of(graph);
+        Random random = new Random(46);
+        for (int i = 0; i < 10; i++) {
+            String hero = g.nodeLabel(random.nextInt(g.nodeCount()));
+            int maxHops = 1 + i % 2;
+            Assert.assertEquals(hero, expected(graph, hero, maxHops), drain(MarvelPaths.findNeighborhood(g, hero, maxHops)));
+        }
+    }
+
+    /**
+     * Test pages read through tokens, each from a new cursor on another copy of the graph,
+     * add up to the whole walk
+     */
+    @Test
+    public void testPages() {
+        IndexedGraph<String, String> g = IndexedGraph.of(MarvelPaths.loadGraph("marvel.tsv"));
+        IndexedGraph<String, String> copy = IndexedGraph.of(MarvelPaths.loadGraph("marvel.tsv"));
+        List<HopCursor.Hop> all = drain(MarvelPaths.findNeighborhood(g, "CAPTAIN AMERICA", 2));
+        Assert.assertTrue(all.size() > 1000);
+
+        List<HopCursor.Hop> paged = new ArrayList<>();
+        HopCursor.Page page = MarvelPaths.findNeighborhood(g, "CAPTAIN AMERICA", 2).nextPage(777);
+        paged.addAll(page.getHops());
+        while (page.getNextToken() != null) {
+            Assert.assertEquals(777, page.getHops().size());
+            page = HopCursor.resume(copy, page.getNextToken()).nextPage(777);
+            paged.addAll(page.getHops());
+        }
+        Assert.assertEquals(all, paged);
+    }
+
+    /**
+     * Test a token made mid-walk resumes at the same hero, and a cursor stopped early leaves
+     * the rest unread
+     */
+    @Test
+    public void testToken() {
+        IndexedGraph<String, String> g = IndexedGraph.of(MarvelPaths.loadGraph("marvel500.tsv"));
+        String hero = g.nodeLabel(0);
+        HopCursor cursor = new HopCursor(g, hero, 3);
+        String first = cursor.token();
+        HopCursor.Hop hop = cursor.next();
+        Assert.assertEquals(hop, HopCursor.resume(g, first).next());
+        String token = cursor.token();
+        Assert.assertEquals(cursor.next(), HopCursor.resume(g, token).next());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testNextPastEnd() {
+        new HopCursor(IndexedGraph.of(MarvelPaths.loadGraph("simpleHeroes.tsv")), "e", 2).next();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingHero() {
+        new HopCursor(IndexedGraph.of(MarvelPaths.loadGraph("simpleHeroes.tsv")), "zz", 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeHops() {
+        new HopCursor(IndexedGraph.of(MarvelPaths.loadGraph("simpleHeroes.tsv")), "a", -1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTokenOfAnotherGraph() {
+        String token = new HopCursor(IndexedGraph.of(MarvelPaths.loadGraph("marvel500.tsv")), "CAPTAIN AMERICA", 2).token();
+        HopCursor.resume(IndexedGraph.of(MarvelPaths.loadGraph("simpleHeroes.tsv")), token);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGarbageToken() {
+        HopCursor.resume(IndexedGraph.of(MarvelPaths.loadGraph("simpleHeroes.tsv")), "not a token!");
+    }
+}
@@ -1,10 +1,12 @@
 package marvel.junitTests;
 
+import graph.io.TsvScanner;
 import marvel.HeroAppearance;
 import marvel.MarvelParser;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.List;
 import java.util.Spliterator;
 
 import static marvel.MarvelParser.getNextElem;
@@ -103,4 +105,29 @@ public class MarvelParserTest {
         Assert.assertEquals("KILLRAVEN/JONATHAN R", ha.getHero());
         Assert.assertEquals("AA2 38", ha.getBook());
     }
+
+    /**
+     * Test the scanner reads the same rows as the bean parser
+     */
+    @Test
+    public void testScanMatchesParse() {
+        List<TsvScanner> scanners = MarvelParser.scanData("marvel.tsv");
+        Spliterator<HeroAppearance> itr = MarvelParser.parseData("marvel.tsv");
+        Assert.assertNotNull(scanners);
+
+        for (TsvScanner s : scanners) {
+            while (s.next()) {
+                HeroAppearance ha = getNextElem(itr);
+                Assert.assertNotNull(ha);
+                Assert.assertEquals(ha.getHero(), s.field(0));
+                Assert.assertEquals(ha.getBook(), s.field(1));
+            }
+        }
+        Assert.assertNull(getNextElem(itr));
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void testScanInvalidFileName() {
+        MarvelParser.scanData("no such file.tsv");
+    }
 }
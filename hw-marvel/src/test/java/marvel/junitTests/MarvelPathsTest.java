@@ -1,13 +1,16 @@
 package marvel.junitTests;
 
 import graph.Graph;
+import graph.GraphFootprint;
+import graph.IndexedGraph;
+import graph.NameIndex;
+import graph.PathBatch;
 import org.junit.Assert;
 import org.junit.Test;
+import marvel.MarvelParser;
 import marvel.MarvelPaths;
 
-import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.*;
 
 public class MarvelPathsTest {
     /**
@@ -45,6 +48,16 @@ public class MarvelPathsTest {
         Assert.assertEquals(p, graph.listChildrenLabels("Perkins-the-Magical-Singing-Instructor"));
     }
 
+    /**
+     * Test equal hero and book names share a single String in the loaded graph
+     */
+    @Test
+    public void testLoadGraphSharesLabels() {
+        Graph<String, String> graph = MarvelPaths.loadGraph("staffSuperheroes.tsv");
+        GraphFootprint.Report report = GraphFootprint.measure(graph);
+        Assert.assertEquals(report.getDistinctLabelCount(), report.getLabelCount());
+    }
+
     /**
      * Test the time to load the entire marvel dataset
      */
@@ -256,4 +269,242 @@ public class MarvelPathsTest {
 
         MarvelPaths.findPath(graph, "RHINO", "b");
     }
+
+    /**
+     * Finds the alphabetically least shortest path from start to end by walking down the
+     * distances to end, taking the least node that is one step closer and the least book
+     * shared with it at each step.
+     */
+    private static List<List<String>> leastPath(Graph<String, String> g, String start, String end) {
+        Map<String, Integer> distance = new HashMap<>();
+        Queue<String> queue = new LinkedList<>();
+        distance.put(end, 0);
+        queue.add(end);
+        while (!queue.isEmpty()) {
+            String node = queue.remove();
+            for (Graph.Edge<String> e : g.getEdges(node)) {
+                for (Graph.Node<String> child : g.getNodes(e)) {
+                    if (!distance.containsKey(child.getLabel())) {
+                        distance.put(child.getLabel(), distance.get(node) + 1);
+                        queue.add(child.getLabel());
+                    }
+                }
+            }
+        }
+
+        List<List<String>> path = new LinkedList<>();
+        if (!distance.containsKey(start)) {
+            return path;
+        }
+        String node = start;
+        while (!node.equals(end)) {
+            String bestChild = null;
+            String bestBook = null;
+            for (Graph.Edge<String> e : g.getEdges(node)) {
+                for (Graph.Node<String> child : g.getNodes(e)) {
+                    String c = child.getLabel();
+                    String book = e.getLabel();
+                    if (distance.get(c) == distance.get(node) - 1
+                            && (bestChild == null || c.compareTo(bestChild) < 0
+                                || (c.equals(bestChild) && book.compareTo(bestBook) < 0))) {
+                        bestChild = c;
+                        bestBook = book;
+                    }
+                }
+            }
+            path.add(Arrays.asList(bestChild, bestBook));
+            node = bestChild;
+        }
+        return path;
+    }
+
+    /**
+     * Test the indexed search finds the least path between every pair of heroes
+     */
+    @Test
+    public void testIndexedLeastPathSmall() {
+        for (String filename : new String[] {"simpleHeroes.tsv", "staffSuperheroes.tsv"}) {
+            Graph<String, String> graph = MarvelPaths.loadGraph(filename);
+            IndexedGraph<String, String> indexed = IndexedGraph.of(graph);
+            for (String start : graph.listNodeLabels()) {
+                for (String end : graph.listNodeLabels()) {
+                    Assert.assertEquals(leastPath(graph, start, end), MarvelPaths.findPath(indexed, start, end));
+                }
+            }
+        }
+    }
+
+    /**
+     * Test the indexed search finds the least path, as long as the graph search's, in marvel 500
+     */
+    @Test
+    public void testIndexedLeastPathMarvel500() {
+        Graph<String, String> graph = MarvelPaths.loadGraph("marvel500.tsv");
+        IndexedGraph<String, String> indexed = IndexedGraph.of(graph);
+        List<String> heroes = graph.listNodeLabels();
+        Random random = new Random(33);
+        for (int i = 0; i < 100; i++) {
+            String start = heroes.get(random.nextInt(heroes.size()));
+            String end = heroes.get(random.nextInt(heroes.size()));
+            List<List<String>> path = MarvelPaths.findPath(indexed, start, end);
+            Assert.assertEquals(leastPath(graph, start, end), path);
+            Assert.assertEquals(MarvelPaths.findPath(graph, start, end).size(), path.size());
+        }
+
+        List<List<String>> expected = new LinkedList<>();
+        expected.add(Arrays.asList("HULK/DR. ROBERT BRUC", "H2 159"));
+        expected.add(Arrays.asList("COLOSSUS II/PETER RA", "COC 1"));
+        expected.add(Arrays.asList("BLOK", "W2 159"));
+        Assert.assertEquals(expected, MarvelPaths.findPath(indexed, "RHINO", "BLOK"));
+    }
+
+    /**
+     * Test the indexed search on the full marvel graph
+     */
+    @Test
+    public void testIndexedMarvelFull() {
+        Graph<String, String> graph = MarvelPaths.loadGraph("marvel.tsv");
+        IndexedGraph<String, String> indexed = IndexedGraph.of(graph);
+        Assert.assertEquals(leastPath(graph, "SPIDER-MAN/PETER PAR", "FROST, CARMILLA"),
+                            MarvelPaths.findPath(indexed, "SPIDER-MAN/PETER PAR", "FROST, CARMILLA"));
+        Assert.assertEquals(leastPath(graph, "MOJO", "24-HOUR MAN/EMMANUEL"),
+                            MarvelPaths.findPath(indexed, "MOJO", "24-HOUR MAN/EMMANUEL"));
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void testIndexedMissingNode() {
+        Graph<String, String> graph = MarvelPaths.loadGraph("simpleHeroes.tsv");
+        MarvelPaths.findPath(IndexedGraph.of(graph), "a", "not a hero");
+    }
+
+    /**
+     * Test batched paths are the paths found one pair at a time, in query order
+     */
+    @Test
+    public void testFindPathsMatchesFindPath() {
+        IndexedGraph<String, String> indexed = IndexedGraph.of(MarvelPaths.loadGraph("marvel500.tsv"));
+        List<String> heroes = indexed.listNodeLabels();
+        Random random = new Random(37);
+        List<PathBatch.Query<String>> queries = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            // few starts, so most queries share a search
+            String start = heroes.get(random.nextInt(8) * 31 % heroes.size());
+            queries.add(new PathBatch.Query<>(start, heroes.get(random.nextInt(heroes.size()))));
+        }
+        List<List<List<String>>> paths = MarvelPaths.findPaths(indexed, queries);
+        Assert.assertEquals(queries.size(), paths.size());
+        for (int i = 0; i < queries.size(); i++) {
+            PathBatch.Query<String> query = queries.get(i);
+            Assert.assertEquals(MarvelPaths.findPath(indexed, query.getStart(), query.getEnd()), paths.get(i));
+        }
+
+        List<List<List<String>>> streamed = new ArrayList<>(Collections.nCopies(queries.size(), null));
+        MarvelPaths.findPaths(indexed, queries, (path, i) -> {
+            synchronized (streamed) {
+                streamed.set(i, path);
+            }
+        });
+        Assert.assertEquals(paths, streamed);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void testFindPathsMissingNode() {
+        IndexedGraph<String, String> indexed = IndexedGraph.of(MarvelPaths.loadGraph("simpleHeroes.tsv"));
+        MarvelPaths.findPaths(indexed, Arrays.asList(
+                new PathBatch.Query<>("a", "c"), new PathBatch.Query<>("a", "not a hero")));
+    }
+
+    /**
+     * Test the bidirectional search finds the same paths as the one sided search
+     */
+    @Test
+    public void testBidirectionalMatchesMarvel() {
+        for (String filename : new String[] {"simpleHeroes.tsv", "staffSuperheroes.tsv", "marvel500.tsv"}) {
+            IndexedGraph<String, String> g = IndexedGraph.of(MarvelPaths.loadGraph(filename));
+            List<String> heroes = g.listNodeLabels();
+            for (String start : heroes) {
+                for (int i = 0; i < heroes.size(); i += 1 + heroes.size() / 20) {
+                    String end = heroes.get(i);
+                    Assert.assertEquals(MarvelPaths.findPath(g, start, end),
+                                        MarvelPaths.findPathBidirectional(g, start, end));
+                }
+            }
+        }
+    }
+
+    /**
+     * Test the bidirectional search on the full marvel graph
+     */
+    @Test
+    public void testBidirectionalMarvelFull() {
+        IndexedGraph<String, String> g = IndexedGraph.of(MarvelPaths.loadGraph("marvel.tsv"));
+        List<String> heroes = g.listNodeLabels();
+        Random random = new Random(34);
+        for (int i = 0; i < 300; i++) {
+            String start = heroes.get(random.nextInt(heroes.size()));
+            String end = heroes.get(random.nextInt(heroes.size()));
+            Assert.assertEquals(MarvelPaths.findPath(g, start, end),
+                                MarvelPaths.findPathBidirectional(g, start, end));
+        }
+    }
+
+    /**
+     * Test the bidirectional search follows directed edges the right way
+     */
+    @Test
+    public void testBidirectionalDirected() {
+        Random random = new Random(341);
+        for (int round = 0; round < 20; round++) {
+            Graph<String, String> graph = new Graph<>();
+            for (int i = 0; i < 30; i++) {
+                graph.addNode("n" + i);
+            }
+            for (int i = 0; i < 60; i++) {
+                graph.addEdge("n" + random.nextInt(30), "n" + random.nextInt(30), "e" + random.nextInt(40));
+            }
+            IndexedGraph<String, String> g = IndexedGraph.of(graph);
+            for (String start : g.listNodeLabels()) {
+                for (String end : g.listNodeLabels()) {
+                    Assert.assertEquals(MarvelPaths.findPath(g, start, end),
+                                        MarvelPaths.findPathBidirectional(g, start, end));
+                }
+            }
+        }
+    }
+
+    /**
+     * Test every hero of the full marvel graph is found by a prefix of its name, and by its
+     * name with two letters swapped
+     */
+    @Test
+    public void testIndexNamesMarvelFull() {
+        IndexedGraph<String, String> g = IndexedGraph.of(MarvelPaths.loadGraph("marvel.tsv"));
+        NameIndex index = MarvelPaths.indexNames(g);
+        Assert.assertEquals(g.nodeCount(), index.size());
+        Random random = new Random(42);
+        for (int i = 0; i < 300; i++) {
+            String hero = g.nodeLabel(random.nextInt(g.nodeCount()));
+            if (hero.trim().length() < 6) {
+                continue;
+            }
+            Assert.assertTrue(hero, index.complete(hero, g.nodeCount()).contains(hero));
+            int at = 1 + random.nextInt(hero.length() - 2);
+            String typo = hero.substring(0, at) + hero.charAt(at + 1) + hero.charAt(at) + hero.substring(at + 2);
+            Assert.assertTrue(typo, index.suggest(typo, 10).contains(hero));
+        }
+    }
+
+    /**
+     * Test loading from a path builds the same graph as loading the resource
+     */
+    @Test
+    public void testLoadGraphFromPath() {
+        Graph<String, String> expected = MarvelPaths.loadGraph("marvel.tsv");
+        Graph<String, String> graph = MarvelPaths.loadGraphFile(MarvelParser.dataPath("marvel.tsv"));
+
+        Assert.assertEquals(expected.listNodeLabels(), graph.listNodeLabels());
+        for (String hero : expected.listNodeLabels()) {
+            Assert.assertEquals(expected.getEdgeLabels(hero), graph.getEdgeLabels(hero));
+        }
+    }
 }
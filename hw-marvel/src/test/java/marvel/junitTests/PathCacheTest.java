@@ -0,0 +1,108 @@
+package marvel.junitTests;
+
+import graph.Graph;
+import marvel.MarvelPaths;
+import marvel.PathCache;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.*;
+
+public class PathCacheTest {
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(10); // 10 seconds max per method tested
+
+    /**
+     * Test cached paths are the paths findPath finds and repeats are hits
+     */
+    @Test
+    public void testHitsAndMisses() {
+        Graph<String, String> graph = MarvelPaths.loadGraph("simpleHeroes.tsv");
+        PathCache cache = new PathCache(graph, 4);
+        Assert.assertEquals(MarvelPaths.findPath(graph, "a", "c"), cache.findPath("a", "c"));
+        Assert.assertEquals(MarvelPaths.findPath(graph, "a", "c"), cache.findPath("a", "c"));
+        Assert.assertEquals(MarvelPaths.findPath(graph, "c", "a"), cache.findPath("c", "a"));
+        Assert.assertEquals(Collections.emptyList(), cache.findPath("a", "e"));
+        Assert.assertEquals(Collections.emptyList(), cache.findPath("a", "e"));
+
+        Assert.assertEquals(2, cache.getHits());
+        Assert.assertEquals(3, cache.getMisses());
+        Assert.assertEquals(0.4, cache.getHitRate(), 1e-9);
+        Assert.assertEquals(3, cache.size());
+        Assert.assertEquals(0, cache.getEvictions());
+    }
+
+    /**
+     * Test the least recently used pair is evicted when the cache is full
+     */
+    @Test
+    public void testLeastRecentlyUsedEvicted() {
+        Graph<String, String> graph = MarvelPaths.loadGraph("simpleHeroes.tsv");
+        PathCache cache = new PathCache(graph, 2);
+        cache.findPath("a", "b");
+        cache.findPath("a", "c");
+        cache.findPath("a", "b"); // a-c is now least recently used
+        cache.findPath("a", "d");
+        Assert.assertEquals(1, cache.getEvictions());
+        Assert.assertEquals(2, cache.size());
+
+        cache.findPath("a", "b");
+        Assert.assertEquals(2, cache.getHits());
+        cache.findPath("a", "c");
+        Assert.assertEquals(2, cache.getHits());
+        Assert.assertEquals(2, cache.getEvictions());
+    }
+
+    /**
+     * Test changing the graph drops paths that may no longer be shortest
+     */
+    @Test
+    public void testGraphChangeInvalidates() {
+        Graph<String, String> graph = MarvelPaths.loadGraph("simpleHeroes.tsv");
+        PathCache cache = new PathCache(graph, 4);
+        Assert.assertEquals(2, cache.findPath("a", "c").size());
+        Assert.assertEquals(Collections.emptyList(), cache.findPath("a", "e"));
+
+        graph.addEdge("a", "5");
+        Assert.assertEquals(Collections.singletonList(Arrays.asList("e", "5")), cache.findPath("a", "e"));
+        Assert.assertEquals(1, cache.getInvalidations());
+        Assert.assertEquals(0, cache.getHits());
+        Assert.assertEquals(1, cache.size());
+
+        // adding something already in the graph keeps the cache
+        graph.addEdge("a", "5");
+        cache.findPath("a", "e");
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(1, cache.getInvalidations());
+    }
+
+    /**
+     * Test cached paths cannot be changed by callers
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void testPathsUnmodifiable() {
+        PathCache cache = new PathCache(MarvelPaths.loadGraph("simpleHeroes.tsv"), 4);
+        cache.findPath("a", "c").clear();
+    }
+
+    /**
+     * Test missing nodes throw and are not cached
+     */
+    @Test
+    public void testMissingNode() {
+        PathCache cache = new PathCache(MarvelPaths.loadGraph("simpleHeroes.tsv"), 4);
+        try {
+            cache.findPath("a", "z");
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals(0, cache.size());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroCapacity() {
+        new PathCache(new Graph<>(), 0);
+    }
+}
@@ -0,0 +1,135 @@
+package marvel.junitTests;
+
+import graph.IndexedGraph;
+import marvel.DistanceOracle;
+import marvel.MarvelPaths;
+import marvel.QueryRunner;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class QueryRunnerTest {
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(30); // 30 seconds max per method tested
+
+    private static IndexedGraph<String, String> simple() {
+        return IndexedGraph.of(MarvelPaths.loadGraph("simpleHeroes.tsv"));
+    }
+
+    private static String run(QueryRunner runner, String input) {
+        StringWriter out = new StringWriter();
+        runner.run(new BufferedReader(new StringReader(input)), out);
+        return out.toString();
+    }
+
+    /**
+     * Test answers are written the way the script tests write them
+     */
+    @Test
+    public void testAnswers() {
+        String output = run(new QueryRunner(simple(), false), "a\tc\n# a comment\n\nc\tc\na\te\na\tzz\n");
+        Assert.assertEquals("path from a to c:\n"
+                + "a to b via 1\n"
+                + "b to c via 4\n"
+                + "path from c to c:\n"
+                + "path from a to e:\n"
+                + "no path found\n"
+                + "unknown character zz\n", output);
+    }
+
+    /**
+     * Test both searches give the same answers
+     */
+    @Test
+    public void testBidirectionalSameAnswers() {
+        IndexedGraph<String, String> g = IndexedGraph.of(MarvelPaths.loadGraph("marvel500.tsv"));
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            input.append(g.nodeLabel(i * 7 % g.nodeCount())).append('\t')
+                    .append(g.nodeLabel(i * 13 % g.nodeCount())).append('\n');
+        }
+        Assert.assertEquals(run(new QueryRunner(g, false), input.toString()),
+                run(new QueryRunner(g, true), input.toString()));
+    }
+
+    /**
+     * Test a runner with an oracle answers with distances
+     */
+    @Test
+    public void testDistances() {
+        String output = run(new QueryRunner(new DistanceOracle(simple())), "a\tc\nc\tc\na\te\nzz\ta\n");
+        Assert.assertEquals("distance from a to c: 2\n"
+                + "distance from c to c: 0\n"
+                + "no path found\n"
+                + "unknown character zz\n", output);
+    }
+
+    /**
+     * Test the report counts the queries and orders the percentiles
+     */
+    @Test
+    public void testReport() {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 250; i++) {
+            input.append("a\tc\nd\tb\n");
+        }
+        QueryRunner.Report report = new QueryRunner(simple(), false)
+                .run(new BufferedReader(new StringReader(input.toString())), new StringWriter());
+        Assert.assertEquals(500, report.getQueries());
+        Assert.assertTrue(report.getThroughput() > 0);
+        Assert.assertTrue(report.percentile(0) <= report.percentile(0.5));
+        Assert.assertTrue(report.percentile(0.5) <= report.percentile(0.99));
+        Assert.assertTrue(report.percentile(0.99) <= report.percentile(1));
+        Assert.assertTrue(report.percentile(1) <= report.getElapsedNanos());
+        Assert.assertTrue(report.toString().startsWith("500 queries in "));
+    }
+
+    /**
+     * Test an empty run reports no queries
+     */
+    @Test
+    public void testEmptyInput() {
+        QueryRunner.Report report = new QueryRunner(simple(), false)
+                .run(new BufferedReader(new StringReader("")), new StringWriter());
+        Assert.assertEquals(0, report.getQueries());
+        Assert.assertEquals(0, report.percentile(0.99));
+    }
+
+    /**
+     * Test lines that are not two names are reported and skipped
+     */
+    @Test
+    public void testBadLine() {
+        Assert.assertEquals("bad query: a c\nunknown character \npath from a to b:\na to b via 1\n",
+                run(new QueryRunner(simple(), false), "a c\na\t\na\tb\n"));
+    }
+
+    /**
+     * Test main answers queries from a file on standard out
+     */
+    @Test
+    public void testMain() throws IOException {
+        Path queries = Fixtures.tempFile("queries", ".tsv");
+        Files.write(queries, "a\td\n".getBytes(StandardCharsets.UTF_8));
+        PrintStream stdout = System.out;
+        PrintStream stderr = System.err;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        try {
+            System.setOut(new PrintStream(out, true, "UTF-8"));
+            System.setErr(new PrintStream(err, true, "UTF-8"));
+            MarvelPaths.main(new String[] {"--data", "simpleHeroes.tsv", "--queries", queries.toString()});
+        } finally {
+            System.setOut(stdout);
+            System.setErr(stderr);
+        }
+        Assert.assertEquals("path from a to d:\na to d via 2\n", new String(out.toByteArray(), StandardCharsets.UTF_8));
+        Assert.assertTrue(new String(err.toByteArray(), StandardCharsets.UTF_8).contains("1 queries in "));
+    }
+}
@@ -0,0 +1,180 @@
+package marvel.junitTests;
+
+import graph.Graph;
+import graph.IndexedGraph;
+import marvel.MarvelPaths;
+import marvel.ShortestPathDag;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.*;
+
+public class ShortestPathDagTest {
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(30); // 30 seconds max per method tested
+
+    /**
+     * Returns every shortest path from start to end by trying every walk of the right length,
+     * sorted by the labels of their steps.
+     */
+    private static List<List<List<String>>> allShortestPaths(IndexedGraph<String, String> g,
+                                                             String start, String end) {
+        List<List<String>> first = MarvelPaths.findPath(g, start, end);
+        List<List<List<String>>> paths = new ArrayList<>();
+        if (first.isEmpty() && !start.equals(end)) {
+            return paths;
+        }
+        walk(g, g.nodeId(start), g.nodeId(end), first.size(), new LinkedList<>(), paths);
+        paths.sort((a, b) -> {
+            for (int i = 0; i < a.size(); i++) {
+                for (int j = 0; j < 2; j++) {
+                    int c = a.get(i).get(j).compareTo(b.get(i).get(j));
+                    if (c != 0) {
+                        return c;
+                    }
+                }
+            }
+            return 0;
+        });
+        return paths;
+    }
+
+    private static void walk(IndexedGraph<String, String> g, int u, int t, int left,
+                             LinkedList<List<String>> path, List<List<List<String>>> paths) {
+        if (left == 0) {
+            if (u == t) {
+                paths.add(new ArrayList<>(path));
+            }
+            return;
+        }
+        for (int k = 0; k < g.outDegree(u); k++) {
+            int e = g.outEdge(u, k);
+            for (int j = 0; j < g.headCount(e); j++) {
+                int v = g.head(e, j);
+                path.addLast(Arrays.asList(g.nodeLabel(v), g.edgeLabel(e)));
+                walk(g, v, t, left - 1, path, paths);
+                path.removeLast();
+            }
+        }
+    }
+
+    private static List<List<List<String>>> take(ShortestPathDag dag, int k) {
+        List<List<List<String>>> paths = new ArrayList<>();
+        Iterator<List<List<String>>> it = dag.iterator();
+        while (it.hasNext() && paths.size() < k) {
+            paths.add(it.next());
+        }
+        return paths;
+    }
+
+    /**
+     * Test the simple dataset, where a and c have one path each way
+     */
+    @Test
+    public void testSimple() {
+        IndexedGraph<String, String> g = IndexedGraph.of(MarvelPaths.loadGraph("simpleHeroes.tsv"));
+        ShortestPathDag dag = MarvelPaths.findAllPaths(g, "a", "c");
+        Assert.assertEquals(2, dag.length());
+        Assert.assertEquals(1, dag.count());
+        Assert.assertEquals(Collections.singletonList(MarvelPaths.findPath(g, "a", "c")), take(dag, 10));
+    }
+
+    /**
+     * Test start is end, and end cannot be reached
+     */
+    @Test
+    public void testTrivialAndUnreachable() {
+        IndexedGraph<String, String> g = IndexedGraph.of(MarvelPaths.loadGraph("simpleHeroes.tsv"));
+        ShortestPathDag same = MarvelPaths.findAllPaths(g, "b", "b");
+        Assert.assertEquals(0, same.length());
+        Assert.assertEquals(Collections.singletonList(Collections.emptyList()), take(same, 10));
+
+        ShortestPathDag none = MarvelPaths.findAllPaths(g, "a", "e");
+        Assert.assertEquals(-1, none.length());
+        Assert.assertEquals(0, none.count());
+        Assert.assertFalse(none.iterator().hasNext());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingNode() {
+        IndexedGraph<String, String> g = IndexedGraph.of(MarvelPaths.loadGraph("simpleHeroes.tsv"));
+        MarvelPaths.findAllPaths(g, "a", "not a hero");
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testNextPastEnd() {
+        IndexedGraph<String, String> g = IndexedGraph.of(MarvelPaths.loadGraph("simpleHeroes.tsv"));
+        Iterator<List<List<String>>> it = MarvelPaths.findAllPaths(g, "a", "c").iterator();
+        it.next();
+        it.next();
+    }
+
+    /**
+     * Test every shortest path is generated once, in order, between heroes of a real dataset
+     */
+    @Test
+    public void testMatchesBruteForceMarvel500() {
+        IndexedGraph<String, String> g = IndexedGraph.of(MarvelPaths.loadGraph("marvel500.tsv"));
+        List<String> heroes = g.listNodeLabels();
+        Random random = new Random(38);
+        int checked = 0;
+        while (checked < 40) {
+            String start = heroes.get(random.nextInt(heroes.size()));
+            String end = heroes.get(random.nextInt(heroes.size()));
+            ShortestPathDag dag = MarvelPaths.findAllPaths(g, start, end);
+            if (dag.count() > 2000) {
+                continue;
+            }
+            List<List<List<String>>> expected = allShortestPaths(g, start, end);
+            Assert.assertEquals(expected.size(), dag.count());
+            Assert.assertEquals(expected, take(dag, Integer.MAX_VALUE));
+            if (!expected.isEmpty()) {
+                Assert.assertEquals(MarvelPaths.findPath(g, start, end), expected.get(0));
+            }
+            checked++;
+        }
+    }
+
+    /**
+     * Test a graph with 2^38 shortest paths counts them and generates the first few in order
+     * without holding them
+     */
+    @Test
+    public void testManyEqualPaths() {
+        Graph<String, String> graph = new Graph<>();
+        int layers = 40;
+        List<List<String>> nodes = new ArrayList<>();
+        for (int i = 0; i < layers; i++) {
+            List<String> layer = (i == 0 || i == layers - 1)
+                    ? Collections.singletonList(String.format("L%02d", i))
+                    : Arrays.asList(String.format("L%02da", i), String.format("L%02db", i));
+            for (String node : layer) {
+                graph.addNode(node);
+            }
+            nodes.add(layer);
+        }
+        for (int i = 0; i + 1 < layers; i++) {
+            for (String u : nodes.get(i)) {
+                for (String v : nodes.get(i + 1)) {
+                    String book = u + "-" + v;
+                    graph.addEdge(u, book);
+                    graph.addEdge(v, book);
+                }
+            }
+        }
+        IndexedGraph<String, String> g = IndexedGraph.of(graph);
+        ShortestPathDag dag = MarvelPaths.findAllPaths(g, "L00", "L39");
+        Assert.assertEquals(39, dag.length());
+        Assert.assertEquals(1L << 38, dag.count());
+        Assert.assertEquals(2 * 2 + 2 * 2 * 37, dag.stepCount());
+
+        List<List<List<String>>> paths = take(dag, 3);
+        Assert.assertEquals(MarvelPaths.findPath(g, "L00", "L39"), paths.get(0));
+        Assert.assertEquals("L38a", paths.get(0).get(37).get(0));
+        Assert.assertEquals("L38b", paths.get(1).get(37).get(0));
+        Assert.assertEquals("L37b", paths.get(2).get(36).get(0));
+        Assert.assertEquals("L38a", paths.get(2).get(37).get(0));
+    }
+}
@@ -0,0 +1,105 @@
+package marvel.junitTests;
+
+import graph.Graph;
+import graph.IndexedGraph;
+import marvel.MarvelPaths;
+import marvel.SimilarityIndex;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.*;
+
+public class SimilarityIndexTest {
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(60); // 60 seconds max per method tested
+
+    /**
+     * Test exact similarities and ranking on the simple dataset, with enough one row bands
+     * that every hero sharing a book is looked at
+     */
+    @Test
+    public void testSimple() {
+        IndexedGraph<String, String> g = IndexedGraph.of(MarvelPaths.loadGraph("simpleHeroes.tsv"));
+        SimilarityIndex index = new SimilarityIndex(g, 64, 1);
+        Assert.assertSame(g, index.getGraph());
+        Assert.assertEquals(0.25, index.jaccard("a", "b"), 1e-9);
+        Assert.assertEquals(1.0 / 3, index.jaccard("a", "d"), 1e-9);
+        Assert.assertEquals(0, index.jaccard("a", "e"), 1e-9);
+        Assert.assertEquals(1, index.jaccard("a", "a"), 1e-9);
+        Assert.assertEquals(1, index.estimate("a", "a"), 1e-9);
+        Assert.assertEquals(Arrays.asList(new SimilarityIndex.Match("d", 1.0 / 3), new SimilarityIndex.Match("b", 0.25)),
+                index.similar("a", 10, true));
+        Assert.assertEquals(Collections.singletonList(new SimilarityIndex.Match("d", 1.0 / 3)),
+                index.similar("a", 1, true));
+        Assert.assertEquals(Arrays.asList("c", "a", "d"), heroes(index.similar("b", 10, true)));
+        Assert.assertEquals(Collections.emptyList(), index.similar("e", 10));
+        Assert.assertEquals(Collections.emptyList(), index.similar("a", 0));
+    }
+
+    private static List<String> heroes(List<SimilarityIndex.Match> matches) {
+        List<String> heroes = new ArrayList<>();
+        for (SimilarityIndex.Match m : matches) {
+            heroes.add(m.getHero());
+        }
+        return heroes;
+    }
+
+    /**
+     * Test queries on the full dataset: exact ranking is sorted and exact, estimates are
+     * close, and every hero at least half alike is found
+     */
+    @Test
+    public void testMarvelFull() {
+        IndexedGraph<String, String> g = IndexedGraph.of(MarvelPaths.loadGraph("marvel.tsv"));
+        SimilarityIndex index = new SimilarityIndex(g);
+        Random random = new Random(45);
+        for (int i = 0; i < 30; i++) {
+            String hero = g.nodeLabel(random.nextInt(g.nodeCount()));
+            List<SimilarityIndex.Match> exact = MarvelPaths.findSimilar(index, hero, g.nodeCount());
+            Set<String> found = new HashSet<>(heroes(exact));
+            Assert.assertEquals(exact.size(), found.size());
+            Assert.assertFalse(found.contains(hero));
+            for (int m = 0; m < exact.size(); m++) {
+                Assert.assertEquals(index.jaccard(hero, exact.get(m).getHero()), exact.get(m).getSimilarity(), 1e-12);
+                if (m > 0) {
+                    Assert.assertTrue(exact.get(m - 1).getSimilarity() >= exact.get(m).getSimilarity());
+                }
+            }
+            for (String other : g.listNodeLabels()) {
+                if (!other.equals(hero) && index.jaccard(hero, other) >= 0.5) {
+                    Assert.assertTrue(hero + " " + other, found.contains(other));
+                }
+            }
+            for (SimilarityIndex.Match m : index.similar(hero, 20)) {
+                Assert.assertEquals(index.jaccard(hero, m.getHero()), m.getSimilarity(), 0.25);
+                Assert.assertEquals(index.estimate(hero, m.getHero()), m.getSimilarity(), 1e-12);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingHero() {
+        new SimilarityIndex(IndexedGraph.of(MarvelPaths.loadGraph("simpleHeroes.tsv"))).similar("zz", 3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeK() {
+        new SimilarityIndex(IndexedGraph.of(MarvelPaths.loadGraph("simpleHeroes.tsv"))).similar("a", -1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoBands() {
+        new SimilarityIndex(IndexedGraph.of(MarvelPaths.loadGraph("simpleHeroes.tsv")), 0, 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDirectedGraph() {
+        Graph<String, String> g = new Graph<>();
+        g.addNode("a");
+        g.addNode("b");
+        g.addEdge("a", "b", "ab");
+        new SimilarityIndex(IndexedGraph.of(g));
+    }
+}
@@ -12,16 +12,25 @@
 package pathfinder;
 
 import graph.Graph;
+import graph.IndexedGraph;
+import graph.NameIndex;
+import graph.PathBatch;
+import pathfinder.datastructures.ContractionHierarchy;
 import pathfinder.datastructures.Path;
 import pathfinder.datastructures.Point;
 import pathfinder.datastructures.ShortestPath;
+import pathfinder.parser.CampusArtifact;
 import pathfinder.parser.CampusBuilding;
 import pathfinder.parser.CampusPath;
 import pathfinder.parser.CampusPathsParser;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
 
 public class CampusMap implements ModelAPI {
     /**
@@ -29,6 +38,26 @@ public class CampusMap implements ModelAPI {
      */
     private final Graph<Point, Double> campusMap;
 
+    /**
+     * An int-numbered copy of campusMap that the shortest path searches run on.
+     */
+    private final IndexedGraph<Point, Double> indexedCampusMap;
+
+    /**
+     * The largest number that the straight line distance between two points can be
+     * multiplied by without exceeding the length of any path between them, for the A*
+     * heuristic of findShortestPath. Path lengths are in feet and coordinates in pixels, so
+     * this is the least ratio of the length of a path to the straight line between its ends,
+     * less a little for rounding.
+     */
+    private final double heuristicScale;
+
+    /**
+     * The contraction hierarchy of indexedCampusMap that searches use instead of searching
+     * it directly, or null if this map was made without one.
+     */
+    private final ContractionHierarchy<Point> hierarchy;
+
     /**
      * A mapping of the building shortNames to building longNames.
      */
@@ -40,14 +69,62 @@ public class CampusMap implements ModelAPI {
     private final Map<String, Point> shortToPoint;
 
     /**
-     * Constructs a graph from the campus_paths and campus_buildings files.
+     * An index of the building short names, reachable through short and long names.
+     */
+    private final NameIndex buildingIndex;
+
+    /**
+     * Constructs a graph from the campus_paths and campus_buildings files, or from the
+     * prebuilt {@link CampusArtifact} of them if the build made an up to date one.
      * This includes building convenience maps for accessing the graph.
      *
      * @spec.effects Constructs a new CampusMap
      */
     public CampusMap() {
-        List<CampusPath> campusPathList = CampusPathsParser.parseCampusPaths("campus_paths.tsv");
-        List<CampusBuilding> campusBuildingList = CampusPathsParser.parseCampusBuildings("campus_buildings.tsv");
+        this(g -> null);
+    }
+
+    /**
+     * Constructs a CampusMap as {@link #CampusMap()} does, and if contract is set, also
+     * builds a {@link ContractionHierarchy} of it that shortest paths are then found with.
+     * Building it takes some time up front, after which each path takes a fraction of the
+     * time a search of the whole map does.
+     *
+     * @param contract whether to find shortest paths with a contraction hierarchy
+     * @spec.effects Constructs a new CampusMap
+     */
+    public CampusMap(boolean contract) {
+        this(contract ? ContractionHierarchy::new : g -> null);
+    }
+
+    /**
+     * Constructs a CampusMap that finds shortest paths with a {@link ContractionHierarchy}
+     * kept in hierarchyFile, which is only built, and then saved there, if the file does not
+     * hold the hierarchy of this map yet.
+     *
+     * @param hierarchyFile where the contraction hierarchy of the map is kept between runs
+     * @throws java.io.UncheckedIOException if hierarchyFile has to be written and cannot be
+     * @spec.requires hierarchyFile != null
+     * @spec.modifies hierarchyFile
+     * @spec.effects Constructs a new CampusMap
+     */
+    public CampusMap(java.nio.file.Path hierarchyFile) {
+        this(g -> ContractionHierarchy.cached(g, hierarchyFile));
+    }
+
+    /**
+     * Constructs a CampusMap, with the contraction hierarchy that hierarchyOf gives for its
+     * indexed graph.
+     *
+     * @param hierarchyOf makes the hierarchy of the indexed graph, or returns null for none
+     * @spec.effects Constructs a new CampusMap
+     */
+    private CampusMap(Function<IndexedGraph<Point, Double>, ContractionHierarchy<Point>> hierarchyOf) {
+        CampusArtifact prebuilt = CampusArtifact.loadResource();
+        List<CampusPath> campusPathList = prebuilt != null ? prebuilt.getPaths()
+                : CampusPathsParser.parseCampusPaths("campus_paths.tsv");
+        List<CampusBuilding> campusBuildingList = prebuilt != null ? prebuilt.getBuildings()
+                : CampusPathsParser.parseCampusBuildings("campus_buildings.tsv");
         shortToLong = new HashMap<>();
         shortToPoint = new HashMap<>();
         campusMap = new Graph<>();
@@ -61,13 +138,31 @@ public class CampusMap implements ModelAPI {
         }
 
         // Add the paths to the graph and maps
+        double scale = Double.POSITIVE_INFINITY;
         for (CampusPath cp : campusPathList) {
             Point src = new Point(cp.getX1(), cp.getY1());
             Point dst = new Point(cp.getX2(), cp.getY2());
+            double straight = straightLine(src, dst);
+            if (straight > 0) {
+                scale = Math.min(scale, cp.getDistance() / straight);
+            }
             campusMap.addNode(src);
             campusMap.addNode(dst);
             campusMap.addEdge(src, dst, cp.getDistance(), true);
         }
+        indexedCampusMap = new IndexedGraph<>(campusMap,
+                Comparator.comparingDouble(Point::getX).thenComparingDouble(Point::getY),
+                Comparator.naturalOrder());
+        heuristicScale = Double.isInfinite(scale) ? 0 : scale * (1 - 1e-9);
+        hierarchy = hierarchyOf.apply(indexedCampusMap);
+
+        // Both names of a building lead to its short name
+        Map<String, String> aliases = new HashMap<>();
+        for (Map.Entry<String, String> entry : shortToLong.entrySet()) {
+            aliases.put(entry.getValue(), entry.getKey());
+            aliases.put(entry.getKey(), entry.getKey());
+        }
+        buildingIndex = NameIndex.of(aliases);
     }
 
     /**
@@ -98,7 +193,36 @@ public class CampusMap implements ModelAPI {
     }
 
     /**
-     * Finds the shortest path between start and end buildings in CampusMaps.
+     * Finds the buildings whose short or long name starts with prefix, ignoring case.
+     *
+     * @param prefix the start of a building name
+     * @param k the most buildings to return
+     * @return the short names of at most k buildings with a name starting with prefix
+     * @throws IllegalArgumentException if k &lt; 0
+     * @spec.requires prefix != null
+     */
+    public List<String> completeBuildings(String prefix, int k) {
+        return buildingIndex.complete(prefix, k);
+    }
+
+    /**
+     * Finds the buildings whose short or long name is closest to a partly typed or misspelled
+     * query.
+     *
+     * @param query the partly typed or misspelled building name
+     * @param k the most buildings to return
+     * @return the short names of at most k buildings closest to query, closest first
+     * @throws IllegalArgumentException if k &lt; 0
+     * @spec.requires query != null
+     * @see NameIndex#suggest(String, int)
+     */
+    public List<String> suggestBuildings(String query, int k) {
+        return buildingIndex.suggest(query, k);
+    }
+
+    /**
+     * Finds the shortest path between start and end buildings in CampusMaps, with an A*
+     * search guided by the straight line distance to the end building.
      *
      * @param startShortName The short name of the building at the beginning of this path.
      * @param endShortName   The short name of the building at the end of this path.
@@ -119,7 +243,91 @@ public class CampusMap implements ModelAPI {
         Point src = shortToPoint.get(startShortName);
         Point dst = shortToPoint.get(endShortName);
 
-        return ShortestPath.dijkstra(campusMap, src, dst);
+        if (hierarchy != null) {
+            return hierarchy.shortestPath(src, dst);
+        }
+        return ShortestPath.aStar(indexedCampusMap, src, dst, p -> heuristicScale * straightLine(p, dst));
+    }
+
+    /**
+     * Returns the straight line distance between two points, in pixels.
+     *
+     * @param a one point
+     * @param b the other point
+     * @return the distance between a and b
+     */
+    private static double straightLine(Point a, Point b) {
+        return Math.hypot(a.getX() - b.getX(), a.getY() - b.getY());
+    }
+
+    /**
+     * Finds the shortest paths between many pairs of buildings at once, in parallel on the
+     * common fork/join pool. Pairs with the same start share a single search.
+     *
+     * @param queries the pairs of building short names to find paths between
+     * @return the shortest path for queries.get(i) at index i, as findShortestPath finds it
+     * @throws IllegalArgumentException if a query names a building not in the map, in
+     * which case no path is searched for
+     * @spec.requires queries != null and no query is null
+     */
+    public List<Path<Point>> findShortestPaths(List<PathBatch.Query<String>> queries) {
+        checkQueries(queries);
+        return new PathBatch<>(this::searchFrom).run(queries);
     }
 
+    /**
+     * Finds the shortest paths between many pairs of buildings at once, handing each path
+     * to callback as soon as it is found. Paths arrive in no particular order, and possibly
+     * on several threads at once.
+     *
+     * @param queries the pairs of building short names to find paths between
+     * @param callback takes each path and the index of its query in queries
+     * @throws IllegalArgumentException if a query names a building not in the map, in
+     * which case no path is searched for
+     * @spec.requires no argument is null and no query is null
+     */
+    public void findShortestPaths(List<PathBatch.Query<String>> queries,
+                                  ObjIntConsumer<? super Path<Point>> callback) {
+        checkQueries(queries);
+        new PathBatch<>(this::searchFrom).run(queries, callback);
+    }
+
+    /**
+     * Throws if a query names a building not in the map.
+     *
+     * @param queries the queries to check
+     * @throws IllegalArgumentException if a query names a building not in the map
+     */
+    private void checkQueries(List<PathBatch.Query<String>> queries) {
+        for (PathBatch.Query<String> query : queries) {
+            if (!shortNameExists(query.getStart())) {
+                throw new IllegalArgumentException(query.getStart() + " not in graph");
+            } else if (!shortNameExists(query.getEnd())) {
+                throw new IllegalArgumentException(query.getEnd() + " not in graph");
+            }
+        }
+    }
+
+    /**
+     * Finds the shortest paths from one building to several others with a single search.
+     *
+     * @param startShortName the short name of the building the paths start at
+     * @param endShortNames the short names of the buildings the paths end at
+     * @return the shortest path to each of endShortNames, in order
+     */
+    private List<Path<Point>> searchFrom(String startShortName, List<String> endShortNames) {
+        List<Point> ends = new ArrayList<>(endShortNames.size());
+        for (String end : endShortNames) {
+            ends.add(shortToPoint.get(end));
+        }
+        if (hierarchy != null) {
+            Point start = shortToPoint.get(startShortName);
+            List<Path<Point>> paths = new ArrayList<>(ends.size());
+            for (Point end : ends) {
+                paths.add(hierarchy.shortestPath(start, end));
+            }
+            return paths;
+        }
+        return ShortestPath.dijkstraAll(indexedCampusMap, shortToPoint.get(startShortName), ends);
+    }
 }
@@ -0,0 +1,31 @@
+package pathfinder;
+
+import graph.Graph;
+import graph.GraphFootprint;
+import marvel.MarvelPaths;
+
+/**
+ * FootprintReport prints how much heap a loaded CampusMap and Marvel graph retain,
+ * broken down into nodes, edges, labels and collection overhead.
+ */
+public class FootprintReport {
+
+    // This class does not represent an ADT.
+
+    /**
+     * Prints the footprint of the campus map and of the Marvel graph.
+     *
+     * @param args the Marvel data file to load, or none for marvel.tsv
+     */
+    public static void main(String[] args) {
+        String marvelFile = args.length > 0 ? args[0] : "marvel.tsv";
+
+        CampusMap campusMap = new CampusMap();
+        System.out.println("CampusMap:");
+        System.out.println(GraphFootprint.measure(campusMap));
+
+        Graph<String, String> marvel = MarvelPaths.loadGraph(marvelFile);
+        System.out.println("Marvel graph (" + marvelFile + "):");
+        System.out.println(GraphFootprint.measure(marvel));
+    }
+}
@@ -0,0 +1,1120 @@
+package pathfinder.datastructures;
+
+import graph.IndexedGraph;
+import graph.IndexedHeap;
+import graph.io.ArtifactFiles;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * <b>ContractionHierarchy</b> is an immutable index of a weighted graph that answers shortest
+ * path queries by searching only a small part of it. It is built by contracting the nodes one
+ * at a time in order of importance: a node is removed, and wherever the shortest path between
+ * two of its neighbors went through it, a shortcut joining them directly is added with the
+ * length of that path. Each node gets a rank, the order it was contracted in.
+ *
+ * <p>Every shortest path then has a counterpart that only climbs to higher ranks and then
+ * only descends, using shortcuts to skip the nodes between. A query searches upwards from
+ * the start and upwards against the edges from the end, the two searches meet at the
+ * highest node of the path, and each shortcut on the way is unpacked back into the edges it
+ * stands for. The searches stay within the few nodes ranked above their ends, so a query
+ * settles a few hundred nodes even when the graph has hundreds of thousands.
+ *
+ * <p>Nodes are ordered by how many shortcuts contracting them would add, less the edges it
+ * would remove, plus how many of their neighbors are already contracted, which spreads
+ * contraction evenly over the graph. Each round contracts every node ordered before all of
+ * its neighbors, and since no two of them are neighbors, their shortcuts are found in
+ * parallel. A shortcut is only added if no other path between its ends, found by a limited
+ * search that avoids every node of the round, is as short.
+ *
+ * <p>A hierarchy can be saved to disk and loaded back for the same graph without contracting
+ * it again, and {@link #cached(IndexedGraph, java.nio.file.Path)} does so whenever the saved
+ * hierarchy was built from a graph with the same nodes and edges. Queries may run on several
+ * threads at once.
+ *
+ * @param <T> the node data type
+ */
+public final class ContractionHierarchy<T> {
+    /**
+     * The first int of a saved hierarchy, "CHGR".
+     */
+    private static final int MAGIC = 0x43484752;
+
+    /**
+     * The version of the saved format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The most nodes a search for a path avoiding a contracted node settles. A shortcut is
+     * added whenever the search gives up, which keeps the hierarchy correct at the cost of a
+     * few shortcuts that are not needed.
+     */
+    private static final int WITNESS_LIMIT = 500;
+
+    /**
+     * The graph the hierarchy was built from.
+     */
+    private final IndexedGraph<T, Double> graph;
+
+    /**
+     * The hash of the structure and labels of graph, for telling whether a saved hierarchy
+     * belongs to a graph.
+     */
+    private final long fingerprint;
+
+    /**
+     * rank[v] = the order in which node v was contracted.
+     */
+    private final int[] rank;
+
+    /**
+     * The arcs: the edges of graph and the shortcuts, each from tail[a] to head[a].
+     */
+    private final int[] tail;
+
+    /**
+     * The node each arc leads to.
+     */
+    private final int[] head;
+
+    /**
+     * The length of each arc.
+     */
+    private final double[] weight;
+
+    /**
+     * edge[a] = the id in graph of the edge arc a is, or -1 if a is a shortcut.
+     */
+    private final int[] edge;
+
+    /**
+     * first[a] and second[a] = the two arcs shortcut a stands for, one after the other, or -1
+     * if a is an edge.
+     */
+    private final int[] first;
+
+    /**
+     * The second of the two arcs each shortcut stands for.
+     */
+    private final int[] second;
+
+    /**
+     * upStart[v] = the index in upArcs where the arcs from v to a higher node begin.
+     */
+    private final int[] upStart;
+
+    /**
+     * The arcs from each node to higher nodes, node after node.
+     */
+    private final int[] upArcs;
+
+    /**
+     * downStart[v] = the index in downArcs where the arcs to v from a higher node begin.
+     */
+    private final int[] downStart;
+
+    /**
+     * The arcs to each node from higher nodes, node after node.
+     */
+    private final int[] downArcs;
+
+    /**
+     * The reusable state of the queries of each thread.
+     */
+    private final ThreadLocal<Search> searches;
+
+    // Abstraction Function:
+    // A hierarchy of graph in which node v has rank rank[v], arc a goes from tail[a] to
+    //      head[a] with length weight[a] and is edge edge[a] of graph if edge[a] >= 0, or
+    //      else the shortcut for arc first[a] followed by arc second[a]; the arcs searched
+    //      upwards from v are upArcs[upStart[v] .. upStart[v + 1]) and the arcs searched
+    //      upwards against their direction from v are downArcs[downStart[v] .. downStart[v + 1])
+
+    // Representation Invariant:
+    // rank is a permutation of 0 .. graph.nodeCount() - 1
+    // tail, head, weight, edge, first and second have the same length
+    // head[first[a]] == tail[second[a]], and weight[a] == weight[first[a]] + weight[second[a]]
+    //      for every shortcut a, and first[a], second[a] < a
+    // every arc in the up list of v goes from v to a node of higher rank, and every arc in
+    //      the down list of v goes to v from a node of higher rank
+    // upStart.length == downStart.length == graph.nodeCount() + 1
+    // (It's implied that there are no null fields in ContractionHierarchy)
+
+    /**
+     * Builds the hierarchy of a graph, contracting it on all cores.
+     *
+     * @param g the graph to build the hierarchy of
+     * @spec.requires g != null and no edge label is negative or NaN
+     * @spec.effects Constructs a new ContractionHierarchy
+     */
+    public ContractionHierarchy(IndexedGraph<T, Double> g) {
+        this(g, new Contraction(g).run());
+    }
+
+    /**
+     * Creates a hierarchy of g from its ranks and arcs.
+     *
+     * @param g the graph the hierarchy is of
+     * @param arcs the ranks and arcs of the hierarchy
+     * @spec.requires arcs satisfy the representation invariant
+     * @spec.effects Constructs a new ContractionHierarchy
+     */
+    private ContractionHierarchy(IndexedGraph<T, Double> g, Arcs arcs) {
+        this.graph = g;
+        this.fingerprint = fingerprint(g);
+        this.rank = arcs.rank;
+        int count = arcs.size;
+        this.tail = Arrays.copyOf(arcs.tail, count);
+        this.head = Arrays.copyOf(arcs.head, count);
+        this.weight = Arrays.copyOf(arcs.weight, count);
+        this.edge = Arrays.copyOf(arcs.edge, count);
+        this.first = Arrays.copyOf(arcs.first, count);
+        this.second = Arrays.copyOf(arcs.second, count);
+
+        int n = g.nodeCount();
+        this.upStart = new int[n + 1];
+        this.downStart = new int[n + 1];
+        for (int a = 0; a < count; a++) {
+            if (!arcs.superseded[a]) {
+                if (rank[head[a]] > rank[tail[a]]) {
+                    upStart[tail[a] + 1]++;
+                } else {
+                    downStart[head[a] + 1]++;
+                }
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            upStart[v + 1] += upStart[v];
+            downStart[v + 1] += downStart[v];
+        }
+        this.upArcs = new int[upStart[n]];
+        this.downArcs = new int[downStart[n]];
+        int[] upFill = Arrays.copyOf(upStart, n);
+        int[] downFill = Arrays.copyOf(downStart, n);
+        for (int a = 0; a < count; a++) {
+            if (!arcs.superseded[a]) {
+                if (rank[head[a]] > rank[tail[a]]) {
+                    upArcs[upFill[tail[a]]++] = a;
+                } else {
+                    downArcs[downFill[head[a]]++] = a;
+                }
+            }
+        }
+        this.searches = ThreadLocal.withInitial(() -> new Search(n));
+        checkRep();
+    }
+
+    /**
+     * Returns the hierarchy of a graph, reading it from cache if cache holds a hierarchy of
+     * a graph with the same nodes and edges, and otherwise building it and saving it to
+     * cache.
+     *
+     * @param g the graph to build the hierarchy of
+     * @param cache where the hierarchy of g is kept between runs
+     * @param <T> the node data type
+     * @return the hierarchy of g
+     * @throws UncheckedIOException if cache cannot be written
+     * @spec.requires no argument is null and no edge label of g is negative or NaN
+     * @spec.modifies cache
+     * @spec.effects writes the hierarchy of g to cache if cache was missing or stale
+     */
+    public static <T> ContractionHierarchy<T> cached(IndexedGraph<T, Double> g, java.nio.file.Path cache) {
+        if (Files.isRegularFile(cache)) {
+            try {
+                return load(g, cache);
+            } catch (IllegalArgumentException | UncheckedIOException e) {
+                // A damaged or stale hierarchy is rebuilt
+            }
+        }
+        ContractionHierarchy<T> hierarchy = new ContractionHierarchy<>(g);
+        hierarchy.save(cache);
+        return hierarchy;
+    }
+
+    /**
+     * Saves this hierarchy to a file.
+     *
+     * @param file where to save this hierarchy
+     * @throws UncheckedIOException if file cannot be written
+     * @spec.requires file != null
+     * @spec.modifies file
+     * @spec.effects replaces the contents of file with this hierarchy
+     */
+    public void save(java.nio.file.Path file) {
+        Set<Integer> live = new HashSet<>();
+        for (int a : upArcs) {
+            live.add(a);
+        }
+        for (int a : downArcs) {
+            live.add(a);
+        }
+        ArtifactFiles.write(file, out -> {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(graph.nodeCount());
+            out.writeInt(graph.edgeCount());
+            out.writeLong(fingerprint);
+            for (int r : rank) {
+                out.writeInt(r);
+            }
+            out.writeInt(tail.length);
+            for (int a = 0; a < tail.length; a++) {
+                out.writeInt(tail[a]);
+                out.writeInt(head[a]);
+                out.writeDouble(weight[a]);
+                out.writeInt(edge[a]);
+                out.writeInt(first[a]);
+                out.writeInt(second[a]);
+                out.writeBoolean(!live.contains(a));
+            }
+        });
+    }
+
+    /**
+     * Loads a hierarchy of g saved by {@link #save(java.nio.file.Path)} or
+     * {@link #cached(IndexedGraph, java.nio.file.Path)}.
+     *
+     * @param g the graph the hierarchy was built from
+     * @param file the file to load
+     * @param <T> the node data type
+     * @return the hierarchy of g saved in file
+     * @throws UncheckedIOException if file cannot be read
+     * @throws IllegalArgumentException if file does not hold a saved hierarchy, holds the
+     * hierarchy of a graph with other nodes or edges than g, or is truncated or damaged so
+     * that its ranks or arcs do not fit g
+     * @spec.requires no argument is null
+     */
+    public static <T> ContractionHierarchy<T> load(IndexedGraph<T, Double> g, java.nio.file.Path file) {
+        ByteBuffer buffer;
+        try {
+            buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try {
+            if (buffer.remaining() < 8 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IllegalArgumentException(file + " does not hold a saved hierarchy");
+            }
+            int n = g.nodeCount();
+            if (buffer.getInt() != n || buffer.getInt() != g.edgeCount() || buffer.getLong() != fingerprint(g)) {
+                throw new IllegalArgumentException(file + " holds the hierarchy of another graph");
+            }
+            Arcs arcs = new Arcs(n);
+            boolean[] ranked = new boolean[n];
+            for (int v = 0; v < n; v++) {
+                int r = buffer.getInt();
+                if (r < 0 || r >= n || ranked[r]) {
+                    throw new IllegalArgumentException(file + " holds a damaged hierarchy");
+                }
+                ranked[r] = true;
+                arcs.rank[v] = r;
+            }
+            int count = buffer.getInt();
+            for (int a = 0; a < count; a++) {
+                int from = buffer.getInt();
+                int to = buffer.getInt();
+                double length = buffer.getDouble();
+                int e = buffer.getInt();
+                int a1 = buffer.getInt();
+                int a2 = buffer.getInt();
+                if (!isValidArc(g, arcs, from, to, length, e, a1, a2)) {
+                    throw new IllegalArgumentException(file + " holds a damaged hierarchy");
+                }
+                arcs.add(from, to, length, e, a1, a2);
+                arcs.superseded[a] = buffer.get() != 0;
+            }
+            return new ContractionHierarchy<>(g, arcs);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException(file + " holds a truncated hierarchy", e);
+        }
+    }
+
+    /**
+     * Returns whether a loaded arc could have been saved from a hierarchy of g: an edge of g
+     * between its ends with its length, or a shortcut for two arcs already loaded that join
+     * its ends.
+     *
+     * @param g the graph the hierarchy is of
+     * @param arcs the arcs loaded so far
+     * @param from the node the arc leaves
+     * @param to the node the arc leads to
+     * @param length the length of the arc
+     * @param e the edge the arc is, or -1 for a shortcut
+     * @param a1 the first arc a shortcut stands for, or -1
+     * @param a2 the second arc a shortcut stands for, or -1
+     * @return true iff the arc fits g and the arcs before it
+     */
+    private static boolean isValidArc(IndexedGraph<?, Double> g, Arcs arcs, int from, int to, double length,
+                                      int e, int a1, int a2) {
+        int n = g.nodeCount();
+        if (from < 0 || from >= n || to < 0 || to >= n || from == to || !(length >= 0)) {
+            return false;
+        }
+        if (e >= 0) {
+            if (e >= g.edgeCount() || a1 != -1 || a2 != -1 || g.edgeLabel(e) != length) {
+                return false;
+            }
+            boolean leaves = false;
+            for (int j = 0; j < g.tailCount(e) && !leaves; j++) {
+                leaves = g.tail(e, j) == from;
+            }
+            boolean reaches = false;
+            for (int j = 0; j < g.headCount(e) && !reaches; j++) {
+                reaches = g.head(e, j) == to;
+            }
+            return leaves && reaches;
+        }
+        return e == -1 && a1 >= 0 && a1 < arcs.size && a2 >= 0 && a2 < arcs.size
+                && arcs.tail[a1] == from && arcs.head[a1] == arcs.tail[a2] && arcs.head[a2] == to
+                && arcs.weight[a1] + arcs.weight[a2] == length;
+    }
+
+    /**
+     * Returns the graph this hierarchy was built from.
+     *
+     * @return the graph of this hierarchy
+     */
+    public IndexedGraph<T, Double> getGraph() {
+        return graph;
+    }
+
+    /**
+     * Returns the number of shortcuts searched by queries.
+     *
+     * @return the number of shortcuts in this hierarchy
+     */
+    public int shortcutCount() {
+        int count = 0;
+        for (int a : upArcs) {
+            count += edge[a] < 0 ? 1 : 0;
+        }
+        for (int a : downArcs) {
+            count += edge[a] < 0 ? 1 : 0;
+        }
+        return count;
+    }
+
+    /**
+     * Finds the shortest path between start and end. The path has the same length as the
+     * one {@link ShortestPath#dijkstra(IndexedGraph, Object, Object)} finds, and is the same
+     * path whenever the shortest path is the only one of its length.
+     *
+     * @param start the node to search from
+     * @param end the node to find a path to
+     * @return the shortest path between start and end, or an empty path from start if there
+     * is none
+     * @spec.requires start in graph
+     * @spec.requires end in graph
+     * @spec.requires no argument is null
+     */
+    public Path<T> shortestPath(T start, T end) {
+        int s = graph.nodeId(start);
+        int t = graph.nodeId(end);
+        if (s < 0 || t < 0 || s == t) {
+            return new Path<>(start);
+        }
+        Search search = searches.get();
+        // Index 0 is the upward search from s, index 1 the upward search against the arcs from t
+        search.reach(0, s, 0, -1);
+        search.reach(1, t, 0, -1);
+        double best = Double.POSITIVE_INFINITY;
+        int meet = -1;
+        while (true) {
+            double forward = search.queues[0].isEmpty() ? Double.POSITIVE_INFINITY
+                    : search.queues[0].key(search.queues[0].peek());
+            double backward = search.queues[1].isEmpty() ? Double.POSITIVE_INFINITY
+                    : search.queues[1].key(search.queues[1].peek());
+            // Neither search can reach a node that would shorten the best path
+            if (Math.min(forward, backward) >= best) {
+                break;
+            }
+            int side = forward <= backward ? 0 : 1;
+            double[] distance = search.distance[side];
+            double[] other = search.distance[1 - side];
+            int u = search.queues[side].poll();
+            if (distance[u] + other[u] < best) {
+                best = distance[u] + other[u];
+                meet = u;
+            }
+            int[] starts = side == 0 ? upStart : downStart;
+            int[] arcs = side == 0 ? upArcs : downArcs;
+            for (int i = starts[u]; i < starts[u + 1]; i++) {
+                int a = arcs[i];
+                int v = side == 0 ? head[a] : tail[a];
+                double reached = distance[u] + weight[a];
+                if (reached < distance[v]) {
+                    search.reach(side, v, reached, a);
+                }
+            }
+        }
+
+        List<Integer> route = new ArrayList<>();
+        if (meet >= 0) {
+            for (int v = meet; search.via[0][v] >= 0; v = tail[search.via[0][v]]) {
+                route.add(search.via[0][v]);
+            }
+            Collections.reverse(route);
+            for (int v = meet; search.via[1][v] >= 0; v = head[search.via[1][v]]) {
+                route.add(search.via[1][v]);
+            }
+        }
+        search.reset();
+        if (meet < 0) {
+            return new Path<>(start);
+        }
+        return unpack(start, route);
+    }
+
+    /**
+     * Turns a route of arcs into a path of edges by replacing each shortcut with the arcs it
+     * stands for, until only edges are left.
+     *
+     * @param start the node the route starts at
+     * @param route the arcs from start, in order
+     * @return the path of the edges of route
+     */
+    private Path<T> unpack(T start, List<Integer> route) {
+        Path<T> path = new Path<>(start);
+        Deque<Integer> stack = new ArrayDeque<>();
+        for (int i = route.size() - 1; i >= 0; i--) {
+            stack.push(route.get(i));
+        }
+        while (!stack.isEmpty()) {
+            int a = stack.pop();
+            if (edge[a] >= 0) {
+                path = path.extend(graph.nodeLabel(head[a]), graph.edgeLabel(edge[a]));
+            } else {
+                stack.push(second[a]);
+                stack.push(first[a]);
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Hashes the nodes, edges and edge labels of a graph.
+     *
+     * @param g the graph to hash
+     * @return a hash of the structure and labels of g
+     */
+    private static long fingerprint(IndexedGraph<?, Double> g) {
+        long hash = g.nodeCount();
+        for (int u = 0; u < g.nodeCount(); u++) {
+            for (int k = 0; k < g.outDegree(u); k++) {
+                int e = g.outEdge(u, k);
+                hash = 31 * hash + Double.doubleToLongBits(g.edgeLabel(e));
+                for (int j = 0; j < g.headCount(e); j++) {
+                    hash = 31 * hash + ((long) u << 32 | g.head(e, j));
+                }
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Throws an exception if the representation invariant is violated.
+     *
+     * @throws RuntimeException if representation invariant is violated
+     */
+    private void checkRep() {
+        assert (rank.length == graph.nodeCount()) : "rank.length != nodeCount()";
+        assert (head.length == tail.length && weight.length == tail.length && edge.length == tail.length
+                && first.length == tail.length && second.length == tail.length) : "arc arrays differ in length";
+        assert (upStart.length == graph.nodeCount() + 1) : "upStart.length != nodeCount() + 1";
+        assert (downStart.length == graph.nodeCount() + 1) : "downStart.length != nodeCount() + 1";
+    }
+
+    /**
+     * <b>Search</b> is the state of the two searches of a query, kept between the queries of
+     * a thread so that no array the size of the graph is made or cleared for each query.
+     */
+    private static final class Search {
+        /**
+         * distance[side][v] = the length of the best path found from the end of side to v.
+         */
+        final double[][] distance;
+
+        /**
+         * via[side][v] = the arc the best path found to v ends with, or -1 for the end.
+         */
+        final int[][] via;
+
+        /**
+         * The queue of each search.
+         */
+        final IndexedHeap[] queues;
+
+        /**
+         * The nodes reached by either search, to clear when the query is done.
+         */
+        private int[] touched;
+
+        /**
+         * The number of nodes in touched.
+         */
+        private int size;
+
+        /**
+         * Creates the state for searches of a graph with n nodes.
+         *
+         * @param n the number of nodes
+         */
+        Search(int n) {
+            distance = new double[2][n];
+            via = new int[2][n];
+            Arrays.fill(distance[0], Double.POSITIVE_INFINITY);
+            Arrays.fill(distance[1], Double.POSITIVE_INFINITY);
+            queues = new IndexedHeap[] {new IndexedHeap(n), new IndexedHeap(n)};
+            touched = new int[16];
+        }
+
+        /**
+         * Records a shorter path to v found by one of the searches.
+         *
+         * @param side the search
+         * @param v the node reached
+         * @param length the length of the path to v
+         * @param arc the arc the path ends with, or -1 if v is the end of side
+         */
+        void reach(int side, int v, double length, int arc) {
+            if (distance[0][v] == Double.POSITIVE_INFINITY && distance[1][v] == Double.POSITIVE_INFINITY) {
+                if (size == touched.length) {
+                    touched = Arrays.copyOf(touched, 2 * size);
+                }
+                touched[size++] = v;
+            }
+            distance[side][v] = length;
+            via[side][v] = arc;
+            queues[side].offer(v, length);
+        }
+
+        /**
+         * Forgets every node reached, ready for the next query.
+         */
+        void reset() {
+            for (int i = 0; i < size; i++) {
+                distance[0][touched[i]] = Double.POSITIVE_INFINITY;
+                distance[1][touched[i]] = Double.POSITIVE_INFINITY;
+            }
+            size = 0;
+            queues[0].clear();
+            queues[1].clear();
+        }
+    }
+
+    /**
+     * <b>Arcs</b> is a growing list of the arcs of a hierarchy, with the ranks of its nodes.
+     */
+    private static final class Arcs {
+        /**
+         * rank[v] = the order in which node v was contracted.
+         */
+        final int[] rank;
+
+        /**
+         * The number of arcs.
+         */
+        int size;
+
+        /**
+         * The node each arc leaves.
+         */
+        int[] tail = new int[16];
+
+        /**
+         * The node each arc leads to.
+         */
+        int[] head = new int[16];
+
+        /**
+         * The length of each arc.
+         */
+        double[] weight = new double[16];
+
+        /**
+         * The edge each arc is, or -1 for a shortcut.
+         */
+        int[] edge = new int[16];
+
+        /**
+         * The first of the arcs each shortcut stands for, or -1 for an edge.
+         */
+        int[] first = new int[16];
+
+        /**
+         * The second of the arcs each shortcut stands for, or -1 for an edge.
+         */
+        int[] second = new int[16];
+
+        /**
+         * Whether each arc was replaced by a shorter arc between the same nodes, so that
+         * queries need not search it.
+         */
+        boolean[] superseded = new boolean[16];
+
+        /**
+         * Creates an empty list of arcs over n nodes.
+         *
+         * @param n the number of nodes
+         */
+        Arcs(int n) {
+            rank = new int[n];
+        }
+
+        /**
+         * Adds an arc.
+         *
+         * @param from the node the arc leaves
+         * @param to the node the arc leads to
+         * @param length the length of the arc
+         * @param e the edge the arc is, or -1 for a shortcut
+         * @param a1 the first arc a shortcut stands for, or -1
+         * @param a2 the second arc a shortcut stands for, or -1
+         * @return the id of the new arc
+         */
+        int add(int from, int to, double length, int e, int a1, int a2) {
+            if (size == tail.length) {
+                int grown = 2 * size;
+                tail = Arrays.copyOf(tail, grown);
+                head = Arrays.copyOf(head, grown);
+                weight = Arrays.copyOf(weight, grown);
+                edge = Arrays.copyOf(edge, grown);
+                first = Arrays.copyOf(first, grown);
+                second = Arrays.copyOf(second, grown);
+                superseded = Arrays.copyOf(superseded, grown);
+            }
+            tail[size] = from;
+            head[size] = to;
+            weight[size] = length;
+            edge[size] = e;
+            first[size] = a1;
+            second[size] = a2;
+            return size++;
+        }
+    }
+
+    /**
+     * <b>Contraction</b> is the work of building a hierarchy: the arcs between the nodes not
+     * yet contracted, which gain shortcuts and lose the arcs of contracted nodes as it goes.
+     */
+    private static final class Contraction {
+        /**
+         * The number of nodes.
+         */
+        private final int n;
+
+        /**
+         * The arcs made so far, and the ranks given so far.
+         */
+        private final Arcs arcs;
+
+        /**
+         * out[v] = the arcs leaving v that lead to a node not contracted, at most one per
+         * node, and possibly some to contracted nodes not yet cleaned out.
+         */
+        private final int[][] out;
+
+        /**
+         * The number of arcs in each list of out.
+         */
+        private final int[] outSize;
+
+        /**
+         * in[v] = the arcs leading to v, kept like out.
+         */
+        private final int[][] in;
+
+        /**
+         * The number of arcs in each list of in.
+         */
+        private final int[] inSize;
+
+        /**
+         * contracted[v] = whether v has been contracted.
+         */
+        private final boolean[] contracted;
+
+        /**
+         * contracting[v] = whether v is being contracted in the current round.
+         */
+        private final boolean[] contracting;
+
+        /**
+         * deleted[v] = the number of neighbors of v already contracted.
+         */
+        private final int[] deleted;
+
+        /**
+         * priority[v] = how late v should be contracted, as last computed.
+         */
+        private final int[] priority;
+
+        /**
+         * The reusable state of the witness searches of each thread.
+         */
+        private final ThreadLocal<Witness> witnesses;
+
+        /**
+         * Sets up the contraction of g, with an arc for each edge, keeping only the shortest
+         * edge from one node to another.
+         *
+         * @param g the graph to contract
+         */
+        Contraction(IndexedGraph<?, Double> g) {
+            n = g.nodeCount();
+            arcs = new Arcs(n);
+            out = new int[n][];
+            outSize = new int[n];
+            in = new int[n][];
+            inSize = new int[n];
+            for (int v = 0; v < n; v++) {
+                out[v] = new int[4];
+                in[v] = new int[4];
+            }
+            contracted = new boolean[n];
+            contracting = new boolean[n];
+            deleted = new int[n];
+            priority = new int[n];
+            witnesses = ThreadLocal.withInitial(() -> new Witness(n));
+
+            int[] arcTo = new int[n];
+            Arrays.fill(arcTo, -1);
+            for (int u = 0; u < n; u++) {
+                for (int k = 0; k < g.outDegree(u); k++) {
+                    int e = g.outEdge(u, k);
+                    double length = g.edgeLabel(e);
+                    for (int j = 0; j < g.headCount(e); j++) {
+                        int v = g.head(e, j);
+                        if (v == u) {
+                            continue;
+                        }
+                        int a = arcTo[v];
+                        if (a < 0) {
+                            arcTo[v] = arcs.add(u, v, length, e, -1, -1);
+                        } else if (length < arcs.weight[a]) {
+                            arcs.weight[a] = length;
+                            arcs.edge[a] = e;
+                        }
+                    }
+                }
+                for (int i = arcs.size - 1; i >= 0 && arcs.tail[i] == u; i--) {
+                    arcTo[arcs.head[i]] = -1;
+                    outSize[u] = append(out, outSize, u, i);
+                    inSize[arcs.head[i]] = append(in, inSize, arcs.head[i], i);
+                }
+            }
+        }
+
+        /**
+         * Contracts every node.
+         *
+         * @return the ranks of the nodes and the arcs of the hierarchy
+         */
+        Arcs run() {
+            IntStream.range(0, n).parallel().forEach(this::prioritize);
+            int[] remaining = IntStream.range(0, n).toArray();
+            int next = 0;
+            while (remaining.length > 0) {
+                // Nodes ordered before all their neighbors, so no two of them are neighbors
+                int[] round = IntStream.of(remaining).parallel().filter(this::isLocalMinimum).toArray();
+                for (int v : round) {
+                    contracting[v] = true;
+                }
+                int[][] shortcuts = new int[round.length][];
+                IntStream.range(0, round.length).parallel()
+                        .forEach(i -> shortcuts[i] = shortcuts(round[i], witnesses.get()));
+
+                Set<Integer> neighbors = new TreeSet<>();
+                for (int i = 0; i < round.length; i++) {
+                    int v = round[i];
+                    arcs.rank[v] = next++;
+                    contracted[v] = true;
+                    contracting[v] = false;
+                    for (int k = 0; k < shortcuts[i].length; k += 2) {
+                        addShortcut(shortcuts[i][k], shortcuts[i][k + 1]);
+                    }
+                    for (int k = 0; k < outSize[v]; k++) {
+                        neighbors.add(arcs.head[out[v][k]]);
+                    }
+                    for (int k = 0; k < inSize[v]; k++) {
+                        neighbors.add(arcs.tail[in[v][k]]);
+                    }
+                }
+                int[] changed = neighbors.stream().mapToInt(Integer::intValue).filter(x -> !contracted[x]).toArray();
+                for (int x : changed) {
+                    for (int k = 0; k < outSize[x]; k++) {
+                        deleted[x] += contracted[arcs.head[out[x][k]]] ? 1 : 0;
+                    }
+                    for (int k = 0; k < inSize[x]; k++) {
+                        deleted[x] += contracted[arcs.tail[in[x][k]]] ? 1 : 0;
+                    }
+                    outSize[x] = compact(out[x], outSize[x], true);
+                    inSize[x] = compact(in[x], inSize[x], false);
+                }
+                IntStream.of(changed).parallel().forEach(this::prioritize);
+                remaining = IntStream.of(remaining).filter(v -> !contracted[v]).toArray();
+            }
+            return arcs;
+        }
+
+        /**
+         * Computes how late a node should be contracted.
+         *
+         * @param v the node
+         */
+        private void prioritize(int v) {
+            int added = shortcuts(v, witnesses.get()).length / 2;
+            priority[v] = added - outSize[v] - inSize[v] + deleted[v];
+        }
+
+        /**
+         * Returns whether a node is ordered before all of its neighbors not yet contracted,
+         * by priority and then by id.
+         *
+         * @param v the node
+         * @return true iff v goes before each of its neighbors
+         */
+        private boolean isLocalMinimum(int v) {
+            for (int k = 0; k < outSize[v]; k++) {
+                if (before(arcs.head[out[v][k]], v)) {
+                    return false;
+                }
+            }
+            for (int k = 0; k < inSize[v]; k++) {
+                if (before(arcs.tail[in[v][k]], v)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Returns whether a node not yet contracted goes before another.
+         *
+         * @param x a node
+         * @param v another node
+         * @return true iff x is not contracted and goes before v
+         */
+        private boolean before(int x, int v) {
+            return !contracted[x] && (priority[x] < priority[v] || (priority[x] == priority[v] && x < v));
+        }
+
+        /**
+         * Finds the shortcuts contracting a node needs: one for each neighbor before it and
+         * neighbor after it whose only shortest path, among the nodes not contracted and not
+         * being contracted, goes through it.
+         *
+         * @param v the node
+         * @param witness the search state to use
+         * @return the arc into v and the arc out of v of each shortcut, one pair after
+         * another
+         */
+        private int[] shortcuts(int v, Witness witness) {
+            int[] found = new int[8];
+            int size = 0;
+            for (int i = 0; i < inSize[v]; i++) {
+                int a = in[v][i];
+                int u = arcs.tail[a];
+                if (contracted[u]) {
+                    continue;
+                }
+                double limit = -1;
+                for (int k = 0; k < outSize[v]; k++) {
+                    int w = arcs.head[out[v][k]];
+                    if (w != u && !contracted[w]) {
+                        limit = Math.max(limit, arcs.weight[a] + arcs.weight[out[v][k]]);
+                    }
+                }
+                if (limit < 0) {
+                    continue;
+                }
+                witness.search(u, v, limit);
+                for (int k = 0; k < outSize[v]; k++) {
+                    int b = out[v][k];
+                    int w = arcs.head[b];
+                    if (w != u && !contracted[w] && witness.distance[w] > arcs.weight[a] + arcs.weight[b]) {
+                        if (size == found.length) {
+                            found = Arrays.copyOf(found, 2 * size);
+                        }
+                        found[size++] = a;
+                        found[size++] = b;
+                    }
+                }
+                witness.reset();
+            }
+            return Arrays.copyOf(found, size);
+        }
+
+        /**
+         * Adds the shortcut for an arc into a node followed by an arc out of it, unless an
+         * arc between its ends is already as short. A longer arc between them is superseded.
+         *
+         * @param a the arc into the node
+         * @param b the arc out of the node
+         */
+        private void addShortcut(int a, int b) {
+            int u = arcs.tail[a];
+            int w = arcs.head[b];
+            double length = arcs.weight[a] + arcs.weight[b];
+            for (int k = 0; k < outSize[u]; k++) {
+                int old = out[u][k];
+                if (arcs.head[old] == w) {
+                    if (arcs.weight[old] <= length) {
+                        return;
+                    }
+                    int c = arcs.add(u, w, length, -1, a, b);
+                    arcs.superseded[old] = true;
+                    out[u][k] = c;
+                    for (int j = 0; j < inSize[w]; j++) {
+                        if (in[w][j] == old) {
+                            in[w][j] = c;
+                        }
+                    }
+                    return;
+                }
+            }
+            int c = arcs.add(u, w, length, -1, a, b);
+            outSize[u] = append(out, outSize, u, c);
+            inSize[w] = append(in, inSize, w, c);
+        }
+
+        /**
+         * Removes the arcs to or from contracted nodes from a list.
+         *
+         * @param list the arcs
+         * @param size the number of arcs in list
+         * @param outward whether the arcs leave the node, rather than lead to it
+         * @return the number of arcs left, which are now at the start of list
+         */
+        private int compact(int[] list, int size, boolean outward) {
+            int kept = 0;
+            for (int k = 0; k < size; k++) {
+                int a = list[k];
+                if (!contracted[outward ? arcs.head[a] : arcs.tail[a]]) {
+                    list[kept++] = a;
+                }
+            }
+            return kept;
+        }
+
+        /**
+         * Appends an arc to the list of a node, growing the list if it is full.
+         *
+         * @param lists the lists of every node
+         * @param sizes the number of arcs in each list
+         * @param v the node
+         * @param a the arc
+         * @return the new number of arcs in the list of v
+         */
+        private static int append(int[][] lists, int[] sizes, int v, int a) {
+            if (sizes[v] == lists[v].length) {
+                lists[v] = Arrays.copyOf(lists[v], 2 * sizes[v]);
+            }
+            lists[v][sizes[v]] = a;
+            return sizes[v] + 1;
+        }
+
+        /**
+         * <b>Witness</b> is the state of the searches of one thread for paths that make a
+         * shortcut unnecessary.
+         */
+        private final class Witness {
+            /**
+             * distance[v] = the length of the shortest path found to v, or infinity.
+             */
+            final double[] distance;
+
+            /**
+             * The queue of the search.
+             */
+            private final IndexedHeap queue;
+
+            /**
+             * The nodes reached, to clear after the search.
+             */
+            private int[] touched = new int[16];
+
+            /**
+             * The number of nodes in touched.
+             */
+            private int size;
+
+            /**
+             * Creates the state for searches of n nodes.
+             *
+             * @param n the number of nodes
+             */
+            Witness(int n) {
+                distance = new double[n];
+                Arrays.fill(distance, Double.POSITIVE_INFINITY);
+                queue = new IndexedHeap(n);
+            }
+
+            /**
+             * Searches from a node for paths no longer than limit that avoid a node, the
+             * nodes contracted, and the nodes being contracted, settling at most
+             * WITNESS_LIMIT nodes.
+             *
+             * @param source the node to search from
+             * @param avoid the node to avoid
+             * @param limit the longest path of interest
+             */
+            void search(int source, int avoid, double limit) {
+                reach(source, 0);
+                int settled = 0;
+                while (!queue.isEmpty() && settled++ < WITNESS_LIMIT) {
+                    int u = queue.poll();
+                    if (distance[u] > limit) {
+                        break;
+                    }
+                    for (int k = 0; k < outSize[u]; k++) {
+                        int a = out[u][k];
+                        int w = arcs.head[a];
+                        if (w == avoid || contracted[w] || contracting[w]) {
+                            continue;
+                        }
+                        double reached = distance[u] + arcs.weight[a];
+                        if (reached < distance[w]) {
+                            reach(w, reached);
+                        }
+                    }
+                }
+                queue.clear();
+            }
+
+            /**
+             * Records a shorter path to a node.
+             *
+             * @param v the node
+             * @param length the length of the path
+             */
+            private void reach(int v, double length) {
+                if (distance[v] == Double.POSITIVE_INFINITY) {
+                    if (size == touched.length) {
+                        touched = Arrays.copyOf(touched, 2 * size);
+                    }
+                    touched[size++] = v;
+                }
+                distance[v] = length;
+                queue.offer(v, length);
+            }
+
+            /**
+             * Forgets every node reached.
+             */
+            void reset() {
+                for (int i = 0; i < size; i++) {
+                    distance[touched[i]] = Double.POSITIVE_INFINITY;
+                }
+                size = 0;
+            }
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package pathfinder.datastructures;
 
 import graph.Graph;
+import graph.IndexedGraph;
+import graph.IndexedHeap;
 
 import java.util.*;
+import java.util.function.ToDoubleFunction;
 
 public class ShortestPath {
 
@@ -68,4 +71,328 @@ public class ShortestPath {
         return new Path<>(start);
     }
 
+    /**
+     * Finds the shortest paths from start to each of ends with a single run of dijkstra's
+     * algorithm, which goes on until every end has been reached. Each path is the one
+     * {@link #dijkstra(Graph, Object, Object)} finds for the same start and end.
+     *
+     * @param g the graph to search
+     * @param start the node to search from
+     * @param ends the nodes to find paths to
+     * @param <T> the node data type
+     * @return the shortest path from start to ends.get(i) at index i, or an empty path from
+     * start if that end cannot be reached
+     * @spec.requires start and ends in graph
+     * @spec.requires no argument is null and no element of ends is null
+     */
+    public static <T> List<Path<T>> dijkstraAll(Graph<T, Double> g, T start, List<T> ends) {
+        Map<T, Path<T>> found = new HashMap<>();
+        Set<T> remaining = new HashSet<>(ends);
+        PriorityQueue<Path<T>> visited = new PriorityQueue<>();
+        HashSet<T> explored = new HashSet<>();
+
+        visited.add(new Path<>(start));
+
+        while (!visited.isEmpty() && !remaining.isEmpty()) {
+            Path<T> minPath = visited.remove();
+            T curr = minPath.getEnd();
+
+            // The first path to reach a node is the one dijkstra returns for it
+            if (remaining.remove(curr)) {
+                found.put(curr, minPath);
+            }
+            if (explored.contains(curr)) {
+                continue;
+            }
+
+            for (Graph.Edge<Double> edge : g.getEdges(curr)) {
+                Set<T> children = new HashSet<>(g.getNodeLabels(edge));
+                for (T child : children) {
+                    if (!explored.contains(child) && !child.equals(curr)) {
+                        visited.add(minPath.extend(child, edge.getLabel()));
+                    }
+                }
+            }
+            explored.add(curr);
+        }
+
+        List<Path<T>> paths = new ArrayList<>(ends.size());
+        for (T end : ends) {
+            paths.add(found.getOrDefault(end, new Path<>(start)));
+        }
+        return paths;
+    }
+
+    /**
+     * Finds the shortest path between start and end using dijkstra's algorithm over the int
+     * ids of an indexed graph. Each node is in the queue at most once, and reaching it by a
+     * shorter path lowers its key in place, so the queue never holds more than one entry per
+     * node and no path is built until end is reached. Returns the same path as
+     * {@link #dijkstra(Graph, Object, Object)} on the graph g was indexed from, whenever the
+     * shortest path is the only one of its cost.
+     *
+     * @param g the graph to search
+     * @param start the node to search from
+     * @param end the node to find a path to
+     * @param <T> the node data type
+     * @return the shortest path between start and end, or an empty path from start if there
+     * is none
+     * @spec.requires start in graph
+     * @spec.requires end in graph
+     * @spec.requires no argument is null and no edge label is negative
+     */
+    public static <T> Path<T> dijkstra(IndexedGraph<T, Double> g, T start, T end) {
+        return dijkstraAll(g, start, Collections.singletonList(end)).get(0);
+    }
+
+    /**
+     * Finds the shortest paths from start to each of ends with a single run of
+     * {@link #dijkstra(IndexedGraph, Object, Object)}, which goes on until every end has been
+     * reached.
+     *
+     * @param g the graph to search
+     * @param start the node to search from
+     * @param ends the nodes to find paths to
+     * @param <T> the node data type
+     * @return the shortest path from start to ends.get(i) at index i, or an empty path from
+     * start if that end cannot be reached
+     * @spec.requires start and ends in graph
+     * @spec.requires no argument is null, no element of ends is null, and no edge label is
+     * negative
+     */
+    public static <T> List<Path<T>> dijkstraAll(IndexedGraph<T, Double> g, T start, List<T> ends) {
+        int n = g.nodeCount();
+        int s = g.nodeId(start);
+        int[] targets = new int[ends.size()];
+        boolean[] wanted = new boolean[n];
+        int remaining = 0;
+        for (int i = 0; i < targets.length; i++) {
+            targets[i] = g.nodeId(ends.get(i));
+            if (targets[i] >= 0 && !wanted[targets[i]]) {
+                wanted[targets[i]] = true;
+                remaining++;
+            }
+        }
+
+        double[] distance = new double[n];
+        Arrays.fill(distance, Double.POSITIVE_INFINITY);
+        int[] previous = new int[n];
+        int[] previousEdge = new int[n];
+        boolean[] settled = new boolean[n];
+        if (s >= 0) {
+            IndexedHeap queue = new IndexedHeap(n);
+            distance[s] = 0;
+            previous[s] = -1;
+            queue.offer(s, 0);
+            while (!queue.isEmpty() && remaining > 0) {
+                int u = queue.poll();
+                settled[u] = true;
+                if (wanted[u]) {
+                    remaining--;
+                }
+                for (int k = 0; k < g.outDegree(u); k++) {
+                    int e = g.outEdge(u, k);
+                    double reached = distance[u] + g.edgeLabel(e);
+                    for (int j = 0; j < g.headCount(e); j++) {
+                        int v = g.head(e, j);
+                        // Only a strictly shorter path replaces the one found first
+                        if (!settled[v] && reached < distance[v]) {
+                            distance[v] = reached;
+                            previous[v] = u;
+                            previousEdge[v] = e;
+                            queue.offer(v, reached);
+                        }
+                    }
+                }
+            }
+        }
+
+        List<Path<T>> paths = new ArrayList<>(ends.size());
+        for (int t : targets) {
+            paths.add(t >= 0 && settled[t] ? walkBack(g, start, previous, previousEdge, t) : new Path<>(start));
+        }
+        return paths;
+    }
+
+    /**
+     * Finds the shortest path between start and end using A* search: dijkstra's algorithm
+     * with each node queued by its distance from start plus an estimate of its distance to
+     * end, so that the search heads towards end instead of spreading out evenly in every
+     * direction. With a heuristic that always returns 0 this is
+     * {@link #dijkstra(IndexedGraph, Object, Object)}, and the closer the heuristic is to the
+     * true distances the fewer nodes are expanded.
+     *
+     * <p>The heuristic must never overestimate, and must be consistent: for every edge from
+     * u to v, heuristic(u) &lt;= the edge label + heuristic(v). A straight line distance is,
+     * when no edge is shorter than the straight line between its ends. Otherwise the path
+     * returned may not be shortest.
+     *
+     * @param g the graph to search
+     * @param start the node to search from
+     * @param end the node to find a path to
+     * @param heuristic an estimate of the distance from a node to end
+     * @param <T> the node data type
+     * @return the shortest path between start and end, or an empty path from start if there
+     * is none
+     * @spec.requires start in graph
+     * @spec.requires end in graph
+     * @spec.requires no argument is null, no edge label is negative, and heuristic is
+     * consistent and never negative
+     */
+    public static <T> Path<T> aStar(IndexedGraph<T, Double> g, T start, T end,
+                                    ToDoubleFunction<? super T> heuristic) {
+        int n = g.nodeCount();
+        int s = g.nodeId(start);
+        int t = g.nodeId(end);
+        if (s < 0 || t < 0) {
+            return new Path<>(start);
+        }
+        double[] distance = new double[n];
+        Arrays.fill(distance, Double.POSITIVE_INFINITY);
+        // The heuristic of each node, asked for once the node is first reached
+        double[] estimate = new double[n];
+        Arrays.fill(estimate, Double.NaN);
+        int[] previous = new int[n];
+        int[] previousEdge = new int[n];
+        boolean[] settled = new boolean[n];
+
+        IndexedHeap queue = new IndexedHeap(n);
+        distance[s] = 0;
+        previous[s] = -1;
+        queue.offer(s, heuristic.applyAsDouble(start));
+        while (!queue.isEmpty()) {
+            int u = queue.poll();
+            if (u == t) {
+                return walkBack(g, start, previous, previousEdge, t);
+            }
+            settled[u] = true;
+            for (int k = 0; k < g.outDegree(u); k++) {
+                int e = g.outEdge(u, k);
+                double reached = distance[u] + g.edgeLabel(e);
+                for (int j = 0; j < g.headCount(e); j++) {
+                    int v = g.head(e, j);
+                    if (!settled[v] && reached < distance[v]) {
+                        if (Double.isNaN(estimate[v])) {
+                            estimate[v] = heuristic.applyAsDouble(g.nodeLabel(v));
+                        }
+                        distance[v] = reached;
+                        previous[v] = u;
+                        previousEdge[v] = e;
+                        queue.offer(v, reached + estimate[v]);
+                    }
+                }
+            }
+        }
+        return new Path<>(start);
+    }
+
+    /**
+     * Finds the shortest path between start and end using bidirectional dijkstra: one search
+     * forward from start along edges and one backward from end against them, each step
+     * taken by whichever search is nearer its own end. Every time a search reaches a node the
+     * other has reached, the two partial paths through it are a path from start to end, and
+     * the searches stop once the nearest nodes left in their queues are together no nearer
+     * than the shortest such path. Each search only has to get about halfway, so far fewer
+     * nodes are settled than by one search spreading out from start until it reaches end.
+     *
+     * @param g the graph to search
+     * @param start the node to search from
+     * @param end the node to find a path to
+     * @param <T> the node data type
+     * @return the shortest path between start and end, or an empty path from start if there
+     * is none
+     * @spec.requires start in graph
+     * @spec.requires end in graph
+     * @spec.requires no argument is null and no edge label is negative
+     */
+    public static <T> Path<T> dijkstraBidirectional(IndexedGraph<T, Double> g, T start, T end) {
+        int n = g.nodeCount();
+        int s = g.nodeId(start);
+        int t = g.nodeId(end);
+        if (s < 0 || t < 0) {
+            return new Path<>(start);
+        }
+        // Index 0 is the forward search from s, index 1 the backward search from t
+        double[][] distance = new double[2][n];
+        int[][] previous = new int[2][n];
+        int[][] previousEdge = new int[2][n];
+        boolean[][] settled = new boolean[2][n];
+        IndexedHeap[] queues = {new IndexedHeap(n), new IndexedHeap(n)};
+        int[] origin = {s, t};
+        for (int side = 0; side < 2; side++) {
+            Arrays.fill(distance[side], Double.POSITIVE_INFINITY);
+            distance[side][origin[side]] = 0;
+            previous[side][origin[side]] = -1;
+            queues[side].offer(origin[side], 0);
+        }
+        double best = s == t ? 0 : Double.POSITIVE_INFINITY;
+        int meet = s == t ? s : -1;
+
+        while (!queues[0].isEmpty() && !queues[1].isEmpty()) {
+            double forward = queues[0].key(queues[0].peek());
+            double backward = queues[1].key(queues[1].peek());
+            // No path through an unsettled node can be shorter than the best one found
+            if (forward + backward >= best) {
+                break;
+            }
+            int side = forward <= backward ? 0 : 1;
+            int other = 1 - side;
+            int u = queues[side].poll();
+            settled[side][u] = true;
+            int degree = side == 0 ? g.outDegree(u) : g.inDegree(u);
+            for (int k = 0; k < degree; k++) {
+                int e = side == 0 ? g.outEdge(u, k) : g.inEdge(u, k);
+                double reached = distance[side][u] + g.edgeLabel(e);
+                int ends = side == 0 ? g.headCount(e) : g.tailCount(e);
+                for (int j = 0; j < ends; j++) {
+                    int v = side == 0 ? g.head(e, j) : g.tail(e, j);
+                    if (settled[side][v] || reached >= distance[side][v]) {
+                        continue;
+                    }
+                    distance[side][v] = reached;
+                    previous[side][v] = u;
+                    previousEdge[side][v] = e;
+                    queues[side].offer(v, reached);
+                    if (reached + distance[other][v] < best) {
+                        best = reached + distance[other][v];
+                        meet = v;
+                    }
+                }
+            }
+        }
+        if (meet < 0) {
+            return new Path<>(start);
+        }
+
+        Path<T> path = walkBack(g, start, previous[0], previousEdge[0], meet);
+        for (int v = meet; previous[1][v] >= 0; v = previous[1][v]) {
+            path = path.extend(g.nodeLabel(previous[1][v]), g.edgeLabel(previousEdge[1][v]));
+        }
+        return path;
+    }
+
+    /**
+     * Builds the path a search found to a node by following predecessors back to the start.
+     *
+     * @param g the graph searched
+     * @param start the node the search started from
+     * @param previous the node before each node on its shortest path, or -1 for the start
+     * @param previousEdge the edge taken to each node on its shortest path
+     * @param end the id of the node the path ends at
+     * @param <T> the node data type
+     * @return the path from start to end
+     */
+    private static <T> Path<T> walkBack(IndexedGraph<T, Double> g, T start, int[] previous,
+                                        int[] previousEdge, int end) {
+        List<Integer> steps = new ArrayList<>();
+        for (int v = end; previous[v] >= 0; v = previous[v]) {
+            steps.add(v);
+        }
+        Path<T> path = new Path<>(start);
+        for (int i = steps.size() - 1; i >= 0; i--) {
+            int v = steps.get(i);
+            path = path.extend(g.nodeLabel(v), g.edgeLabel(previousEdge[v]));
+        }
+        return path;
+    }
 }
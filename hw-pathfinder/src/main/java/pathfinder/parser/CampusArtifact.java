@@ -0,0 +1,198 @@
+package pathfinder.parser;
+
+import graph.io.ArtifactFiles;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This represents an immutable prebuilt form of campus_buildings.tsv and campus_paths.tsv, so
+ * that the campus map can be built without parsing text. The build makes data/campus.graph
+ * in the resources, holding every building and path as binary numbers and length prefixed
+ * names, and {@link pathfinder.CampusMap} loads it instead of the two files when it is there.
+ *
+ * <p>It records the length and checksum of the files it was made from with
+ * {@link ArtifactFiles#writeSources}, and is only used while the files it can find on the
+ * filesystem still match.
+ */
+public final class CampusArtifact {
+
+    /**
+     * The name of the campus artifact in the resources/data folder.
+     */
+    public static final String NAME = "campus.graph";
+
+    /**
+     * The first four bytes of a campus artifact, "CMPA".
+     */
+    private static final int MAGIC = 0x434d5041;
+
+    /**
+     * The version of the format written.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The buildings, in file order.
+     */
+    private final List<CampusBuilding> buildings;
+
+    /**
+     * The paths, in file order.
+     */
+    private final List<CampusPath> paths;
+
+    /**
+     * Creates an artifact of the given buildings and paths.
+     *
+     * @param buildings The buildings, in file order.
+     * @param paths     The paths, in file order.
+     */
+    public CampusArtifact(List<CampusBuilding> buildings, List<CampusPath> paths) {
+        this.buildings = Collections.unmodifiableList(new ArrayList<>(buildings));
+        this.paths = Collections.unmodifiableList(new ArrayList<>(paths));
+    }
+
+    /**
+     * @return The buildings of this artifact, in the order of campus_buildings.tsv.
+     */
+    public List<CampusBuilding> getBuildings() {
+        return buildings;
+    }
+
+    /**
+     * @return The paths of this artifact, in the order of campus_paths.tsv.
+     */
+    public List<CampusPath> getPaths() {
+        return paths;
+    }
+
+    /**
+     * Loads the artifact in the resources/data folder.
+     *
+     * @return The buildings and paths saved in data/campus.graph, or null if there is no
+     * artifact, or it is out of date, or it cannot be read.
+     */
+    public static CampusArtifact loadResource() {
+        ByteBuffer buffer = ArtifactFiles.readResource(CampusArtifact.class, NAME);
+        if (buffer == null) {
+            return null;
+        }
+        try {
+            return read(buffer, true);
+        } catch (IllegalArgumentException e) {
+            return null; // a damaged artifact is ignored like a stale one
+        }
+    }
+
+    /**
+     * Loads an artifact anywhere on the filesystem, without checking it is up to date.
+     *
+     * @param file The artifact to load.
+     * @return The buildings and paths saved in file.
+     * @throws UncheckedIOException if file cannot be read
+     * @throws IllegalArgumentException if file does not hold a campus artifact
+     */
+    public static CampusArtifact load(Path file) {
+        try {
+            return read(ByteBuffer.wrap(Files.readAllBytes(file)), false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Parses a campus buildings file and a campus paths file, and saves them as an artifact.
+     *
+     * @param buildingsFile The campus buildings file to parse.
+     * @param pathsFile     The campus paths file to parse.
+     * @param file          Where to save the artifact.
+     * @throws CampusPathsParser.ParserException if a file cannot be parsed as expected
+     * @throws UncheckedIOException if a file cannot be read or the artifact cannot be written
+     */
+    public static void save(Path buildingsFile, Path pathsFile, Path file) {
+        List<CampusBuilding> buildings = CampusPathsParser.parseCampusBuildings(buildingsFile);
+        List<CampusPath> paths = CampusPathsParser.parseCampusPaths(pathsFile);
+        ArtifactFiles.write(file, out -> {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            ArtifactFiles.writeSources(out, buildingsFile, pathsFile);
+            out.writeInt(buildings.size());
+            for (CampusBuilding b : buildings) {
+                ArtifactFiles.writeString(out, b.getShortName());
+                ArtifactFiles.writeString(out, b.getLongName());
+                out.writeDouble(b.getX());
+                out.writeDouble(b.getY());
+            }
+            out.writeInt(paths.size());
+            for (CampusPath p : paths) {
+                out.writeDouble(p.getX1());
+                out.writeDouble(p.getY1());
+                out.writeDouble(p.getX2());
+                out.writeDouble(p.getY2());
+                out.writeDouble(p.getDistance());
+            }
+        });
+    }
+
+    /**
+     * Reads a campus artifact.
+     *
+     * @param buffer       The artifact.
+     * @param checkSources Whether to check the files it was made from have not changed.
+     * @return The buildings and paths saved in buffer, or null if checkSources and a file
+     * it was made from has changed.
+     * @throws IllegalArgumentException if buffer does not hold a campus artifact
+     */
+    private static CampusArtifact read(ByteBuffer buffer, boolean checkSources) {
+        try {
+            if (buffer.remaining() < 8 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IllegalArgumentException("not a campus artifact");
+            }
+            if (!checkSources) {
+                ArtifactFiles.skipSources(buffer);
+            } else if (!ArtifactFiles.readSources(CampusArtifact.class, buffer)) {
+                return null;
+            }
+            int buildingCount = buffer.getInt();
+            List<CampusBuilding> buildings = new ArrayList<>(buildingCount);
+            for (int i = 0; i < buildingCount; i++) {
+                String shortName = ArtifactFiles.readString(buffer);
+                String longName = ArtifactFiles.readString(buffer);
+                buildings.add(new CampusBuilding(shortName, longName, buffer.getDouble(), buffer.getDouble()));
+            }
+            int pathCount = buffer.getInt();
+            List<CampusPath> paths = new ArrayList<>(pathCount);
+            for (int i = 0; i < pathCount; i++) {
+                paths.add(new CampusPath(buffer.getDouble(), buffer.getDouble(), buffer.getDouble(),
+                        buffer.getDouble(), buffer.getDouble()));
+            }
+            return new CampusArtifact(buildings, paths);
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            throw new IllegalArgumentException("campus artifact is truncated", e);
+        }
+    }
+
+    /**
+     * Makes the campus artifact. The build runs this to make data/campus.graph in the
+     * resources.
+     *
+     * @param args The campus buildings file, the campus paths file, and where to save the
+     *             artifact.
+     * @throws IllegalArgumentException if args does not hold three paths
+     */
+    public static void main(String[] args) {
+        if (args.length != 3) {
+            throw new IllegalArgumentException("usage: CampusArtifact BUILDINGS PATHS ARTIFACT");
+        }
+        save(Paths.get(args[0]), Paths.get(args[1]), Paths.get(args[2]));
+    }
+}
@@ -15,15 +15,19 @@ import com.opencsv.CSVParser;
 import com.opencsv.CSVParserBuilder;
 import com.opencsv.CSVReader;
 import com.opencsv.CSVReaderBuilder;
+import graph.io.ChunkedTsv;
+import graph.io.TsvScanner;
 
 import java.io.*;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Function;
 
 /**
  * A utility class capable of parsing data in campus buildings and
@@ -108,6 +112,94 @@ public class CampusPathsParser {
         return paths;
     }
 
+    /**
+     * Parses a campus buildings file anywhere on the filesystem, splitting it into
+     * ranges of lines that are parsed on all cores.
+     *
+     * @param file The path of a campus buildings file to parse.
+     * @return A {@link List} of {@link CampusBuilding} objects, one for each
+     * line after the header of the parsed file, in file order.
+     * @throws ParserException if the file cannot be read or parsed as expected
+     */
+    public static List<CampusBuilding> parseCampusBuildings(Path file) {
+        return parseChunked(file, scanner -> {
+            List<CampusBuilding> buildings = new ArrayList<>();
+            while(scanner.next()) {
+                if(scanner.fieldCount() != 4) {
+                    throw new ParserException("Wrong number of fields in line.");
+                }
+                double x, y;
+                try {
+                    x = Double.parseDouble(scanner.field(2));
+                    y = Double.parseDouble(scanner.field(3));
+                } catch(NumberFormatException e) {
+                    throw new ParserException("Cannot parse x/y coordinates as numbers.", e);
+                }
+                buildings.add(new CampusBuilding(scanner.field(0), scanner.field(1), x, y));
+            }
+            return buildings;
+        });
+    }
+
+    /**
+     * Parses a campus paths file anywhere on the filesystem, splitting it into
+     * ranges of lines that are parsed on all cores.
+     *
+     * @param file The path of a campus paths file to parse.
+     * @return A {@link List} of {@link CampusPath} objects, one for each
+     * line after the header of the parsed file, in file order.
+     * @throws ParserException if the file cannot be read or parsed as expected
+     */
+    public static List<CampusPath> parseCampusPaths(Path file) {
+        return parseChunked(file, scanner -> {
+            List<CampusPath> paths = new ArrayList<>();
+            while(scanner.next()) {
+                if(scanner.fieldCount() != 5) {
+                    throw new ParserException("Wrong number of fields in line.");
+                }
+                double x1, x2, y1, y2, distance;
+                try {
+                    x1 = Double.parseDouble(scanner.field(0));
+                    y1 = Double.parseDouble(scanner.field(1));
+                    x2 = Double.parseDouble(scanner.field(2));
+                    y2 = Double.parseDouble(scanner.field(3));
+                    distance = Double.parseDouble(scanner.field(4));
+                } catch(NumberFormatException e) {
+                    throw new ParserException("Cannot parse x/y coordinates as numbers.", e);
+                }
+                paths.add(new CampusPath(x1, y1, x2, y2, distance));
+            }
+            return paths;
+        });
+    }
+
+    /**
+     * Parses the lines after the header of file in ranges on all cores, and joins
+     * the results of the ranges in file order.
+     *
+     * @param file The file to parse.
+     * @param parser Parses the lines of one range.
+     * @param <T> The type of object each line is parsed into.
+     * @return The objects parsed from every range, in file order.
+     * @throws ParserException if the file cannot be read or parsed as expected
+     */
+    private static <T> List<T> parseChunked(Path file, Function<TsvScanner, List<T>> parser) {
+        if(!Files.isRegularFile(file)) {
+            throw new ParserException("No such file: " + file);
+        }
+        List<List<T>> chunks;
+        try {
+            chunks = ChunkedTsv.parse(file, true, parser);
+        } catch(UncheckedIOException e) {
+            throw new ParserException("Cannot read file.", e.getCause());
+        }
+        List<T> result = new ArrayList<>();
+        for(List<T> chunk : chunks) {
+            result.addAll(chunk);
+        }
+        return result;
+    }
+
     /**
      * Initializes a CSV reader with the provided filename, relative to the
      * classpath of this parser class. The returned reader is configured
@@ -124,7 +216,7 @@ public class CampusPathsParser {
             if(stream == null) {
                 throw new FileNotFoundException("No such file: " + filename);
             }
-            fileReader = new BufferedReader(new InputStreamReader(stream));
+            fileReader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
         } catch(IOException e) {
             throw new ParserException("Cannot create parser.", e);
         }
@@ -0,0 +1,86 @@
+package pathfinder.junitTests;
+
+import graph.Graph;
+import graph.IndexedGraph;
+import pathfinder.datastructures.Point;
+import pathfinder.parser.CampusPath;
+import pathfinder.parser.CampusPathsParser;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.Random;
+
+/**
+ * Graphs and files shared by the pathfinder tests.
+ */
+public final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    /**
+     * Returns a file in the resources/data folder.
+     */
+    public static Path dataFile(String name) throws URISyntaxException {
+        return Paths.get(CampusPathsParser.class.getResource("/data/" + name).toURI());
+    }
+
+    /**
+     * Creates an empty temporary file that is deleted when the tests finish.
+     */
+    public static Path tempFile(String prefix, String suffix) throws IOException {
+        Path file = Files.createTempFile(prefix, suffix);
+        file.toFile().deleteOnExit();
+        return file;
+    }
+
+    /**
+     * Builds the graph of the paths in campus_paths.tsv, as CampusMap does, without the
+     * buildings.
+     */
+    public static Graph<Point, Double> campusGraph() {
+        Graph<Point, Double> g = new Graph<>();
+        for (CampusPath cp : CampusPathsParser.parseCampusPaths("campus_paths.tsv")) {
+            Point src = new Point(cp.getX1(), cp.getY1());
+            Point dst = new Point(cp.getX2(), cp.getY2());
+            g.addNode(src);
+            g.addNode(dst);
+            g.addEdge(src, dst, cp.getDistance(), true);
+        }
+        return g;
+    }
+
+    /**
+     * Indexes a campus graph as CampusMap does, with the points in order of x and then y.
+     */
+    public static IndexedGraph<Point, Double> indexCampus(Graph<Point, Double> g) {
+        return new IndexedGraph<>(g,
+                Comparator.comparingDouble(Point::getX).thenComparingDouble(Point::getY),
+                Comparator.naturalOrder());
+    }
+
+    /**
+     * Builds a graph of 80 nodes and 200 random edges among the first 70, each one way or
+     * both ways, whose shortest paths are almost surely unique.
+     */
+    public static Graph<Integer, Double> randomGraph(Random random) {
+        Graph<Integer, Double> g = new Graph<>();
+        for (int i = 0; i < 80; i++) {
+            g.addNode(i);
+        }
+        for (int i = 0; i < 200; i++) {
+            int a = random.nextInt(70);
+            int b = random.nextInt(70);
+            if (random.nextBoolean()) {
+                g.addBiEdge(a, b, random.nextDouble() * 10, true);
+            } else {
+                g.addEdge(a, b, random.nextDouble() * 10, true);
+            }
+        }
+        return g;
+    }
+}
@@ -0,0 +1,60 @@
+package pathfinder.junitTests;
+
+import graph.PathBatch;
+import org.junit.Test;
+import pathfinder.CampusMap;
+import pathfinder.datastructures.Path;
+import pathfinder.datastructures.Point;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestCampusMap {
+
+    /**
+     * Test the A* search of findShortestPath finds the paths the dijkstra search of
+     * findShortestPaths does, for pairs of buildings all over campus
+     */
+    @Test
+    public void testFindShortestPathMatchesDijkstra() {
+        CampusMap map = new CampusMap();
+        List<String> buildings = new ArrayList<>(map.buildingNames().keySet());
+        buildings.sort(null);
+        List<PathBatch.Query<String>> queries = new ArrayList<>();
+        for (int i = 0; i < buildings.size(); i++) {
+            queries.add(new PathBatch.Query<>(buildings.get(i), buildings.get((i * 7 + 3) % buildings.size())));
+        }
+        List<Path<Point>> expected = map.findShortestPaths(queries);
+        for (int i = 0; i < queries.size(); i++) {
+            Path<Point> path = map.findShortestPath(queries.get(i).getStart(), queries.get(i).getEnd());
+            assertEquals(expected.get(i), path);
+            assertEquals(expected.get(i).getCost(), path.getCost(), 0);
+        }
+    }
+
+    /**
+     * Test a map that finds paths with a contraction hierarchy finds paths as short as a
+     * map that searches the whole graph, one at a time and in batches
+     */
+    @Test
+    public void testContractedMatchesSearch() {
+        CampusMap map = new CampusMap();
+        CampusMap contracted = new CampusMap(true);
+        List<String> buildings = new ArrayList<>(map.buildingNames().keySet());
+        buildings.sort(null);
+        List<PathBatch.Query<String>> queries = new ArrayList<>();
+        for (int i = 0; i < buildings.size(); i++) {
+            queries.add(new PathBatch.Query<>(buildings.get(i), buildings.get((i * 5 + 1) % buildings.size())));
+        }
+        List<Path<Point>> batch = contracted.findShortestPaths(queries);
+        for (int i = 0; i < queries.size(); i++) {
+            String start = queries.get(i).getStart();
+            String end = queries.get(i).getEnd();
+            double expected = map.findShortestPath(start, end).getCost();
+            assertEquals(expected, contracted.findShortestPath(start, end).getCost(), 1e-9);
+            assertEquals(expected, batch.get(i).getCost(), 1e-9);
+        }
+    }
+}
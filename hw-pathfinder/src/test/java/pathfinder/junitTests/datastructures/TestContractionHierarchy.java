@@ -0,0 +1,180 @@
+package pathfinder.junitTests.datastructures;
+
+import graph.Graph;
+import graph.IndexedGraph;
+import org.junit.Assert;
+import org.junit.Test;
+import pathfinder.datastructures.ContractionHierarchy;
+import pathfinder.datastructures.Path;
+import pathfinder.datastructures.Point;
+import pathfinder.datastructures.ShortestPath;
+import pathfinder.junitTests.Fixtures;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.*;
+
+public class TestContractionHierarchy {
+
+    private static IndexedGraph<Point, Double> campus() {
+        return Fixtures.indexCampus(Fixtures.campusGraph());
+    }
+
+    private static IndexedGraph<Integer, Double> randomGraph(Random random) {
+        return IndexedGraph.of(Fixtures.randomGraph(random));
+    }
+
+    /**
+     * Test basic hierarchy query, through one way edges, parallel edges and a self loop
+     */
+    @Test
+    public void testBasicQuery() {
+        Graph<String, Double> g = new Graph<>();
+        g.addNode("a");
+        g.addNode("b");
+        g.addNode("c");
+        g.addNode("d");
+        g.addNode("e");
+        g.addEdge("a", "b", 1d, true);
+        g.addEdge("a", "b", 3d, true);
+        g.addEdge("b", "b", 1d, true);
+        g.addEdge("b", "c", 1d, true);
+        g.addEdge("c", "d", 1d, true);
+        g.addEdge("a", "d", 5d, true);
+        g.addEdge("e", "a", 1d, true);
+        ContractionHierarchy<String> ch = new ContractionHierarchy<>(IndexedGraph.of(g));
+        Path<String> exp = new Path<>("a").extend("b", 1d).extend("c", 1d).extend("d", 1d);
+        Assert.assertEquals(exp, ch.shortestPath("a", "d"));
+        Assert.assertEquals(new Path<>("d"), ch.shortestPath("d", "a"));
+        Assert.assertEquals(new Path<>("a"), ch.shortestPath("a", "e"));
+        Assert.assertEquals(new Path<>("c"), ch.shortestPath("c", "c"));
+    }
+
+    /**
+     * Test the hierarchy finds the same paths as dijkstra on random graphs whose shortest
+     * paths are unique, including one way edges and unreachable nodes
+     */
+    @Test
+    public void testMatchesDijkstra() {
+        Random random = new Random(47);
+        for (int round = 0; round < 3; round++) {
+            IndexedGraph<Integer, Double> g = randomGraph(random);
+            ContractionHierarchy<Integer> ch = new ContractionHierarchy<>(g);
+            for (int start = 0; start < 80; start += 7) {
+                for (int end = 0; end < 80; end++) {
+                    Path<Integer> expected = ShortestPath.dijkstra(g, start, end);
+                    Path<Integer> actual = ch.shortestPath(start, end);
+                    Assert.assertEquals(expected, actual);
+                    Assert.assertEquals(expected.getCost(), actual.getCost(), 0);
+                }
+            }
+        }
+    }
+
+    /**
+     * Test the hierarchy finds the same paths as dijkstra on the campus map
+     */
+    @Test
+    public void testMatchesDijkstraCampus() {
+        IndexedGraph<Point, Double> g = campus();
+        ContractionHierarchy<Point> ch = new ContractionHierarchy<>(g);
+        Random random = new Random(47);
+        for (int i = 0; i < 200; i++) {
+            Point start = g.nodeLabel(random.nextInt(g.nodeCount()));
+            Point end = g.nodeLabel(random.nextInt(g.nodeCount()));
+            Path<Point> expected = ShortestPath.dijkstra(g, start, end);
+            Path<Point> actual = ch.shortestPath(start, end);
+            Assert.assertEquals(expected, actual);
+            Assert.assertEquals(expected.getCost(), actual.getCost(), 1e-9);
+        }
+    }
+
+    /**
+     * Test a saved hierarchy loads back for its graph and answers as the original does
+     */
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        java.nio.file.Path file = Fixtures.tempFile("campus", ".ch");
+        IndexedGraph<Point, Double> g = campus();
+        ContractionHierarchy<Point> ch = new ContractionHierarchy<>(g);
+        ch.save(file);
+        ContractionHierarchy<Point> loaded = ContractionHierarchy.load(g, file);
+        Assert.assertEquals(ch.shortcutCount(), loaded.shortcutCount());
+        Random random = new Random(48);
+        for (int i = 0; i < 50; i++) {
+            Point start = g.nodeLabel(random.nextInt(g.nodeCount()));
+            Point end = g.nodeLabel(random.nextInt(g.nodeCount()));
+            Assert.assertEquals(ch.shortestPath(start, end), loaded.shortestPath(start, end));
+        }
+        Assert.assertEquals(ch.shortcutCount(), ContractionHierarchy.cached(g, file).shortcutCount());
+    }
+
+    /**
+     * Test a hierarchy saved for one graph does not load for another, and is rebuilt by cached
+     */
+    @Test
+    public void testLoadOtherGraph() throws IOException {
+        java.nio.file.Path file = Fixtures.tempFile("random", ".ch");
+        Random random = new Random(49);
+        new ContractionHierarchy<>(randomGraph(random)).save(file);
+        IndexedGraph<Integer, Double> other = randomGraph(random);
+        try {
+            ContractionHierarchy.load(other, file);
+            Assert.fail("loaded the hierarchy of another graph");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        ContractionHierarchy<Integer> rebuilt = ContractionHierarchy.cached(other, file);
+        Assert.assertEquals(ShortestPath.dijkstra(other, 3, 40), rebuilt.shortestPath(3, 40));
+        Assert.assertEquals(rebuilt.shortcutCount(), ContractionHierarchy.load(other, file).shortcutCount());
+    }
+
+    /**
+     * Test a hierarchy whose ranks or arcs were damaged after its header does not load, and
+     * is rebuilt by cached
+     */
+    @Test
+    public void testLoadDamaged() throws IOException {
+        java.nio.file.Path file = Fixtures.tempFile("damaged", ".ch");
+        IndexedGraph<Integer, Double> g = randomGraph(new Random(50));
+        new ContractionHierarchy<>(g).save(file);
+        byte[] saved = Files.readAllBytes(file);
+        // the header is 24 bytes, then a rank per node, the arc count, and 29 bytes per arc
+        int arcs = 24 + 4 * g.nodeCount() + 4;
+        int shortcut = arcs;
+        while (ByteBuffer.wrap(saved).getInt(shortcut + 16) != -1) {
+            shortcut += 29;
+        }
+        int[][] damage = {
+                {24 + 4, ByteBuffer.wrap(saved).getInt(24)}, // a rank given twice
+                {arcs + 16, g.edgeCount() + 5}, // an edge not in the graph
+                {arcs + 20, 0}, // an edge that is also a shortcut
+                {shortcut + 20, -7}, // a shortcut for an arc that does not exist
+                {shortcut + 24, -1}, // a shortcut with one part
+        };
+        for (int[] d : damage) {
+            byte[] bytes = saved.clone();
+            ByteBuffer.wrap(bytes).putInt(d[0], d[1]);
+            Files.write(file, bytes);
+            try {
+                ContractionHierarchy.load(g, file);
+                Assert.fail("loaded a hierarchy damaged at byte " + d[0]);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+            Assert.assertEquals(ShortestPath.dijkstra(g, 3, 40), ContractionHierarchy.cached(g, file).shortestPath(3, 40));
+            ContractionHierarchy.load(g, file);
+        }
+    }
+
+    /**
+     * Test loading a file that does not hold a hierarchy
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testLoadTruncated() throws IOException {
+        java.nio.file.Path file = Fixtures.tempFile("truncated", ".ch");
+        Files.write(file, new byte[] {0x43, 0x48, 0x47});
+        ContractionHierarchy.load(campus(), file);
+    }
+}
@@ -1,10 +1,15 @@
 package pathfinder.junitTests.datastructures;
 
 import graph.Graph;
+import graph.IndexedGraph;
 import org.junit.Assert;
 import org.junit.Test;
 import pathfinder.datastructures.Path;
+import pathfinder.datastructures.Point;
 import pathfinder.datastructures.ShortestPath;
+import pathfinder.junitTests.Fixtures;
+
+import java.util.*;
 
 public class TestShortestPath {
     /**
@@ -107,4 +112,142 @@ public class TestShortestPath {
         Assert.assertEquals(expectedPath, actualPath);
     }
 
+    /**
+     * Test one search to many ends finds the paths dijkstra finds for each end
+     */
+    @Test
+    public void testDijkstraAllMatchesDijkstra() {
+        Random random = new Random(37);
+        Graph<Integer, Double> g = new Graph<>();
+        for (int i = 0; i < 60; i++) {
+            g.addNode(i);
+        }
+        for (int i = 0; i < 150; i++) {
+            g.addBiEdge(random.nextInt(60), random.nextInt(60), (double) (1 + random.nextInt(5)), true);
+        }
+        List<Integer> ends = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            ends.add(i);
+        }
+        ends.add(7);
+        for (int start = 0; start < 60; start += 6) {
+            List<Path<Integer>> paths = ShortestPath.dijkstraAll(g, start, ends);
+            Assert.assertEquals(ends.size(), paths.size());
+            for (int k = 0; k < ends.size(); k++) {
+                Assert.assertEquals(ShortestPath.dijkstra(g, start, ends.get(k)), paths.get(k));
+            }
+        }
+    }
+
+    /**
+     * Test the indexed dijkstra finds the same paths as dijkstra on random graphs whose
+     * shortest paths are unique, including one way edges and unreachable nodes
+     */
+    @Test
+    public void testIndexedDijkstraMatchesDijkstra() {
+        Random random = new Random(47);
+        for (int round = 0; round < 3; round++) {
+            Graph<Integer, Double> g = Fixtures.randomGraph(random);
+            IndexedGraph<Integer, Double> indexed = IndexedGraph.of(g);
+            List<Integer> ends = new ArrayList<>(g.listNodeLabels());
+            for (int start = 0; start < 80; start += 11) {
+                List<Path<Integer>> paths = ShortestPath.dijkstraAll(indexed, start, ends);
+                for (int k = 0; k < ends.size(); k++) {
+                    Path<Integer> expected = ShortestPath.dijkstra(g, start, ends.get(k));
+                    Assert.assertEquals(expected, ShortestPath.dijkstra(indexed, start, ends.get(k)));
+                    Assert.assertEquals(expected, ShortestPath.dijkstraBidirectional(indexed, start, ends.get(k)));
+                    Assert.assertEquals(expected, paths.get(k));
+                    Assert.assertEquals(expected.getCost(), paths.get(k).getCost(), 0);
+                }
+            }
+        }
+    }
+
+    /**
+     * Test the indexed dijkstra finds the same paths as dijkstra on the campus map
+     */
+    @Test
+    public void testIndexedDijkstraCampus() {
+        Graph<Point, Double> g = Fixtures.campusGraph();
+        IndexedGraph<Point, Double> indexed = Fixtures.indexCampus(g);
+        Random random = new Random(47);
+        for (int i = 0; i < 20; i++) {
+            Point start = indexed.nodeLabel(random.nextInt(indexed.nodeCount()));
+            Point end = indexed.nodeLabel(random.nextInt(indexed.nodeCount()));
+            Path<Point> expected = ShortestPath.dijkstra(g, start, end);
+            Assert.assertEquals(expected, ShortestPath.dijkstra(indexed, start, end));
+            Assert.assertEquals(expected, ShortestPath.dijkstraBidirectional(indexed, start, end));
+        }
+    }
+
+    /**
+     * Test A* with a straight line heuristic finds the same paths as dijkstra on random
+     * graphs whose edges are no shorter than the straight line between their ends
+     */
+    @Test
+    public void testAStarMatchesDijkstra() {
+        Random random = new Random(48);
+        Graph<Point, Double> g = new Graph<>();
+        List<Point> points = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            Point p = new Point(random.nextDouble() * 100, random.nextDouble() * 100);
+            points.add(p);
+            g.addNode(p);
+        }
+        for (int i = 0; i < 400; i++) {
+            Point a = points.get(random.nextInt(points.size()));
+            Point b = points.get(random.nextInt(points.size()));
+            double straight = Math.hypot(a.getX() - b.getX(), a.getY() - b.getY());
+            g.addBiEdge(a, b, straight * (1 + random.nextDouble()), true);
+        }
+        IndexedGraph<Point, Double> indexed = Fixtures.indexCampus(g);
+        for (int i = 0; i < 100; i++) {
+            Point start = points.get(random.nextInt(points.size()));
+            Point end = points.get(random.nextInt(points.size()));
+            Path<Point> expected = ShortestPath.dijkstra(indexed, start, end);
+            Path<Point> actual = ShortestPath.aStar(indexed, start, end,
+                    p -> Math.hypot(p.getX() - end.getX(), p.getY() - end.getY()));
+            Assert.assertEquals(expected, actual);
+            Assert.assertEquals(expected, ShortestPath.aStar(indexed, start, end, p -> 0));
+        }
+    }
+
+    /**
+     * Test A* on a graph where no path exists between nodes, and from a node to itself
+     */
+    @Test
+    public void testAStarNoPath() {
+        Graph<String, Double> g = new Graph<>();
+        g.addNode("a");
+        g.addNode("b");
+        g.addNode("c");
+        g.addEdge("b", "a", 1d, true);
+        IndexedGraph<String, Double> indexed = IndexedGraph.of(g);
+        Assert.assertEquals(new Path<>("a"), ShortestPath.aStar(indexed, "a", "b", n -> 0));
+        Assert.assertEquals(new Path<>("a"), ShortestPath.aStar(indexed, "a", "a", n -> 0));
+        Assert.assertEquals(new Path<>("b").extend("a", 1d), ShortestPath.aStar(indexed, "b", "a", n -> 0));
+    }
+
+    /**
+     * Test bidirectional dijkstra where no path exists, from a node to itself, and against
+     * one way edges and edges leading to several nodes
+     */
+    @Test
+    public void testBidirectionalEdgeCases() {
+        Graph<String, Double> g = new Graph<>();
+        g.addNode("a");
+        g.addNode("b");
+        g.addNode("c");
+        g.addNode("d");
+        g.addEdge("b", "a", 1d, true);
+        g.addEdge("a", "c", 5d, true);
+        g.addEdge("c", "d", 1d, true);
+        g.addEdge("a", "d", 7d, true);
+        IndexedGraph<String, Double> indexed = IndexedGraph.of(g);
+        Assert.assertEquals(new Path<>("a"), ShortestPath.dijkstraBidirectional(indexed, "a", "b"));
+        Assert.assertEquals(new Path<>("a"), ShortestPath.dijkstraBidirectional(indexed, "a", "a"));
+        Assert.assertEquals(new Path<>("b").extend("a", 1d).extend("c", 5d).extend("d", 1d),
+                ShortestPath.dijkstraBidirectional(indexed, "b", "d"));
+        Assert.assertEquals(new Path<>("d"), ShortestPath.dijkstraBidirectional(indexed, "d", "b"));
+    }
 }
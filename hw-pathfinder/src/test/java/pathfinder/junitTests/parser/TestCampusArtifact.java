@@ -0,0 +1,39 @@
+package pathfinder.junitTests.parser;
+
+import org.junit.Test;
+import pathfinder.parser.CampusArtifact;
+import pathfinder.parser.CampusPathsParser;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static pathfinder.junitTests.Fixtures.dataFile;
+import static pathfinder.junitTests.Fixtures.tempFile;
+
+public class TestCampusArtifact {
+
+    @Test
+    public void testRoundTrip() throws IOException, URISyntaxException {
+        Path file = tempFile("campus", ".graph");
+        CampusArtifact.save(dataFile("campus_buildings.tsv"), dataFile("campus_paths.tsv"), file);
+        CampusArtifact artifact = CampusArtifact.load(file);
+        assertEquals(CampusPathsParser.parseCampusBuildings("campus_buildings.tsv"), artifact.getBuildings());
+        assertEquals(CampusPathsParser.parseCampusPaths("campus_paths.tsv"), artifact.getPaths());
+    }
+
+    @Test
+    public void testResourceMatchesParsing() {
+        CampusArtifact artifact = CampusArtifact.loadResource();
+        if (artifact != null) {
+            assertEquals(CampusPathsParser.parseCampusBuildings("campus_buildings.tsv"), artifact.getBuildings());
+            assertEquals(CampusPathsParser.parseCampusPaths("campus_paths.tsv"), artifact.getPaths());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLoadNotAnArtifact() throws IOException, URISyntaxException {
+        CampusArtifact.load(dataFile("campus_buildings.tsv"));
+    }
+}
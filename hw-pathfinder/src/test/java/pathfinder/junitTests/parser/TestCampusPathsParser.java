@@ -0,0 +1,35 @@
+package pathfinder.junitTests.parser;
+
+import org.junit.Test;
+import pathfinder.parser.CampusPathsParser;
+
+import java.net.URISyntaxException;
+import java.nio.file.Paths;
+
+import static org.junit.Assert.assertEquals;
+import static pathfinder.junitTests.Fixtures.dataFile;
+
+public class TestCampusPathsParser {
+
+    @Test
+    public void testBuildingsFromPathMatchResource() throws URISyntaxException {
+        assertEquals(CampusPathsParser.parseCampusBuildings("campus_buildings.tsv"),
+                     CampusPathsParser.parseCampusBuildings(dataFile("campus_buildings.tsv")));
+    }
+
+    @Test
+    public void testPathsFromPathMatchResource() throws URISyntaxException {
+        assertEquals(CampusPathsParser.parseCampusPaths("campus_paths.tsv"),
+                     CampusPathsParser.parseCampusPaths(dataFile("campus_paths.tsv")));
+    }
+
+    @Test(expected = CampusPathsParser.ParserException.class)
+    public void testMissingFile() {
+        CampusPathsParser.parseCampusPaths(Paths.get("no such file.tsv"));
+    }
+
+    @Test(expected = CampusPathsParser.ParserException.class)
+    public void testWrongFieldCount() throws URISyntaxException {
+        CampusPathsParser.parseCampusPaths(dataFile("campus_buildings.tsv"));
+    }
+}